@@ -0,0 +1,153 @@
+package org.wordpress.android.networking;
+
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.internal.Util;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+public class StreamingRequestTest extends InstrumentationTestCase {
+    private static final String TAG = "StreamingRequestTest";
+
+    private static final int BENCHMARK_FILE_SIZE = 16 * 1024 * 1024;
+    private static final int BENCHMARK_RUNS = 3;
+
+    private File mFile;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (mFile != null) {
+            mFile.delete();
+        }
+        super.tearDown();
+    }
+
+    private File createFile(int size) throws IOException {
+        mFile = new File(getInstrumentation().getTargetContext().getCacheDir(), "streaming-request-test");
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        FileOutputStream output = new FileOutputStream(mFile);
+        try {
+            output.write(bytes);
+        } finally {
+            output.close();
+        }
+        return mFile;
+    }
+
+    public void testWritesEntireFile() throws IOException {
+        // larger than the maximum buffer and not a multiple of it
+        File file = createFile(StreamingRequest.MAX_BUFFER_SIZE * 3 + 123);
+        StreamingRequest request = new StreamingRequest(file);
+        assertEquals(file.length(), request.contentLength());
+
+        Buffer written = new Buffer();
+        request.writeTo(written);
+        Buffer expected = new Buffer();
+        expected.writeAll(Okio.source(file));
+        assertEquals(expected.readByteString(), written.readByteString());
+    }
+
+    public void testBufferSizeIsWithinLimits() {
+        assertEquals(StreamingRequest.MIN_BUFFER_SIZE, StreamingRequest.getBufferSize(0));
+        assertEquals(StreamingRequest.MIN_BUFFER_SIZE, StreamingRequest.getBufferSize(100 * 1024));
+        assertEquals(StreamingRequest.MAX_BUFFER_SIZE, StreamingRequest.getBufferSize(500L * 1024 * 1024));
+        int size = StreamingRequest.getBufferSize(8 * 1024 * 1024);
+        assertTrue(size > StreamingRequest.MIN_BUFFER_SIZE && size < StreamingRequest.MAX_BUFFER_SIZE);
+    }
+
+    /*
+     * compares upload throughput to a local server with the body StreamingRequest used to have, which
+     * read 2KB at a time, flushed after every read and had an unknown length - results are logged
+     */
+    public void testUploadThroughput() throws IOException, InterruptedException {
+        final File file = createFile(BENCHMARK_FILE_SIZE);
+        MockWebServer server = new MockWebServer();
+        server.start();
+        try {
+            OkHttpClient client = new OkHttpClient();
+
+            // warm up the connection pool and the server
+            upload(client, server, new StreamingRequest(file));
+
+            long legacyNanos = 0;
+            long streamingNanos = 0;
+            for (int i = 0; i < BENCHMARK_RUNS; i++) {
+                legacyNanos += upload(client, server, new LegacyStreamingRequest(file));
+                streamingNanos += upload(client, server, new StreamingRequest(file));
+            }
+
+            Log.i(TAG, String.format(Locale.US, "upload throughput: %.1f MB/s before, %.1f MB/s after",
+                    getMegabytesPerSecond(legacyNanos), getMegabytesPerSecond(streamingNanos)));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private long upload(OkHttpClient client, MockWebServer server, RequestBody body)
+            throws IOException, InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        Request request = new Request.Builder()
+                .url(server.getUrl("/upload").toString())
+                .post(body)
+                .build();
+
+        long start = System.nanoTime();
+        Response response = client.newCall(request).execute();
+        long elapsed = System.nanoTime() - start;
+        response.body().close();
+
+        RecordedRequest recordedRequest = server.takeRequest();
+        assertEquals(BENCHMARK_FILE_SIZE, recordedRequest.getBodySize());
+        return elapsed;
+    }
+
+    private static double getMegabytesPerSecond(long totalNanos) {
+        double seconds = totalNanos / 1e9;
+        return ((double) BENCHMARK_FILE_SIZE * BENCHMARK_RUNS) / (1024 * 1024) / seconds;
+    }
+
+    private static class LegacyStreamingRequest extends RequestBody {
+        private final File mFile;
+
+        LegacyStreamingRequest(File file) {
+            mFile = file;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return MediaType.parse("multipart/form-data");
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            Source source = null;
+            try {
+                source = Okio.source(mFile);
+                while (source.read(sink.buffer(), 2048) != -1) {
+                    sink.flush();
+                }
+            } finally {
+                Util.closeQuietly(source);
+            }
+        }
+    }
+}
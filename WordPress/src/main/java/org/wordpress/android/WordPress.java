@@ -12,7 +12,6 @@ import android.net.ConnectivityManager;
 import android.net.http.HttpResponseCache;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.support.multidex.MultiDexApplication;
 import android.support.v7.app.AppCompatDelegate;
@@ -38,6 +37,7 @@ import org.wordpress.android.analytics.AnalyticsTracker;
 import org.wordpress.android.analytics.AnalyticsTracker.Stat;
 import org.wordpress.android.analytics.AnalyticsTrackerNosara;
 import org.wordpress.android.datasets.NotificationsTable;
+import org.wordpress.android.datasets.PostListImageTable;
 import org.wordpress.android.datasets.ReaderDatabase;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.generated.AccountActionBuilder;
@@ -74,12 +74,16 @@ import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.BitmapLruCache;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.DateTimeUtils;
+import org.wordpress.android.util.DiskBitmapCache;
 import org.wordpress.android.util.FluxCUtils;
 import org.wordpress.android.util.HelpshiftHelper;
 import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.PackageUtils;
 import org.wordpress.android.util.ProfilingUtils;
 import org.wordpress.android.util.RateLimitedTask;
+import org.wordpress.android.util.StartupOrchestrator;
+import org.wordpress.android.util.StartupOrchestrator.Stage;
+import org.wordpress.android.util.StartupTrace;
 import org.wordpress.android.util.VolleyUtils;
 import org.wordpress.android.util.WPActivityUtils;
 import org.wordpress.passcodelock.AbstractAppLock;
@@ -116,11 +120,21 @@ public class WordPress extends MultiDexApplication {
     private static final int SECONDS_BETWEEN_BLOGLIST_UPDATE = 15 * 60; // 15 minutes
     private static final int SECONDS_BETWEEN_DELETE_STATS = 5 * 60; // 5 minutes
 
+    private static final String BITMAP_DISK_CACHE_DIR = "bitmaps";
+    private static final long BITMAP_DISK_CACHE_SIZE = 20 * 1024 * 1024; // 20MB
+
+    private static final String APP_LOG_FILE_NAME = "applog";
+    // more than the default so busy syncs and uploads don't push out the history leading up to them
+    private static final int APP_LOG_CAPACITY = 250;
+
     private static Context mContext;
     private static BitmapLruCache mBitmapCache;
 
     private static GoogleApiClient mCredentialsClient;
 
+    private static final String STARTUP_TRACE_FILE_NAME = "startup-trace";
+    private StartupTrace mStartupTrace;
+
     @Inject Dispatcher mDispatcher;
     @Inject AccountStore mAccountStore;
     @Inject SiteStore mSiteStore;
@@ -188,7 +202,14 @@ public class WordPress extends MultiDexApplication {
             // number of items. See http://developer.android.com/training/displaying-bitmaps/cache-bitmap.html
             int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
             int cacheSize = maxMemory / 4;  //Use 1/4th of the available memory for this memory cache.
-            mBitmapCache = new BitmapLruCache(cacheSize);
+            // network images are also kept on disk so they don't have to be downloaded again after the
+            // memory cache is evicted on memory pressure
+            DiskBitmapCache diskCache = null;
+            if (mContext != null) {
+                diskCache = new DiskBitmapCache(new File(mContext.getCacheDir(), BITMAP_DISK_CACHE_DIR),
+                        BITMAP_DISK_CACHE_SIZE);
+            }
+            mBitmapCache = new BitmapLruCache(cacheSize, diskCache);
         }
         return mBitmapCache;
     }
@@ -197,12 +218,140 @@ public class WordPress extends MultiDexApplication {
     public void onCreate() {
         super.onCreate();
         mContext = this;
-        long startDate = SystemClock.elapsedRealtime();
+        ProfilingUtils.start("App Startup");
+        versionName = PackageUtils.getVersionName(this);
+        mStartupTrace = new StartupTrace(new File(getFilesDir(), STARTUP_TRACE_FILE_NAME), versionName,
+                PackageUtils.getVersionCode(this));
+
+        // only what the first screen needs blocks startup - the rest runs in the background or once the
+        // main thread is idle
+        StartupOrchestrator startup = new StartupOrchestrator(mStartupTrace);
+        startup.add("wellsql", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                WellSql.init(new WellSqlConfig(getApplicationContext()));
+            }
+        });
+        startup.add("dagger", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                initDagger();
+            }
+        }, "wellsql");
+        startup.add("crashlytics", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                if (!PackageUtils.isDebugBuild()) {
+                    Fabric.with(WordPress.this, new Crashlytics());
+                }
+            }
+        });
+        startup.add("app-log", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                initAppLog();
+            }
+        }, "crashlytics");
+        startup.add("wp-db", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                initWpDb();
+            }
+        }, "app-log");
+        startup.add("event-bus", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                EventBus.TAG = "WordPress-EVENT";
+                EventBus.builder()
+                        .logNoSubscriberMessages(false)
+                        .sendNoSubscriberEvent(false)
+                        .throwSubscriberException(true)
+                        .installDefaultEventBus();
+            }
+        });
+        startup.add("rest-client", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                RestClientUtils.setUserAgent(getUserAgent());
+            }
+        }, "dagger");
+        startup.add("app-lock", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                initAppLock();
+            }
+        });
+        startup.add("lifecycle-monitor", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                ApplicationLifecycleMonitor applicationLifecycleMonitor = new ApplicationLifecycleMonitor();
+                registerComponentCallbacks(applicationLifecycleMonitor);
+                registerActivityLifecycleCallbacks(applicationLifecycleMonitor);
+            }
+        }, "dagger");
+        // the first activity tracks that the app was opened, so the trackers have to be registered and
+        // installs and upgrades tracked first
+        startup.add("analytics", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                AnalyticsTracker.registerTracker(new AnalyticsTrackerNosara(getContext()));
+                AnalyticsTracker.init(getContext());
+                trackInstallAndUpgrade(mStartupTrace.now());
+            }
+        }, "dagger");
+        startup.add("locale", Stage.BLOCKING, new Runnable() {
+            @Override
+            public void run() {
+                // If users uses a custom locale set it on start of application
+                WPActivityUtils.applyLocale(getContext());
+
+                // Allows vector drawable from resources (in selectors for instance) on Android < 21 (can cause
+                // issues with memory usage and the use of Configuration). More informations:
+                // https://developer.android.com/reference/android/support/v7/app/AppCompatDelegate.html#setCompatVectorFromResourcesEnabled(boolean)
+                // Note: if removed, this will cause crashes on Android < 21
+                AppCompatDelegate.setCompatVectorFromResourcesEnabled(true);
+            }
+        });
+
+        startup.add("http-cache", Stage.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                enableHttpResponseCache(mContext);
+            }
+        });
+        startup.add("media-upload-state", Stage.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                // verify media is sanitized
+                sanitizeMediaUploadState();
+            }
+        }, "dagger");
+
+        startup.add("helpshift", Stage.IDLE, new Runnable() {
+            @Override
+            public void run() {
+                HelpshiftHelper.init(WordPress.this);
+            }
+        });
+        startup.add("credentials-client", Stage.IDLE, new Runnable() {
+            @Override
+            public void run() {
+                // setup the Credentials Client so we can clean it up on wpcom logout
+                mCredentialsClient = new GoogleApiClient.Builder(WordPress.this)
+                        .addConnectionCallbacks(new GoogleApiClient.ConnectionCallbacks() {
+                            @Override public void onConnected(@Nullable Bundle bundle) {}
+                            @Override public void onConnectionSuspended(int i) {}
+                        })
+                        .addApi(Auth.CREDENTIALS_API)
+                        .build();
+                mCredentialsClient.connect();
+            }
+        });
 
-        // Init WellSql
-        WellSql.init(new WellSqlConfig(getApplicationContext()));
+        startup.start();
+    }
 
-        // Init Dagger
+    private void initDagger() {
         mAppComponent = DaggerAppComponent.builder()
                 .appContextModule(new AppContextModule(getApplicationContext()))
                 .build();
@@ -213,14 +362,11 @@ public class WordPress extends MultiDexApplication {
         sRequestQueue = mRequestQueue;
         sImageLoader = mImageLoader;
         sOAuthAuthenticator = mOAuthAuthenticator;
+    }
 
-        if (!PackageUtils.isDebugBuild()) {
-            Fabric.with(this, new Crashlytics());
-        }
-
-        ProfilingUtils.start("App Startup");
-        // Enable log recording
-        AppLog.enableRecording(true);
+    private void initAppLog() {
+        // Enable log recording, persisted so the log leading up to a crash is still available
+        AppLog.enableRecording(true, APP_LOG_CAPACITY, new File(getFilesDir(), APP_LOG_FILE_NAME));
         AppLog.addListener(new AppLogListener() {
             @Override
             public void onLog(T tag, LogLevel logLevel, String message) {
@@ -231,22 +377,9 @@ public class WordPress extends MultiDexApplication {
             }
         });
         AppLog.i(T.UTILS, "WordPress.onCreate");
+    }
 
-        versionName = PackageUtils.getVersionName(this);
-        initWpDb();
-        enableHttpResponseCache(mContext);
-
-        // EventBus setup
-        EventBus.TAG = "WordPress-EVENT";
-        EventBus.builder()
-                .logNoSubscriberMessages(false)
-                .sendNoSubscriberEvent(false)
-                .throwSubscriberException(true)
-                .installDefaultEventBus();
-
-
-        RestClientUtils.setUserAgent(getUserAgent());
-
+    private void initAppLock() {
         // PasscodeLock setup
         if(!AppLockManager.getInstance().isAppLockFeatureEnabled()) {
             // Make sure that PasscodeLock isn't already in place.
@@ -257,55 +390,26 @@ public class WordPress extends MultiDexApplication {
             AppLockManager.getInstance().getAppLock().setExemptActivities(
                     new String[]{"org.wordpress.android.ui.ShareIntentReceiverActivity"});
         }
-
-        HelpshiftHelper.init(this);
-
-        ApplicationLifecycleMonitor applicationLifecycleMonitor = new ApplicationLifecycleMonitor();
-        registerComponentCallbacks(applicationLifecycleMonitor);
-        registerActivityLifecycleCallbacks(applicationLifecycleMonitor);
-
-        initAnalytics(SystemClock.elapsedRealtime() - startDate);
-
-        // If users uses a custom locale set it on start of application
-        WPActivityUtils.applyLocale(getContext());
-
-        // Allows vector drawable from resources (in selectors for instance) on Android < 21 (can cause issues
-        // with memory usage and the use of Configuration). More informations:
-        // https://developer.android.com/reference/android/support/v7/app/AppCompatDelegate.html#setCompatVectorFromResourcesEnabled(boolean)
-        // Note: if removed, this will cause crashes on Android < 21
-        AppCompatDelegate.setCompatVectorFromResourcesEnabled(true);
-
-        // verify media is sanitized
-        sanitizeMediaUploadStateForSite();
-
-        // setup the Credentials Client so we can clean it up on wpcom logout
-        mCredentialsClient = new GoogleApiClient.Builder(this)
-                .addConnectionCallbacks(new GoogleApiClient.ConnectionCallbacks() {
-                    @Override public void onConnected(@Nullable Bundle bundle) {}
-                    @Override public void onConnectionSuspended(int i) {}
-                })
-                .addApi(Auth.CREDENTIALS_API)
-                .build();
-        mCredentialsClient.connect();
     }
 
     private void sanitizeMediaUploadStateForSite() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sanitizeMediaUploadState();
+            }
+        }).start();
+    }
+
+    private void sanitizeMediaUploadState() {
         int siteLocalId = AppPrefs.getSelectedSite();
-        final SiteModel selectedSite = mSiteStore.getSiteByLocalId(siteLocalId);
+        SiteModel selectedSite = mSiteStore.getSiteByLocalId(siteLocalId);
         if (selectedSite != null) {
-            new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    UploadService.sanitizeMediaUploadStateForSite(mMediaStore, mDispatcher, selectedSite);
-                }
-            }).start();
+            UploadService.sanitizeMediaUploadStateForSite(mMediaStore, mDispatcher, selectedSite);
         }
     }
 
-    private void initAnalytics(final long elapsedTimeOnCreate) {
-        AnalyticsTracker.registerTracker(new AnalyticsTrackerNosara(getContext()));
-        AnalyticsTracker.init(getContext());
-
+    private void trackInstallAndUpgrade(final long elapsedTimeOnCreate) {
         AnalyticsUtils.refreshMetadata(mAccountStore, mSiteStore);
 
         // Track app upgrade and install
@@ -510,6 +614,9 @@ public class WordPress extends MultiDexApplication {
 
         // Reset Notifications Data
         NotificationsTable.reset();
+
+        // Reset the post list's images, which are keyed by local post ids that may be reused
+        PostListImageTable.reset();
     }
 
     /**
@@ -815,6 +922,7 @@ public class WordPress extends MultiDexApplication {
 
             sAppIsInTheBackground = false;
             if (mFirstActivityResumed) {
+                mStartupTrace.addMilestone("first_activity_resumed");
                 deferredInit(activity);
             }
             mFirstActivityResumed = false;
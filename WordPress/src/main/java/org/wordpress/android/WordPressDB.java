@@ -6,6 +6,7 @@ import android.database.sqlite.SQLiteDatabase;
 
 import org.wordpress.android.datasets.NotificationsTable;
 import org.wordpress.android.datasets.PeopleTable;
+import org.wordpress.android.datasets.PostListImageTable;
 import org.wordpress.android.datasets.SiteSettingsTable;
 import org.wordpress.android.datasets.SuggestionTable;
 import org.wordpress.android.datasets.ThemeTable;
@@ -21,7 +22,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 
 public class WordPressDB {
-    private static final int DATABASE_VERSION = 58;
+    private static final int DATABASE_VERSION = 59;
 
     // Warning if you rename DATABASE_NAME, that could break previous App backups (see: xml/backup_scheme.xml)
     private static final String DATABASE_NAME = "wordpress";
@@ -44,6 +45,7 @@ public class WordPressDB {
         SiteSettingsTable.createTable(db);
         SuggestionTable.createTables(db);
         NotificationsTable.createTables(db);
+        PostListImageTable.createTables(db);
 
         // Update tables for new installs and app updates
         int currentVersion = db.getVersion();
@@ -193,6 +195,10 @@ public class WordPressDB {
                 // Migrate media optimization settings
                 SiteSettingsTable.migrateMediaOptimizeSettings(db);
                 currentVersion++;
+            case 58:
+                // Store the notifications list fields in their own columns
+                NotificationsTable.migrateToListColumns(db);
+                currentVersion++;
         }
         db.setVersion(DATABASE_VERSION);
     }
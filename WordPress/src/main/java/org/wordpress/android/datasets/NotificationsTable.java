@@ -25,52 +25,167 @@ public class NotificationsTable {
 
     public static int NOTES_TO_RETRIEVE = 200;
 
+    // columns needed to display notes in the notifications list, which enables loading the list
+    // without parsing raw_note_data
+    private static final String LIST_COLUMN_NAMES =
+            "note_id,"              // 0
+          + "type,"                 // 1
+          + "timestamp,"            // 2
+          + "unread,"               // 3
+          + "subject,"              // 4
+          + "subject_noticon,"      // 5
+          + "comment_subject,"      // 6
+          + "icon_url,"             // 7
+          + "noticon,"              // 8
+          + "comment_id,"           // 9
+          + "parent_comment_id,"    // 10
+          + "is_comment_type,"      // 11
+          + "comment_status";       // 12
+
     public static void createTables(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE IF NOT EXISTS " + NOTIFICATIONS_TABLE + " ("
                 + "id                       INTEGER PRIMARY KEY DEFAULT 0,"
                 + "note_id                  TEXT,"
                 + "type                     TEXT,"
                 + "raw_note_data            TEXT,"
-                + "timestamp                INTEGER," +
+                + "timestamp                INTEGER,"
+                + "unread                   INTEGER DEFAULT 0,"
+                + "subject                  TEXT,"
+                + "subject_noticon          TEXT,"
+                + "comment_subject          TEXT,"
+                + "icon_url                 TEXT,"
+                + "noticon                  TEXT,"
+                + "comment_id               INTEGER DEFAULT 0,"
+                + "parent_comment_id        INTEGER DEFAULT 0,"
+                + "is_comment_type          INTEGER DEFAULT 0,"
+                + "comment_status           TEXT," +
                 " UNIQUE (note_id) ON CONFLICT REPLACE"
                 + ")");
+        createIndexes(db);
+    }
+
+    private static void createIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_notifications_timestamp ON " + NOTIFICATIONS_TABLE + "(timestamp)");
     }
 
     private static void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS " + NOTIFICATIONS_TABLE);
     }
 
+    /*
+     * notes used to be stored only as raw json - this recreates the table with the list columns
+     * and fills them in from each existing note's json. note that this is passed the db since
+     * it's called while WordPressDB is being created
+     */
+    public static void migrateToListColumns(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT * FROM " + NOTIFICATIONS_TABLE + " LIMIT 0", null);
+        boolean hasListColumns;
+        try {
+            hasListColumns = cursor.getColumnIndex("unread") != -1;
+        } finally {
+            cursor.close();
+        }
+        if (hasListColumns) {
+            // new install, table was created with the list columns
+            return;
+        }
+
+        String oldTable = NOTIFICATIONS_TABLE + "_old";
+        db.beginTransaction();
+        try {
+            db.execSQL("ALTER TABLE " + NOTIFICATIONS_TABLE + " RENAME TO " + oldTable);
+            createTables(db);
+
+            cursor = db.rawQuery("SELECT note_id, raw_note_data FROM " + oldTable, null);
+            try {
+                while (cursor.moveToNext()) {
+                    String noteId = cursor.getString(0);
+                    try {
+                        insertNote(db, new Note(noteId, new JSONObject(cursor.getString(1))));
+                    } catch (JSONException e) {
+                        AppLog.e(AppLog.T.DB, "Can't migrate notification with note_id:" + noteId + ", exception:" + e);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+
+            // the timestamp index moved to the old table when it was renamed, so it has to be
+            // created again once the old table is dropped
+            db.execSQL("DROP TABLE " + oldTable);
+            createIndexes(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     public static ArrayList<Note> getLatestNotes() {
         return getLatestNotes(NOTES_TO_RETRIEVE);
     }
 
+    /*
+     * returns the latest notes for display in the notifications list - these are loaded from the
+     * list columns, so the raw note json isn't parsed unless a note is opened
+     */
     public static ArrayList<Note> getLatestNotes(int limit) {
-        Cursor cursor = getDb().query(NOTIFICATIONS_TABLE, new String[] {"note_id", "raw_note_data"},
-                null, null, null, null, "timestamp DESC", "" + limit);
-        ArrayList<Note> notes = new ArrayList<Note>();
-        while (cursor.moveToNext()) {
-            String note_id = cursor.getString(0);
-            String raw_note_data = cursor.getString(1);
-            try {
-                Note note = new Note(note_id, new JSONObject(raw_note_data));
-                notes.add(note);
-            } catch (JSONException e) {
-                AppLog.e(AppLog.T.DB, "Can't parse notification with note_id:" + note_id + ", exception:" + e);
+        Cursor cursor = getDb().rawQuery("SELECT " + LIST_COLUMN_NAMES + " FROM " + NOTIFICATIONS_TABLE
+                + " ORDER BY timestamp DESC LIMIT " + limit, null);
+        ArrayList<Note> notes = new ArrayList<Note>(cursor.getCount());
+        try {
+            while (cursor.moveToNext()) {
+                notes.add(Note.fromListColumns(
+                        cursor.getString(0),
+                        cursor.getString(1),
+                        cursor.getLong(2),
+                        SqlUtils.sqlToBool(cursor.getInt(3)),
+                        cursor.getString(4),
+                        cursor.getString(5),
+                        cursor.getString(6),
+                        cursor.getString(7),
+                        cursor.getString(8),
+                        cursor.getLong(9),
+                        cursor.getLong(10),
+                        SqlUtils.sqlToBool(cursor.getInt(11)),
+                        cursor.getString(12)));
             }
+        } finally {
+            cursor.close();
         }
-        cursor.close();
         return notes;
     }
 
-    private static boolean putNote(Note note, boolean checkBeforeInsert) {
+    private static ContentValues getContentValues(Note note) {
+        JSONObject subject = note.getSubject();
+
         ContentValues values = new ContentValues();
         values.put("type", note.getType());
         values.put("timestamp", note.getTimestamp());
         values.put("raw_note_data", note.getJSON().toString());
+        values.put("unread", SqlUtils.boolToSql(note.isUnread()));
+        values.put("subject", subject != null ? subject.toString() : null);
+        values.put("subject_noticon", note.getCommentSubjectNoticon());
+        values.put("comment_subject", note.getCommentSubject());
+        values.put("icon_url", note.getIconURL());
+        values.put("noticon", note.getNoticonCharacter());
+        values.put("comment_id", note.getCommentId());
+        values.put("parent_comment_id", note.getParentCommentId());
+        values.put("is_comment_type", SqlUtils.boolToSql(note.isCommentType()));
+        values.put("comment_status", note.getCommentStatus().toString());
+        return values;
+    }
 
+    private static long insertNote(SQLiteDatabase db, Note note) {
+        ContentValues values = getContentValues(note);
+        values.put("note_id", note.getId());
+        return db.insertWithOnConflict(NOTIFICATIONS_TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static boolean putNote(Note note, boolean checkBeforeInsert) {
         long result;
         if(checkBeforeInsert && isNoteAvailable(note.getId())) {
             // Update
+            ContentValues values = getContentValues(note);
             String[] args = {note.getId()};
             result = getDb().update(
                     NOTIFICATIONS_TABLE,
@@ -80,8 +195,7 @@ public class NotificationsTable {
             return result == 1;
         }  else {
             // insert
-            values.put("note_id", note.getId());
-            result = getDb().insertWithOnConflict(NOTIFICATIONS_TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            result = insertNote(getDb(), note);
             if (result == -1) {
                 AppLog.e(AppLog.T.DB, "An error occurred while saving the note into the DB -  note_id:" + note.getId());
             }
@@ -131,6 +245,30 @@ public class NotificationsTable {
                 args);
     }
 
+    /*
+     * returns the full json for the passed note - used to lazily load the json for notes which
+     * were loaded for the notifications list
+     */
+    public static JSONObject getNoteJSONById(String noteID) {
+        if (TextUtils.isEmpty(noteID)) {
+            return null;
+        }
+        String[] args = {noteID};
+        String rawNoteData = SqlUtils.stringForQuery(getDb(),
+                "SELECT raw_note_data FROM " + NOTIFICATIONS_TABLE + " WHERE note_id=?",
+                args);
+        if (TextUtils.isEmpty(rawNoteData)) {
+            AppLog.v(AppLog.T.DB, "No Note found in the DB with this id: " + noteID);
+            return null;
+        }
+        try {
+            return new JSONObject(rawNoteData);
+        } catch (JSONException e) {
+            AppLog.e(AppLog.T.DB, "Can't parse JSON Note: " + e);
+            return null;
+        }
+    }
+
     public static Note getNoteById(String noteID) {
         if (TextUtils.isEmpty(noteID)) {
             AppLog.e(AppLog.T.DB, "Asking for a note with null Id. Really?" + noteID);
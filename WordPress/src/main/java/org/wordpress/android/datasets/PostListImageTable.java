@@ -0,0 +1,131 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.WordPress;
+import org.wordpress.android.fluxc.model.PostModel;
+import org.wordpress.android.util.SqlUtils;
+import org.wordpress.android.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * stores the image shown for each post in the post list when it doesn't have a featured image, which
+ * is found by scanning the post's content - rows are keyed by local post id and are only used while
+ * the post's content is the same as when it was scanned, so posts are only scanned again once
+ * they've changed. an empty image_url means the post doesn't have any images.
+ */
+public class PostListImageTable {
+    private static final String POST_LIST_IMAGES_TABLE = "tbl_post_list_images";
+
+    private static SQLiteDatabase getDb() {
+        return WordPress.wpDB.getDatabase();
+    }
+
+    public static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + POST_LIST_IMAGES_TABLE + " ("
+                + "    post_id          INTEGER PRIMARY KEY,"
+                + "    local_site_id    INTEGER DEFAULT 0,"
+                + "    content_hash     INTEGER DEFAULT 0,"
+                + "    content_length   INTEGER DEFAULT 0,"
+                + "    is_private       INTEGER DEFAULT 0,"
+                + "    image_url        TEXT"
+                + " );");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_post_list_images_site ON "
+                + POST_LIST_IMAGES_TABLE + "(local_site_id)");
+    }
+
+    private static void dropTables(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + POST_LIST_IMAGES_TABLE);
+    }
+
+    /*
+     * returns the stored image urls of the passed posts keyed by local post id - posts which haven't
+     * been stored, or which have changed since they were, aren't included
+     */
+    @NonNull
+    public static Map<Integer, String> getImageUrls(int localSiteId, boolean isPrivate, List<PostModel> posts) {
+        Map<Integer, String> imageUrls = new HashMap<>();
+        if (posts.isEmpty()) {
+            return imageUrls;
+        }
+
+        Map<Integer, PostModel> postsById = new HashMap<>(posts.size());
+        for (PostModel post : posts) {
+            postsById.put(post.getId(), post);
+        }
+
+        String[] args = {Integer.toString(localSiteId), Long.toString(SqlUtils.boolToSql(isPrivate))};
+        Cursor c = getDb().rawQuery("SELECT post_id, content_hash, content_length, image_url FROM "
+                + POST_LIST_IMAGES_TABLE + " WHERE local_site_id=? AND is_private=?", args);
+        try {
+            while (c.moveToNext()) {
+                PostModel post = postsById.get(c.getInt(0));
+                if (post != null && isSameContent(post, c.getInt(1), c.getInt(2))) {
+                    imageUrls.put(post.getId(), StringUtils.notNullStr(c.getString(3)));
+                }
+            }
+        } finally {
+            SqlUtils.closeCursor(c);
+        }
+
+        return imageUrls;
+    }
+
+    /*
+     * stores the image urls found by scanning the content of the passed posts, keyed by local post id
+     */
+    public static void saveImageUrls(int localSiteId, boolean isPrivate, List<PostModel> posts,
+                                     Map<Integer, String> imageUrls) {
+        if (posts.isEmpty()) {
+            return;
+        }
+
+        SQLiteDatabase db = getDb();
+        SQLiteStatement stmt = db.compileStatement("INSERT OR REPLACE INTO " + POST_LIST_IMAGES_TABLE
+                + " (post_id, local_site_id, content_hash, content_length, is_private, image_url)"
+                + " VALUES (?1,?2,?3,?4,?5,?6)");
+        db.beginTransaction();
+        try {
+            for (PostModel post : posts) {
+                String content = StringUtils.notNullStr(post.getContent());
+                stmt.bindLong  (1, post.getId());
+                stmt.bindLong  (2, localSiteId);
+                stmt.bindLong  (3, content.hashCode());
+                stmt.bindLong  (4, content.length());
+                stmt.bindLong  (5, SqlUtils.boolToSql(isPrivate));
+                stmt.bindString(6, StringUtils.notNullStr(imageUrls.get(post.getId())));
+                stmt.execute();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
+    private static boolean isSameContent(@NonNull PostModel post, int contentHash, int contentLength) {
+        String content = StringUtils.notNullStr(post.getContent());
+        return content.length() == contentLength && content.hashCode() == contentHash;
+    }
+
+    /*
+     * drop & recreate post list images table
+     */
+    public static void reset() {
+        SQLiteDatabase db = getDb();
+        db.beginTransaction();
+        try {
+            dropTables(db);
+            createTables(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -17,8 +17,6 @@ import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.SqlUtils;
 import org.wordpress.android.util.UrlUtils;
 
-import java.util.Date;
-
 /**
  * tbl_blog_info contains information about blogs viewed in the reader, and blogs the
  * user is following. Note that this table is populated from two endpoints:
@@ -148,7 +146,7 @@ public class ReaderBlogTable {
             stmt.bindLong  (9, SqlUtils.boolToSql(blogInfo.isJetpack));
             stmt.bindLong  (10, SqlUtils.boolToSql(blogInfo.isFollowing));
             stmt.bindLong  (11, blogInfo.numSubscribers);
-            stmt.bindString(12, DateTimeUtils.iso8601FromDate(new Date()));
+            stmt.bindString(12, DateTimeUtils.iso8601FromTimestampMillis(System.currentTimeMillis()));
             stmt.execute();
         } finally {
             SqlUtils.closeStatement(stmt);
@@ -392,12 +390,11 @@ public class ReaderBlogTable {
             return NEVER_UPDATED;
         }
 
-        Date dtUpdated = DateTimeUtils.dateFromIso8601(updated);
-        if (dtUpdated == null) {
+        long updatedMillis = DateTimeUtils.timestampFromIso8601Millis(updated);
+        if (updatedMillis == 0) {
             return 0;
         }
 
-        Date dtNow = new Date();
-        return DateTimeUtils.minutesBetween(dtUpdated, dtNow);
+        return DateTimeUtils.minutesBetween(updatedMillis, System.currentTimeMillis());
     }
 }
@@ -5,6 +5,8 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
 import org.wordpress.android.WordPress;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler.Priority;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 
@@ -19,7 +21,7 @@ import java.io.OutputStream;
  */
 public class ReaderDatabase extends SQLiteOpenHelper {
     protected static final String DB_NAME = "wpreader.db";
-    private static final int DB_VERSION = 133;
+    private static final int DB_VERSION = 135;
 
     /*
      * version history
@@ -85,6 +87,8 @@ public class ReaderDatabase extends SQLiteOpenHelper {
      *  131 - added tbl_posts.card_type
      *  132 - no schema changes, simply clearing to accommodate gallery card_type
      *  133 - no schema changes, simply clearing to accommodate video card_type
+     *  134 - added tbl_posts_search and tbl_posts.search_id for offline search
+     *  135 - added tbl_posts.fingerprint to detect unchanged posts when syncing
      */
 
     /*
@@ -227,12 +231,12 @@ public class ReaderDatabase extends SQLiteOpenHelper {
     }
 
     public static void purgeAsync() {
-        new Thread() {
+        ReaderTaskScheduler.executeWrite(Priority.MAINTENANCE, "purge", new Runnable() {
             @Override
             public void run() {
                 purge();
             }
-        }.start();
+        });
     }
 
     /*
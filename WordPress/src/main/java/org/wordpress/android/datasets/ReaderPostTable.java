@@ -2,7 +2,10 @@ package org.wordpress.android.datasets;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
 import android.database.sqlite.SQLiteStatement;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
@@ -22,6 +25,19 @@ import org.wordpress.android.ui.reader.models.ReaderBlogIdPostIdList;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.CrashlyticsUtils;
 import org.wordpress.android.util.SqlUtils;
+import org.wordpress.android.util.StringUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * tbl_posts contains all reader posts - the primary key is pseudo_id + tag_name + tag_type,
@@ -74,7 +90,9 @@ public class ReaderPostTable {
           + "tag_name,"             // 41
           + "tag_type,"             // 42
           + "has_gap_marker,"       // 43
-          + "card_type";            // 44
+          + "card_type,"            // 44
+          + "search_id,"            // 45
+          + "fingerprint";          // 46
 
     // used when querying multiple rows and skipping text column
     private static final String COLUMN_NAMES_NO_TEXT =
@@ -168,6 +186,8 @@ public class ReaderPostTable {
                 + " tag_type            INTEGER DEFAULT 0,"
                 + " has_gap_marker      INTEGER DEFAULT 0,"
                 + " card_type           TEXT,"
+                + " search_id           INTEGER DEFAULT 0,"
+                + " fingerprint         INTEGER DEFAULT 0,"
                 + " PRIMARY KEY (pseudo_id, tag_name, tag_type)"
                 + ")");
 
@@ -175,10 +195,14 @@ public class ReaderPostTable {
         db.execSQL("CREATE INDEX idx_posts_date_published ON tbl_posts(date_published)");
         db.execSQL("CREATE INDEX idx_posts_date_tagged ON tbl_posts(date_tagged)");
         db.execSQL("CREATE INDEX idx_posts_tag_name ON tbl_posts(tag_name)");
+        db.execSQL("CREATE INDEX idx_posts_search_id ON tbl_posts(search_id)");
+
+        createSearchTables(db);
     }
 
     protected static void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS tbl_posts");
+        db.execSQL("DROP TABLE IF EXISTS tbl_posts_search");
     }
 
     protected static void reset(SQLiteDatabase db) {
@@ -186,6 +210,106 @@ public class ReaderPostTable {
         createTables(db);
     }
 
+    /*
+     * tbl_posts_search is a full-text index of the title, excerpt, author and blog name of the posts in
+     * tbl_posts, which enables searching cached posts without a network connection. a post is indexed
+     * once no matter how many streams it's in - its docid is the search_id shared by each of its rows
+     * in tbl_posts. posts are indexed by PostWriter, and the trigger removes a post from the index once
+     * the last of its rows is deleted, so every path which deletes posts keeps the index in sync.
+     */
+    private static void createSearchTables(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE tbl_posts_search USING fts4(title, excerpt, author_name, blog_name)");
+        db.execSQL("CREATE TRIGGER trg_posts_search_delete AFTER DELETE ON tbl_posts"
+                + " WHEN NOT EXISTS (SELECT 1 FROM tbl_posts WHERE search_id=OLD.search_id)"
+                + " BEGIN"
+                + "  DELETE FROM tbl_posts_search WHERE docid=OLD.search_id;"
+                + " END");
+    }
+
+    /*
+     * returns the docid of the passed post in tbl_posts_search - this is a 63-bit FNV-1a hash of the
+     * post's pseudo_id since the index needs an integer key and pseudo_id is a string
+     */
+    private static long getSearchId(@NonNull String pseudoId) {
+        return hashChars(FNV_OFFSET_BASIS, pseudoId) & Long.MAX_VALUE;
+    }
+
+    /*
+     * returns a 64-bit FNV-1a hash of every column PostWriter stores for the passed post other than
+     * the ones which identify the stream it's written to (tag_name, tag_type), the gap marker, the
+     * one derived from pseudo_id (search_id) and railcar_json, which changes every time the post is
+     * fetched. strings are prefixed with their length so adjacent fields can't run into each other.
+     * never returns zero, which is stored when the fingerprint of a row is unknown - ie: after one of
+     * its columns has been changed locally.
+     */
+    static long getFingerprint(@NonNull ReaderPost post) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hashLong(hash, post.postId);
+        hash = hashLong(hash, post.blogId);
+        hash = hashLong(hash, post.feedId);
+        hash = hashLong(hash, post.feedItemId);
+        hash = hashString(hash, post.getPseudoId());
+        hash = hashString(hash, post.getAuthorName());
+        hash = hashString(hash, post.getAuthorFirstName());
+        hash = hashLong(hash, post.authorId);
+        hash = hashString(hash, post.getTitle());
+        hash = hashString(hash, post.getText());
+        hash = hashString(hash, post.getExcerpt());
+        hash = hashString(hash, post.getFormat());
+        hash = hashString(hash, post.getUrl());
+        hash = hashString(hash, post.getShortUrl());
+        hash = hashString(hash, post.getBlogName());
+        hash = hashString(hash, post.getBlogUrl());
+        hash = hashString(hash, post.getBlogImageUrl());
+        hash = hashString(hash, post.getFeaturedImage());
+        hash = hashString(hash, post.getFeaturedVideo());
+        hash = hashString(hash, post.getPostAvatar());
+        hash = hashLong(hash, Double.doubleToLongBits(post.score));
+        hash = hashString(hash, post.getDatePublished());
+        hash = hashString(hash, post.getDateLiked());
+        hash = hashString(hash, post.getDateTagged());
+        hash = hashLong(hash, post.numReplies);
+        hash = hashLong(hash, post.numLikes);
+        hash = hashLong(hash, SqlUtils.boolToSql(post.isLikedByCurrentUser));
+        hash = hashLong(hash, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
+        hash = hashLong(hash, SqlUtils.boolToSql(post.isCommentsOpen));
+        hash = hashLong(hash, SqlUtils.boolToSql(post.isExternal));
+        hash = hashLong(hash, SqlUtils.boolToSql(post.isPrivate));
+        hash = hashLong(hash, SqlUtils.boolToSql(post.isVideoPress));
+        hash = hashLong(hash, SqlUtils.boolToSql(post.isJetpack));
+        hash = hashString(hash, post.getPrimaryTag());
+        hash = hashString(hash, post.getSecondaryTag());
+        hash = hashString(hash, post.getAttachmentsJson());
+        hash = hashString(hash, post.getDiscoverJson());
+        hash = hashLong(hash, post.xpostPostId);
+        hash = hashLong(hash, post.xpostBlogId);
+        hash = hashString(hash, ReaderCardType.toString(post.getCardType()));
+        return hash != 0 ? hash : 1;
+    }
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long hashChars(long hash, @NonNull String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hashString(long hash, @NonNull String value) {
+        return hashChars(hashLong(hash, value.length()), value);
+    }
+
+    private static long hashLong(long hash, long value) {
+        hash ^= (value & 0xffffffffL);
+        hash *= FNV_PRIME;
+        hash ^= (value >>> 32);
+        hash *= FNV_PRIME;
+        return hash;
+    }
+
     /*
      * purge table of unattached/older posts - no need to wrap this in a transaction since it's
      * only called from ReaderDatabase.purge() which already creates a transaction
@@ -271,6 +395,7 @@ public class ReaderPostTable {
         values.put("is_liked", post.isLikedByCurrentUser);
         values.put("is_followed", post.isFollowedByCurrentUser);
         values.put("is_comments_open", post.isCommentsOpen);
+        values.put("fingerprint", 0);
         ReaderDatabase.getWritableDb().update(
                 "tbl_posts", values, "pseudo_id=?", new String[]{ post.getPseudoId() });
 
@@ -350,30 +475,155 @@ public class ReaderPostTable {
         if (posts == null || posts.size() == 0) {
             return ReaderActions.UpdateResult.UNCHANGED;
         }
+        return comparePosts(null, posts).getUpdateResult();
+    }
 
-        boolean hasChanges = false;
+    /*
+     * compares the passed posts with the stored posts in the passed stream (or in the blog/feed
+     * streams if tag is null) using a single query
+     */
+    public static PostComparison comparePosts(ReaderTag tag, @NonNull ReaderPostList posts) {
+        long[] postIds = new long[posts.size()];
+        for (int i = 0; i < posts.size(); i++) {
+            postIds[i] = posts.get(i).postId;
+        }
+        PostComparison comparison = beginComparePosts(tag, postIds);
         for (ReaderPost post: posts) {
-            ReaderPost existingPost = getBlogPost(post.blogId, post.postId, true);
-            if (existingPost == null) {
-                return ReaderActions.UpdateResult.HAS_NEW;
-            } else if (!hasChanges && !post.isSamePost(existingPost)) {
-                hasChanges = true;
-            }
+            comparison.compare(post);
         }
-
-        return (hasChanges ? ReaderActions.UpdateResult.CHANGED : ReaderActions.UpdateResult.UNCHANGED);
+        return comparison;
     }
 
     /*
      * returns true if any posts in the passed list exist in this list
      */
     public static boolean hasOverlap(ReaderPostList posts) {
-        for (ReaderPost post: posts) {
-            if (postExists(post.blogId, post.postId)) {
-                return true;
+        if (posts == null || posts.size() == 0) {
+            return false;
+        }
+        return comparePosts(null, posts).getNewPosts().size() < posts.size();
+    }
+
+    /*
+     * reads the stored state of the posts with the passed ids, which can then be compared one at a
+     * time as they're parsed - see PostComparison
+     */
+    public static PostComparison beginComparePosts(ReaderTag tag, @NonNull long[] postIds) {
+        return new PostComparison(tag, postIds);
+    }
+
+    /**
+     * Compares a page of posts from the server with the stored posts. The stored fingerprints of every
+     * post in the page are read up front in a single query on the post_id index, then each post is
+     * compared with its row in the stream being written and added to the new, changed or unchanged set.
+     * A post which is only stored in other streams counts as changed, since it still has to be added
+     * to this one. Posts whose row in the stream is unchanged don't need to be written again.
+     */
+    public static class PostComparison {
+        // sqlite's default limit on the number of parameters in a statement is 999
+        private static final int MAX_IDS_PER_QUERY = 500;
+
+        private final HashMap<String, Long> mStreamFingerprints = new HashMap<>();
+        private final HashSet<String> mInOtherStreams = new HashSet<>();
+        private final HashSet<String> mUnchangedInStream = new HashSet<>();
+
+        private final ReaderBlogIdPostIdList mNewPosts = new ReaderBlogIdPostIdList();
+        private final ReaderBlogIdPostIdList mChangedPosts = new ReaderBlogIdPostIdList();
+        private final ReaderBlogIdPostIdList mUnchangedPosts = new ReaderBlogIdPostIdList();
+
+        private PostComparison(ReaderTag tag, @NonNull long[] postIds) {
+            String tagName = (tag != null ? tag.getTagSlug() : "");
+            String tagType = Integer.toString(tag != null ? tag.tagType.toInt() : 0);
+            for (int start = 0; start < postIds.length; start += MAX_IDS_PER_QUERY) {
+                int end = Math.min(postIds.length, start + MAX_IDS_PER_QUERY);
+                readFingerprints(tagName, tagType, Arrays.copyOfRange(postIds, start, end));
+            }
+        }
+
+        private void readFingerprints(String tagName, String tagType, long[] postIds) {
+            String[] args = new String[postIds.length + 2];
+            args[0] = tagName;
+            args[1] = tagType;
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < postIds.length; i++) {
+                if (i > 0) {
+                    placeholders.append(',');
+                }
+                placeholders.append('?');
+                args[i + 2] = Long.toString(postIds[i]);
+            }
+
+            Cursor c = ReaderDatabase.getReadableDb().rawQuery(
+                    "SELECT blog_id, post_id, fingerprint, (tag_name=?1 AND tag_type=?2) FROM tbl_posts"
+                            + " WHERE post_id IN (" + placeholders + ")",
+                    args);
+            try {
+                while (c.moveToNext()) {
+                    String key = getKey(c.getLong(0), c.getLong(1));
+                    if (c.getInt(3) != 0) {
+                        mStreamFingerprints.put(key, c.getLong(2));
+                    } else {
+                        mInOtherStreams.add(key);
+                    }
+                }
+            } finally {
+                SqlUtils.closeCursor(c);
+            }
+        }
+
+        private static String getKey(long blogId, long postId) {
+            return blogId + ":" + postId;
+        }
+
+        /*
+         * returns whether the passed post is new or changed compared to the stored one
+         */
+        public ReaderActions.UpdateResult compare(@NonNull ReaderPost post) {
+            String key = getKey(post.blogId, post.postId);
+            Long storedFingerprint = mStreamFingerprints.get(key);
+
+            ReaderBlogIdPostId id = new ReaderBlogIdPostId(post.blogId, post.postId);
+            if (storedFingerprint == null && !mInOtherStreams.contains(key)) {
+                mNewPosts.add(id);
+                return ReaderActions.UpdateResult.HAS_NEW;
+            } else if (storedFingerprint == null || storedFingerprint != getFingerprint(post)) {
+                mChangedPosts.add(id);
+                return ReaderActions.UpdateResult.CHANGED;
+            } else {
+                mUnchangedInStream.add(key);
+                mUnchangedPosts.add(id);
+                return ReaderActions.UpdateResult.UNCHANGED;
+            }
+        }
+
+        /*
+         * returns true if the passed post has been compared and its row in the stream is unchanged
+         */
+        public boolean isUnchangedInStream(@NonNull ReaderPost post) {
+            return mUnchangedInStream.contains(getKey(post.blogId, post.postId));
+        }
+
+        public ReaderBlogIdPostIdList getNewPosts() {
+            return mNewPosts;
+        }
+
+        public ReaderBlogIdPostIdList getChangedPosts() {
+            return mChangedPosts;
+        }
+
+        public ReaderBlogIdPostIdList getUnchangedPosts() {
+            return mUnchangedPosts;
+        }
+
+        public ReaderActions.UpdateResult getUpdateResult() {
+            if (mNewPosts.size() > 0) {
+                return ReaderActions.UpdateResult.HAS_NEW;
+            } else if (mChangedPosts.size() > 0) {
+                return ReaderActions.UpdateResult.CHANGED;
+            } else {
+                return ReaderActions.UpdateResult.UNCHANGED;
             }
         }
-        return false;
     }
 
     /*
@@ -399,6 +649,7 @@ public class ReaderPostTable {
 
         ContentValues values = new ContentValues();
         values.put("num_replies", numComments);
+        values.put("fingerprint", 0);
 
         ReaderDatabase.getWritableDb().update(
                 "tbl_posts",
@@ -447,6 +698,7 @@ public class ReaderPostTable {
         ContentValues values = new ContentValues();
         values.put("num_likes", numLikes);
         values.put("is_liked", SqlUtils.boolToSql(isLikedByCurrentUser));
+        values.put("fingerprint", 0);
 
         ReaderDatabase.getWritableDb().update(
                 "tbl_posts",
@@ -494,7 +746,7 @@ public class ReaderPostTable {
      */
     public static void updateFollowedStatus() {
         SQLiteStatement statement = ReaderDatabase.getWritableDb().compileStatement(
-                  "UPDATE tbl_posts SET is_followed = 0"
+                  "UPDATE tbl_posts SET is_followed = 0, fingerprint = 0"
                 + " WHERE is_followed != 0"
                 + " AND blog_id NOT IN (SELECT DISTINCT blog_id FROM tbl_blog_info WHERE is_followed != 0)");
         try {
@@ -653,11 +905,11 @@ public class ReaderPostTable {
         db.beginTransaction();
         try {
             if (blogId != 0) {
-                String sql = "UPDATE tbl_posts SET is_followed=" + SqlUtils.boolToSql(isFollowed)
+                String sql = "UPDATE tbl_posts SET fingerprint=0, is_followed=" + SqlUtils.boolToSql(isFollowed)
                           + " WHERE blog_id=?";
                 db.execSQL(sql, new String[]{Long.toString(blogId)});
             } else {
-                String sql = "UPDATE tbl_posts SET is_followed=" + SqlUtils.boolToSql(isFollowed)
+                String sql = "UPDATE tbl_posts SET fingerprint=0, is_followed=" + SqlUtils.boolToSql(isFollowed)
                           + " WHERE feed_id=?";
                 db.execSQL(sql, new String[]{Long.toString(feedId)});
             }
@@ -706,124 +958,366 @@ public class ReaderPostTable {
         }
     }
 
+    /*
+     * replaces the posts with the passed tag with the passed posts in a single transaction, so the
+     * stream is never seen - or left, if the write fails - without any posts
+     */
+    public static void replacePostsWithTag(final ReaderTag tag, ReaderPostList posts) {
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        db.beginTransaction();
+        try {
+            deletePostsWithTag(tag);
+            addOrUpdatePosts(tag, posts);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     public static void addOrUpdatePosts(final ReaderTag tag, ReaderPostList posts) {
         if (posts == null || posts.size() == 0) {
             return;
         }
 
-        SQLiteDatabase db = ReaderDatabase.getWritableDb();
-        SQLiteStatement stmtPosts = db.compileStatement(
-                "INSERT OR REPLACE INTO tbl_posts ("
-                        + COLUMN_NAMES
-                        + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14,?15,?16,?17,?18,?19,?20,?21,?22,?23,?24,?25,?26,?27,?28,?29,?30,?31,?32,?33,?34,?35,?36,?37,?38,?39,?40,?41,?42,?43,?44)");
-
-        db.beginTransaction();
+        PostWriter writer = beginAddOrUpdatePosts(tag);
         try {
-            String tagName = (tag != null ? tag.getTagSlug() : "");
-            int tagType = (tag != null ? tag.tagType.toInt() : 0);
-
-            // we can safely assume there's no gap marker because any existing gap marker is
-            // already removed before posts are updated
-            boolean hasGapMarker = false;
-
             for (ReaderPost post: posts) {
-                stmtPosts.bindLong  (1,  post.postId);
-                stmtPosts.bindLong  (2,  post.blogId);
-                stmtPosts.bindLong  (3,  post.feedId);
-                stmtPosts.bindLong  (4,  post.feedItemId);
-                stmtPosts.bindString(5,  post.getPseudoId());
-                stmtPosts.bindString(6,  post.getAuthorName());
-                stmtPosts.bindString(7,  post.getAuthorFirstName());
-                stmtPosts.bindLong  (8,  post.authorId);
-                stmtPosts.bindString(9,  post.getTitle());
-                stmtPosts.bindString(10, maxText(post));
-                stmtPosts.bindString(11, post.getExcerpt());
-                stmtPosts.bindString(12, post.getFormat());
-                stmtPosts.bindString(13, post.getUrl());
-                stmtPosts.bindString(14, post.getShortUrl());
-                stmtPosts.bindString(15, post.getBlogName());
-                stmtPosts.bindString(16, post.getBlogUrl());
-                stmtPosts.bindString(17, post.getBlogImageUrl());
-                stmtPosts.bindString(18, post.getFeaturedImage());
-                stmtPosts.bindString(19, post.getFeaturedVideo());
-                stmtPosts.bindString(20, post.getPostAvatar());
-                stmtPosts.bindDouble(21, post.score);
-                stmtPosts.bindString(22, post.getDatePublished());
-                stmtPosts.bindString(23, post.getDateLiked());
-                stmtPosts.bindString(24, post.getDateTagged());
-                stmtPosts.bindLong  (25, post.numReplies);
-                stmtPosts.bindLong  (26, post.numLikes);
-                stmtPosts.bindLong  (27, SqlUtils.boolToSql(post.isLikedByCurrentUser));
-                stmtPosts.bindLong  (28, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
-                stmtPosts.bindLong  (29, SqlUtils.boolToSql(post.isCommentsOpen));
-                stmtPosts.bindLong  (30, SqlUtils.boolToSql(post.isExternal));
-                stmtPosts.bindLong  (31, SqlUtils.boolToSql(post.isPrivate));
-                stmtPosts.bindLong  (32, SqlUtils.boolToSql(post.isVideoPress));
-                stmtPosts.bindLong  (33, SqlUtils.boolToSql(post.isJetpack));
-                stmtPosts.bindString(34, post.getPrimaryTag());
-                stmtPosts.bindString(35, post.getSecondaryTag());
-                stmtPosts.bindString(36, post.getAttachmentsJson());
-                stmtPosts.bindString(37, post.getDiscoverJson());
-                stmtPosts.bindLong  (38, post.xpostPostId);
-                stmtPosts.bindLong  (39, post.xpostBlogId);
-                stmtPosts.bindString(40, post.getRailcarJson());
-                stmtPosts.bindString(41, tagName);
-                stmtPosts.bindLong  (42, tagType);
-                stmtPosts.bindLong  (43, SqlUtils.boolToSql(hasGapMarker));
-                stmtPosts.bindString(44, ReaderCardType.toString(post.getCardType()));
-                stmtPosts.execute();
+                writer.addOrUpdatePost(post);
             }
-
-            db.setTransactionSuccessful();
-
+            writer.setSuccessful();
         } finally {
-            db.endTransaction();
-            SqlUtils.closeStatement(stmtPosts);
+            writer.end();
         }
     }
 
-    public static ReaderPostList getPostsWithTag(ReaderTag tag, int maxPosts, boolean excludeTextColumn) {
-        if (tag == null) {
-            return new ReaderPostList();
+    /*
+     * starts a transaction for writing posts with the passed tag one at a time, which enables
+     * streaming posts into the table as they're parsed rather than holding an entire page of
+     * posts in memory - posts are only committed if setSuccessful() is called before end()
+     */
+    public static PostWriter beginAddOrUpdatePosts(final ReaderTag tag) {
+        return new PostWriter(tag);
+    }
+
+    public static class PostWriter {
+        private final SQLiteDatabase mDb;
+        private final SQLiteStatement mStmtPosts;
+        private final SQLiteStatement mStmtDeleteSearch;
+        private final SQLiteStatement mStmtInsertSearch;
+        private final String mTagName;
+        private final int mTagType;
+
+        private PostWriter(final ReaderTag tag) {
+            mTagName = (tag != null ? tag.getTagSlug() : "");
+            mTagType = (tag != null ? tag.tagType.toInt() : 0);
+            mDb = ReaderDatabase.getWritableDb();
+            mStmtPosts = mDb.compileStatement(
+                    "INSERT OR REPLACE INTO tbl_posts ("
+                            + COLUMN_NAMES
+                            + ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9,?10,?11,?12,?13,?14,?15,?16,?17,?18,?19,?20,?21,?22,?23,?24,?25,?26,?27,?28,?29,?30,?31,?32,?33,?34,?35,?36,?37,?38,?39,?40,?41,?42,?43,?44,?45,?46)");
+            mStmtDeleteSearch = mDb.compileStatement("DELETE FROM tbl_posts_search WHERE docid=?1");
+            mStmtInsertSearch = mDb.compileStatement(
+                    "INSERT INTO tbl_posts_search (docid, title, excerpt, author_name, blog_name)"
+                            + " VALUES (?1,?2,?3,?4,?5)");
+            mDb.beginTransaction();
         }
 
-        String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "*");
-        String sql = "SELECT " + columns + " FROM tbl_posts WHERE tag_name=? AND tag_type=?";
+        /*
+         * note that we can safely assume there's no gap marker because any existing gap marker
+         * is already removed before posts are updated
+         */
+        public void addOrUpdatePost(@NonNull ReaderPost post) {
+            long searchId = getSearchId(post.getPseudoId());
+
+            mStmtPosts.bindLong  (1,  post.postId);
+            mStmtPosts.bindLong  (2,  post.blogId);
+            mStmtPosts.bindLong  (3,  post.feedId);
+            mStmtPosts.bindLong  (4,  post.feedItemId);
+            mStmtPosts.bindString(5,  post.getPseudoId());
+            mStmtPosts.bindString(6,  post.getAuthorName());
+            mStmtPosts.bindString(7,  post.getAuthorFirstName());
+            mStmtPosts.bindLong  (8,  post.authorId);
+            mStmtPosts.bindString(9,  post.getTitle());
+            mStmtPosts.bindString(10, maxText(post));
+            mStmtPosts.bindString(11, post.getExcerpt());
+            mStmtPosts.bindString(12, post.getFormat());
+            mStmtPosts.bindString(13, post.getUrl());
+            mStmtPosts.bindString(14, post.getShortUrl());
+            mStmtPosts.bindString(15, post.getBlogName());
+            mStmtPosts.bindString(16, post.getBlogUrl());
+            mStmtPosts.bindString(17, post.getBlogImageUrl());
+            mStmtPosts.bindString(18, post.getFeaturedImage());
+            mStmtPosts.bindString(19, post.getFeaturedVideo());
+            mStmtPosts.bindString(20, post.getPostAvatar());
+            mStmtPosts.bindDouble(21, post.score);
+            mStmtPosts.bindString(22, post.getDatePublished());
+            mStmtPosts.bindString(23, post.getDateLiked());
+            mStmtPosts.bindString(24, post.getDateTagged());
+            mStmtPosts.bindLong  (25, post.numReplies);
+            mStmtPosts.bindLong  (26, post.numLikes);
+            mStmtPosts.bindLong  (27, SqlUtils.boolToSql(post.isLikedByCurrentUser));
+            mStmtPosts.bindLong  (28, SqlUtils.boolToSql(post.isFollowedByCurrentUser));
+            mStmtPosts.bindLong  (29, SqlUtils.boolToSql(post.isCommentsOpen));
+            mStmtPosts.bindLong  (30, SqlUtils.boolToSql(post.isExternal));
+            mStmtPosts.bindLong  (31, SqlUtils.boolToSql(post.isPrivate));
+            mStmtPosts.bindLong  (32, SqlUtils.boolToSql(post.isVideoPress));
+            mStmtPosts.bindLong  (33, SqlUtils.boolToSql(post.isJetpack));
+            mStmtPosts.bindString(34, post.getPrimaryTag());
+            mStmtPosts.bindString(35, post.getSecondaryTag());
+            mStmtPosts.bindString(36, post.getAttachmentsJson());
+            mStmtPosts.bindString(37, post.getDiscoverJson());
+            mStmtPosts.bindLong  (38, post.xpostPostId);
+            mStmtPosts.bindLong  (39, post.xpostBlogId);
+            mStmtPosts.bindString(40, post.getRailcarJson());
+            mStmtPosts.bindString(41, mTagName);
+            mStmtPosts.bindLong  (42, mTagType);
+            mStmtPosts.bindLong  (43, SqlUtils.boolToSql(false));
+            mStmtPosts.bindString(44, ReaderCardType.toString(post.getCardType()));
+            mStmtPosts.bindLong  (45, searchId);
+            mStmtPosts.bindLong  (46, getFingerprint(post));
+            mStmtPosts.execute();
+
+            mStmtDeleteSearch.bindLong(1, searchId);
+            mStmtDeleteSearch.execute();
+
+            mStmtInsertSearch.bindLong  (1, searchId);
+            mStmtInsertSearch.bindString(2, post.getTitle());
+            mStmtInsertSearch.bindString(3, post.getExcerpt());
+            mStmtInsertSearch.bindString(4, post.getAuthorName());
+            mStmtInsertSearch.bindString(5, post.getBlogName());
+            mStmtInsertSearch.execute();
+        }
+
+        public void setSuccessful() {
+            mDb.setTransactionSuccessful();
+        }
 
+        public void end() {
+            mDb.endTransaction();
+            SqlUtils.closeStatement(mStmtPosts);
+            SqlUtils.closeStatement(mStmtDeleteSearch);
+            SqlUtils.closeStatement(mStmtInsertSearch);
+        }
+    }
+
+    /*
+     * where clause and args shared by the queries which return the posts in a tag stream
+     */
+    private static String getWhereForTag(@NonNull ReaderTag tag) {
+        String where = "tag_name=? AND tag_type=?";
         if (tag.tagType == ReaderTagType.DEFAULT) {
             // skip posts that are no longer liked if this is "Posts I Like", skip posts that are no
             // longer followed if this is "Followed Sites"
             if (tag.isPostsILike()) {
-                sql += " AND is_liked != 0";
+                where += " AND is_liked != 0";
             } else if (tag.isFollowedSites()) {
-                sql += " AND is_followed != 0";
+                where += " AND is_followed != 0";
             }
         }
+        return where;
+    }
 
-        sql += " ORDER BY " + getSortColumnForTag(tag) + " DESC";
+    private static String[] getArgsForTag(@NonNull ReaderTag tag) {
+        return new String[]{tag.getTagSlug(), Integer.toString(tag.tagType.toInt())};
+    }
 
-        if (maxPosts > 0) {
-            sql += " LIMIT " + Integer.toString(maxPosts);
+    private static final String WHERE_BLOG = "blog_id=? AND tag_name=''";
+    private static final String WHERE_FEED = "feed_id=? AND tag_name=''";
+    private static final String SORT_COLUMN_BLOG_OR_FEED = "date_published";
+
+    public static ReaderPostList getPostsWithTag(ReaderTag tag, int maxPosts, boolean excludeTextColumn) {
+        return getPostsWithTag(tag, null, maxPosts, excludeTextColumn);
+    }
+
+    public static ReaderPostList getPostsInBlog(long blogId, int maxPosts, boolean excludeTextColumn) {
+        return getPostsInBlog(blogId, null, maxPosts, excludeTextColumn);
+    }
+
+    public static ReaderPostList getPostsInFeed(long feedId, int maxPosts, boolean excludeTextColumn) {
+        return getPostsInFeed(feedId, null, maxPosts, excludeTextColumn);
+    }
+
+    /*
+     * same as the above but only returns posts which come after the passed seek key - pass a null
+     * key to start at the first post
+     */
+    public static ReaderPostList getPostsWithTag(ReaderTag tag, SeekKey afterKey, int maxPosts,
+                                                 boolean excludeTextColumn) {
+        if (tag == null) {
+            return new ReaderPostList();
         }
+        return getPostPage(getWhereForTag(tag), getArgsForTag(tag), getSortColumnForTag(tag),
+                afterKey, maxPosts, excludeTextColumn);
+    }
 
-        String[] args = {tag.getTagSlug(), Integer.toString(tag.tagType.toInt())};
-        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, args);
-        try {
-            return getPostListFromCursor(cursor);
-        } finally {
-            SqlUtils.closeCursor(cursor);
+    public static ReaderPostList getPostsInBlog(long blogId, SeekKey afterKey, int maxPosts,
+                                                boolean excludeTextColumn) {
+        return getPostPage(WHERE_BLOG, new String[]{Long.toString(blogId)}, SORT_COLUMN_BLOG_OR_FEED,
+                afterKey, maxPosts, excludeTextColumn);
+    }
+
+    public static ReaderPostList getPostsInFeed(long feedId, SeekKey afterKey, int maxPosts,
+                                                boolean excludeTextColumn) {
+        return getPostPage(WHERE_FEED, new String[]{Long.toString(feedId)}, SORT_COLUMN_BLOG_OR_FEED,
+                afterKey, maxPosts, excludeTextColumn);
+    }
+
+    /*
+     * returns the keys needed to request each page of posts in a stream, along with the stable id
+     * and type of every post in it - see getPageKeys()
+     */
+    public static PageKeys getPageKeysWithTag(ReaderTag tag, int pageSize) {
+        if (tag == null) {
+            return new PageKeys();
         }
+        return getPageKeys(getWhereForTag(tag), getArgsForTag(tag), getSortColumnForTag(tag), pageSize);
     }
 
-    public static ReaderPostList getPostsInBlog(long blogId, int maxPosts, boolean excludeTextColumn) {
+    public static PageKeys getPageKeysInBlog(long blogId, int pageSize) {
+        return getPageKeys(WHERE_BLOG, new String[]{Long.toString(blogId)}, SORT_COLUMN_BLOG_OR_FEED, pageSize);
+    }
+
+    public static PageKeys getPageKeysInFeed(long feedId, int pageSize) {
+        return getPageKeys(WHERE_FEED, new String[]{Long.toString(feedId)}, SORT_COLUMN_BLOG_OR_FEED, pageSize);
+    }
+
+    /*
+     * keyset ("seek") pagination - instead of using OFFSET, which makes SQLite step through every
+     * skipped row, a page is requested by passing the sort value and pseudo_id of the last post on
+     * the previous page. pseudo_id is unique within a stream (it's part of the primary key), so it
+     * breaks ties between posts with the same sort value and every post has a unique, stable
+     * position in the stream. the sort value keeps the type it was read with, so a REAL search
+     * score is compared exactly rather than after a lossy round-trip through its string form.
+     */
+    public static class SeekKey {
+        private final Object mSortValue;
+        private final String mPseudoId;
+
+        private SeekKey(Object sortValue, String pseudoId) {
+            mSortValue = sortValue;
+            mPseudoId = StringUtils.notNullStr(pseudoId);
+        }
+
+        /*
+         * creates a key from a cursor whose first two columns are the sort column and pseudo_id
+         */
+        private static SeekKey fromCursor(@NonNull Cursor cursor) {
+            Object sortValue;
+            switch (cursor.getType(0)) {
+                case Cursor.FIELD_TYPE_FLOAT:
+                case Cursor.FIELD_TYPE_INTEGER:
+                    sortValue = cursor.getDouble(0);
+                    break;
+                default:
+                    sortValue = StringUtils.notNullStr(cursor.getString(0));
+                    break;
+            }
+            return new SeekKey(sortValue, cursor.getString(1));
+        }
+
+        private void bindSortValue(@NonNull SQLiteQuery query, int index) {
+            if (mSortValue instanceof Double) {
+                query.bindDouble(index, (Double) mSortValue);
+            } else {
+                query.bindString(index, (String) mSortValue);
+            }
+        }
+
+        public boolean isSameKey(SeekKey key) {
+            return key != null
+                    && mSortValue.equals(key.mSortValue)
+                    && mPseudoId.equals(key.mPseudoId);
+        }
+    }
+
+    /*
+     * the seek keys for the pages of a stream, along with the stable id and whether it's a
+     * cross-post for each of its posts, so the post list can report ids and view types without
+     * loading the posts themselves
+     */
+    public static class PageKeys {
+        private final ArrayList<SeekKey> mSeekKeys = new ArrayList<>();
+        private long[] mStableIds = new long[0];
+        private boolean[] mIsXposts = new boolean[0];
+
+        public ArrayList<SeekKey> getSeekKeys() {
+            return mSeekKeys;
+        }
+
+        public int getNumPosts() {
+            return mStableIds.length;
+        }
+
+        public long getStableId(int index) {
+            return mStableIds[index];
+        }
+
+        public boolean isXpost(int index) {
+            return mIsXposts[index];
+        }
+
+        public boolean hasSamePosts(PageKeys pageKeys) {
+            return pageKeys != null
+                    && Arrays.equals(mStableIds, pageKeys.mStableIds)
+                    && Arrays.equals(mIsXposts, pageKeys.mIsXposts);
+        }
+    }
+
+    private static String getOrderBy(@NonNull String sortColumn) {
+        return " ORDER BY " + sortColumn + " DESC, pseudo_id DESC";
+    }
+
+    /*
+     * runs a query whose last three args are the sort value and pseudo_id of the passed key, as
+     * used by "col < ? OR (col = ? AND pseudo_id < ?)" - the sort value is bound with its own type
+     */
+    private static Cursor rawQueryAfterKey(@NonNull String sql,
+                                           @NonNull String[] whereArgs,
+                                           @NonNull final SeekKey key) {
+        final int sortValueIndex = whereArgs.length + 1;
+        String[] args = Arrays.copyOf(whereArgs, whereArgs.length + 3);
+        // the sort value args are replaced with typed values by the factory below
+        args[whereArgs.length] = "";
+        args[whereArgs.length + 1] = "";
+        args[whereArgs.length + 2] = key.mPseudoId;
+
+        SQLiteDatabase.CursorFactory factory = new SQLiteDatabase.CursorFactory() {
+            @Override
+            public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver driver, String editTable,
+                                    SQLiteQuery query) {
+                key.bindSortValue(query, sortValueIndex);
+                key.bindSortValue(query, sortValueIndex + 1);
+                return new SQLiteCursor(driver, editTable, query);
+            }
+        };
+        return ReaderDatabase.getReadableDb().rawQueryWithFactory(factory, sql, args, null);
+    }
+
+    private static ReaderPostList getPostPage(@NonNull String where,
+                                              @NonNull String[] whereArgs,
+                                              @NonNull String sortColumn,
+                                              SeekKey afterKey,
+                                              int maxPosts,
+                                              boolean excludeTextColumn) {
         String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "*");
-        String sql = "SELECT " + columns + " FROM tbl_posts WHERE blog_id=? AND tag_name='' ORDER BY date_published DESC";
+        String sql = "SELECT " + columns + " FROM tbl_posts WHERE " + where;
+
+        if (afterKey != null) {
+            sql += " AND (" + sortColumn + " < ? OR (" + sortColumn + " = ? AND pseudo_id < ?))";
+        }
+
+        sql += getOrderBy(sortColumn);
 
         if (maxPosts > 0) {
             sql += " LIMIT " + Integer.toString(maxPosts);
         }
 
-        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, new String[]{Long.toString(blogId)});
+        Cursor cursor;
+        if (afterKey != null) {
+            cursor = rawQueryAfterKey(sql, whereArgs, afterKey);
+        } else {
+            cursor = ReaderDatabase.getReadableDb().rawQuery(sql, whereArgs);
+        }
         try {
             return getPostListFromCursor(cursor);
         } finally {
@@ -831,17 +1325,76 @@ public class ReaderPostTable {
         }
     }
 
-    public static ReaderPostList getPostsInFeed(long feedId, int maxPosts, boolean excludeTextColumn) {
-        String columns = (excludeTextColumn ? COLUMN_NAMES_NO_TEXT : "*");
-        String sql = "SELECT " + columns + " FROM tbl_posts WHERE feed_id=? AND tag_name='' ORDER BY date_published DESC";
+    /*
+     * returns the seek key for the start of each page in a stream - the first key is null (the first
+     * page starts at the beginning), each following key is that of the last post on the previous
+     * page. only the columns needed for the keys, the stable ids and the post types are read, so
+     * this is far cheaper than reading the posts themselves, and it enables any page to be loaded
+     * directly. like the post list before it, the stream is limited to the max # posts to display.
+     */
+    private static PageKeys getPageKeys(@NonNull String where,
+                                        @NonNull String[] whereArgs,
+                                        @NonNull String sortColumn,
+                                        int pageSize) {
+        PageKeys pageKeys = new PageKeys();
+        String sql = "SELECT " + sortColumn + ", pseudo_id, xpost_post_id != 0 AND xpost_blog_id != 0"
+                + " FROM tbl_posts WHERE " + where + getOrderBy(sortColumn)
+                + " LIMIT " + Integer.toString(ReaderConstants.READER_MAX_POSTS_TO_DISPLAY);
+        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, whereArgs);
+        try {
+            int numRows = cursor.getCount();
+            pageKeys.mStableIds = new long[numRows];
+            pageKeys.mIsXposts = new boolean[numRows];
+            if (numRows > 0) {
+                pageKeys.mSeekKeys.add(null);
+            }
+            int row = 0;
+            while (cursor.moveToNext()) {
+                pageKeys.mStableIds[row] = ReaderPost.getStableIdForPseudoId(cursor.getString(1));
+                pageKeys.mIsXposts[row] = cursor.getInt(2) != 0;
+                // the last post on each page (other than the last one) is the key for the next page
+                if ((row + 1) % pageSize == 0 && row < numRows - 1) {
+                    pageKeys.mSeekKeys.add(SeekKey.fromCursor(cursor));
+                }
+                row++;
+            }
+            return pageKeys;
+        } finally {
+            SqlUtils.closeCursor(cursor);
+        }
+    }
 
-        if (maxPosts > 0) {
-            sql += " LIMIT " + Integer.toString(maxPosts);
+    /*
+     * returns the position of the post with the gap marker in the passed tag stream, or -1 if there
+     * isn't one - used by the post list so the gap marker can be placed without loading every post
+     * which appears above it
+     */
+    public static int getGapMarkerIndexForTag(ReaderTag tag) {
+        if (tag == null) {
+            return -1;
         }
 
-        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(sql, new String[]{Long.toString(feedId)});
+        String sortColumn = getSortColumnForTag(tag);
+        String[] args = getArgsForTag(tag);
+        SeekKey gapKey;
+        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(
+                "SELECT " + sortColumn + ", pseudo_id FROM tbl_posts WHERE has_gap_marker!=0 AND tag_name=? AND tag_type=?",
+                args);
         try {
-            return getPostListFromCursor(cursor);
+            if (!cursor.moveToFirst()) {
+                return -1;
+            }
+            gapKey = SeekKey.fromCursor(cursor);
+        } finally {
+            SqlUtils.closeCursor(cursor);
+        }
+
+        // the number of posts which sort before the gap marker post is its position
+        String sql = "SELECT count(*) FROM tbl_posts WHERE " + getWhereForTag(tag)
+                + " AND (" + sortColumn + " > ? OR (" + sortColumn + " = ? AND pseudo_id > ?))";
+        cursor = rawQueryAfterKey(sql, args, gapKey);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : -1;
         } finally {
             SqlUtils.closeCursor(cursor);
         }
@@ -911,6 +1464,184 @@ public class ReaderPostTable {
         }
     }
 
+    /*
+     * relative weight of a match in each column of tbl_posts_search when ranking search results
+     */
+    private static final double[] SEARCH_COLUMN_WEIGHTS = {
+            4.0,    // title
+            1.0,    // excerpt
+            2.0,    // author_name
+            2.0     // blog_name
+    };
+
+    /*
+     * searches cached posts for the passed query and stores the best matches with the passed search
+     * tag, so they can be shown right away - even when offline - while the search is performed on the
+     * server. returns the number of matches stored.
+     */
+    public static int addLocalSearchResults(@NonNull ReaderTag searchTag, @NonNull String query, int maxPosts) {
+        LinkedHashMap<Long, Double> results = findLocalSearchResults(query, maxPosts);
+        addLocalSearchResults(searchTag, results);
+        AppLog.d(AppLog.T.READER, "reader post table > " + results.size() + " cached posts match " + query);
+        return results.size();
+    }
+
+    /*
+     * searches cached posts for the passed query, returning the search ids of the best matches mapped
+     * to their rank, best match first. each word in the query is matched as a prefix, and results are
+     * ranked by how often the words appear in each column weighted by how rare they are. this only
+     * reads the database, so unlike addLocalSearchResults() it doesn't need to run on the writer.
+     */
+    @NonNull
+    public static LinkedHashMap<Long, Double> findLocalSearchResults(@NonNull String query, int maxPosts) {
+        LinkedHashMap<Long, Double> results = new LinkedHashMap<>();
+        String match = getSearchMatch(query);
+        if (match == null) {
+            return results;
+        }
+
+        final HashMap<Long, Double> ranks = new HashMap<>();
+        Cursor cursor = ReaderDatabase.getReadableDb().rawQuery(
+                "SELECT docid, matchinfo(tbl_posts_search, 'pcnx') FROM tbl_posts_search"
+                        + " WHERE tbl_posts_search MATCH ?",
+                new String[]{match});
+        try {
+            while (cursor.moveToNext()) {
+                ranks.put(cursor.getLong(0), getSearchRank(cursor.getBlob(1)));
+            }
+        } finally {
+            SqlUtils.closeCursor(cursor);
+        }
+
+        ArrayList<Long> searchIds = new ArrayList<>(ranks.keySet());
+        Collections.sort(searchIds, new Comparator<Long>() {
+            @Override
+            public int compare(Long searchId1, Long searchId2) {
+                return Double.compare(ranks.get(searchId2), ranks.get(searchId1));
+            }
+        });
+        if (maxPosts > 0 && searchIds.size() > maxPosts) {
+            searchIds = new ArrayList<>(searchIds.subList(0, maxPosts));
+        }
+
+        for (long searchId : searchIds) {
+            results.put(searchId, ranks.get(searchId));
+        }
+        return results;
+    }
+
+    /*
+     * stores the passed results from findLocalSearchResults() with the passed search tag
+     */
+    public static void addLocalSearchResults(@NonNull ReaderTag searchTag, @NonNull Map<Long, Double> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+
+        // copy each match into the search stream with its rank as its score - this is done in sql so
+        // the post's text doesn't have to be read
+        SQLiteDatabase db = ReaderDatabase.getWritableDb();
+        SQLiteStatement stmt = db.compileStatement(
+                "INSERT OR REPLACE INTO tbl_posts (" + COLUMN_NAMES + ")"
+                        + " SELECT " + getSearchResultColumns() + " FROM tbl_posts WHERE search_id=?4 LIMIT 1");
+        db.beginTransaction();
+        try {
+            for (Map.Entry<Long, Double> result : results.entrySet()) {
+                stmt.bindDouble(1, result.getValue());
+                stmt.bindString(2, searchTag.getTagSlug());
+                stmt.bindLong  (3, searchTag.tagType.toInt());
+                stmt.bindLong  (4, result.getKey());
+                stmt.execute();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            SqlUtils.closeStatement(stmt);
+        }
+    }
+
+    /*
+     * returns the FTS query which matches posts containing every word in the passed query as a
+     * prefix, or null if the query doesn't contain any words
+     */
+    private static String getSearchMatch(@NonNull String query) {
+        StringBuilder match = new StringBuilder();
+        int wordStart = -1;
+        for (int i = 0; i <= query.length(); i++) {
+            boolean isWordChar = i < query.length() && Character.isLetterOrDigit(query.charAt(i));
+            if (isWordChar && wordStart == -1) {
+                wordStart = i;
+            } else if (!isWordChar && wordStart != -1) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                // quoted so words such as "OR" and "NOT" aren't treated as operators
+                match.append('"').append(query.substring(wordStart, i)).append("*\"");
+                wordStart = -1;
+            }
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    /*
+     * returns the rank of a search result from the result of matchinfo(tbl_posts_search, 'pcnx'),
+     * which is an array of 32-bit integers in native byte order: the number of phrases, the number
+     * of columns, the number of rows in the table, then for each phrase and column the number of
+     * hits in this row, the number of hits in all rows, and the number of rows with hits
+     */
+    private static double getSearchRank(byte[] matchInfo) {
+        IntBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int numPhrases = info.get(0);
+        int numColumns = info.get(1);
+        int numRows = info.get(2);
+
+        double rank = 0;
+        for (int phrase = 0; phrase < numPhrases; phrase++) {
+            for (int column = 0; column < numColumns && column < SEARCH_COLUMN_WEIGHTS.length; column++) {
+                int index = 3 + (3 * ((phrase * numColumns) + column));
+                int hitsInRow = info.get(index);
+                int rowsWithHits = info.get(index + 2);
+                if (hitsInRow > 0) {
+                    double rarity = Math.log(1.0 + ((double) numRows / rowsWithHits));
+                    rank += SEARCH_COLUMN_WEIGHTS[column] * hitsInRow * rarity;
+                }
+            }
+        }
+        return rank;
+    }
+
+    /*
+     * returns COLUMN_NAMES with the stream-specific columns replaced by the parameters used when
+     * copying a post into the search stream
+     */
+    private static String getSearchResultColumns() {
+        StringBuilder columns = new StringBuilder();
+        for (String column : COLUMN_NAMES.split(",")) {
+            if (columns.length() > 0) {
+                columns.append(',');
+            }
+            switch (column) {
+                case "score":
+                    columns.append("?1");
+                    break;
+                case "tag_name":
+                    columns.append("?2");
+                    break;
+                case "tag_type":
+                    columns.append("?3");
+                    break;
+                case "has_gap_marker":
+                case "fingerprint":
+                    columns.append("0");
+                    break;
+                default:
+                    columns.append(column);
+                    break;
+            }
+        }
+        return columns.toString();
+    }
+
     private static ReaderPost getPostFromCursor(Cursor c) {
         if (c == null) {
             throw new IllegalArgumentException("getPostFromCursor > null cursor");
@@ -9,8 +9,6 @@ import android.text.TextUtils;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.SqlUtils;
 
-import java.util.Date;
-
 /**
  * search suggestion table - populated by user's reader search history
  */
@@ -35,7 +33,7 @@ public class ReaderSearchTable {
      * adds the passed query string, updating the usage date
      */
     public static void addOrUpdateQueryString(@NonNull String query) {
-        String date = DateTimeUtils.iso8601FromDate(new Date());
+        String date = DateTimeUtils.iso8601FromTimestampMillis(System.currentTimeMillis());
 
         SQLiteStatement stmt = ReaderDatabase.getWritableDb().compileStatement(
                 "INSERT OR REPLACE INTO tbl_search_suggestions (query_string, date_used) VALUES (?1,?2)");
@@ -59,7 +57,7 @@ public class ReaderSearchTable {
 
     /**
      * Returns a cursor containing query strings previously typed by the user
-     * @param filter - filters the list using LIKE syntax (pass null for no filter)
+     * @param filter - filters the list to queries starting with this prefix (pass null for no filter)
      * @param max - limit the list to this many items (pass zero for no limit)
      */
     public static Cursor getQueryStringCursor(String filter, int max) {
@@ -69,8 +67,17 @@ public class ReaderSearchTable {
             sql = "SELECT * FROM tbl_search_suggestions";
             args = null;
         } else {
-            sql = "SELECT * FROM tbl_search_suggestions WHERE query_string LIKE ?";
-            args = new String[]{filter + "%"};
+            // a range rather than LIKE, since SQLite only uses an index for LIKE ... ESCAPE from 3.21
+            // (API 28) - both bounds are compared with the column's NOCASE collation, so the range
+            // can be read from the index on query_string
+            String upperBound = getPrefixUpperBound(filter);
+            if (upperBound != null) {
+                sql = "SELECT * FROM tbl_search_suggestions WHERE query_string >= ?1 AND query_string < ?2";
+                args = new String[]{filter, upperBound};
+            } else {
+                sql = "SELECT * FROM tbl_search_suggestions WHERE query_string >= ?1";
+                args = new String[]{filter};
+            }
         }
 
         sql += " ORDER BY date_used DESC";
@@ -81,4 +88,41 @@ public class ReaderSearchTable {
 
         return ReaderDatabase.getReadableDb().rawQuery(sql, args);
     }
+
+    /*
+     * returns the smallest string which NOCASE sorts after every string starting with the passed prefix,
+     * or null if nothing does. NOCASE compares utf-8 bytes (ie: code points) after folding ASCII upper
+     * case letters to lower case, so the bound is the folded prefix with its last code point incremented
+     * - skipping the upper case letters, which no folded string contains, and the surrogate range
+     */
+    static String getPrefixUpperBound(@NonNull String prefix) {
+        String folded = toLowerCaseAscii(prefix);
+        int end = folded.length();
+        while (end > 0) {
+            int codePoint = folded.codePointBefore(end);
+            int start = end - Character.charCount(codePoint);
+            int next = codePoint + 1;
+            if (next >= 'A' && next <= 'Z') {
+                next = 'Z' + 1;
+            } else if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+                next = Character.MAX_SURROGATE + 1;
+            }
+            if (next <= Character.MAX_CODE_POINT) {
+                return folded.substring(0, start) + new String(Character.toChars(next));
+            }
+            // the last code point can't be incremented, so increment the one before it instead
+            end = start;
+        }
+        return null;
+    }
+
+    private static String toLowerCaseAscii(@NonNull String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] = (char) (chars[i] + ('a' - 'A'));
+            }
+        }
+        return new String(chars);
+    }
 }
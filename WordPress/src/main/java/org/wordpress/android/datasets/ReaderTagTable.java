@@ -15,8 +15,6 @@ import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.SqlUtils;
 
-import java.util.Date;
-
 /**
  *  tbl_tags stores the list of tags the user subscribed to or has by default
  *  tbl_tags_recommended stores the list of recommended tags returned by the api
@@ -277,7 +275,7 @@ public class ReaderTagTable {
             return;
         }
 
-        String date = DateTimeUtils.iso8601FromDate(new Date());
+        String date = DateTimeUtils.iso8601FromTimestampMillis(System.currentTimeMillis());
         String sql = "UPDATE tbl_tags SET date_updated=?1 WHERE tag_slug=?2 AND tag_type=?3";
         SQLiteStatement stmt = ReaderDatabase.getWritableDb().compileStatement(sql);
         try {
@@ -312,13 +310,12 @@ public class ReaderTagTable {
             return NEVER_UPDATED;
         }
 
-        Date dtUpdated = DateTimeUtils.dateFromIso8601(updated);
-        if (dtUpdated == null) {
+        long updatedMillis = DateTimeUtils.timestampFromIso8601Millis(updated);
+        if (updatedMillis == 0) {
             return 0;
         }
 
-        Date dtNow = new Date();
-        return DateTimeUtils.minutesBetween(dtUpdated, dtNow);
+        return DateTimeUtils.minutesBetween(updatedMillis, System.currentTimeMillis());
     }
 
     /**
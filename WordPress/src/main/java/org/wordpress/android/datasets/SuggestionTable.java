@@ -95,6 +95,12 @@ public class SuggestionTable {
         }
     }
 
+    public static boolean hasSuggestionsForSite(long siteId) {
+        String[] args = {Long.toString(siteId)};
+        return SqlUtils.boolForQuery(getReadableDb(),
+                "SELECT 1 FROM " + SUGGESTIONS_TABLE + " WHERE site_id=? LIMIT 1", args);
+    }
+
     public static int deleteSuggestionsForSite(long siteId) {
         return getWritableDb().delete(SUGGESTIONS_TABLE, "site_id=?", new String[]{Long.toString(siteId)});
     }
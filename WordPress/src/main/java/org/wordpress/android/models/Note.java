@@ -11,6 +11,7 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.wordpress.android.datasets.NotificationsTable;
 import org.wordpress.android.fluxc.model.CommentModel;
 import org.wordpress.android.fluxc.model.CommentStatus;
 import org.wordpress.android.ui.notifications.utils.NotificationsUtils;
@@ -55,6 +56,26 @@ public class Note {
     private final Object mSyncLock = new Object();
     private String mLocalStatus;
 
+    // true when this note was created from the notifications list columns, in which case the
+    // note json isn't loaded from the db until something other than a list field needs it
+    private boolean mIsJSONPending;
+
+    // fields shown in the notifications list - these are extracted from the note json once
+    // rather than walking the json each time they're accessed
+    private String mType;
+    private long mTimestamp;
+    private volatile boolean mIsUnread;
+    private String mSubjectJSON;
+    private JSONObject mSubject;
+    private String mSubjectNoticon;
+    private String mCommentSubject;
+    private String mIconUrl;
+    private String mNoticon;
+    private long mCommentId;
+    private long mParentCommentId;
+    private boolean mIsCommentType;
+    private CommentStatus mCommentStatus;
+
     public enum EnabledActions {
         ACTION_REPLY,
         ACTION_APPROVE,
@@ -74,15 +95,89 @@ public class Note {
     public Note(String key, JSONObject noteJSON) {
         mKey = key;
         mNoteJSON = noteJSON;
+        extractListFields();
     }
 
     public Note(JSONObject noteJSON){
         mNoteJSON = noteJSON;
         mKey = mNoteJSON.optString("id", "");
+        extractListFields();
+    }
+
+    private Note(String key) {
+        mKey = key;
+        mIsJSONPending = true;
+    }
+
+    /*
+     * creates a note from the columns NotificationsTable stores for the notifications list - the
+     * full note json is only loaded and parsed if it's needed (ie: when the note is opened)
+     */
+    public static Note fromListColumns(String key,
+                                       String type,
+                                       long timestamp,
+                                       boolean isUnread,
+                                       String subjectJSON,
+                                       String subjectNoticon,
+                                       String commentSubject,
+                                       String iconUrl,
+                                       String noticon,
+                                       long commentId,
+                                       long parentCommentId,
+                                       boolean isCommentType,
+                                       String commentStatus) {
+        Note note = new Note(key);
+        note.mType = StringUtils.notNullStr(type);
+        note.mTimestamp = timestamp;
+        note.mIsUnread = isUnread;
+        note.mSubjectJSON = subjectJSON;
+        note.mSubjectNoticon = StringUtils.notNullStr(subjectNoticon);
+        note.mCommentSubject = StringUtils.notNullStr(commentSubject);
+        note.mIconUrl = StringUtils.notNullStr(iconUrl);
+        note.mNoticon = StringUtils.notNullStr(noticon);
+        note.mCommentId = commentId;
+        note.mParentCommentId = parentCommentId;
+        note.mIsCommentType = isCommentType;
+        note.mCommentStatus = TextUtils.isEmpty(commentStatus) ? CommentStatus.ALL : CommentStatus.fromString(commentStatus);
+        return note;
+    }
+
+    private void extractListFields() {
+        mType = queryJSON("type", NOTE_UNKNOWN_TYPE);
+        mTimestamp = DateTimeUtils.timestampFromIso8601(getTimestampString());
+        mIsUnread = queryJSON("read", 0) != 1;
+        mSubject = extractSubject();
+        mSubjectNoticon = extractCommentSubjectNoticon();
+        mCommentSubject = extractCommentSubject();
+        mIconUrl = queryJSON("icon", "");
+        mNoticon = queryJSON("noticon", "");
+        mCommentId = queryJSON("meta.ids.comment", 0);
+        mParentCommentId = queryJSON("meta.ids.parent_comment", 0);
+        mIsCommentType = (NOTE_MATCHER_TYPE.equals(mType) && queryJSON("meta.ids.comment", -1) != -1)
+                || NOTE_COMMENT_TYPE.equals(mType);
+        mCommentStatus = extractCommentStatus();
+    }
+
+    /*
+     * returns the note json, loading it from the db first if this note was created from the
+     * notifications list columns
+     */
+    private JSONObject getNoteJSON() {
+        synchronized (mSyncLock) {
+            if (mIsJSONPending) {
+                mIsJSONPending = false;
+                mNoteJSON = NotificationsTable.getNoteJSONById(mKey);
+                if (mNoteJSON != null && !mIsUnread) {
+                    setReadInJSON();
+                }
+            }
+            return mNoteJSON;
+        }
     }
 
     public JSONObject getJSON() {
-        return mNoteJSON != null ? mNoteJSON : new JSONObject();
+        JSONObject noteJSON = getNoteJSON();
+        return noteJSON != null ? noteJSON : new JSONObject();
     }
 
     public String getId() {
@@ -90,7 +185,7 @@ public class Note {
     }
 
     public String getType() {
-        return queryJSON("type", NOTE_UNKNOWN_TYPE);
+        return mType;
     }
 
     private Boolean isType(String type) {
@@ -98,10 +193,7 @@ public class Note {
     }
 
     public Boolean isCommentType() {
-        synchronized (mSyncLock) {
-            return (isAutomattcherType() && JSONUtils.queryJSON(mNoteJSON, "meta.ids.comment", -1) != -1) ||
-                    isType(NOTE_COMMENT_TYPE);
-        }
+        return mIsCommentType;
     }
 
     public Boolean isAutomattcherType() {
@@ -177,10 +269,25 @@ public class Note {
     }
 
     public JSONObject getSubject() {
+        synchronized (mSyncLock) {
+            if (mSubject == null && mSubjectJSON != null) {
+                try {
+                    mSubject = new JSONObject(mSubjectJSON);
+                } catch (JSONException e) {
+                    AppLog.e(AppLog.T.NOTIFS, "Failed to parse note subject", e);
+                }
+                mSubjectJSON = null;
+            }
+            return mSubject;
+        }
+    }
+
+    private JSONObject extractSubject() {
         try {
             synchronized (mSyncLock) {
-                JSONArray subjectArray = mNoteJSON.getJSONArray("subject");
-                if (subjectArray.length() > 0) {
+                JSONObject noteJSON = getNoteJSON();
+                JSONArray subjectArray = noteJSON != null ? noteJSON.getJSONArray("subject") : null;
+                if (subjectArray != null && subjectArray.length() > 0) {
                     return subjectArray.getJSONObject(0);
                 }
             }
@@ -200,12 +307,17 @@ public class Note {
     }
 
     public String getIconURL() {
-        return queryJSON("icon", "");
+        return mIconUrl;
     }
 
     public String getCommentSubject() {
+        return mCommentSubject;
+    }
+
+    private String extractCommentSubject() {
         synchronized (mSyncLock) {
-            JSONArray subjectArray = mNoteJSON.optJSONArray("subject");
+            JSONObject noteJSON = getNoteJSON();
+            JSONArray subjectArray = noteJSON != null ? noteJSON.optJSONArray("subject") : null;
             if (subjectArray != null) {
                 String commentSubject = JSONUtils.queryJSON(subjectArray, "subject[1].text", "");
 
@@ -223,6 +335,10 @@ public class Note {
     }
 
     public String getCommentSubjectNoticon() {
+        return mSubjectNoticon;
+    }
+
+    private String extractCommentSubjectNoticon() {
         JSONArray subjectRanges = queryJSON("subject[0].ranges", new JSONArray());
         if (subjectRanges != null) {
             for (int i=0; i < subjectRanges.length(); i++) {
@@ -268,7 +384,9 @@ public class Note {
     public static class TimeStampComparator implements Comparator<Note> {
         @Override
         public int compare(Note a, Note b) {
-            return b.getTimestampString().compareTo(a.getTimestampString());
+            long timestampA = a.getTimestamp();
+            long timestampB = b.getTimestamp();
+            return timestampA < timestampB ? 1 : (timestampA == timestampB ? 0 : -1);
         }
     }
 
@@ -276,16 +394,23 @@ public class Note {
      * The inverse of isRead
      */
     public Boolean isUnread() {
-        return !isRead();
+        return mIsUnread;
     }
 
-    private Boolean isRead() {
-        return queryJSON("read", 0) == 1;
+    public void setRead(){
+        mIsUnread = false;
+        synchronized (mSyncLock) {
+            if (!mIsJSONPending) {
+                setReadInJSON();
+            }
+        }
     }
 
-    public void setRead(){
+    private void setReadInJSON() {
         try {
-            mNoteJSON.putOpt("read", 1);
+            if (mNoteJSON != null) {
+                mNoteJSON.putOpt("read", 1);
+            }
         } catch (JSONException e){
             AppLog.e(AppLog.T.NOTIFS, "Failed to set 'read' property", e);
         }
@@ -295,7 +420,7 @@ public class Note {
      * Get the timestamp provided by the API for the note
      */
     public long getTimestamp() {
-        return DateTimeUtils.timestampFromIso8601(getTimestampString());
+        return mTimestamp;
     }
 
     public String getTimestampString() {
@@ -305,7 +430,8 @@ public class Note {
     public JSONArray getBody() {
         try {
             synchronized (mSyncLock) {
-                return mNoteJSON.getJSONArray("body");
+                JSONObject noteJSON = getNoteJSON();
+                return noteJSON != null ? noteJSON.getJSONArray("body") : new JSONArray();
             }
         } catch (JSONException e) {
             return new JSONArray();
@@ -314,7 +440,7 @@ public class Note {
 
     // returns character code for notification font
     public String getNoticonCharacter() {
-        return queryJSON("noticon", "");
+        return mNoticon;
     }
 
     private JSONObject getCommentActions() {
@@ -381,11 +507,11 @@ public class Note {
     }
 
     public long getCommentId() {
-        return queryJSON("meta.ids.comment", 0);
+        return mCommentId;
     }
 
     public long getParentCommentId() {
-        return queryJSON("meta.ids.parent_comment", 0);
+        return mParentCommentId;
     }
 
     /**
@@ -393,8 +519,9 @@ public class Note {
      */
     private <U> U queryJSON(String query, U defaultObject) {
         synchronized (mSyncLock) {
-            if (mNoteJSON == null) return defaultObject;
-            return JSONUtils.queryJSON(mNoteJSON, query, defaultObject);
+            JSONObject noteJSON = getNoteJSON();
+            if (noteJSON == null) return defaultObject;
+            return JSONUtils.queryJSON(noteJSON, query, defaultObject);
         }
     }
 
@@ -456,6 +583,10 @@ public class Note {
     }
 
     public CommentStatus getCommentStatus() {
+        return mCommentStatus;
+    }
+
+    private CommentStatus extractCommentStatus() {
         EnumSet<EnabledActions> enabledActions = getEnabledActions();
 
         if (enabledActions.contains(EnabledActions.ACTION_UNAPPROVE)) {
@@ -478,7 +609,8 @@ public class Note {
 
     public JSONArray getHeader() {
         synchronized (mSyncLock) {
-            return mNoteJSON.optJSONArray("header");
+            JSONObject noteJSON = getNoteJSON();
+            return noteJSON != null ? noteJSON.optJSONArray("header") : null;
         }
     }
 
@@ -718,9 +718,17 @@ public class ReaderPost {
     private transient long stableId;
     public long getStableId() {
         if (stableId == 0) {
-            stableId = (pseudoId != null ? pseudoId.hashCode() : 0);
+            stableId = getStableIdForPseudoId(pseudoId);
         }
         return stableId;
     }
 
+    /*
+     * the stable id of the post with the passed pseudo_id - used by the post list to get the id
+     * of a post which hasn't been loaded
+     */
+    public static long getStableIdForPseudoId(String pseudoId) {
+        return pseudoId != null ? pseudoId.hashCode() : 0;
+    }
+
 }
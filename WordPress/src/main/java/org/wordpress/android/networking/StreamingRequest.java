@@ -1,17 +1,27 @@
 package org.wordpress.android.networking;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
 import okhttp3.internal.Util;
 import okio.BufferedSink;
-import okio.Okio;
-import okio.Source;
 
+/**
+ * Request body which streams a file rather than reading it into memory. The file is read in blocks
+ * sized to the file - small files in a single read, large files in blocks of up to MAX_BUFFER_SIZE -
+ * and each block is handed to the network as soon as it's read rather than flushed in small pieces.
+ * The content length is known up front, so the request isn't sent with chunked encoding.
+ */
 public class StreamingRequest extends RequestBody {
-    public static final int CHUNK_SIZE = 2048;
+    static final int MIN_BUFFER_SIZE = 16 * 1024;
+    static final int MAX_BUFFER_SIZE = 256 * 1024;
+
+    // large files are read in about this many blocks, within the limits above
+    private static final int TARGET_NUM_BLOCKS = 64;
 
     private final File mFile;
 
@@ -24,18 +34,31 @@ public class StreamingRequest extends RequestBody {
         return MediaType.parse("multipart/form-data");
     }
 
+    @Override
+    public long contentLength() {
+        // length() returns zero for a missing file, in which case writeTo() fails
+        return mFile.exists() ? mFile.length() : -1;
+    }
+
     @Override
     public void writeTo(BufferedSink sink) throws IOException {
-        Source source = null;
+        InputStream input = null;
         try {
-            source = Okio.source(mFile);
-
-            while (source.read(sink.buffer(), CHUNK_SIZE) != -1) {
-                sink.flush();
+            input = new FileInputStream(mFile);
+            byte[] buffer = new byte[getBufferSize(mFile.length())];
+            int numRead;
+            while ((numRead = input.read(buffer)) != -1) {
+                sink.write(buffer, 0, numRead);
+                // pass full segments on to the socket without forcing a flush
+                sink.emitCompleteSegments();
             }
         } finally {
-            Util.closeQuietly(source);
+            Util.closeQuietly(input);
         }
     }
-};
 
+    static int getBufferSize(long fileLength) {
+        long size = fileLength / TARGET_NUM_BLOCKS;
+        return (int) Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, size));
+    }
+}
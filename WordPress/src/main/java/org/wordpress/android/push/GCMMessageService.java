@@ -14,7 +14,6 @@ import android.support.annotation.NonNull;
 import android.support.v4.app.NotificationCompat;
 import android.support.v4.app.NotificationManagerCompat;
 import android.support.v4.app.RemoteInput;
-import android.support.v4.util.ArrayMap;
 import android.text.TextUtils;
 
 import com.google.android.gms.gcm.GcmListenerService;
@@ -46,19 +45,54 @@ import org.wordpress.android.util.StringUtils;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
 
 import de.greenrobot.event.EventBus;
 
+/**
+ * Receives push notifications and shows them in the system bar.
+ *
+ * Pushes are handled on the threads GCM delivers them on. Pushes for the same note are handled one at a
+ * time, while pushes for different notes are handled in parallel. The active notifications are kept in a
+ * concurrent map, so reading or removing them never waits on push handling. The note from each push
+ * is saved to NotificationsTable before the push is done with, so it isn't lost if the process is
+ * killed. Only the UI work which covers all notifications - rebuilding the group summary and telling
+ * the notifications list it's changed - is batched. It's done on a single thread after a short
+ * delay, so a burst of pushes leads to a single rebuild and a single NotificationsChanged event.
+ */
 public class GCMMessageService extends GcmListenerService {
-    private static final ArrayMap<Integer, Bundle> sActiveNotificationsMap = new ArrayMap<>();
+    // sorted by id like the ArrayMap this replaced, so the first entry is still the one with the lowest id
+    private static final ConcurrentSkipListMap<Integer, Bundle> sActiveNotificationsMap = new ConcurrentSkipListMap<>();
     private static final NotificationHelper sNotificationHelper = new NotificationHelper();
 
+    private static final int NUM_NOTE_LOCKS = 16;
+    private static final Object[] sNoteLocks = new Object[NUM_NOTE_LOCKS];
+    static {
+        for (int i = 0; i < NUM_NOTE_LOCKS; i++) {
+            sNoteLocks[i] = new Object();
+        }
+    }
+
+    // system bar updates and NotificationsChanged events requested within this window are done together
+    private static final long SYSTEM_BAR_UPDATE_DELAY_MS = 250;
+    private static final ScheduledExecutorService sSystemBarExecutor = Executors.newSingleThreadScheduledExecutor();
+    private static final AtomicBoolean sIsSystemBarUpdateScheduled = new AtomicBoolean();
+    private static final AtomicReference<GroupNotificationUpdate> sPendingGroupUpdate = new AtomicReference<>();
+    private static final AtomicReference<SystemBarRebuild> sPendingRebuild = new AtomicReference<>();
+    private static final AtomicBoolean sIsNotificationsChangedPending = new AtomicBoolean();
+
     private static final String NOTIFICATION_GROUP_KEY = "notification_group_key";
     private static final int PUSH_NOTIFICATION_ID = 10000;
     public static final int AUTH_PUSH_NOTIFICATION_ID = 20000;
@@ -107,12 +141,16 @@ public class GCMMessageService extends GcmListenerService {
             "comment_id"};
 
     private void synchronizedHandleDefaultPush(@NonNull Bundle data) {
-        // sActiveNotificationsMap being static, we can't just synchronize the method
-        synchronized (GCMMessageService.class) {
+        // only pushes for the same note need to wait for each other
+        synchronized (getNoteLock(data.getString(PUSH_ARG_NOTE_ID, ""))) {
             sNotificationHelper.handleDefaultPush(this, data, mAccountStore.getAccount().getUserId());
         }
     }
 
+    private static Object getNoteLock(@NonNull String noteId) {
+        return sNoteLocks[(noteId.hashCode() & Integer.MAX_VALUE) % NUM_NOTE_LOCKS];
+    }
+
     @Override
     public void onMessageReceived(String from, Bundle data) {
         AppLog.v(T.NOTIFS, "Received Message");
@@ -135,68 +173,55 @@ public class GCMMessageService extends GcmListenerService {
         synchronizedHandleDefaultPush(data);
     }
 
-    public static synchronized void rebuildAndUpdateNotificationsOnSystemBarForThisNote(Context context,
-                                                                                        String noteId) {
-        if (sActiveNotificationsMap.size() > 0) {
-            //get the corresponding bundle for this noteId
-            for (Map.Entry<Integer, Bundle> row : sActiveNotificationsMap.entrySet()) {
-                Bundle noteBundle = row.getValue();
-                if (noteBundle.getString(PUSH_ARG_NOTE_ID, "").equals(noteId)) {
-                    sNotificationHelper.rebuildAndUpdateNotificationsOnSystemBar(context, noteBundle);
-                    return;
-                }
-            }
+    public static void rebuildAndUpdateNotificationsOnSystemBarForThisNote(Context context, String noteId) {
+        Bundle noteBundle = getCurrentNoteBundleForNoteId(noteId);
+        if (noteBundle != null) {
+            scheduleSystemBarRebuild(context, noteBundle);
         }
     }
 
-    public static synchronized void rebuildAndUpdateNotifsOnSystemBarForRemainingNote(Context context) {
-        if (sActiveNotificationsMap.size() > 0) {
-            Bundle remainingNote = sActiveNotificationsMap.values().iterator().next();
-            sNotificationHelper.rebuildAndUpdateNotificationsOnSystemBar(context, remainingNote);
+    public static void rebuildAndUpdateNotifsOnSystemBarForRemainingNote(Context context) {
+        Map.Entry<Integer, Bundle> remainingNote = sActiveNotificationsMap.firstEntry();
+        if (remainingNote != null) {
+            scheduleSystemBarRebuild(context, remainingNote.getValue());
         }
     }
 
-    public static synchronized Bundle getCurrentNoteBundleForNoteId(String noteId){
-        if (sActiveNotificationsMap.size() > 0) {
-            //get the corresponding bundle for this noteId
-            for(Iterator<Map.Entry<Integer, Bundle>> it = sActiveNotificationsMap.entrySet().iterator(); it.hasNext(); ) {
-                Map.Entry<Integer, Bundle> row = it.next();
-                Bundle noteBundle = row.getValue();
-                if (noteBundle.getString(PUSH_ARG_NOTE_ID, "").equals(noteId)) {
-                    return noteBundle;
-                }
+    public static Bundle getCurrentNoteBundleForNoteId(String noteId){
+        //get the corresponding bundle for this noteId
+        for (Bundle noteBundle : sActiveNotificationsMap.values()) {
+            if (noteBundle.getString(PUSH_ARG_NOTE_ID, "").equals(noteId)) {
+                return noteBundle;
             }
         }
         return null;
     }
 
-    public static synchronized void clearNotifications() {
-        Bundle authPNBundle = sActiveNotificationsMap.remove(AUTH_PUSH_NOTIFICATION_ID);
-
-        sActiveNotificationsMap.clear();
-
-        //reinsert 2fa bundle if it was present
-        if (authPNBundle != null) {
-            sActiveNotificationsMap.put(AUTH_PUSH_NOTIFICATION_ID, authPNBundle);
+    public static void clearNotifications() {
+        // keep the 2fa bundle if it's present
+        for (Iterator<Integer> it = sActiveNotificationsMap.keySet().iterator(); it.hasNext(); ) {
+            if (it.next() != AUTH_PUSH_NOTIFICATION_ID) {
+                it.remove();
+            }
         }
     }
 
-    public static synchronized int getNotificationsCount() {
+    public static int getNotificationsCount() {
         return sActiveNotificationsMap.size();
     }
 
-    public static synchronized boolean hasNotifications() {
+    public static boolean hasNotifications() {
         return !sActiveNotificationsMap.isEmpty();
     }
 
     // Removes a specific notification from the internal map - only use this when we know
     // the user has dismissed the app by swiping it off the screen
-    public static synchronized void removeNotification(int notificationId) {
+    public static void removeNotification(int notificationId) {
         sActiveNotificationsMap.remove(notificationId);
     }
 
     // Removes a specific notification from the system bar
-    public static synchronized void removeNotificationWithNoteIdFromSystemBar(Context context, String noteID) {
+    public static void removeNotificationWithNoteIdFromSystemBar(Context context, String noteID) {
         if (context == null || TextUtils.isEmpty(noteID) || !hasNotifications()) {
             return;
         }
@@ -220,27 +245,24 @@ public class GCMMessageService extends GcmListenerService {
     }
 
     // Removes all app notifications from the system bar
-    public static synchronized void removeAllNotifications(Context context) {
+    public static void removeAllNotifications(Context context) {
         if (context == null || !hasNotifications()) {
             return;
         }
 
         NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
-        Bundle authPNBundle = sActiveNotificationsMap.remove(AUTH_PUSH_NOTIFICATION_ID);
         for (Integer pushId : sActiveNotificationsMap.keySet()) {
-            notificationManager.cancel(pushId);
+            // the 2fa notification is left showing
+            if (pushId != AUTH_PUSH_NOTIFICATION_ID) {
+                notificationManager.cancel(pushId);
+            }
         }
         notificationManager.cancel(GCMMessageService.GROUP_NOTIFICATION_ID);
 
-        //reinsert 2fa bundle if it was present
-        if (authPNBundle != null) {
-            sActiveNotificationsMap.put(AUTH_PUSH_NOTIFICATION_ID, authPNBundle);
-        }
-
         clearNotifications();
     }
 
-    public static synchronized void remove2FANotification(Context context) {
+    public static void remove2FANotification(Context context) {
         if (context == null || !hasNotifications()) {
             return;
         }
@@ -251,9 +273,8 @@ public class GCMMessageService extends GcmListenerService {
     }
 
     // NoteID is the ID if the note in WordPress
-    public static synchronized void bumpPushNotificationsTappedAnalytics(String noteID) {
-        for (int id : sActiveNotificationsMap.keySet()) {
-            Bundle noteBundle = sActiveNotificationsMap.get(id);
+    public static void bumpPushNotificationsTappedAnalytics(String noteID) {
+        for (Bundle noteBundle : sActiveNotificationsMap.values()) {
             if (noteBundle.getString(PUSH_ARG_NOTE_ID, "").equals(noteID)) {
                 bumpPushNotificationsAnalytics(Stat.PUSH_NOTIFICATION_TAPPED, noteBundle, null);
                 AnalyticsTracker.flush();
@@ -263,9 +284,8 @@ public class GCMMessageService extends GcmListenerService {
     }
 
     // Mark all notifications as tapped
-    public static synchronized void bumpPushNotificationsTappedAllAnalytics() {
-        for (int id : sActiveNotificationsMap.keySet()) {
-            Bundle noteBundle = sActiveNotificationsMap.get(id);
+    public static void bumpPushNotificationsTappedAllAnalytics() {
+        for (Bundle noteBundle : sActiveNotificationsMap.values()) {
             bumpPushNotificationsAnalytics(Stat.PUSH_NOTIFICATION_TAPPED, noteBundle, null);
         }
         AnalyticsTracker.flush();
@@ -299,6 +319,108 @@ public class GCMMessageService extends GcmListenerService {
         sActiveNotificationsMap.put(AUTH_PUSH_NOTIFICATION_ID, data);
     }
 
+    /*
+     * returns the active notifications other than the 2fa notification, in order of their ids
+     */
+    private static List<Map.Entry<Integer, Bundle>> getPushNotificationEntries() {
+        List<Map.Entry<Integer, Bundle>> entries = new ArrayList<>();
+        for (Map.Entry<Integer, Bundle> entry : sActiveNotificationsMap.entrySet()) {
+            if (entry.getKey() != AUTH_PUSH_NOTIFICATION_ID) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static class GroupNotificationUpdate {
+        private final Context mContext;
+        private final NotificationCompat.Builder mBuilder;
+        private final String mNoteId;
+        private final String mMessage;
+
+        GroupNotificationUpdate(Context context, NotificationCompat.Builder builder, String noteId, String message) {
+            mContext = context.getApplicationContext();
+            mBuilder = builder;
+            mNoteId = noteId;
+            mMessage = message;
+        }
+    }
+
+    private static class SystemBarRebuild {
+        private final Context mContext;
+        private final Bundle mData;
+
+        SystemBarRebuild(Context context, Bundle data) {
+            mContext = context.getApplicationContext();
+            mData = data;
+        }
+    }
+
+    /*
+     * replaces the group summary with one built from the passed notification once the current burst of
+     * pushes is over
+     */
+    private static void scheduleGroupNotificationUpdate(Context context, NotificationCompat.Builder builder,
+                                                        String noteId, String message) {
+        sPendingGroupUpdate.set(new GroupNotificationUpdate(context, builder, noteId, message));
+        scheduleSystemBarUpdate();
+    }
+
+    /*
+     * rebuilds the notifications in the system bar once the current burst of pushes or removals is over,
+     * replacing any rebuild which is already pending
+     */
+    private static void scheduleSystemBarRebuild(Context context, Bundle data) {
+        if (context == null || data == null) {
+            return;
+        }
+        sPendingRebuild.set(new SystemBarRebuild(context, data));
+        scheduleSystemBarUpdate();
+    }
+
+    /*
+     * tells the notifications list that notes have changed once the current burst of pushes is over
+     */
+    private static void scheduleNotificationsChanged() {
+        sIsNotificationsChangedPending.set(true);
+        scheduleSystemBarUpdate();
+    }
+
+    private static void scheduleSystemBarUpdate() {
+        if (sIsSystemBarUpdateScheduled.compareAndSet(false, true)) {
+            sSystemBarExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    // cleared first so anything requested from here on gets another update
+                    sIsSystemBarUpdateScheduled.set(false);
+                    updateSystemBar();
+                }
+            }, SYSTEM_BAR_UPDATE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void updateSystemBar() {
+        // a rebuild covers every active notification, so it makes a pending group update redundant
+        SystemBarRebuild rebuild = sPendingRebuild.getAndSet(null);
+        GroupNotificationUpdate groupUpdate = sPendingGroupUpdate.getAndSet(null);
+        try {
+            if (sIsNotificationsChangedPending.getAndSet(false)) {
+                EventBus.getDefault().post(new NotificationEvents.NotificationsChanged(true));
+            }
+            if (rebuild != null) {
+                if (!sActiveNotificationsMap.isEmpty()) {
+                    sNotificationHelper.rebuildAndUpdateNotificationsOnSystemBar(rebuild.mContext, rebuild.mData);
+                }
+            } else if (groupUpdate != null) {
+                sNotificationHelper.showGroupNotificationForBuilder(groupUpdate.mContext, groupUpdate.mBuilder,
+                        groupUpdate.mNoteId, groupUpdate.mMessage);
+            }
+        } catch (RuntimeException e) {
+            // otherwise the exception would be silently swallowed by the executor
+            AppLog.e(T.NOTIFS, "Unable to update notifications on the system bar", e);
+        }
+    }
+
     private static class NotificationHelper {
         private void handleDefaultPush(Context context, @NonNull Bundle data, long wpcomUserId) {
 
@@ -344,9 +466,14 @@ public class GCMMessageService extends GcmListenerService {
                 return;
             }
 
-            // Try to build the note object from the PN payload, and save it to the DB.
-            NotificationsUtils.buildNoteObjectFromBundleAndSaveIt(data);
-            EventBus.getDefault().post(new NotificationEvents.NotificationsChanged(true));
+            // Try to build the note object from the PN payload, and save it to the DB. This isn't batched
+            // with other pushes - holding the note back would need another durable write to survive the
+            // process being killed, which costs as much as saving it here.
+            Note note = NotificationsUtils.buildNoteObjectFromBundle(data);
+            if (note != null) {
+                NotificationsTable.saveNote(note);
+            }
+            scheduleNotificationsChanged();
             // Always do this, since a note can be updated on the server after a PN is sent
             NotificationsActions.downloadNoteAndUpdateDB(wpcomNoteID, null, null);
 
@@ -385,21 +512,20 @@ public class GCMMessageService extends GcmListenerService {
 
             // Update notification content for the same noteId if it is already showing
             int pushId = 0;
-            for (Integer id : sActiveNotificationsMap.keySet()) {
-                if (id == null) {
-                    continue;
-                }
-                Bundle noteBundle = sActiveNotificationsMap.get(id);
-                if (noteBundle != null && noteBundle.getString(PUSH_ARG_NOTE_ID, "").equals(wpcomNoteID)) {
-                    pushId = id;
+            for (Map.Entry<Integer, Bundle> entry : sActiveNotificationsMap.entrySet()) {
+                if (entry.getValue().getString(PUSH_ARG_NOTE_ID, "").equals(wpcomNoteID)) {
+                    pushId = entry.getKey();
                     sActiveNotificationsMap.put(pushId, data);
                     break;
                 }
             }
 
             if (pushId == 0) {
+                // pushes for other notes may be claiming ids at the same time
                 pushId = PUSH_NOTIFICATION_ID + sActiveNotificationsMap.size();
-                sActiveNotificationsMap.put(pushId, data);
+                while (sActiveNotificationsMap.putIfAbsent(pushId, data) != null) {
+                    pushId++;
+                }
             }
 
             // Bump Analytics for PNs if "Show notifications" setting is checked (default). Skip otherwise.
@@ -425,17 +551,21 @@ public class GCMMessageService extends GcmListenerService {
                 builder.setLargeIcon(largeIconBitmap);
             }
 
-            showSingleNotificationForBuilder(context, builder, noteType, wpcomNoteID, pushId, true);
+            showSingleNotificationForBuilder(context, builder, noteType, wpcomNoteID, note, pushId, true);
 
             // Also add a group summary notification, which is required for non-wearable devices
             // Do not need to play the sound again. We've already played it in the individual builder.
-            showGroupNotificationForBuilder(context, builder, wpcomNoteID, message);
+            // The summary is updated once a burst of pushes is over rather than for each of them.
+            scheduleGroupNotificationUpdate(context, builder, wpcomNoteID, message);
         }
 
-        private void addActionsForCommentNotification(Context context, NotificationCompat.Builder builder, String noteId) {
+        private void addActionsForCommentNotification(Context context, NotificationCompat.Builder builder,
+                                                      String noteId, Note note) {
             // Add some actions if this is a comment notification
             boolean areActionsSet = false;
-            Note note = NotificationsTable.getNoteById(noteId);
+            if (note == null) {
+                note = NotificationsTable.getNoteById(noteId);
+            }
             if (note != null) {
                 //if note can be replied to, we'll always add this action first
                 if (note.canReply()) {
@@ -606,13 +736,14 @@ public class GCMMessageService extends GcmListenerService {
                 return;
             }
 
-            //first remove 2fa push from the map, then reinsert it, so it's not shown in the inbox style group notif
-            Bundle authPNBundle = sActiveNotificationsMap.remove(AUTH_PUSH_NOTIFICATION_ID);
-            if (sActiveNotificationsMap.size() > 1) {
+            // the 2fa push isn't shown in the inbox style group notif
+            List<Map.Entry<Integer, Bundle>> pushEntries = getPushNotificationEntries();
+            if (pushEntries.size() > 1) {
 
                 NotificationCompat.InboxStyle inboxStyle = new NotificationCompat.InboxStyle();
                 int noteCtr = 1;
-                for (Bundle pushBundle : sActiveNotificationsMap.values()) {
+                for (Map.Entry<Integer, Bundle> pushEntry : pushEntries) {
+                    Bundle pushBundle = pushEntry.getValue();
                     // InboxStyle notification is limited to 5 lines
                     if (noteCtr > MAX_INBOX_ITEMS) {
                         break;
@@ -633,12 +764,12 @@ public class GCMMessageService extends GcmListenerService {
                     noteCtr++;
                 }
 
-                if (sActiveNotificationsMap.size() > MAX_INBOX_ITEMS) {
+                if (pushEntries.size() > MAX_INBOX_ITEMS) {
                     inboxStyle.setSummaryText(String.format(context.getString(R.string.more_notifications),
-                            sActiveNotificationsMap.size() - MAX_INBOX_ITEMS));
+                            pushEntries.size() - MAX_INBOX_ITEMS));
                 }
 
-                String subject = String.format(context.getString(R.string.new_notifications), sActiveNotificationsMap.size());
+                String subject = String.format(context.getString(R.string.new_notifications), pushEntries.size());
                 NotificationCompat.Builder groupBuilder = new NotificationCompat.Builder(context)
                         .setSmallIcon(R.drawable.ic_my_sites_24dp)
                         .setColor(context.getResources().getColor(R.color.blue_wordpress))
@@ -657,21 +788,17 @@ public class GCMMessageService extends GcmListenerService {
                 builder.setGroupSummary(true);
                 showNotificationForBuilder(builder, context, wpcomNoteID, GROUP_NOTIFICATION_ID, false);
             }
-            //reinsert 2fa bundle if it was present
-            if (authPNBundle != null) {
-                sActiveNotificationsMap.put(AUTH_PUSH_NOTIFICATION_ID, authPNBundle);
-            }
-
         }
 
         private void showSingleNotificationForBuilder(Context context, NotificationCompat.Builder builder,
-                                                      String noteType, String wpcomNoteID, int pushId, boolean notifyUser) {
+                                                      String noteType, String wpcomNoteID, Note note, int pushId,
+                                                      boolean notifyUser) {
             if (builder == null || context == null) {
                 return;
             }
 
             if (noteType.equals(PUSH_TYPE_COMMENT)) {
-                addActionsForCommentNotification(context, builder, wpcomNoteID);
+                addActionsForCommentNotification(context, builder, wpcomNoteID, note);
             }
 
             showNotificationForBuilder(builder, context, wpcomNoteID, pushId, notifyUser);
@@ -739,17 +866,17 @@ public class GCMMessageService extends GcmListenerService {
             String noteType = StringUtils.notNullStr(data.getString(PUSH_ARG_TYPE));
 
             // Check for wpcom auth push, if so we will process this push differently
-            // and we'll remove the auth special notif out of the map while we re-build the remaining notifs
-            Bundle authPNBundle = sActiveNotificationsMap.remove(AUTH_PUSH_NOTIFICATION_ID);
+            // and we'll leave the auth special notif out while we re-build the remaining notifs
+            List<Map.Entry<Integer, Bundle>> pushEntries = getPushNotificationEntries();
+            Bundle authPNBundle = sActiveNotificationsMap.get(AUTH_PUSH_NOTIFICATION_ID);
             if (authPNBundle != null) {
                 handlePushAuth(context, authPNBundle);
-                if (sActiveNotificationsMap.size() > 0 && noteType.equals(PUSH_TYPE_PUSH_AUTH)) {
+                if (pushEntries.size() > 0 && noteType.equals(PUSH_TYPE_PUSH_AUTH)) {
                     //get the data for the next notification in map for re-build
                     //because otherwise we would be keeping the PUSH_AUTH type note in `data`
-                    data = sActiveNotificationsMap.values().iterator().next();
+                    data = pushEntries.get(0).getValue();
                 } else if (noteType.equals(PUSH_TYPE_PUSH_AUTH)) {
-                    //only note is the 2fa note, just reinsert it in the map and return
-                    sActiveNotificationsMap.put(AUTH_PUSH_NOTIFICATION_ID, authPNBundle);
+                    //only note is the 2fa note, nothing else to re-build
                     return;
                 }
             }
@@ -763,9 +890,9 @@ public class GCMMessageService extends GcmListenerService {
             NotificationCompat.Builder builder = null;
             String wpcomNoteID = null;
 
-            if (sActiveNotificationsMap.size() == 1) {
+            if (pushEntries.size() == 1) {
                 //only one notification remains, so get the proper message for it and re-instate in the system dashboard
-                Bundle remainingNote = sActiveNotificationsMap.values().iterator().next();
+                Bundle remainingNote = pushEntries.get(0).getValue();
                 if (remainingNote != null) {
                     String remainingNoteTitle = StringEscapeUtils.unescapeHtml4(remainingNote.getString(PUSH_ARG_TITLE));
                     if (!TextUtils.isEmpty(remainingNoteTitle)) {
@@ -790,10 +917,8 @@ public class GCMMessageService extends GcmListenerService {
 
                     noteType = StringUtils.notNullStr(remainingNote.getString(PUSH_ARG_TYPE));
                     wpcomNoteID = remainingNote.getString(PUSH_ARG_NOTE_ID, "");
-                    if (!sActiveNotificationsMap.isEmpty()) {
-                        showSingleNotificationForBuilder(context, builder, noteType, wpcomNoteID,
-                                sActiveNotificationsMap.keyAt(0), false);
-                    }
+                    showSingleNotificationForBuilder(context, builder, noteType, wpcomNoteID, null,
+                            pushEntries.get(0).getKey(), false);
                 }
             }
 
@@ -814,11 +939,6 @@ public class GCMMessageService extends GcmListenerService {
             }
 
             showGroupNotificationForBuilder(context, builder,  wpcomNoteID, message);
-
-            //reinsert 2fa bundle if it was present
-            if (authPNBundle != null) {
-                sActiveNotificationsMap.put(AUTH_PUSH_NOTIFICATION_ID, authPNBundle);
-            }
         }
 
         private String getNotificationTitleOrAppNameFromBundle(Context context, Bundle data){
@@ -848,7 +968,7 @@ public class GCMMessageService extends GcmListenerService {
                 removeNotificationWithNoteIdFromSystemBar(context, noteID);
                 //now that we cleared the specific notif, we can check and make any visual updates
                 if (sActiveNotificationsMap.size() > 0) {
-                    rebuildAndUpdateNotificationsOnSystemBar(context, data);
+                    scheduleSystemBarRebuild(context, data);
                 }
             } else {
                 removeAllNotifications(context);
@@ -870,7 +990,7 @@ public class GCMMessageService extends GcmListenerService {
             removeNotificationWithNoteIdFromSystemBar(context, noteID);
             //now that we cleared the specific notif, we can check and make any visual updates
             if (sActiveNotificationsMap.size() > 0) {
-                rebuildAndUpdateNotificationsOnSystemBar(context, data);
+                scheduleSystemBarRebuild(context, data);
             }
 
             EventBus.getDefault().post(new NotificationEvents.NotificationsChanged(sActiveNotificationsMap.size() > 0));
@@ -5,7 +5,7 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 
-import com.helpshift.support.Support;
+import org.wordpress.android.util.HelpshiftHelper;
 
 public class HelpshiftDeepLinkReceiver extends AppCompatActivity {
     @Override
@@ -18,11 +18,7 @@ public class HelpshiftDeepLinkReceiver extends AppCompatActivity {
         if (Intent.ACTION_VIEW.equals(action) && data != null) {
             String faqid = data.getQueryParameter("faqid");
             String sectionid = data.getQueryParameter("sectionid");
-            if (faqid != null) {
-                Support.showSingleFAQ(this, faqid);
-            } else if (sectionid != null) {
-                Support.showFAQSection(this, sectionid);
-            }
+            HelpshiftHelper.getInstance().showFAQPage(this, faqid, sectionid);
         }
         finish();
     }
@@ -9,8 +9,6 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 
-import com.helpshift.support.Support;
-
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.fluxc.store.AccountStore;
@@ -193,11 +191,7 @@ public class SignInDialogFragment extends DialogFragment {
             case ACTION_OPEN_FAQ_PAGE:
                 String faqId = arguments.getString(ARG_TELL_ME_MORE_BUTTON_PARAM_NAME_FAQ_ID);
                 String sectionId = arguments.getString(ARG_TELL_ME_MORE_BUTTON_PARAM_NAME_SECTION_ID);
-                if (faqId != null) {
-                    Support.showSingleFAQ(getActivity(), faqId);
-                } else if (sectionId != null) {
-                    Support.showFAQSection(getActivity(), sectionId);
-                }
+                HelpshiftHelper.getInstance().showFAQPage(getActivity(), faqId, sectionId);
                 break;
             default:
             case ACTION_FINISH:
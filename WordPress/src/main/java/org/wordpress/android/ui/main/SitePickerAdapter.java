@@ -77,6 +77,7 @@ public class SitePickerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private boolean mShowSelfHostedSites = true;
     private String mLastSearch;
     private SiteList mAllSites;
+    private final SiteSearchIndex mSearchIndex = new SiteSearchIndex();
     private ArrayList<Integer> mIgnoreSitesIds;
 
     private OnSiteClickListener mSiteSelectedListener;
@@ -352,7 +353,7 @@ public class SitePickerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
     public void searchSites(String searchText) {
         mLastSearch = searchText;
-        mSites = filteredSitesByText(mAllSites);
+        mSites = mSearchIndex.search(mLastSearch);
 
         notifyDataSetChanged();
     }
@@ -504,30 +505,6 @@ public class SitePickerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         new LoadSitesTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
     }
 
-    private SiteList filteredSitesByTextIfInSearchMode(SiteList sites) {
-        if (!mIsInSearchMode) {
-            return sites;
-        } else {
-            return filteredSitesByText(sites);
-        }
-    }
-
-    private SiteList filteredSitesByText(SiteList sites) {
-        SiteList filteredSiteList = new SiteList();
-
-        for (int i = 0; i < sites.size(); i++) {
-            SiteRecord record = sites.get(i);
-            String siteNameLowerCase = record.blogName.toLowerCase();
-            String hostNameLowerCase = record.homeURL.toLowerCase();
-
-            if (siteNameLowerCase.contains(mLastSearch.toLowerCase()) || hostNameLowerCase.contains(mLastSearch.toLowerCase())) {
-                filteredSiteList.add(record);
-            }
-        }
-
-        return filteredSiteList;
-    }
-
     /*
      * AsyncTask which loads sites from database and populates the adapter
      */
@@ -599,7 +576,9 @@ public class SitePickerAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
             if (mSites == null || !mSites.isSameList(sites)) {
                 SiteList allSites = (SiteList) sites.clone();
-                SiteList filteredSites = filteredSitesByTextIfInSearchMode(sites);
+                // only sites which were added or renamed since the last load are indexed
+                mSearchIndex.update(allSites);
+                SiteList filteredSites = mIsInSearchMode ? mSearchIndex.search(mLastSearch) : sites;
 
                 return new SiteList[]{allSites, filteredSites};
             }
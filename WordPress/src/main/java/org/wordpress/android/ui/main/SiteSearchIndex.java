@@ -0,0 +1,304 @@
+package org.wordpress.android.ui.main;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.wordpress.android.ui.main.SitePickerAdapter.SiteList;
+import org.wordpress.android.ui.main.SitePickerAdapter.SiteRecord;
+import org.wordpress.android.util.StringUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Answers site picker searches without scanning every site. The name and host of each site are
+ * normalized once - lowercased with accents removed - and every sequence of up to three characters
+ * in them is mapped to the sites containing it. A search only checks the sites in the smallest of
+ * those lists for the query, so it matches the same sites as a "contains" scan of every site.
+ *
+ * Matches are ranked, then kept in the order the sites were passed to update():
+ *
+ *  1. the name is the query
+ *  2. the name starts with the query
+ *  3. a word in the name starts with the query
+ *  4. the host starts with the query
+ *  5. the name or host contains the query
+ *
+ * update() only indexes sites which are new or whose name or host changed, and sites which were
+ * removed are skipped until enough of them pile up to rebuild the index. Sites are indexed in the
+ * background and searched on the main thread, so access is synchronized.
+ */
+class SiteSearchIndex {
+    private static final int MAX_GRAM_LENGTH = 3;
+    private static final int NUM_RANKS = 5;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static class Entry {
+        private final int mSlot;
+        private final String mRawName;
+        private final String mRawHost;
+        private final String mName;
+        private final String mHost;
+        private SiteRecord mRecord;
+        private int mOrder;
+        private int mGeneration;
+        private boolean mIsRemoved;
+
+        Entry(int slot, @NonNull SiteRecord record) {
+            mSlot = slot;
+            mRecord = record;
+            mRawName = StringUtils.notNullStr(record.blogName);
+            mRawHost = StringUtils.notNullStr(record.homeURL);
+            mName = normalize(mRawName);
+            mHost = normalize(mRawHost);
+        }
+
+        boolean hasSameText(@NonNull SiteRecord record) {
+            return mRawName.equals(StringUtils.notNullStr(record.blogName))
+                    && mRawHost.equals(StringUtils.notNullStr(record.homeURL));
+        }
+    }
+
+    /*
+     * growable list of slots - slots are always added in ascending order
+     */
+    private static class SlotList {
+        private int[] mSlots = new int[4];
+        private int mSize;
+
+        void add(int slot) {
+            // grams which occur more than once in a site are only added once
+            if (mSize > 0 && mSlots[mSize - 1] == slot) {
+                return;
+            }
+            if (mSize == mSlots.length) {
+                mSlots = Arrays.copyOf(mSlots, mSize * 2);
+            }
+            mSlots[mSize++] = slot;
+        }
+    }
+
+    // entries by slot - a slot is never reused, so removed entries stay here until the next rebuild
+    private final ArrayList<Entry> mEntries = new ArrayList<>();
+    private final HashMap<Integer, Entry> mEntriesByLocalId = new HashMap<>();
+    private final HashMap<String, SlotList> mSlotsByGram = new HashMap<>();
+    // entries in the order the sites were passed to update()
+    private Entry[] mEntriesByOrder = new Entry[0];
+    private int mNumRemoved;
+    private int mGeneration;
+
+    /*
+     * makes the index match the passed sites, which are also the order of results with the same rank
+     */
+    synchronized void update(@NonNull List<SiteRecord> sites) {
+        mGeneration++;
+        for (int i = 0; i < sites.size(); i++) {
+            SiteRecord site = sites.get(i);
+            Entry entry = mEntriesByLocalId.get(site.localId);
+            if (entry != null && !entry.hasSameText(site)) {
+                remove(entry);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = add(site);
+            }
+            // the record is replaced even if it's unchanged so results are the records the adapter has
+            entry.mRecord = site;
+            entry.mOrder = i;
+            entry.mGeneration = mGeneration;
+        }
+
+        Iterator<Entry> iterator = mEntriesByLocalId.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.mGeneration != mGeneration) {
+                entry.mIsRemoved = true;
+                mNumRemoved++;
+                iterator.remove();
+            }
+        }
+
+        if (mNumRemoved > mEntries.size() / 2) {
+            rebuild();
+        }
+
+        mEntriesByOrder = new Entry[mEntriesByLocalId.size()];
+        for (Entry entry : mEntriesByLocalId.values()) {
+            mEntriesByOrder[entry.mOrder] = entry;
+        }
+    }
+
+    private Entry add(@NonNull SiteRecord site) {
+        Entry entry = new Entry(mEntries.size(), site);
+        mEntries.add(entry);
+        mEntriesByLocalId.put(site.localId, entry);
+        addGrams(entry.mName, entry.mSlot);
+        addGrams(entry.mHost, entry.mSlot);
+        return entry;
+    }
+
+    private void remove(@NonNull Entry entry) {
+        entry.mIsRemoved = true;
+        mNumRemoved++;
+        mEntriesByLocalId.remove(entry.mRecord.localId);
+    }
+
+    private void addGrams(@NonNull String text, int slot) {
+        for (int start = 0; start < text.length(); start++) {
+            int maxEnd = Math.min(text.length(), start + MAX_GRAM_LENGTH);
+            for (int end = start + 1; end <= maxEnd; end++) {
+                String gram = text.substring(start, end);
+                SlotList slots = mSlotsByGram.get(gram);
+                if (slots == null) {
+                    slots = new SlotList();
+                    mSlotsByGram.put(gram, slots);
+                }
+                slots.add(slot);
+            }
+        }
+    }
+
+    /*
+     * re-indexes the remaining sites from scratch so removed sites no longer take up space
+     */
+    private void rebuild() {
+        ArrayList<Entry> entries = new ArrayList<>(mEntriesByLocalId.values());
+        mEntries.clear();
+        mEntriesByLocalId.clear();
+        mSlotsByGram.clear();
+        mNumRemoved = 0;
+        for (Entry oldEntry : entries) {
+            Entry entry = add(oldEntry.mRecord);
+            entry.mOrder = oldEntry.mOrder;
+            entry.mGeneration = oldEntry.mGeneration;
+        }
+    }
+
+    synchronized int size() {
+        return mEntriesByLocalId.size();
+    }
+
+    /*
+     * returns the sites whose name or host contains the passed query, best matches first - an empty
+     * query returns every site
+     */
+    synchronized SiteList search(String query) {
+        String normalizedQuery = normalize(StringUtils.notNullStr(query));
+
+        // candidates are put in the order the sites were passed to update() - when most sites are
+        // candidates it's quicker to check every site in that order than to sort the candidates
+        List<Entry> candidates = getCandidates(normalizedQuery);
+        if (candidates.size() > mEntriesByOrder.length / 4) {
+            candidates = Arrays.asList(mEntriesByOrder);
+        } else {
+            Collections.sort(candidates, ORDER_COMPARATOR);
+        }
+
+        int[] ranks = new int[candidates.size()];
+        int numMatches = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            ranks[i] = getRank(candidates.get(i), normalizedQuery);
+            if (ranks[i] != -1) {
+                numMatches++;
+            }
+        }
+
+        SiteList results = new SiteList();
+        results.ensureCapacity(numMatches);
+        for (int rank = 0; rank < NUM_RANKS; rank++) {
+            for (int i = 0; i < ranks.length; i++) {
+                if (ranks[i] == rank) {
+                    results.add(candidates.get(i).mRecord);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static final Comparator<Entry> ORDER_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry entry1, Entry entry2) {
+            return entry1.mOrder < entry2.mOrder ? -1 : (entry1.mOrder == entry2.mOrder ? 0 : 1);
+        }
+    };
+
+    /*
+     * returns the sites which contain every gram in the query - for queries longer than a gram this
+     * is the site list of the query's rarest gram, which getRank() then filters. every site is a
+     * candidate for an empty query.
+     */
+    private List<Entry> getCandidates(@NonNull String query) {
+        if (query.length() == 0) {
+            return new ArrayList<>(Arrays.asList(mEntriesByOrder));
+        }
+        SlotList smallest = null;
+        int numGrams = Math.max(1, query.length() - MAX_GRAM_LENGTH + 1);
+        for (int start = 0; start < numGrams; start++) {
+            String gram = query.substring(start, Math.min(query.length(), start + MAX_GRAM_LENGTH));
+            SlotList slots = mSlotsByGram.get(gram);
+            if (slots == null) {
+                return new ArrayList<>();
+            }
+            if (smallest == null || slots.mSize < smallest.mSize) {
+                smallest = slots;
+            }
+        }
+
+        List<Entry> candidates = new ArrayList<>(smallest.mSize);
+        for (int i = 0; i < smallest.mSize; i++) {
+            Entry entry = mEntries.get(smallest.mSlots[i]);
+            if (!entry.mIsRemoved) {
+                candidates.add(entry);
+            }
+        }
+        return candidates;
+    }
+
+    /*
+     * returns the rank of the passed site for the passed query (zero is best), or -1 if it doesn't
+     * match - see the class comment for the ranks
+     */
+    private static int getRank(@NonNull Entry entry, @NonNull String query) {
+        if (query.length() == 0) {
+            return NUM_RANKS - 1;
+        }
+        String name = entry.mName;
+        int index = name.indexOf(query);
+        if (index == 0) {
+            return name.length() == query.length() ? 0 : 1;
+        }
+        while (index > 0) {
+            if (!Character.isLetterOrDigit(name.charAt(index - 1))) {
+                return 2;
+            }
+            index = name.indexOf(query, index + 1);
+        }
+        if (entry.mHost.startsWith(query)) {
+            return 3;
+        }
+        if (name.contains(query) || entry.mHost.contains(query)) {
+            return 4;
+        }
+        return -1;
+    }
+
+    /*
+     * lowercases the passed text and removes accents so accented letters match unaccented ones
+     */
+    static String normalize(String text) {
+        if (TextUtils.isEmpty(text)) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
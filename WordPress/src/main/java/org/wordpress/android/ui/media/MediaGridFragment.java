@@ -38,6 +38,7 @@ import org.wordpress.android.ui.EmptyViewMessageType;
 import org.wordpress.android.ui.media.MediaGridAdapter.MediaGridAdapterCallback;
 import org.wordpress.android.ui.media.services.MediaDeleteService;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.BitmapPool;
 import org.wordpress.android.util.ListUtils;
 import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.ToastUtils;
@@ -230,6 +231,10 @@ public class MediaGridFragment extends Fragment implements MediaGridAdapterCallb
                 super.onScrollStateChanged(recyclerView, newState);
                 if (newState == RecyclerView.SCROLL_STATE_IDLE) {
                     getAdapter().setLoadThumbnails(true);
+                    AppLog.d(AppLog.T.MEDIA, BitmapPool.getDiagnostics());
+                } else if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                    // each scroll session is measured separately
+                    BitmapPool.resetStats();
                 }
             }
         });
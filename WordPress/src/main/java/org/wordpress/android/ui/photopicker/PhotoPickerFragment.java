@@ -33,6 +33,7 @@ import org.wordpress.android.ui.photopicker.PhotoPickerAdapter.PhotoPickerAdapte
 import org.wordpress.android.util.AnalyticsUtils;
 import org.wordpress.android.util.AniUtils;
 import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.BitmapPool;
 import org.wordpress.android.util.MediaUtils;
 import org.wordpress.android.util.WPActivityUtils;
 import org.wordpress.android.util.WPMediaUtils;
@@ -123,6 +124,10 @@ public class PhotoPickerFragment extends Fragment {
                 super.onScrollStateChanged(recyclerView, newState);
                 if (newState == RecyclerView.SCROLL_STATE_IDLE) {
                     getAdapter().setLoadThumbnails(true);
+                    AppLog.d(AppLog.T.MEDIA, BitmapPool.getDiagnostics());
+                } else if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                    // each scroll session is measured separately
+                    BitmapPool.resetStats();
                 }
             }
         });
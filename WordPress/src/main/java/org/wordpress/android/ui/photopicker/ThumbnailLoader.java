@@ -9,6 +9,7 @@ import android.provider.MediaStore;
 import android.view.View;
 import android.widget.ImageView;
 
+import org.wordpress.android.util.BitmapPool;
 import org.wordpress.android.util.ImageUtils;
 
 import java.lang.ref.WeakReference;
@@ -98,6 +99,10 @@ class ThumbnailLoader {
 
             if (media != null && media.getWidth() > mMaxSize) {
                 mThumbnail = ImageUtils.getScaledBitmapAtLongestSide(media, mMaxSize);
+                if (mThumbnail != media) {
+                    // the full-size thumbnail isn't displayed, so it can be reused by the next decode
+                    BitmapPool.put(media);
+                }
             } else {
                 mThumbnail = media;
             }
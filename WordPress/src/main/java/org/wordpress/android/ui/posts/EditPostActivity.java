@@ -103,6 +103,7 @@ import org.wordpress.android.ui.posts.services.AztecVideoLoader;
 import org.wordpress.android.ui.prefs.AppPrefs;
 import org.wordpress.android.ui.prefs.ReleaseNotesActivity;
 import org.wordpress.android.ui.prefs.SiteSettingsInterface;
+import org.wordpress.android.ui.uploads.MediaOptimizationStage;
 import org.wordpress.android.ui.uploads.PostEvents;
 import org.wordpress.android.ui.uploads.UploadService;
 import org.wordpress.android.ui.uploads.VideoOptimizer;
@@ -145,6 +146,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -1918,9 +1923,22 @@ public class EditPostActivity extends AppCompatActivity implements
         }
     }
 
+    private static class PreparedMedia {
+        private final Uri uri;
+        private final String path;
+        private final boolean isVideo;
+
+        PreparedMedia(Uri uri, String path, boolean isVideo) {
+            this.uri = uri;
+            this.path = path;
+            this.isVideo = isVideo;
+        }
+    }
+
     /*
      * processes a list of media in the background (optimizing, resizing, etc.) and adds them to
-     * the editor one at a time
+     * the editor one at a time - media are prepared on the MediaOptimizationStage pool, so later
+     * media are still being optimized while earlier ones are added and uploaded
      */
     private class AddMediaListThread extends Thread {
         private final List<Uri> uriList = new ArrayList<>();
@@ -1964,16 +1982,32 @@ public class EditPostActivity extends AppCompatActivity implements
             if (shouldShowProgress) {
                 showProgressDialog(true);
             }
+            List<Future<PreparedMedia>> preparedMediaList = new ArrayList<>();
             try {
-                for (Uri mediaUri : uriList) {
+                for (final Uri mediaUri : uriList) {
+                    preparedMediaList.add(MediaOptimizationStage.submit(new Callable<PreparedMedia>() {
+                        @Override
+                        public PreparedMedia call() {
+                            return prepareMedia(mediaUri);
+                        }
+                    }));
+                }
+                for (Future<PreparedMedia> future : preparedMediaList) {
                     if (isInterrupted()) {
                         return;
                     }
-                    if (!processMedia(mediaUri)) {
+                    PreparedMedia preparedMedia = getPreparedMedia(future);
+                    if (preparedMedia == null) {
                         didAnyFail = true;
+                        continue;
                     }
+                    trackAddMediaFromDeviceEvents(isNew, preparedMedia.isVideo, preparedMedia.uri);
+                    postProcessMedia(preparedMedia.uri, preparedMedia.path, preparedMedia.isVideo);
                 }
             } finally {
+                for (Future<PreparedMedia> future : preparedMediaList) {
+                    future.cancel(false);
+                }
                 if (shouldShowProgress) {
                     showProgressDialog(false);
                 }
@@ -1995,16 +2029,32 @@ public class EditPostActivity extends AppCompatActivity implements
             });
         }
 
-        private boolean processMedia(Uri mediaUri) {
+        private PreparedMedia getPreparedMedia(@NonNull Future<PreparedMedia> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                interrupt();
+            } catch (ExecutionException e) {
+                AppLog.e(T.MEDIA, e);
+            } catch (CancellationException e) {
+                AppLog.d(T.MEDIA, "Media preparation cancelled");
+            }
+            return null;
+        }
+
+        /*
+         * optimizes or rotates the passed media if necessary, called on the MediaOptimizationStage pool
+         */
+        private PreparedMedia prepareMedia(Uri mediaUri) {
             if (mediaUri == null) {
-                return false;
+                return null;
             }
 
             Activity activity = EditPostActivity.this;
 
             String path = MediaUtils.getRealPathFromURI(activity, mediaUri);
             if (path == null) {
-                return false;
+                return null;
             }
 
             final boolean isVideo = MediaUtils.isVideo(mediaUri.toString());
@@ -2032,14 +2082,7 @@ public class EditPostActivity extends AppCompatActivity implements
                 }
             }
 
-            if (isInterrupted()) {
-                return false;
-            }
-
-            trackAddMediaFromDeviceEvents(isNew, isVideo, mediaUri);
-            postProcessMedia(mediaUri, path, isVideo);
-
-            return true;
+            return new PreparedMedia(mediaUri, path, isVideo);
         }
 
         private void postProcessMedia(final Uri mediaUri, final String path, final boolean isVideo) {
@@ -0,0 +1,84 @@
+package org.wordpress.android.ui.posts.adapters;
+
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringEscapeUtils;
+import org.wordpress.android.fluxc.model.PostModel;
+import org.wordpress.android.fluxc.model.post.PostStatus;
+import org.wordpress.android.ui.posts.PostUtils;
+
+/**
+ * The parts of a post shown in the post list which are expensive to work out - its title and excerpt
+ * with html removed, its status and its featured image url. These are worked out once on a background
+ * thread when the post is loaded, and the same item is reused for as long as the post is unchanged.
+ * The image found in the content of a post without a featured image is also kept in PostListImageTable,
+ * so the content isn't scanned again the next time the list is created.
+ */
+class PostListItem {
+    private final PostModel mPost;
+    private final String mTitle;
+    private final String mExcerpt;
+    private final PostStatus mStatus;
+    private volatile String mFeaturedImageUrl;
+
+    PostListItem(@NonNull PostModel post, String featuredImageUrl) {
+        mPost = post;
+        mStatus = PostStatus.fromPost(post);
+        mFeaturedImageUrl = TextUtils.isEmpty(featuredImageUrl) ? null : featuredImageUrl;
+
+        mTitle = StringUtils.isNotEmpty(post.getTitle()) ? StringEscapeUtils.unescapeHtml4(post.getTitle()) : null;
+
+        String excerpt = PostUtils.getPostListExcerptFromPost(post);
+        if (StringUtils.isNotEmpty(excerpt)) {
+            // Collapse shortcodes: [gallery ids="1206,1205,1191"] -> [gallery]
+            mExcerpt = PostUtils.collapseShortcodes(StringEscapeUtils.unescapeHtml4(excerpt));
+        } else {
+            mExcerpt = null;
+        }
+    }
+
+    /*
+     * returns true if this item was created from the same version of the passed post
+     */
+    boolean isSamePost(@NonNull PostModel post) {
+        return mPost.equals(post);
+    }
+
+    /*
+     * returns true if the post has a featured image whose url isn't known yet
+     */
+    boolean isMissingFeaturedImage() {
+        return mPost.getFeaturedImageId() != 0 && mFeaturedImageUrl == null;
+    }
+
+    /*
+     * unescaped title, or null if the post doesn't have a title
+     */
+    String getTitle() {
+        return mTitle;
+    }
+
+    /*
+     * unescaped excerpt with shortcodes collapsed, or null if the post doesn't have an excerpt
+     */
+    String getExcerpt() {
+        return mExcerpt;
+    }
+
+    PostStatus getStatus() {
+        return mStatus;
+    }
+
+    String getFeaturedImageUrl() {
+        return mFeaturedImageUrl;
+    }
+
+    /*
+     * called on the main thread once the featured image media has been downloaded
+     */
+    void setFeaturedImageUrl(String imageUrl) {
+        mFeaturedImageUrl = TextUtils.isEmpty(imageUrl) ? null : imageUrl;
+    }
+}
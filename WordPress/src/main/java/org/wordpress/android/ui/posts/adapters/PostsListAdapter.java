@@ -11,6 +11,7 @@ import android.graphics.drawable.Drawable;
 import android.os.AsyncTask;
 import android.support.annotation.NonNull;
 import android.support.v4.graphics.drawable.DrawableCompat;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.ListPopupWindow;
 import android.support.v7.widget.RecyclerView;
 import android.text.TextUtils;
@@ -26,9 +27,9 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringEscapeUtils;
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
+import org.wordpress.android.datasets.PostListImageTable;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.generated.MediaActionBuilder;
 import org.wordpress.android.fluxc.model.MediaModel;
@@ -59,8 +60,11 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -74,6 +78,10 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     private static final int VIEW_TYPE_POST_OR_PAGE = 0;
     private static final int VIEW_TYPE_ENDLIST_INDICATOR = 1;
 
+    // featured images are looked up this many at a time, to stay well under sqlite's limit on the
+    // number of parameters in a statement
+    private static final int MAX_MEDIA_IDS_PER_QUERY = 500;
+
     public interface OnPostButtonClickListener {
         void onPostButtonClicked(int buttonId, PostModel post);
     }
@@ -100,8 +108,15 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     private boolean mIsLoadingPosts;
 
     private final List<PostModel> mPosts = new ArrayList<>();
-    private final List<PostModel> mHiddenPosts = new ArrayList<>();
-    private final Map<Integer, String> mFeaturedImageUrls = new HashMap<>();
+    private final Set<Integer> mHiddenPostIds = new HashSet<>();
+
+    // list items for the posts in mPosts keyed by local post id, and the ids of the posts which had
+    // uploads in progress when they were loaded - both are replaced rather than changed after each load
+    private Map<Integer, PostListItem> mItems = new HashMap<>();
+    private Set<Integer> mUploadingPostIds = new HashSet<>();
+
+    // incremented whenever mPosts changes, so a load can tell whether its diff still applies
+    private int mPostsVersion;
 
     private RecyclerView mRecyclerView;
     private final LayoutInflater mLayoutInflater;
@@ -217,33 +232,26 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         }
 
         final PostModel post = mPosts.get(position);
+        final PostListItem item = mItems.get(post.getId());
         Context context = holder.itemView.getContext();
 
         if (holder instanceof PostViewHolder) {
             PostViewHolder postHolder = (PostViewHolder) holder;
 
-            if (StringUtils.isNotEmpty(post.getTitle())) {
-                // Unescape HTML
-                String cleanPostTitle = StringEscapeUtils.unescapeHtml4(post.getTitle());
-                postHolder.txtTitle.setText(cleanPostTitle);
+            if (item.getTitle() != null) {
+                postHolder.txtTitle.setText(item.getTitle());
             } else {
                 postHolder.txtTitle.setText("(" + context.getResources().getText(R.string.untitled) + ")");
             }
 
-            String cleanPostExcerpt = PostUtils.getPostListExcerptFromPost(post);
-
-            if (StringUtils.isNotEmpty(cleanPostExcerpt)) {
+            if (item.getExcerpt() != null) {
                 postHolder.txtExcerpt.setVisibility(View.VISIBLE);
-                // Unescape HTML
-                cleanPostExcerpt = StringEscapeUtils.unescapeHtml4(cleanPostExcerpt);
-                // Collapse shortcodes: [gallery ids="1206,1205,1191"] -> [gallery]
-                cleanPostExcerpt = PostUtils.collapseShortcodes(cleanPostExcerpt);
-                postHolder.txtExcerpt.setText(cleanPostExcerpt);
+                postHolder.txtExcerpt.setText(item.getExcerpt());
             } else {
                 postHolder.txtExcerpt.setVisibility(View.GONE);
             }
 
-            showFeaturedImage(post.getId(), postHolder.imgFeatured);
+            showFeaturedImage(item.getFeaturedImageUrl(), postHolder.imgFeatured);
 
             // local drafts say "delete" instead of "trash"
             if (post.isLocalDraft()) {
@@ -266,7 +274,7 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
                 postHolder.disabledOverlay.setVisibility(View.GONE);
             }
 
-            updateStatusTextAndImage(postHolder.txtStatus, postHolder.imgStatus, post);
+            updateStatusTextAndImage(postHolder.txtStatus, postHolder.imgStatus, post, item.getStatus());
             updatePostUploadProgressBar(postHolder.progressBar, post);
             configurePostButtons(postHolder, post);
         } else if (holder instanceof PageViewHolder) {
@@ -280,7 +288,7 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             String dateStr = getPageDateHeaderText(context, post);
             pageHolder.txtDate.setText(dateStr);
 
-            updateStatusTextAndImage(pageHolder.txtStatus, pageHolder.imgStatus, post);
+            updateStatusTextAndImage(pageHolder.txtStatus, pageHolder.imgStatus, post, item.getStatus());
             updatePostUploadProgressBar(pageHolder.progressBar, post);
 
             // don't show date header if same as previous
@@ -334,8 +342,7 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         });
     }
 
-    private void showFeaturedImage(int postId, WPNetworkImageView imgFeatured) {
-        String imageUrl = mFeaturedImageUrls.get(postId);
+    private void showFeaturedImage(String imageUrl, WPNetworkImageView imgFeatured) {
         if (imageUrl == null) {
             imgFeatured.setVisibility(View.GONE);
         } else if (imageUrl.startsWith("http")) {
@@ -427,10 +434,11 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         }
     }
 
-    private void updateStatusTextAndImage(TextView txtStatus, ImageView imgStatus, PostModel post) {
+    private void updateStatusTextAndImage(TextView txtStatus, ImageView imgStatus, PostModel post,
+                                          PostStatus status) {
         Context context = txtStatus.getContext();
 
-        if ((PostStatus.fromPost(post) == PostStatus.PUBLISHED) && !post.isLocalDraft() && !post.isLocallyChanged()) {
+        if ((status == PostStatus.PUBLISHED) && !post.isLocalDraft() && !post.isLocallyChanged()) {
             txtStatus.setVisibility(View.GONE);
             imgStatus.setVisibility(View.GONE);
         } else {
@@ -468,7 +476,7 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
                 statusIconResId = R.drawable.ic_gridicons_page;
                 statusColorResId = R.color.alert_yellow;
             } else {
-                switch (PostStatus.fromPost(post)) {
+                switch (status) {
                     case DRAFT:
                         statusTextResId = R.string.post_status_draft;
                         statusIconResId = R.drawable.ic_gridicons_page;
@@ -673,11 +681,12 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
      * to delete the post hasn't completed yet
      */
     public void hidePost(PostModel post) {
-        mHiddenPosts.add(post);
+        mHiddenPostIds.add(post.getId());
 
         int position = getPositionForPost(post);
         if (position > -1) {
             mPosts.remove(position);
+            mPostsVersion++;
             if (mPosts.size() > 0) {
                 notifyItemRemoved(position);
 
@@ -695,7 +704,7 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     }
 
     public void unhidePost(PostModel post) {
-        if (mHiddenPosts.remove(post)) {
+        if (mHiddenPostIds.remove(post.getId())) {
             loadPosts(LoadMode.IF_CHANGED);
         }
     }
@@ -802,23 +811,101 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         List<Integer> indexList = PostUtils.indexesOfFeaturedMediaIdInList(mediaModel.getMediaId(), mPosts);
         for (int position : indexList) {
             PostModel post = getItem(position);
-            if (post != null) {
-                String imageUrl = mediaModel.getUrl();
-                if (imageUrl != null) {
-                    mFeaturedImageUrls.put(post.getId(), imageUrl);
-                } else {
-                    mFeaturedImageUrls.remove(post.getId());
-                }
+            PostListItem item = (post != null ? mItems.get(post.getId()) : null);
+            if (item != null) {
+                item.setFeaturedImageUrl(mediaModel.getUrl());
                 notifyItemChanged(position);
             }
         }
     }
 
+    /*
+     * returns true if the post or its media are being uploaded or waiting to be uploaded, in which
+     * case its row shows upload progress that isn't part of the post itself
+     */
+    private static boolean isUploadingOrQueued(PostModel post) {
+        return UploadService.isPostUploadingOrQueued(post)
+                || UploadService.hasPendingOrInProgressMediaUploadsForPost(post);
+    }
+
+    /*
+     * compares the posts before and after a load by their list items - an item is only replaced when
+     * its post changes, so an unchanged post has the same item instance in both lists
+     */
+    private class PostListDiffCallback extends DiffUtil.Callback {
+        private final List<PostModel> mOldPosts;
+        private final List<PostModel> mNewPosts;
+        private final Map<Integer, PostListItem> mOldItems;
+        private final Map<Integer, PostListItem> mNewItems;
+        private final Set<Integer> mOldUploadingPostIds;
+        private final Set<Integer> mNewUploadingPostIds;
+
+        PostListDiffCallback(List<PostModel> oldPosts, Map<Integer, PostListItem> oldItems,
+                             Set<Integer> oldUploadingPostIds, List<PostModel> newPosts,
+                             Map<Integer, PostListItem> newItems, Set<Integer> newUploadingPostIds) {
+            mOldPosts = oldPosts;
+            mOldItems = oldItems;
+            mOldUploadingPostIds = oldUploadingPostIds;
+            mNewPosts = newPosts;
+            mNewItems = newItems;
+            mNewUploadingPostIds = newUploadingPostIds;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldPosts.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewPosts.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldPosts.get(oldItemPosition).getId() == mNewPosts.get(newItemPosition).getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            int postId = mNewPosts.get(newItemPosition).getId();
+            if (mOldItems.get(postId) != mNewItems.get(postId)) {
+                return false;
+            }
+
+            // upload progress and status aren't part of the post, so always rebind rows with uploads
+            if (mOldUploadingPostIds.contains(postId) || mNewUploadingPostIds.contains(postId)) {
+                return false;
+            }
+
+            // a page's date header and top divider depend on the page before it
+            if (mIsPage) {
+                PostListItem oldPrevious = oldItemPosition > 0
+                        ? mOldItems.get(mOldPosts.get(oldItemPosition - 1).getId()) : null;
+                PostListItem newPrevious = newItemPosition > 0
+                        ? mNewItems.get(mNewPosts.get(newItemPosition - 1).getId()) : null;
+                return oldPrevious == newPrevious;
+            }
+
+            return true;
+        }
+    }
+
     private class LoadPostsTask extends AsyncTask<Void, Void, Boolean> {
         private List<PostModel> tmpPosts;
+        private Map<Integer, PostListItem> tmpItems;
+        private final Set<Integer> tmpUploadingPostIds = new HashSet<>();
+        private DiffUtil.DiffResult mDiffResult;
         private final ArrayList<Long> mediaIdsToUpdate = new ArrayList<>();
         private final LoadMode mLoadMode;
 
+        // copied on the main thread before loading
+        private List<PostModel> mOldPosts;
+        private Map<Integer, PostListItem> mOldItems;
+        private Set<Integer> mOldUploadingPostIds;
+        private Set<Integer> mHiddenIds;
+        private int mOldPostsVersion;
+
         LoadPostsTask(LoadMode loadMode) {
             mLoadMode = loadMode;
         }
@@ -827,6 +914,11 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
         protected void onPreExecute() {
             super.onPreExecute();
             mIsLoadingPosts = true;
+            mOldPosts = new ArrayList<>(mPosts);
+            mOldItems = mItems;
+            mOldUploadingPostIds = mUploadingPostIds;
+            mHiddenIds = new HashSet<>(mHiddenPostIds);
+            mOldPostsVersion = mPostsVersion;
         }
 
         @Override
@@ -837,64 +929,156 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
 
         @Override
         protected Boolean doInBackground(Void... nada) {
+            List<PostModel> posts;
             if (mIsPage) {
-                tmpPosts = mPostStore.getPagesForSite(mSite);
+                posts = mPostStore.getPagesForSite(mSite);
             } else {
-                tmpPosts = mPostStore.getPostsForSite(mSite);
+                posts = mPostStore.getPostsForSite(mSite);
             }
 
             // Make sure we don't return any hidden posts
-            if (mHiddenPosts.size() > 0) {
-                tmpPosts.removeAll(mHiddenPosts);
+            tmpPosts = new ArrayList<>(posts.size());
+            for (PostModel post : posts) {
+                if (!mHiddenIds.contains(post.getId())) {
+                    tmpPosts.add(post);
+                }
+                if (isUploadingOrQueued(post)) {
+                    tmpUploadingPostIds.add(post.getId());
+                }
             }
 
-            // Go no further if existing post list is the same
-            if (mLoadMode == LoadMode.IF_CHANGED && PostUtils.postListsAreEqual(mPosts, tmpPosts)) {
-                // Always update the list if there are uploading posts
-                boolean postsAreUploading = false;
-                for (PostModel post : tmpPosts) {
-                    if (UploadService.isPostUploadingOrQueued(post)) {
-                        postsAreUploading = true;
-                        break;
-                    }
-                }
+            // Go no further if existing post list is the same, unless uploads are (or were) in progress
+            if (mLoadMode == LoadMode.IF_CHANGED
+                    && tmpUploadingPostIds.isEmpty()
+                    && mOldUploadingPostIds.isEmpty()
+                    && PostUtils.postListsAreEqual(mOldPosts, tmpPosts)) {
+                return false;
+            }
+
+            tmpItems = getListItems(tmpPosts);
+
+            // the end list indicator is only shown when there are posts, so going to or from an empty
+            // list is left to notifyDataSetChanged()
+            if (mOldPosts.size() > 0 && tmpPosts.size() > 0) {
+                mDiffResult = DiffUtil.calculateDiff(new PostListDiffCallback(
+                        mOldPosts, mOldItems, mOldUploadingPostIds, tmpPosts, tmpItems, tmpUploadingPostIds));
+            }
 
-                if (!postsAreUploading) {
-                    return false;
+            return true;
+        }
+
+        /*
+         * returns the list item for each of the passed posts, reusing the existing item for posts
+         * which haven't changed so the excerpt and featured image are only worked out for new and
+         * changed posts
+         */
+        private Map<Integer, PostListItem> getListItems(List<PostModel> posts) {
+            Map<Integer, PostListItem> items = new HashMap<>(posts.size());
+            List<PostModel> postsWithFeaturedImage = new ArrayList<>();
+            List<PostModel> postsWithoutFeaturedImage = new ArrayList<>();
+
+            for (PostModel post : posts) {
+                PostListItem item = mOldItems.get(post.getId());
+                if (item != null && item.isSamePost(post) && !item.isMissingFeaturedImage()) {
+                    items.put(post.getId(), item);
+                } else if (post.getFeaturedImageId() != 0) {
+                    postsWithFeaturedImage.add(post);
+                } else {
+                    postsWithoutFeaturedImage.add(post);
                 }
             }
 
-            // Generate the featured image url for each post
-            mFeaturedImageUrls.clear();
-            boolean isPrivate = !SiteUtils.isPhotonCapable(mSite);
-            for (PostModel post : tmpPosts) {
-                String imageUrl = null;
-                if (post.getFeaturedImageId() != 0) {
-                    MediaModel media = mMediaStore.getSiteMediaWithId(mSite, post.getFeaturedImageId());
-                    if (media != null) {
-                        imageUrl = media.getUrl();
-                    } else {
-                        // If the media isn't found it means the featured image info hasn't been added to
-                        // the local media library yet, so add to the list of media IDs to request info for
-                        mediaIdsToUpdate.add(post.getFeaturedImageId());
+            Map<Integer, String> contentImageUrls = getContentImageUrls(postsWithoutFeaturedImage);
+            for (PostModel post : postsWithoutFeaturedImage) {
+                items.put(post.getId(), new PostListItem(post, contentImageUrls.get(post.getId())));
+            }
+
+            Map<Long, String> featuredImageUrls = getFeaturedImageUrls(postsWithFeaturedImage);
+            for (PostModel post : postsWithFeaturedImage) {
+                long mediaId = post.getFeaturedImageId();
+                if (!featuredImageUrls.containsKey(mediaId)) {
+                    // If the media isn't found it means the featured image info hasn't been added to
+                    // the local media library yet, so add to the list of media IDs to request info for
+                    if (!mediaIdsToUpdate.contains(mediaId)) {
+                        mediaIdsToUpdate.add(mediaId);
                     }
+                }
+                String imageUrl = featuredImageUrls.get(mediaId);
+                PostListItem item = mOldItems.get(post.getId());
+                if (item != null && item.isSamePost(post) && TextUtils.isEmpty(imageUrl)) {
+                    // still no featured image, so the existing item is still correct
+                    items.put(post.getId(), item);
                 } else {
-                    imageUrl = new ReaderImageScanner(post.getContent(), isPrivate).getLargestImage();
+                    items.put(post.getId(), new PostListItem(post, imageUrl));
                 }
-                if (!TextUtils.isEmpty(imageUrl)) {
-                    mFeaturedImageUrls.put(post.getId(), imageUrl);
+            }
+
+            return items;
+        }
+
+        /*
+         * returns the largest image in the content of each of the passed posts keyed by local post id -
+         * the result of scanning each post is stored, so posts are only scanned the first time they're
+         * loaded and after they've changed, rather than each time the list is created
+         */
+        private Map<Integer, String> getContentImageUrls(List<PostModel> posts) {
+            boolean isPrivate = !SiteUtils.isPhotonCapable(mSite);
+            Map<Integer, String> imageUrls = PostListImageTable.getImageUrls(mSite.getId(), isPrivate, posts);
+
+            List<PostModel> scannedPosts = new ArrayList<>();
+            for (PostModel post : posts) {
+                if (!imageUrls.containsKey(post.getId())) {
+                    String imageUrl = new ReaderImageScanner(post.getContent(), isPrivate).getLargestImage();
+                    imageUrls.put(post.getId(), imageUrl);
+                    scannedPosts.add(post);
                 }
             }
+            PostListImageTable.saveImageUrls(mSite.getId(), isPrivate, scannedPosts, imageUrls);
 
-            return true;
+            return imageUrls;
+        }
+
+        /*
+         * returns the urls of the featured images of the passed posts keyed by media id - only the
+         * media the posts use is read, rather than the site's whole media library
+         */
+        private Map<Long, String> getFeaturedImageUrls(List<PostModel> posts) {
+            Set<Long> mediaIdSet = new HashSet<>();
+            for (PostModel post : posts) {
+                mediaIdSet.add(post.getFeaturedImageId());
+            }
+            List<Long> mediaIds = new ArrayList<>(mediaIdSet);
+
+            Map<Long, String> imageUrls = new HashMap<>();
+            for (int start = 0; start < mediaIds.size(); start += MAX_MEDIA_IDS_PER_QUERY) {
+                int end = Math.min(mediaIds.size(), start + MAX_MEDIA_IDS_PER_QUERY);
+                for (MediaModel media : mMediaStore.getSiteMediaWithIds(mSite, mediaIds.subList(start, end))) {
+                    imageUrls.put(media.getMediaId(), media.getUrl());
+                }
+            }
+            return imageUrls;
         }
 
         @Override
         protected void onPostExecute(Boolean result) {
             if (result) {
+                // posts may have been hidden while loading, in which case the diff no longer applies
+                boolean canDispatchDiff = mDiffResult != null && mOldPostsVersion == mPostsVersion;
+                if (removeHiddenPosts(tmpPosts)) {
+                    canDispatchDiff = false;
+                }
+
                 mPosts.clear();
                 mPosts.addAll(tmpPosts);
-                notifyDataSetChanged();
+                mItems = tmpItems;
+                mUploadingPostIds = tmpUploadingPostIds;
+                mPostsVersion++;
+
+                if (canDispatchDiff) {
+                    mDiffResult.dispatchUpdatesTo(PostsListAdapter.this);
+                } else {
+                    notifyDataSetChanged();
+                }
 
                 if (mediaIdsToUpdate.size() > 0) {
                     for (Long mediaId : mediaIdsToUpdate) {
@@ -914,4 +1098,22 @@ public class PostsListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             }
         }
     }
+
+    /*
+     * removes posts which are currently hidden from the passed list, returning true if any were removed
+     */
+    private boolean removeHiddenPosts(List<PostModel> posts) {
+        if (mHiddenPostIds.isEmpty()) {
+            return false;
+        }
+        boolean isChanged = false;
+        Iterator<PostModel> iterator = posts.iterator();
+        while (iterator.hasNext()) {
+            if (mHiddenPostIds.contains(iterator.next().getId())) {
+                iterator.remove();
+                isChanged = true;
+            }
+        }
+        return isChanged;
+    }
 }
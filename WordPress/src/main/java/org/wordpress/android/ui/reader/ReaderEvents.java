@@ -107,6 +107,20 @@ public class ReaderEvents {
             return mOffset;
         }
     }
+    public static class SearchCachedPostsEnded {
+        private final String mQuery;
+        private final int mNumResults;
+        public SearchCachedPostsEnded(@NonNull String query, int numResults) {
+            mQuery = query;
+            mNumResults = numResults;
+        }
+        public String getQuery() {
+            return mQuery;
+        }
+        public int getNumResults() {
+            return mNumResults;
+        }
+    }
 
     public static class UpdateCommentsStarted {}
     public static class UpdateCommentsEnded {
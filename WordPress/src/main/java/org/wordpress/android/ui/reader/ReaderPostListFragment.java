@@ -57,6 +57,8 @@ import org.wordpress.android.ui.reader.services.ReaderPostService.UpdateAction;
 import org.wordpress.android.ui.reader.services.ReaderSearchService;
 import org.wordpress.android.ui.reader.services.ReaderUpdateService;
 import org.wordpress.android.ui.reader.services.ReaderUpdateService.UpdateTask;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler.Priority;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.ui.reader.views.ReaderSiteHeaderView;
 import org.wordpress.android.util.AnalyticsUtils;
@@ -747,6 +749,18 @@ public class ReaderPostListFragment extends Fragment
         }
     }
 
+    @SuppressWarnings("unused")
+    public void onEventMainThread(ReaderEvents.SearchCachedPostsEnded event) {
+        if (!isAdded()) return;
+
+        // show the cached results while the server search is still running
+        if (event.getNumResults() > 0
+                && getPostListType() == ReaderPostListType.SEARCH_RESULTS
+                && event.getQuery().equals(mCurrentSearchQuery)) {
+            refreshPosts();
+        }
+    }
+
     /*
      * called when user taps follow item in popup menu for a post
      */
@@ -1252,7 +1266,7 @@ public class ReaderPostListFragment extends Fragment
         if (!isAdded() || !hasCurrentTag()) {
             return;
         }
-        new Thread() {
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, "update-current-tag-if-time", new Runnable() {
             @Override
             public void run() {
                 if (ReaderTagTable.shouldAutoUpdateTag(getCurrentTag()) && isAdded()) {
@@ -1264,7 +1278,7 @@ public class ReaderPostListFragment extends Fragment
                     });
                 }
             }
-        }.start();
+        });
     }
 
     private boolean isUpdating() {
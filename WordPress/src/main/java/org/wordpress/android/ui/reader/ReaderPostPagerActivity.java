@@ -37,6 +37,8 @@ import org.wordpress.android.ui.reader.actions.ReaderPostActions;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
 import org.wordpress.android.ui.reader.models.ReaderBlogIdPostIdList;
 import org.wordpress.android.ui.reader.services.ReaderPostService;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler.Priority;
 import org.wordpress.android.util.AnalyticsUtils;
 import org.wordpress.android.util.AniUtils;
 import org.wordpress.android.util.AppLog;
@@ -221,6 +223,7 @@ public class ReaderPostPagerActivity extends AppCompatActivity
 
                 mLastSelectedPosition = position;
                 updateTitle(position);
+                preRenderAdjacentPosts(position);
             }
         });
 
@@ -228,6 +231,21 @@ public class ReaderPostPagerActivity extends AppCompatActivity
                 new WPViewPagerTransformer(WPViewPagerTransformer.TransformType.SLIDE_OVER));
     }
 
+    /*
+     * renders the posts just beyond the pages the pager has already created so they're cached by
+     * the time the user swipes to them - the pager creates the pages within its offscreen limit
+     * itself, and those are rendered by their detail fragments
+     */
+    private void preRenderAdjacentPosts(int position) {
+        int distance = mViewPager.getOffscreenPageLimit() + 1;
+        for (int adjacentPosition : new int[]{position - distance, position + distance}) {
+            ReaderBlogIdPostId ids = getAdapterBlogIdPostIdAtPosition(adjacentPosition);
+            if (ids != null) {
+                ReaderPostRenderer.preRender(this, mIsFeed, ids.getBlogId(), ids.getPostId());
+            }
+        }
+    }
+
     /*
      * set the activity title based on the post at the passed position
      */
@@ -646,7 +664,7 @@ public class ReaderPostPagerActivity extends AppCompatActivity
      * one will be made active
      */
     private void loadPosts(final long blogId, final long postId) {
-        new Thread() {
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, new Runnable() {
             @Override
             public void run() {
                 final ReaderBlogIdPostIdList idList;
@@ -697,7 +715,7 @@ public class ReaderPostPagerActivity extends AppCompatActivity
                     }
                 });
             }
-        }.start();
+        });
     }
 
     private ReaderTag getCurrentTag() {
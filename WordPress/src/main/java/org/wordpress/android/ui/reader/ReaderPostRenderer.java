@@ -1,11 +1,13 @@
 package org.wordpress.android.ui.reader;
 
 import android.annotation.SuppressLint;
+import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
 
 import org.wordpress.android.R;
 import org.wordpress.android.WordPress;
+import org.wordpress.android.datasets.ReaderPostTable;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostDiscoverData;
 import org.wordpress.android.ui.reader.utils.ImageSizeMap;
@@ -14,6 +16,8 @@ import org.wordpress.android.ui.reader.utils.ReaderEmbedScanner;
 import org.wordpress.android.ui.reader.utils.ReaderHtmlUtils;
 import org.wordpress.android.ui.reader.utils.ReaderIframeScanner;
 import org.wordpress.android.ui.reader.utils.ReaderImageScanner;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler.Priority;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.ui.reader.views.ReaderWebView;
 import org.wordpress.android.util.AppLog;
@@ -25,6 +29,7 @@ import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Random;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -40,8 +45,12 @@ import java.util.regex.Pattern;
  */
 class ReaderPostRenderer {
 
+    // bump this whenever a change to the renderer changes the html it generates
+    private static final int RENDERER_REVISION = 1;
+
     private final ReaderResourceVars mResourceVars;
     private final ReaderPost mPost;
+    private final Context mContext;
     private final int mMinFullSizeWidthDp;
     private final int mMinMidSizeWidthDp;
     private final WeakReference<ReaderWebView> mWeakWebView;
@@ -52,7 +61,15 @@ class ReaderPostRenderer {
 
     @SuppressLint("SetJavaScriptEnabled")
     ReaderPostRenderer(ReaderWebView webView, ReaderPost post) {
-        if (webView == null) {
+        this(webView != null ? webView.getContext() : null, webView, post);
+
+        // enable JavaScript in the webView, otherwise videos and other embedded content won't
+        // work - note that the content is scrubbed on the backend so this is considered safe
+        webView.getSettings().setJavaScriptEnabled(true);
+    }
+
+    private ReaderPostRenderer(Context context, ReaderWebView webView, ReaderPost post) {
+        if (context == null) {
             throw new IllegalArgumentException("ReaderPostRenderer requires a webView");
         }
         if (post == null) {
@@ -60,38 +77,21 @@ class ReaderPostRenderer {
         }
 
         mPost = post;
+        mContext = context.getApplicationContext();
         mWeakWebView = new WeakReference<>(webView);
-        mResourceVars = new ReaderResourceVars(webView.getContext());
+        mResourceVars = new ReaderResourceVars(context);
 
         mMinFullSizeWidthDp = pxToDp(mResourceVars.fullSizeImageWidthPx / 3);
         mMinMidSizeWidthDp = mMinFullSizeWidthDp / 2;
-
-        // enable JavaScript in the webView, otherwise videos and other embedded content won't
-        // work - note that the content is scrubbed on the backend so this is considered safe
-        webView.getSettings().setJavaScriptEnabled(true);
     }
 
     void beginRender() {
         final Handler handler = new Handler();
-        mRenderBuilder = new StringBuilder(getPostContent());
 
-        new Thread() {
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, new Runnable() {
             @Override
             public void run() {
-                final boolean hasTiledGallery = hasTiledGallery(mRenderBuilder.toString());
-                String content = mRenderBuilder.toString();
-
-                if (!(hasTiledGallery && mResourceVars.isWideDisplay)) {
-                    resizeImages(content);
-                }
-
-                resizeIframes(content);
-
-                // Get the set of JS scripts to inject in our Webview to support some specific Embeds.
-                Set<String> jsToInject = injectJSForSpecificEmbedSupport(content);
-
-                final String htmlContent = formatPostContentForWebView(content, jsToInject, hasTiledGallery, mResourceVars.isWideDisplay);
-                mRenderBuilder = null;
+                final String htmlContent = getOrRenderHtml();
                 handler.post(new Runnable() {
                     @Override
                     public void run() {
@@ -99,7 +99,85 @@ class ReaderPostRenderer {
                     }
                 });
             }
-        }.start();
+        });
+    }
+
+    /*
+     * renders the passed post in the background so it's already cached when it's displayed - used
+     * by the post pager to prepare the posts the user is likely to swipe to next
+     */
+    static void preRender(Context context, final boolean isFeed, final long blogId, final long postId) {
+        final Context appContext = context.getApplicationContext();
+        String key = "pre-render-" + (isFeed ? "feed-" : "blog-") + blogId + "-" + postId;
+        ReaderTaskScheduler.execute(Priority.PREFETCH, key, new Runnable() {
+            @Override
+            public void run() {
+                ReaderPost post = isFeed ? ReaderPostTable.getFeedPost(blogId, postId, false)
+                        : ReaderPostTable.getBlogPost(blogId, postId, false);
+                if (post != null) {
+                    new ReaderPostRenderer(appContext, null, post).getOrRenderHtml();
+                }
+            }
+        });
+    }
+
+    /*
+     * returns the html for this post from the cache, rendering and caching it if it's not there -
+     * must be called in the background
+     */
+    private String getOrRenderHtml() {
+        String content = getPostContent();
+        String cacheKey = ReaderRenderedHtmlCache.getKey(mPost.blogId, mPost.postId, getRenderSettings(),
+                content, mPost.getAttachmentsJson());
+        if (cacheKey != null) {
+            String cachedHtml = ReaderRenderedHtmlCache.get(mContext, cacheKey);
+            if (cachedHtml != null) {
+                AppLog.d(AppLog.T.READER, "reader renderer > rendered html cache hit");
+                return cachedHtml;
+            }
+        }
+
+        String htmlContent = renderHtml(content);
+        if (cacheKey != null) {
+            ReaderRenderedHtmlCache.put(mContext, cacheKey, htmlContent, mPost.isPrivate);
+        }
+        return htmlContent;
+    }
+
+    /*
+     * everything other than the post content which affects the rendered html - the revision is
+     * included so changes to the renderer invalidate html cached by development builds which
+     * share a version code
+     */
+    private String getRenderSettings() {
+        return String.format(Locale.US, "%d-%d-%d-%d-%b-%b-%s",
+                RENDERER_REVISION,
+                mResourceVars.fullSizeImageWidthPx,
+                mResourceVars.featuredImageHeightPx,
+                mMinFullSizeWidthDp,
+                mResourceVars.isWideDisplay,
+                mPost.isPrivate,
+                Locale.getDefault().toString());
+    }
+
+    private String renderHtml(String postContent) {
+        mRenderBuilder = new StringBuilder(postContent);
+
+        final boolean hasTiledGallery = hasTiledGallery(mRenderBuilder.toString());
+        String content = mRenderBuilder.toString();
+
+        if (!(hasTiledGallery && mResourceVars.isWideDisplay)) {
+            resizeImages(content);
+        }
+
+        resizeIframes(content);
+
+        // Get the set of JS scripts to inject in our Webview to support some specific Embeds.
+        Set<String> jsToInject = injectJSForSpecificEmbedSupport(content);
+
+        final String htmlContent = formatPostContentForWebView(content, jsToInject, hasTiledGallery, mResourceVars.isWideDisplay);
+        mRenderBuilder = null;
+        return htmlContent;
     }
 
     public static boolean hasTiledGallery(String text) {
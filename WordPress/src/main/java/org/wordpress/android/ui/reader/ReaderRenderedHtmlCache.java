@@ -0,0 +1,246 @@
+package org.wordpress.android.ui.reader;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Cache of the HTML generated by ReaderPostRenderer, so posts which have already been rendered - such
+ * as when swiping back and forth in the post pager - are displayed without scanning and resizing their
+ * content again. Keys combine the post's ids with a hash of everything the rendered HTML depends on, so
+ * edited posts and different display widths never share an entry. Entries are kept in memory and on
+ * disk, both of which are trimmed to a maximum size by evicting the least recently used entries.
+ * Private posts are only kept in memory, so their content is never written to the cache dir.
+ *
+ * The disk cache is in a directory named for the app's version code, and the directories of other
+ * versions are deleted when it's created, so html rendered by an older version of the renderer is
+ * never used. The disk cache is only accessed in the background.
+ */
+class ReaderRenderedHtmlCache {
+    private static final String CACHE_DIR_NAME = "reader_rendered_html";
+    private static final long MAX_DISK_CACHE_BYTES = 5 * 1024 * 1024;
+    // memory cache is sized in characters rather than entries since posts vary so much in length
+    private static final int MAX_MEMORY_CACHE_CHARS = 1024 * 1024;
+
+    private static final LruCache<String, String> sMemoryCache = new LruCache<String, String>(MAX_MEMORY_CACHE_CHARS) {
+        @Override
+        protected int sizeOf(String key, String value) {
+            return value.length();
+        }
+    };
+
+    private ReaderRenderedHtmlCache() {
+        throw new AssertionError();
+    }
+
+    /*
+     * returns the cache key for a post rendered from the passed content with the passed settings, or
+     * null if the key couldn't be generated
+     */
+    static @Nullable String getKey(long blogId, long postId, @NonNull String renderSettings,
+                                   @NonNull String... renderInputs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(renderSettings.getBytes("UTF-8"));
+            for (String input : renderInputs) {
+                // separator avoids different inputs producing the same stream of bytes
+                digest.update((byte) 0);
+                if (input != null) {
+                    digest.update(input.getBytes("UTF-8"));
+                }
+            }
+
+            StringBuilder sb = new StringBuilder();
+            sb.append(blogId).append('-').append(postId).append('-');
+            for (byte b : digest.digest()) {
+                sb.append(String.format(Locale.US, "%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            AppLog.w(T.READER, "reader html cache > can't generate key: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * returns the rendered html from the memory cache or, failing that, the disk cache - must be
+     * called in the background
+     */
+    static @Nullable String get(@NonNull Context context, @NonNull String key) {
+        String html = sMemoryCache.get(key);
+        if (html != null) {
+            return html;
+        }
+
+        File file = getCacheFile(context, key);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+
+        html = readFile(file);
+        if (html != null) {
+            // touch the file so it's the last to be trimmed
+            file.setLastModified(System.currentTimeMillis());
+            sMemoryCache.put(key, html);
+        }
+        return html;
+    }
+
+    /*
+     * adds the rendered html to the memory cache and, unless it's private, the disk cache - must be
+     * called in the background
+     */
+    static void put(@NonNull Context context, @NonNull String key, @NonNull String html, boolean isPrivate) {
+        sMemoryCache.put(key, html);
+        if (isPrivate) {
+            return;
+        }
+
+        File file = getCacheFile(context, key);
+        if (file == null) {
+            return;
+        }
+
+        // written to a temp file first so a partially written file is never read back
+        File tempFile = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        if (writeFile(tempFile, html) && tempFile.renameTo(file)) {
+            trimDiskCache(file.getParentFile());
+        } else {
+            tempFile.delete();
+        }
+    }
+
+    private static @Nullable File getCacheFile(@NonNull Context context, @NonNull String key) {
+        File cacheDir = new File(context.getCacheDir(), CACHE_DIR_NAME + "-" + BuildConfig.VERSION_CODE);
+        if (!cacheDir.exists()) {
+            if (!cacheDir.mkdirs()) {
+                AppLog.w(T.READER, "reader html cache > can't create cache dir");
+                return null;
+            }
+            deleteOtherVersions(cacheDir);
+        }
+        return new File(cacheDir, key);
+    }
+
+    /*
+     * deletes the disk caches written by other versions of the app, which is done the first time
+     * this version creates its own
+     */
+    private static synchronized void deleteOtherVersions(@NonNull File cacheDir) {
+        File[] dirs = cacheDir.getParentFile().listFiles();
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            if (dir.isDirectory() && dir.getName().startsWith(CACHE_DIR_NAME) && !dir.equals(cacheDir)) {
+                File[] files = dir.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        file.delete();
+                    }
+                }
+                if (dir.delete()) {
+                    AppLog.d(T.READER, "reader html cache > deleted " + dir.getName());
+                }
+            }
+        }
+    }
+
+    private static @Nullable String readFile(@NonNull File file) {
+        InputStream input = null;
+        try {
+            input = new FileInputStream(file);
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            int numRead;
+            while (offset < bytes.length && (numRead = input.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += numRead;
+            }
+            return new String(bytes, 0, offset, "UTF-8");
+        } catch (IOException e) {
+            AppLog.w(T.READER, "reader html cache > can't read " + file.getName() + ": " + e.getMessage());
+            return null;
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    // nop
+                }
+            }
+        }
+    }
+
+    private static boolean writeFile(@NonNull File file, @NonNull String html) {
+        OutputStream output = null;
+        try {
+            output = new FileOutputStream(file);
+            output.write(html.getBytes("UTF-8"));
+            return true;
+        } catch (IOException e) {
+            AppLog.w(T.READER, "reader html cache > can't write " + file.getName() + ": " + e.getMessage());
+            return false;
+        } finally {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    // nop
+                }
+            }
+        }
+    }
+
+    /*
+     * removes the least recently used files once the disk cache exceeds its maximum size
+     */
+    private static synchronized void trimDiskCache(@NonNull File cacheDir) {
+        File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long totalSize = 0;
+        for (File file : files) {
+            totalSize += file.length();
+        }
+        if (totalSize <= MAX_DISK_CACHE_BYTES) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                long diff = file1.lastModified() - file2.lastModified();
+                return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (totalSize <= MAX_DISK_CACHE_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                totalSize -= length;
+            }
+        }
+    }
+}
@@ -80,6 +80,7 @@ public class ReaderCommentAdapter extends RecyclerView.Adapter<RecyclerView.View
     }
 
     private ReaderCommentList mComments = new ReaderCommentList();
+    private ReaderCommentLeveler mLeveler;
     private RequestReplyListener mReplyListener;
     private ReaderInterfaces.DataLoadedListener mDataLoadedListener;
     private ReaderActions.DataRequestedListener mDataRequestedListener;
@@ -522,8 +523,21 @@ public class ReaderCommentAdapter extends RecyclerView.Adapter<RecyclerView.View
             int numLocalComments = ReaderCommentTable.getNumCommentsForPost(mPost);
             tmpMoreCommentsExist = (numServerComments > numLocalComments);
 
-            tmpComments = ReaderCommentTable.getCommentsForPost(mPost);
-            return !mComments.isSameList(tmpComments);
+            ReaderCommentList comments = ReaderCommentTable.getCommentsForPost(mPost);
+            if (mComments.isSameList(comments)) {
+                return false;
+            }
+
+            // sort children under their parents and apply indent levels - when the existing thread
+            // is still intact (ie: a new page of comments has arrived) the comments are merged into
+            // it, otherwise the thread is rebuilt
+            if (mLeveler != null && mLeveler.canAddComments(comments)) {
+                tmpComments = mLeveler.addComments(comments);
+            } else {
+                mLeveler = new ReaderCommentLeveler(comments);
+                tmpComments = mLeveler.createLevelList();
+            }
+            return true;
         }
 
         @Override
@@ -531,8 +545,7 @@ public class ReaderCommentAdapter extends RecyclerView.Adapter<RecyclerView.View
             mMoreCommentsExist = tmpMoreCommentsExist;
 
             if (result) {
-                // assign the comments with children sorted under their parents and indent levels applied
-                mComments = new ReaderCommentLeveler(tmpComments).createLevelList();
+                mComments = tmpComments;
                 notifyDataSetChanged();
             }
             if (mDataLoadedListener != null) {
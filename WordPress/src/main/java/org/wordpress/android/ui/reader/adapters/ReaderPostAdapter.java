@@ -20,7 +20,6 @@ import org.wordpress.android.fluxc.store.SiteStore;
 import org.wordpress.android.models.ReaderCardType;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderPostDiscoverData;
-import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.ui.reader.ReaderActivityLauncher;
 import org.wordpress.android.ui.reader.ReaderAnim;
@@ -30,7 +29,6 @@ import org.wordpress.android.ui.reader.ReaderTypes;
 import org.wordpress.android.ui.reader.actions.ReaderActions;
 import org.wordpress.android.ui.reader.actions.ReaderBlogActions;
 import org.wordpress.android.ui.reader.actions.ReaderPostActions;
-import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.ui.reader.utils.ReaderXPostUtils;
 import org.wordpress.android.ui.reader.views.ReaderFollowButton;
@@ -68,7 +66,8 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private final boolean mIsLoggedOutReader;
 
     private final ReaderTypes.ReaderPostListType mPostListType;
-    private final ReaderPostList mPosts = new ReaderPostList();
+    private ReaderPostWindow mPosts = ReaderPostWindow.empty();
+    private int mLastBoundIndex;
     private final HashSet<String> mRenderedIds = new HashSet<>();
 
     private ReaderInterfaces.OnPostSelectedListener mPostSelectedListener;
@@ -77,10 +76,6 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private ReaderActions.DataRequestedListener mDataRequestedListener;
     private ReaderSiteHeaderView.OnBlogInfoLoadedListener mBlogInfoLoadedListener;
 
-    // the large "tbl_posts.text" column is unused here, so skip it when querying
-    private static final boolean EXCLUDE_TEXT_COLUMN = true;
-    private static final int MAX_ROWS = ReaderConstants.READER_MAX_POSTS_TO_DISPLAY;
-
     private static final int VIEW_TYPE_POST        = 0;
     private static final int VIEW_TYPE_XPOST       = 1;
     private static final int VIEW_TYPE_SITE_HEADER = 2;
@@ -272,8 +267,8 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         } else if (position == mGapMarkerPosition) {
             return VIEW_TYPE_GAP_MARKER;
         } else {
-            ReaderPost post = getItem(position);
-            if (post != null && post.isXpost()) {
+            // the type comes from the window's page keys so the post's page isn't loaded
+            if (mPosts.isXpost(getIndexForPosition(position))) {
                 return VIEW_TYPE_XPOST;
             } else {
                 return VIEW_TYPE_POST;
@@ -306,6 +301,10 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
     @Override
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        int index = getIndexForPosition(position);
+        if (index > -1) {
+            mLastBoundIndex = index;
+        }
         if (holder instanceof ReaderPostViewHolder) {
             renderPost(position, (ReaderPostViewHolder) holder);
         } else if (holder instanceof ReaderXPostViewHolder) {
@@ -330,6 +329,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private void renderXPost(int position, ReaderXPostViewHolder holder) {
         final ReaderPost post = getItem(position);
         if (post == null) {
+            renderXPostPlaceholder(holder);
             return;
         }
 
@@ -359,6 +359,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         final ReaderPost post = getItem(position);
         ReaderTypes.ReaderPostListType postListType = getPostListType();
         if (post == null) {
+            renderPostPlaceholder(holder);
             return;
         }
 
@@ -402,12 +403,20 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             holder.thumbnailStrip.setVisibility(View.GONE);
         } else {
             holder.txtTitle.setVisibility(View.VISIBLE);
-            holder.txtTitle.setText(post.getTitle());
             holder.txtPhotoTitle.setVisibility(View.GONE);
 
+            // highlight the words the user searched for in search results
+            if (postListType == ReaderTypes.ReaderPostListType.SEARCH_RESULTS && mCurrentTag != null) {
+                String query = mCurrentTag.getTagTitle();
+                holder.txtTitle.setText(ReaderUtils.highlightSearchWords(post.getTitle(), query));
+                holder.txtText.setText(ReaderUtils.highlightSearchWords(post.getExcerpt(), query));
+            } else {
+                holder.txtTitle.setText(post.getTitle());
+                holder.txtText.setText(post.getExcerpt());
+            }
+
             if (post.hasExcerpt()) {
                 holder.txtText.setVisibility(View.VISIBLE);
-                holder.txtText.setText(post.getExcerpt());
             } else {
                 holder.txtText.setVisibility(View.GONE);
             }
@@ -503,6 +512,48 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         }
     }
 
+    /*
+     * the post's page hasn't been loaded yet, so clear whatever a recycled holder was showing
+     * along with any listeners which refer to its previous post - the holder is bound again
+     * once the page has loaded
+     */
+    private void renderXPostPlaceholder(ReaderXPostViewHolder holder) {
+        holder.imgAvatar.showDefaultGravatarImageAndNullifyUrl();
+        holder.imgBlavatar.showDefaultBlavatarImageAndNullifyUrl();
+        holder.txtTitle.setText(null);
+        holder.txtSubtitle.setText(null);
+    }
+
+    private void renderPostPlaceholder(ReaderPostViewHolder holder) {
+        holder.txtDateline.setText(null);
+        holder.txtAuthorAndBlogName.setText(null);
+        holder.imgAvatarOrBlavatar.setImageUrl(null, WPNetworkImageView.ImageType.AVATAR);
+        holder.imgAvatarOrBlavatar.setVisibility(View.GONE);
+
+        holder.txtTitle.setText(null);
+        holder.txtTitle.setVisibility(View.VISIBLE);
+        holder.txtText.setText(null);
+        holder.txtText.setVisibility(View.GONE);
+        holder.txtPhotoTitle.setText(null);
+        holder.txtPhotoTitle.setVisibility(View.GONE);
+        holder.imgFeatured.setImageUrl(null, WPNetworkImageView.ImageType.PHOTO);
+        holder.framePhoto.setVisibility(View.GONE);
+        holder.imgVideoOverlay.setVisibility(View.GONE);
+        holder.thumbnailStrip.setVisibility(View.GONE);
+
+        holder.likeCount.setVisibility(View.GONE);
+        holder.likeCount.setOnClickListener(null);
+        holder.commentCount.setVisibility(View.GONE);
+        holder.commentCount.setOnClickListener(null);
+        holder.imgMore.setVisibility(View.GONE);
+        holder.imgMore.setOnClickListener(null);
+        holder.followButton.setVisibility(View.GONE);
+        holder.followButton.setOnClickListener(null);
+        holder.layoutDiscover.setVisibility(View.GONE);
+        holder.layoutDiscover.setOnClickListener(null);
+        holder.cardView.setOnClickListener(null);
+    }
+
     /*
      * follow button only shows for tags and "Posts I Like" - it doesn't show for Followed Sites,
      * Discover, lists, etc.
@@ -667,7 +718,9 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
     public void clear() {
         if (!mPosts.isEmpty()) {
-            mPosts.clear();
+            mPosts.release();
+            mPosts = ReaderPostWindow.empty();
+            mLastBoundIndex = 0;
             notifyDataSetChanged();
         }
     }
@@ -684,18 +737,13 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         loadPosts();
     }
 
+    /*
+     * the posts have already been removed from the db, so the window is reloaded if any of them
+     * are in it - posts in the blog which aren't in memory won't be seen again
+     */
     public void removePostsInBlog(long blogId) {
-        int numRemoved = 0;
-        ReaderPostList postsInBlog = mPosts.getPostsInBlog(blogId);
-        for (ReaderPost post : postsInBlog) {
-            int index = mPosts.indexOfPost(post);
-            if (index > -1) {
-                numRemoved++;
-                mPosts.remove(index);
-            }
-        }
-        if (numRemoved > 0) {
-            notifyDataSetChanged();
+        if (!mPosts.getLoadedIndexesInBlog(blogId).isEmpty()) {
+            refresh();
         }
     }
 
@@ -707,12 +755,16 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         new LoadPostsTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
     }
 
-    private ReaderPost getItem(int position) {
+    /*
+     * returns the index in the window of the post at the passed adapter position, or -1 if the
+     * position isn't a post
+     */
+    private int getIndexForPosition(int position) {
         if (position == 0 && hasCustomFirstItem()) {
-            return null;
+            return -1;
         }
         if (position == mGapMarkerPosition) {
-            return null;
+            return -1;
         }
 
         int arrayPos = hasCustomFirstItem() ? position - 1 : position;
@@ -721,7 +773,24 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             arrayPos--;
         }
 
-        return mPosts.get(arrayPos);
+        return arrayPos;
+    }
+
+    private int getPositionForIndex(int index) {
+        int position = hasCustomFirstItem() ? index + 1 : index;
+        if (mGapMarkerPosition > -1 && position >= mGapMarkerPosition) {
+            position++;
+        }
+        return position;
+    }
+
+    /*
+     * returns the post at the passed position, or null if it's not a post or its page hasn't
+     * been loaded yet
+     */
+    private ReaderPost getItem(int position) {
+        int index = getIndexForPosition(position);
+        return index > -1 ? mPosts.get(index) : null;
     }
 
     @Override
@@ -745,8 +814,8 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             case VIEW_TYPE_GAP_MARKER :
                 return ITEM_ID_GAP_MARKER;
             default:
-                ReaderPost post = getItem(position);
-                return post != null ? post.getStableId() : 0;
+                // same as ReaderPost.getStableId(), but without loading the post's page
+                return mPosts.getStableId(getIndexForPosition(position));
         }
     }
 
@@ -832,10 +901,10 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         }
 
         // update post in array and on screen
-        int position = mPosts.indexOfPost(post);
+        int index = mPosts.indexOfPost(post);
         ReaderPost updatedPost = ReaderPostTable.getBlogPost(post.blogId, post.postId, true);
-        if (updatedPost != null && position > -1) {
-            mPosts.set(position, updatedPost);
+        if (updatedPost != null && index > -1) {
+            mPosts.set(index, updatedPost);
             showLikes(holder, updatedPost);
         }
     }
@@ -872,18 +941,32 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         setFollowStatusForBlog(post.blogId, isAskingToFollow);
     }
 
+    /*
+     * posts which aren't in memory will have the new follow status when they're next loaded
+     */
     public void setFollowStatusForBlog(long blogId, boolean isFollowing) {
-        ReaderPost post;
-        for (int i = 0; i < mPosts.size(); i++) {
-            post = mPosts.get(i);
-            if (post.blogId == blogId && post.isFollowedByCurrentUser != isFollowing) {
+        for (int index : mPosts.getLoadedIndexesInBlog(blogId)) {
+            ReaderPost post = mPosts.peek(index);
+            if (post != null && post.isFollowedByCurrentUser != isFollowing) {
                 post.isFollowedByCurrentUser = isFollowing;
-                mPosts.set(i, post);
-                notifyItemChanged(i);
+                mPosts.set(index, post);
+                notifyItemChanged(getPositionForIndex(index));
             }
         }
     }
 
+    private final ReaderPostWindow.OnPageLoadedListener mPageLoadedListener =
+            new ReaderPostWindow.OnPageLoadedListener() {
+                @Override
+                public void onPageLoaded(int firstIndex, int numPosts) {
+                    if (numPosts > 0) {
+                        int firstPosition = getPositionForIndex(firstIndex);
+                        int lastPosition = getPositionForIndex(firstIndex + numPosts - 1);
+                        notifyItemRangeChanged(firstPosition, lastPosition - firstPosition + 1);
+                    }
+                }
+            };
+
     public void removeGapMarker() {
         if (mGapMarkerPosition == -1) return;
 
@@ -900,7 +983,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private boolean mIsTaskRunning = false;
 
     private class LoadPostsTask extends AsyncTask<Void, Void, Boolean> {
-        ReaderPostList allPosts;
+        ReaderPostWindow window;
 
         @Override
         protected void onPreExecute() {
@@ -919,15 +1002,15 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
                 case TAG_PREVIEW:
                 case TAG_FOLLOWED:
                 case SEARCH_RESULTS:
-                    allPosts = ReaderPostTable.getPostsWithTag(mCurrentTag, MAX_ROWS, EXCLUDE_TEXT_COLUMN);
+                    window = ReaderPostWindow.forTag(mCurrentTag);
                     numExisting = ReaderPostTable.getNumPostsWithTag(mCurrentTag);
                     break;
                 case BLOG_PREVIEW:
                     if (mCurrentFeedId != 0) {
-                        allPosts = ReaderPostTable.getPostsInFeed(mCurrentFeedId, MAX_ROWS, EXCLUDE_TEXT_COLUMN);
+                        window = ReaderPostWindow.forFeed(mCurrentFeedId);
                         numExisting = ReaderPostTable.getNumPostsInFeed(mCurrentFeedId);
                     } else {
-                        allPosts = ReaderPostTable.getPostsInBlog(mCurrentBlogId, MAX_ROWS, EXCLUDE_TEXT_COLUMN);
+                        window = ReaderPostWindow.forBlog(mCurrentBlogId);
                         numExisting = ReaderPostTable.getNumPostsInBlog(mCurrentBlogId);
                     }
                     break;
@@ -935,7 +1018,11 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
                     return false;
             }
 
-            if (mPosts.isSameList(allPosts)) {
+            // load the pages around the last post the user saw so it's still there when the
+            // new window replaces the existing one
+            window.load(mLastBoundIndex);
+
+            if (mPosts.isSameWindow(window)) {
                 return false;
             }
 
@@ -954,13 +1041,8 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
                 return -1;
             }
 
-            ReaderBlogIdPostId gapMarkerIds = ReaderPostTable.getGapMarkerIdsForTag(mCurrentTag);
-            if (gapMarkerIds == null) {
-                return -1;
-            }
-
             // find the position of the gap marker post
-            int gapPosition = allPosts.indexOfIds(gapMarkerIds);
+            int gapPosition = ReaderPostTable.getGapMarkerIndexForTag(mCurrentTag);
             if (gapPosition > -1) {
                 // increment it because we want the gap marker to appear *below* this post
                 gapPosition++;
@@ -970,7 +1052,7 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
                 }
                 // remove the gap marker if it's on the last post (edge case but
                 // it can happen following a purge)
-                if (gapPosition >= allPosts.size() - 1) {
+                if (gapPosition >= window.size() - 1) {
                     gapPosition = -1;
                     AppLog.w(AppLog.T.READER, "gap marker at/after last post, removed");
                     ReaderPostTable.removeGapMarkerForTag(mCurrentTag);
@@ -984,8 +1066,9 @@ public class ReaderPostAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         @Override
         protected void onPostExecute(Boolean result) {
             if (result) {
-                mPosts.clear();
-                mPosts.addAll(allPosts);
+                mPosts.release();
+                mPosts = window;
+                mPosts.setOnPageLoadedListener(mPageLoadedListener);
                 notifyDataSetChanged();
             }
 
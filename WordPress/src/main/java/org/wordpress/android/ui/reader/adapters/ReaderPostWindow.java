@@ -0,0 +1,316 @@
+package org.wordpress.android.ui.reader.adapters;
+
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.datasets.ReaderPostTable.PageKeys;
+import org.wordpress.android.datasets.ReaderPostTable.SeekKey;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.util.AppLog;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Windowed view of the posts in a reader stream, used by ReaderPostAdapter so it doesn't need to
+ * hold every post in the stream. Posts are read from tbl_posts a page at a time using keyset
+ * pagination (see ReaderPostTable.SeekKey), and only the most recently used pages are kept in
+ * memory. The page before/after the one being displayed is prefetched in the background as the
+ * user nears the edge of it. The stable id and type of every post come with the page keys, so
+ * they're available without loading the post's page.
+ *
+ * Must only be accessed from the main thread, other than load() which is called in the background
+ * before the window is handed to the adapter.
+ */
+abstract class ReaderPostWindow {
+    static final int PAGE_SIZE = 20;
+    // max # pages held in memory
+    private static final int MAX_PAGES = 5;
+    // # pages loaded up front when the window is created
+    private static final int INITIAL_PAGES = 2;
+    // prefetch the adjacent page when this close to the edge of the current one
+    private static final int PREFETCH_DISTANCE = PAGE_SIZE / 2;
+
+    // the large "tbl_posts.text" column is unused by the post list, so skip it when querying
+    private static final boolean EXCLUDE_TEXT_COLUMN = true;
+
+    interface OnPageLoadedListener {
+        void onPageLoaded(int firstIndex, int numPosts);
+    }
+
+    // page # > posts on that page, in access order so the eldest entry is the least recently used
+    private final LinkedHashMap<Integer, ReaderPostList> mPages =
+            new LinkedHashMap<Integer, ReaderPostList>(MAX_PAGES + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, ReaderPostList> eldest) {
+                    return size() > MAX_PAGES;
+                }
+            };
+    private final HashSet<Integer> mPendingPages = new HashSet<>();
+
+    private PageKeys mPageKeys = new PageKeys();
+    private ArrayList<SeekKey> mSeekKeys = mPageKeys.getSeekKeys();
+    private int mNumPosts;
+    private boolean mIsReleased;
+
+    private OnPageLoadedListener mPageLoadedListener;
+
+    abstract PageKeys loadPageKeys();
+
+    abstract ReaderPostList loadPage(SeekKey afterKey);
+
+    /*
+     * window with no posts, used until the first window has been loaded
+     */
+    static ReaderPostWindow empty() {
+        return forTag(null);
+    }
+
+    static ReaderPostWindow forTag(final ReaderTag tag) {
+        return new ReaderPostWindow() {
+            @Override
+            PageKeys loadPageKeys() {
+                return ReaderPostTable.getPageKeysWithTag(tag, PAGE_SIZE);
+            }
+
+            @Override
+            ReaderPostList loadPage(SeekKey afterKey) {
+                return ReaderPostTable.getPostsWithTag(tag, afterKey, PAGE_SIZE, EXCLUDE_TEXT_COLUMN);
+            }
+        };
+    }
+
+    static ReaderPostWindow forBlog(final long blogId) {
+        return new ReaderPostWindow() {
+            @Override
+            PageKeys loadPageKeys() {
+                return ReaderPostTable.getPageKeysInBlog(blogId, PAGE_SIZE);
+            }
+
+            @Override
+            ReaderPostList loadPage(SeekKey afterKey) {
+                return ReaderPostTable.getPostsInBlog(blogId, afterKey, PAGE_SIZE, EXCLUDE_TEXT_COLUMN);
+            }
+        };
+    }
+
+    static ReaderPostWindow forFeed(final long feedId) {
+        return new ReaderPostWindow() {
+            @Override
+            PageKeys loadPageKeys() {
+                return ReaderPostTable.getPageKeysInFeed(feedId, PAGE_SIZE);
+            }
+
+            @Override
+            ReaderPostList loadPage(SeekKey afterKey) {
+                return ReaderPostTable.getPostsInFeed(feedId, afterKey, PAGE_SIZE, EXCLUDE_TEXT_COLUMN);
+            }
+        };
+    }
+
+    /*
+     * synchronously reads the page keys and the pages around the passed index - must be called from
+     * a background thread
+     */
+    void load(int anchorIndex) {
+        mPageKeys = loadPageKeys();
+        mSeekKeys = mPageKeys.getSeekKeys();
+        mNumPosts = mPageKeys.getNumPosts();
+        mPages.clear();
+
+        int numPages = mSeekKeys.size();
+        int anchorPage = Math.max(0, Math.min(anchorIndex / PAGE_SIZE, numPages - 1));
+        int firstPage = Math.max(0, anchorPage - (INITIAL_PAGES / 2));
+        int lastPage = Math.min(numPages - 1, firstPage + INITIAL_PAGES - 1);
+
+        for (int page = firstPage; page <= lastPage; page++) {
+            mPages.put(page, loadPage(mSeekKeys.get(page)));
+        }
+    }
+
+    void setOnPageLoadedListener(OnPageLoadedListener listener) {
+        mPageLoadedListener = listener;
+    }
+
+    /*
+     * called when the window is replaced - pages which finish loading afterwards are dropped
+     */
+    void release() {
+        mIsReleased = true;
+        mPageLoadedListener = null;
+        mPages.clear();
+    }
+
+    int size() {
+        return mNumPosts;
+    }
+
+    boolean isEmpty() {
+        return mNumPosts == 0;
+    }
+
+    /*
+     * returns the stable id of the post at the passed index without loading it
+     */
+    long getStableId(int index) {
+        return index >= 0 && index < mNumPosts ? mPageKeys.getStableId(index) : 0;
+    }
+
+    /*
+     * returns true if the post at the passed index is a cross-post, without loading it
+     */
+    boolean isXpost(int index) {
+        return index >= 0 && index < mNumPosts && mPageKeys.isXpost(index);
+    }
+
+    /*
+     * returns the post at the passed index, or null if its page isn't in memory yet (in which
+     * case it's requested and the listener is told when it's available)
+     */
+    ReaderPost get(int index) {
+        if (index < 0 || index >= mNumPosts) {
+            return null;
+        }
+
+        int page = index / PAGE_SIZE;
+        int indexInPage = index % PAGE_SIZE;
+
+        if (indexInPage >= PAGE_SIZE - PREFETCH_DISTANCE) {
+            requestPage(page + 1);
+        } else if (indexInPage < PREFETCH_DISTANCE && page > 0) {
+            requestPage(page - 1);
+        }
+
+        ReaderPostList posts = mPages.get(page);
+        if (posts == null) {
+            requestPage(page);
+            return null;
+        }
+        return indexInPage < posts.size() ? posts.get(indexInPage) : null;
+    }
+
+    /*
+     * same as get() but doesn't load or prefetch anything, and doesn't affect which pages are
+     * least recently used
+     */
+    ReaderPost peek(int index) {
+        ReaderPostList posts = getLoadedPage(index / PAGE_SIZE);
+        int indexInPage = index % PAGE_SIZE;
+        return posts != null && indexInPage < posts.size() ? posts.get(indexInPage) : null;
+    }
+
+    private ReaderPostList getLoadedPage(int page) {
+        for (Map.Entry<Integer, ReaderPostList> entry : mPages.entrySet()) {
+            if (entry.getKey() == page) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    void set(int index, @NonNull ReaderPost post) {
+        ReaderPostList posts = getLoadedPage(index / PAGE_SIZE);
+        int indexInPage = index % PAGE_SIZE;
+        if (posts != null && indexInPage < posts.size()) {
+            posts.set(indexInPage, post);
+        }
+    }
+
+    /*
+     * returns the index of the passed post if it's in memory, -1 otherwise
+     */
+    int indexOfPost(ReaderPost post) {
+        for (Map.Entry<Integer, ReaderPostList> entry : mPages.entrySet()) {
+            int indexInPage = entry.getValue().indexOfPost(post);
+            if (indexInPage > -1) {
+                return (entry.getKey() * PAGE_SIZE) + indexInPage;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * returns the indexes of in-memory posts in the passed blog
+     */
+    ArrayList<Integer> getLoadedIndexesInBlog(long blogId) {
+        ArrayList<Integer> indexes = new ArrayList<>();
+        for (Map.Entry<Integer, ReaderPostList> entry : mPages.entrySet()) {
+            ReaderPostList posts = entry.getValue();
+            for (int i = 0; i < posts.size(); i++) {
+                if (posts.get(i).blogId == blogId) {
+                    indexes.add((entry.getKey() * PAGE_SIZE) + i);
+                }
+            }
+        }
+        return indexes;
+    }
+
+    /*
+     * returns true if the passed window contains the same posts as this one - the contents of
+     * posts are only compared for the pages which are in memory in both windows
+     */
+    boolean isSameWindow(ReaderPostWindow window) {
+        if (window == null || !mPageKeys.hasSamePosts(window.mPageKeys)
+                || window.mSeekKeys.size() != mSeekKeys.size()) {
+            return false;
+        }
+        for (int page = 1; page < mSeekKeys.size(); page++) {
+            if (!mSeekKeys.get(page).isSameKey(window.mSeekKeys.get(page))) {
+                return false;
+            }
+        }
+        for (Map.Entry<Integer, ReaderPostList> entry : window.mPages.entrySet()) {
+            ReaderPostList posts = getLoadedPage(entry.getKey());
+            if (posts != null && !posts.isSameList(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void requestPage(int page) {
+        if (mIsReleased
+                || page < 0
+                || page >= mSeekKeys.size()
+                || mPendingPages.contains(page)
+                || getLoadedPage(page) != null) {
+            return;
+        }
+        mPendingPages.add(page);
+        new LoadPageTask(page, mSeekKeys.get(page)).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    private class LoadPageTask extends AsyncTask<Void, Void, ReaderPostList> {
+        private final int mPage;
+        private final SeekKey mAfterKey;
+
+        LoadPageTask(int page, SeekKey afterKey) {
+            mPage = page;
+            mAfterKey = afterKey;
+        }
+
+        @Override
+        protected ReaderPostList doInBackground(Void... params) {
+            return loadPage(mAfterKey);
+        }
+
+        @Override
+        protected void onPostExecute(ReaderPostList posts) {
+            mPendingPages.remove(mPage);
+            if (mIsReleased) {
+                return;
+            }
+            mPages.put(mPage, posts);
+            AppLog.d(AppLog.T.READER, "reader post window > loaded page " + mPage
+                    + ", " + mPages.size() + " pages in memory");
+            if (mPageLoadedListener != null) {
+                mPageLoadedListener.onPageLoaded(mPage * PAGE_SIZE, posts.size());
+            }
+        }
+    }
+}
@@ -9,18 +9,20 @@ import android.text.TextUtils;
 import com.android.volley.VolleyError;
 import com.wordpress.rest.RestRequest;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.ReaderPostTable;
 import org.wordpress.android.datasets.ReaderTagTable;
 import org.wordpress.android.models.ReaderPost;
-import org.wordpress.android.models.ReaderPostList;
 import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderTagType;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.ReaderEvents;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
 import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResultListener;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler.Priority;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.StringUtils;
@@ -286,49 +288,11 @@ public class ReaderPostService extends Service {
             return;
         }
 
-        new Thread() {
+        ReaderTaskScheduler.executeWrite(Priority.USER_VISIBLE, new Runnable() {
             @Override
             public void run() {
-                ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
-                UpdateResult updateResult = ReaderPostTable.comparePosts(serverPosts);
-                if (updateResult.isNewOrChanged()) {
-                    // gap detection - only applies to posts with a specific tag
-                    ReaderPost postWithGap = null;
-                    if (tag != null) {
-                        switch (updateAction) {
-                            case REQUEST_NEWER:
-                                // if there's no overlap between server and local (ie: all server
-                                // posts are new), assume there's a gap between server and local
-                                // provided that local posts exist
-                                int numServerPosts = serverPosts.size();
-                                if (numServerPosts >= 2
-                                        && ReaderPostTable.getNumPostsWithTag(tag) > 0
-                                        && !ReaderPostTable.hasOverlap(serverPosts)) {
-                                    // treat the second to last server post as having a gap
-                                    postWithGap = serverPosts.get(numServerPosts - 2);
-                                    // remove the last server post to deal with the edge case of
-                                    // there actually not being a gap between local & server
-                                    serverPosts.remove(numServerPosts - 1);
-                                    AppLog.d(AppLog.T.READER, "added gap marker to tag " + tag.getTagNameForLog());
-                                }
-                                ReaderPostTable.removeGapMarkerForTag(tag);
-                                break;
-                            case REQUEST_OLDER_THAN_GAP:
-                                // if service was started as a request to fill a gap, delete existing posts
-                                // before the one with the gap marker, then remove the existing gap marker
-                                ReaderPostTable.deletePostsBeforeGapMarkerForTag(tag);
-                                ReaderPostTable.removeGapMarkerForTag(tag);
-                                break;
-                        }
-                    }
-
-                    ReaderPostTable.addOrUpdatePosts(tag, serverPosts);
-
-                    // gap marker must be set after saving server posts
-                    if (postWithGap != null) {
-                        ReaderPostTable.setGapMarkerForTag(postWithGap.blogId, postWithGap.postId, tag);
-                    }
-                } else if (updateResult == UpdateResult.UNCHANGED && updateAction == UpdateAction.REQUEST_OLDER_THAN_GAP) {
+                UpdateResult updateResult = addOrUpdatePosts(tag, jsonObject.optJSONArray("posts"), updateAction);
+                if (updateResult == UpdateResult.UNCHANGED && updateAction == UpdateAction.REQUEST_OLDER_THAN_GAP) {
                     // edge case - request to fill gap returned nothing new, so remove the gap marker
                     ReaderPostTable.removeGapMarkerForTag(tag);
                     AppLog.w(AppLog.T.READER, "attempt to fill gap returned nothing new");
@@ -336,7 +300,127 @@ public class ReaderPostService extends Service {
                 AppLog.d(AppLog.T.READER, "requested posts response = " + updateResult.toString());
                 resultListener.onUpdateResult(updateResult);
             }
-        }.start();
+        });
+    }
+
+    /*
+     * parses the passed posts one at a time and writes each to ReaderPostTable as soon as it's
+     * parsed, so a list of every parsed post in the page isn't built first - the page's json is
+     * still held by the response until this returns. posts are written in a single transaction
+     * which is only committed if any of them turn out to be new or changed, and posts which are
+     * unchanged in this stream aren't written at all unless a gap is being filled
+     */
+    static UpdateResult addOrUpdatePosts(final ReaderTag tag,
+                                         final JSONArray jsonPosts,
+                                         final UpdateAction updateAction) {
+        int numServerPosts = (jsonPosts != null ? jsonPosts.length() : 0);
+
+        // gap detection - only applies to posts with a specific tag. if there's no overlap between
+        // server and local (ie: all server posts are new), assume there's a gap between server and
+        // local provided that local posts exist
+        boolean canHaveGap = tag != null
+                && updateAction == UpdateAction.REQUEST_NEWER
+                && numServerPosts >= 2
+                && ReaderPostTable.getNumPostsWithTag(tag) > 0;
+        boolean isFillingGap = tag != null && updateAction == UpdateAction.REQUEST_OLDER_THAN_GAP;
+        boolean hasOverlap = false;
+        ReaderPost previousPost = null;
+        ReaderPost postWithGap = null;
+
+        boolean hasNew = false;
+        boolean hasChanges = false;
+
+        // the stored state of every post in the response is read in one query before anything is
+        // deleted or written, so posts are compared with what was stored before this update
+        ReaderPostTable.PostComparison comparison =
+                ReaderPostTable.beginComparePosts(tag, getPostIds(jsonPosts));
+
+        // the gap is removed in the same transaction the posts are written in, so it's rolled back
+        // along with them if nothing turns out to be new or changed - handleUpdatePostsResponse
+        // then removes the gap marker when a request to fill the gap returned nothing new
+        ReaderPostTable.PostWriter writer = ReaderPostTable.beginAddOrUpdatePosts(tag);
+        try {
+            if (tag != null) {
+                switch (updateAction) {
+                    case REQUEST_NEWER:
+                        ReaderPostTable.removeGapMarkerForTag(tag);
+                        break;
+                    case REQUEST_OLDER_THAN_GAP:
+                        // if service was started as a request to fill a gap, delete existing posts
+                        // before the one with the gap marker, then remove the existing gap marker
+                        ReaderPostTable.deletePostsBeforeGapMarkerForTag(tag);
+                        ReaderPostTable.removeGapMarkerForTag(tag);
+                        break;
+                }
+            }
+
+            for (int i = 0; i < numServerPosts; i++) {
+                JSONObject jsonPost = jsonPosts.optJSONObject(i);
+                if (jsonPost == null) {
+                    continue;
+                }
+                ReaderPost post = ReaderPost.fromJson(jsonPost);
+
+                switch (comparison.compare(post)) {
+                    case HAS_NEW:
+                        hasNew = true;
+                        break;
+                    case CHANGED:
+                        hasChanges = true;
+                        hasOverlap = true;
+                        break;
+                    default:
+                        hasOverlap = true;
+                        break;
+                }
+
+                if (canHaveGap && !hasOverlap && i == numServerPosts - 1 && previousPost != null) {
+                    // treat the second to last server post as having a gap, and skip the last
+                    // server post to deal with the edge case of there actually not being a gap
+                    // between local & server
+                    postWithGap = previousPost;
+                    AppLog.d(AppLog.T.READER, "added gap marker to tag " + tag.getTagNameForLog());
+                } else if (isFillingGap || !comparison.isUnchangedInStream(post)) {
+                    // posts which were unchanged may have just been deleted along with the gap, so
+                    // every post is written when filling it
+                    writer.addOrUpdatePost(post);
+                }
+                previousPost = post;
+            }
+
+            if (hasNew || hasChanges) {
+                // gap marker must be set after saving server posts
+                if (postWithGap != null) {
+                    ReaderPostTable.setGapMarkerForTag(postWithGap.blogId, postWithGap.postId, tag);
+                }
+                writer.setSuccessful();
+            }
+        } finally {
+            writer.end();
+        }
+
+        if (hasNew) {
+            return UpdateResult.HAS_NEW;
+        } else if (hasChanges) {
+            return UpdateResult.CHANGED;
+        } else {
+            return UpdateResult.UNCHANGED;
+        }
+    }
+
+    /*
+     * returns the ids of the passed posts without parsing them
+     */
+    private static long[] getPostIds(JSONArray jsonPosts) {
+        int numPosts = (jsonPosts != null ? jsonPosts.length() : 0);
+        long[] postIds = new long[numPosts];
+        for (int i = 0; i < numPosts; i++) {
+            JSONObject jsonPost = jsonPosts.optJSONObject(i);
+            if (jsonPost != null) {
+                postIds[i] = jsonPost.optLong("ID");
+            }
+        }
+        return postIds;
     }
 
     /*
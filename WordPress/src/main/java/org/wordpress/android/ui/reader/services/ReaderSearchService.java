@@ -17,11 +17,18 @@ import org.wordpress.android.models.ReaderTag;
 import org.wordpress.android.models.ReaderTagType;
 import org.wordpress.android.ui.reader.ReaderConstants;
 import org.wordpress.android.ui.reader.ReaderEvents;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler.Priority;
 import org.wordpress.android.ui.reader.utils.ReaderUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.UrlUtils;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import de.greenrobot.event.EventBus;
 
 /**
@@ -33,6 +40,11 @@ public class ReaderSearchService extends Service {
     private static final String ARG_QUERY   = "query";
     private static final String ARG_OFFSET  = "offset";
 
+    // queries whose first page of server results has been stored since the search started, so cached
+    // results which are found after that don't overwrite them
+    private static final Set<String> sQueriesWithServerResults =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
     public static void startService(Context context, @NonNull String query, int offset) {
         Intent intent = new Intent(context, ReaderSearchService.class);
         intent.putExtra(ARG_QUERY, query);
@@ -104,18 +116,60 @@ public class ReaderSearchService extends Service {
 
         AppLog.d(AppLog.T.READER, "reader search service > starting search for " + query);
         EventBus.getDefault().post(new ReaderEvents.SearchPostsStarted(query, offset));
+        if (offset == 0) {
+            searchCachedPosts(query);
+        }
         WordPress.getRestClientUtilsV1_2().get(path, null, null, listener, errorListener);
     }
 
+    /*
+     * fills the first page of results with matching posts that are already in the reader database,
+     * so there are results right away even when offline - these are replaced by the server's
+     * results if the search succeeds
+     */
+    private static void searchCachedPosts(final String query) {
+        sQueriesWithServerResults.remove(query);
+
+        // the search only reads the database so it runs on the workers, and just the results are
+        // stored on the writer
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, new Runnable() {
+            @Override
+            public void run() {
+                final LinkedHashMap<Long, Double> results = ReaderPostTable.findLocalSearchResults(query,
+                        ReaderConstants.READER_MAX_SEARCH_POSTS_TO_REQUEST);
+                ReaderTaskScheduler.executeWrite(Priority.USER_VISIBLE, new Runnable() {
+                    @Override
+                    public void run() {
+                        int numResults = 0;
+                        if (!sQueriesWithServerResults.contains(query)) {
+                            ReaderPostTable.addLocalSearchResults(getTagForSearchQuery(query), results);
+                            numResults = results.size();
+                        }
+                        AppLog.d(AppLog.T.READER, "reader search service > " + numResults
+                                + " cached posts match " + query);
+                        EventBus.getDefault().post(new ReaderEvents.SearchCachedPostsEnded(query, numResults));
+                    }
+                });
+            }
+        });
+    }
+
     private static void handleSearchResponse(final String query, final int offset, final JSONObject jsonObject) {
-        new Thread() {
+        ReaderTaskScheduler.executeWrite(Priority.USER_VISIBLE, new Runnable() {
             @Override
             public void run() {
                 ReaderPostList serverPosts = ReaderPostList.fromJson(jsonObject);
-                ReaderPostTable.addOrUpdatePosts(getTagForSearchQuery(query), serverPosts);
+                ReaderTag searchTag = getTagForSearchQuery(query);
+                if (offset == 0) {
+                    // replaces any cached results
+                    ReaderPostTable.replacePostsWithTag(searchTag, serverPosts);
+                    sQueriesWithServerResults.add(query);
+                } else {
+                    ReaderPostTable.addOrUpdatePosts(searchTag, serverPosts);
+                }
                 EventBus.getDefault().post(new ReaderEvents.SearchPostsEnded(query, offset, true));
             }
-        }.start();
+        });
     }
 
     /*
@@ -6,91 +6,155 @@ import org.wordpress.android.models.ReaderComment;
 import org.wordpress.android.models.ReaderCommentList;
 import org.wordpress.android.util.AppLog;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /*
  * utility class which accepts a list of comments and then creates a "level list" from it
- * which places child comments below their parents with indentation levels applied
+ * which places child comments below their parents with indentation levels applied. the
+ * parent -> children index is built in a single pass and kept so that comments from later
+ * pages can be added without rebuilding the whole thread
  */
 
 public class ReaderCommentLeveler {
+    private static final long ROOT_PARENT_ID = 0;
+
     private final ReaderCommentList mComments;
 
+    // all comments in the thread keyed by comment id
+    private final HashMap<Long, ReaderComment> mCommentsById = new HashMap<>();
+
+    // ids of child comments keyed by the id of their parent (zero for root comments), in the
+    // order they're displayed - linked so orphans are emitted in a stable order
+    private final LinkedHashMap<Long, ArrayList<Long>> mChildIds = new LinkedHashMap<>();
+
     public ReaderCommentLeveler(@NonNull ReaderCommentList comments) {
         mComments = comments;
     }
 
-    public ReaderCommentList createLevelList() {
-        ReaderCommentList result = new ReaderCommentList();
+    public synchronized ReaderCommentList createLevelList() {
+        mCommentsById.clear();
+        mChildIds.clear();
 
-        // reset all levels, and add root comments to result
+        // children are indexed in the order they appear in the passed list
         for (ReaderComment comment : mComments) {
-            comment.level = 0;
-            if (comment.parentId == 0) {
-                result.add(comment);
+            if (mCommentsById.put(comment.commentId, comment) == null) {
+                getChildIds(comment.parentId).add(comment.commentId);
             }
         }
 
-        // add children at each level
-        int level = 0;
-        while (walkCommentsAtLevel(result, level)) {
-            level++;
-        }
+        return flatten();
+    }
 
-        // check for orphans (child comments whose parents weren't found above) and give them
-        // a non-zero level so they're indented by ReaderCommentAdapter
-        for (ReaderComment comment : result) {
-            if (comment.level == 0 && comment.parentId != 0) {
-                comment.level = 1;
-                result.add(comment);
-                AppLog.d(AppLog.T.READER, "Orphan comment encountered");
+    /*
+     * returns true if every comment already in the thread is in the passed list, which means the
+     * passed list can be merged with addComments() rather than rebuilding the thread
+     */
+    public synchronized boolean canAddComments(@NonNull ReaderCommentList comments) {
+        if (mCommentsById.isEmpty() || comments.size() < mCommentsById.size()) {
+            return false;
+        }
+        int numFound = 0;
+        for (ReaderComment comment : comments) {
+            if (mCommentsById.containsKey(comment.commentId)) {
+                numFound++;
             }
         }
-
-        return result;
+        return numFound == mCommentsById.size();
     }
 
     /*
-     * walk comments in the passed list that have the passed level and add their children
-     * beneath them
+     * merges the passed comments (such as a new page from ReaderCommentService) into the existing
+     * thread and returns the updated level list - comments which are already in the thread are
+     * replaced in place, new ones are inserted beneath their parents in timestamp order
      */
-    private boolean walkCommentsAtLevel(@NonNull ReaderCommentList comments, int level) {
-        boolean hasChanges = false;
-        for (int index = 0; index < comments.size(); index++) {
-            ReaderComment parent = comments.get(index);
-            if (parent.level == level && hasChildren(parent.commentId)) {
-                // get children for this comment, set their level, then add them below the parent
-                ReaderCommentList children = getChildren(parent.commentId);
-                setLevel(children, level + 1);
-                comments.addAll(index + 1, children);
-                hasChanges = true;
-                // skip past the children we just added
-                index += children.size();
+    public synchronized ReaderCommentList addComments(@NonNull ReaderCommentList comments) {
+        for (ReaderComment comment : comments) {
+            ReaderComment existing = mCommentsById.put(comment.commentId, comment);
+            if (existing == null) {
+                insertChildId(comment);
+            } else if (existing.parentId != comment.parentId) {
+                getChildIds(existing.parentId).remove(comment.commentId);
+                insertChildId(comment);
             }
         }
-        return hasChanges;
+
+        return flatten();
     }
 
-    private boolean hasChildren(long commentId) {
-        for (ReaderComment comment: mComments) {
-            if (comment.parentId == commentId) {
-                return true;
-            }
+    private ArrayList<Long> getChildIds(long parentId) {
+        ArrayList<Long> childIds = mChildIds.get(parentId);
+        if (childIds == null) {
+            childIds = new ArrayList<>();
+            mChildIds.put(parentId, childIds);
+        }
+        return childIds;
+    }
+
+    /*
+     * inserts the passed comment beneath its parent, keeping siblings sorted by timestamp - new
+     * comments are usually the most recent ones so the search starts from the end
+     */
+    private void insertChildId(@NonNull ReaderComment comment) {
+        ArrayList<Long> childIds = getChildIds(comment.parentId);
+        int index = childIds.size();
+        while (index > 0 && mCommentsById.get(childIds.get(index - 1)).timestamp > comment.timestamp) {
+            index--;
         }
-        return false;
+        childIds.add(index, comment.commentId);
     }
 
-    private ReaderCommentList getChildren(long commentId) {
-        ReaderCommentList children = new ReaderCommentList();
-        for (ReaderComment comment: mComments) {
-            if (comment.parentId == commentId) {
-                children.add(comment);
+    /*
+     * emits the thread in a single depth-first traversal, with root comments at level zero
+     * followed by orphans (child comments whose parents aren't in the thread) which are given
+     * a non-zero level so they're indented by ReaderCommentAdapter
+     */
+    private ReaderCommentList flatten() {
+        ReaderCommentList result = new ReaderCommentList();
+        result.ensureCapacity(mCommentsById.size());
+
+        ArrayList<Long> rootIds = mChildIds.get(ROOT_PARENT_ID);
+        if (rootIds != null) {
+            addThread(result, rootIds, 0);
+        }
+
+        for (Map.Entry<Long, ArrayList<Long>> entry : mChildIds.entrySet()) {
+            long parentId = entry.getKey();
+            if (parentId != ROOT_PARENT_ID && !mCommentsById.containsKey(parentId)) {
+                AppLog.d(AppLog.T.READER, "Orphan comment encountered");
+                addThread(result, entry.getValue(), 1);
             }
         }
-        return children;
+
+        return result;
     }
 
-    private void setLevel(@NonNull ReaderCommentList comments, int level) {
-        for (ReaderComment comment: comments) {
-            comment.level = level;
+    /*
+     * adds the passed comments and all their descendants to the result with levels applied,
+     * using an explicit stack so deeply nested threads can't overflow the call stack
+     */
+    private void addThread(@NonNull ReaderCommentList result, @NonNull ArrayList<Long> commentIds, int level) {
+        ArrayDeque<Iterator<Long>> stack = new ArrayDeque<>();
+        stack.push(commentIds.iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Long> iterator = stack.peek();
+            if (!iterator.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            long commentId = iterator.next();
+            ReaderComment comment = mCommentsById.get(commentId);
+            comment.level = level + stack.size() - 1;
+            result.add(comment);
+
+            ArrayList<Long> childIds = mChildIds.get(commentId);
+            if (childIds != null && !childIds.isEmpty()) {
+                stack.push(childIds.iterator());
+            }
         }
     }
 }
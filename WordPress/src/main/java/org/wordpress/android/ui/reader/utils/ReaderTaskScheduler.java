@@ -0,0 +1,256 @@
+package org.wordpress.android.ui.reader.utils;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Runs the reader's background work - parsing responses, reading and writing the reader database,
+ * rendering posts - on a bounded set of threads rather than a new thread per task. Tasks are run in
+ * priority order, then in the order they were scheduled:
+ *
+ *  USER_VISIBLE - the result is needed for what the user is looking at
+ *  PREFETCH     - the result is likely to be needed soon
+ *  MAINTENANCE  - syncing or cleanup the user won't notice
+ *
+ * Tasks which write to ReaderDatabase go through executeWrite(), which runs them one at a time on a
+ * single writer thread so they don't contend for the database's write lock. Everything else goes
+ * through execute(), which runs on a small pool. A task scheduled with the same key as a task which
+ * hasn't started yet is dropped, and the pending task is promoted if the new one has a higher priority.
+ */
+public class ReaderTaskScheduler {
+    public enum Priority {
+        USER_VISIBLE,
+        PREFETCH,
+        MAINTENANCE
+    }
+
+    private static final int MAX_WORKERS = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // tasks which wait longer than this to start are logged
+    private static final long SLOW_WAIT_MS = 1000;
+
+    private static final AtomicLong sNextSequence = new AtomicLong();
+    private static final ConcurrentHashMap<String, PrioritizedTask> sPendingTasks = new ConcurrentHashMap<>();
+
+    private static volatile ThreadPoolExecutor sWorkers = createWorkers();
+    private static volatile ThreadPoolExecutor sWriter = createWriter();
+
+    // per-priority instrumentation, reset with resetStats()
+    private static final int NUM_PRIORITIES = Priority.values().length;
+    private static final AtomicLongArray sNumCompleted = new AtomicLongArray(NUM_PRIORITIES);
+    private static final AtomicLongArray sTotalWaitMs = new AtomicLongArray(NUM_PRIORITIES);
+    private static final AtomicLongArray sTotalRunMs = new AtomicLongArray(NUM_PRIORITIES);
+    private static final AtomicLongArray sMaxWaitMs = new AtomicLongArray(NUM_PRIORITIES);
+
+    private ReaderTaskScheduler() {
+        throw new AssertionError();
+    }
+
+    private static ThreadPoolExecutor createWorkers() {
+        return createExecutor("reader-worker",
+                Math.max(1, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    private static ThreadPoolExecutor createWriter() {
+        return createExecutor("reader-writer", 1);
+    }
+
+    /*
+     * replaces the worker pool and the writer thread so tests can control when tasks run - both must
+     * order their queues the way the default executors do, ie: through a PriorityBlockingQueue
+     */
+    @VisibleForTesting
+    static void setExecutors(@NonNull ThreadPoolExecutor workers, @NonNull ThreadPoolExecutor writer) {
+        sPendingTasks.clear();
+        sWorkers = workers;
+        sWriter = writer;
+    }
+
+    @VisibleForTesting
+    static void resetExecutors() {
+        setExecutors(createWorkers(), createWriter());
+    }
+
+    private static ThreadPoolExecutor createExecutor(final String name, int numThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mThreadNumber = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        Thread thread = new Thread(runnable, name + "-" + mThreadNumber.getAndIncrement());
+                        thread.setPriority(Thread.NORM_PRIORITY - 1);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs a task which doesn't write to the reader database
+     */
+    public static void execute(@NonNull Priority priority, @NonNull Runnable task) {
+        schedule(sWorkers, priority, null, task);
+    }
+
+    /**
+     * Same as execute(), but the task is dropped if a task with the same key hasn't started yet
+     */
+    public static void execute(@NonNull Priority priority, @NonNull String key, @NonNull Runnable task) {
+        schedule(sWorkers, priority, key, task);
+    }
+
+    /**
+     * Runs a task which writes to the reader database on the single writer thread
+     */
+    public static void executeWrite(@NonNull Priority priority, @NonNull Runnable task) {
+        schedule(sWriter, priority, null, task);
+    }
+
+    /**
+     * Same as executeWrite(), but the task is dropped if a task with the same key hasn't started yet
+     */
+    public static void executeWrite(@NonNull Priority priority, @NonNull String key, @NonNull Runnable task) {
+        schedule(sWriter, priority, key, task);
+    }
+
+    private static void schedule(@NonNull ThreadPoolExecutor executor,
+                                 @NonNull Priority priority,
+                                 @Nullable String key,
+                                 @NonNull Runnable task) {
+        PrioritizedTask prioritizedTask = new PrioritizedTask(executor, priority, key, task);
+        if (key != null) {
+            PrioritizedTask pendingTask = sPendingTasks.putIfAbsent(key, prioritizedTask);
+            if (pendingTask != null) {
+                promote(pendingTask, priority);
+                return;
+            }
+        }
+        executor.execute(prioritizedTask);
+    }
+
+    /*
+     * raises the priority of a pending task - it's removed and re-added since the queue only orders
+     * tasks when they're added
+     */
+    private static void promote(@NonNull PrioritizedTask task, @NonNull Priority priority) {
+        if (priority.ordinal() >= task.mPriority.ordinal()) {
+            return;
+        }
+        if (task.mExecutor.getQueue().remove(task)) {
+            task.mPriority = priority;
+            task.mExecutor.execute(task);
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting to start
+     */
+    public static int getQueueDepth() {
+        return sWorkers.getQueue().size() + sWriter.getQueue().size();
+    }
+
+    public static void resetStats() {
+        for (int i = 0; i < NUM_PRIORITIES; i++) {
+            sNumCompleted.set(i, 0);
+            sTotalWaitMs.set(i, 0);
+            sTotalRunMs.set(i, 0);
+            sMaxWaitMs.set(i, 0);
+        }
+    }
+
+    public static String getDiagnostics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "reader scheduler > %d queued (%d workers, %d writer)",
+                getQueueDepth(), sWorkers.getQueue().size(), sWriter.getQueue().size()));
+        for (Priority priority : Priority.values()) {
+            int i = priority.ordinal();
+            long numCompleted = sNumCompleted.get(i);
+            if (numCompleted == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.US, ", %s: %d tasks, %d ms avg wait, %d ms max wait, %d ms avg run",
+                    priority.name().toLowerCase(Locale.US), numCompleted, sTotalWaitMs.get(i) / numCompleted,
+                    sMaxWaitMs.get(i), sTotalRunMs.get(i) / numCompleted));
+        }
+        return sb.toString();
+    }
+
+    private static void recordStats(@NonNull Priority priority, long waitMs, long runMs) {
+        int i = priority.ordinal();
+        sNumCompleted.incrementAndGet(i);
+        sTotalWaitMs.addAndGet(i, waitMs);
+        sTotalRunMs.addAndGet(i, runMs);
+        long maxWaitMs;
+        do {
+            maxWaitMs = sMaxWaitMs.get(i);
+        } while (waitMs > maxWaitMs && !sMaxWaitMs.compareAndSet(i, maxWaitMs, waitMs));
+    }
+
+    private static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final ThreadPoolExecutor mExecutor;
+        private final String mKey;
+        private final Runnable mTask;
+        private final long mSequence;
+        private final long mScheduledTime;
+        private volatile Priority mPriority;
+
+        PrioritizedTask(ThreadPoolExecutor executor, Priority priority, String key, Runnable task) {
+            mExecutor = executor;
+            mPriority = priority;
+            mKey = key;
+            mTask = task;
+            mSequence = sNextSequence.getAndIncrement();
+            mScheduledTime = SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void run() {
+            // once started a task no longer blocks others with the same key
+            if (mKey != null) {
+                sPendingTasks.remove(mKey, this);
+            }
+
+            long startTime = SystemClock.elapsedRealtime();
+            long waitMs = startTime - mScheduledTime;
+            if (waitMs > SLOW_WAIT_MS) {
+                AppLog.w(T.READER, "reader scheduler > " + mPriority.name().toLowerCase(Locale.US)
+                        + " task waited " + waitMs + " ms to start");
+            }
+
+            try {
+                mTask.run();
+            } finally {
+                recordStats(mPriority, waitMs, SystemClock.elapsedRealtime() - startTime);
+            }
+        }
+
+        @Override
+        public int compareTo(@NonNull PrioritizedTask another) {
+            int result = mPriority.compareTo(another.mPriority);
+            if (result == 0) {
+                result = mSequence < another.mSequence ? -1 : (mSequence == another.mSequence ? 0 : 1);
+            }
+            return result;
+        }
+    }
+}
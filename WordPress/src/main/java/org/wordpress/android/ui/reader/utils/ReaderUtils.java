@@ -2,9 +2,13 @@ package org.wordpress.android.ui.reader.utils;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.graphics.Typeface;
 import android.net.Uri;
 import android.os.Build;
+import android.text.Spannable;
+import android.text.SpannableString;
 import android.text.TextUtils;
+import android.text.style.StyleSpan;
 import android.view.View;
 
 import org.apache.commons.text.StringEscapeUtils;
@@ -19,6 +23,9 @@ import org.wordpress.android.util.PhotonUtils;
 import org.wordpress.android.util.StringUtils;
 import org.wordpress.android.util.UrlUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ReaderUtils {
 
     public static String getResizedImageUrl(final String imageUrl, int width, int height, boolean isPrivate) {
@@ -170,6 +177,44 @@ public class ReaderUtils {
         }
     }
 
+    /*
+     * returns the passed text with words which start with any of the words in the passed search
+     * query shown in bold - this matches the way words are matched when searching cached posts
+     */
+    public static CharSequence highlightSearchWords(String text, String query) {
+        if (TextUtils.isEmpty(text) || TextUtils.isEmpty(query)) {
+            return StringUtils.notNullStr(text);
+        }
+
+        List<String> searchWords = new ArrayList<>();
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                searchWords.add(word);
+            }
+        }
+
+        SpannableString spannable = null;
+        for (int i = 0; i < text.length(); i++) {
+            boolean isWordStart = Character.isLetterOrDigit(text.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+            if (!isWordStart) {
+                continue;
+            }
+            for (String word : searchWords) {
+                if (text.regionMatches(true, i, word, 0, word.length())) {
+                    if (spannable == null) {
+                        spannable = new SpannableString(text);
+                    }
+                    spannable.setSpan(new StyleSpan(Typeface.BOLD), i, i + word.length(),
+                            Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    break;
+                }
+            }
+        }
+
+        return spannable != null ? spannable : text;
+    }
+
     /*
      * set the background of the passed view to the round ripple drawable - only works on
      * Lollipop or later, does nothing on earlier Android versions
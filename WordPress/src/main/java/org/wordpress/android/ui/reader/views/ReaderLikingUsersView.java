@@ -14,6 +14,8 @@ import org.wordpress.android.datasets.ReaderUserTable;
 import org.wordpress.android.fluxc.store.AccountStore;
 import org.wordpress.android.models.ReaderPost;
 import org.wordpress.android.models.ReaderUserIdList;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler.Priority;
 import org.wordpress.android.widgets.WPNetworkImageView;
 
 import java.util.ArrayList;
@@ -48,7 +50,7 @@ public class ReaderLikingUsersView extends LinearLayout {
         }
 
         final Handler handler = new Handler();
-        new Thread() {
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, new Runnable() {
             @Override
             public void run() {
                 // get avatar URLs of liking users up to the max, sized to fit
@@ -66,7 +68,7 @@ public class ReaderLikingUsersView extends LinearLayout {
                     }
                 });
             }
-        }.start();
+        });
     }
 
     /*
@@ -303,8 +303,8 @@ public class StatsUtils {
         }
     }
 
-    public static synchronized BaseStatsModel parseResponse(StatsService.StatsEndpointsEnum endpointName, long siteId,
-                                                            JSONObject response) throws JSONException {
+    public static BaseStatsModel parseResponse(StatsService.StatsEndpointsEnum endpointName, long siteId,
+                                               JSONObject response) throws JSONException {
         BaseStatsModel model = null;
         switch (endpointName) {
             case VISITS:
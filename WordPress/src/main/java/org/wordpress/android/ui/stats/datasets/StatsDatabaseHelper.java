@@ -63,6 +63,7 @@ public class StatsDatabaseHelper extends SQLiteOpenHelper {
      * drop & recreate all tables (essentially clears the db of all data)
      */
     public void reset() {
+        StatsModelCache.clear();
         SQLiteDatabase db = getWritableDatabase();
         db.beginTransaction();
         try {
@@ -0,0 +1,169 @@
+package org.wordpress.android.ui.stats.datasets;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+
+import org.wordpress.android.ui.stats.StatsTimeframe;
+import org.wordpress.android.ui.stats.models.BaseStatsModel;
+import org.wordpress.android.ui.stats.service.StatsService.StatsEndpointsEnum;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of parsed stats models which sits in front of StatsTable, so stats which have
+ * already been parsed can be shown again without touching the db or re-parsing the json. Expired
+ * entries are still returned (flagged as stale) so they can be shown while a refresh runs.
+ *
+ * Models are posted to every EventBus subscriber and some subscribers change them (follow state,
+ * view counts), so the cache keeps each model serialized and every caller gets its own copy.
+ */
+public class StatsModelCache {
+    private static final int MAX_ENTRIES = 100;
+
+    private static final LruCache<String, Entry> sCache = new LruCache<>(MAX_ENTRIES);
+
+    private static final AtomicLong sNumHits = new AtomicLong();
+    private static final AtomicLong sNumStaleHits = new AtomicLong();
+    private static final AtomicLong sNumMisses = new AtomicLong();
+
+    public static class Entry {
+        public final long timestamp;
+        private final byte[] mData;
+        private final int mMaxResults;
+
+        Entry(@NonNull byte[] data, long timestamp, int maxResults) {
+            mData = data;
+            this.timestamp = timestamp;
+            mMaxResults = maxResults;
+        }
+
+        /*
+         * returns a new copy of the cached model, or null if it can't be read
+         */
+        public BaseStatsModel getModel() {
+            ObjectInputStream input = null;
+            try {
+                input = new ObjectInputStream(new ByteArrayInputStream(mData));
+                return (BaseStatsModel) input.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                AppLog.e(T.STATS, e);
+                return null;
+            } finally {
+                closeQuietly(input);
+            }
+        }
+
+        public boolean isStale() {
+            return StatsTable.isExpired(timestamp);
+        }
+    }
+
+    private StatsModelCache() {
+        throw new AssertionError();
+    }
+
+    private static String getKey(long blogId, StatsEndpointsEnum endpoint, StatsTimeframe timeframe,
+                                 String date, int page) {
+        return blogId + "-" + endpoint.ordinal() + "-" + timeframe.ordinal() + "-" + date + "-" + page;
+    }
+
+    /*
+     * returns the cached model for the passed request, or null if there isn't one with at least
+     * the requested number of results - note that the returned entry may be stale
+     */
+    public static Entry get(long blogId, StatsEndpointsEnum endpoint, StatsTimeframe timeframe,
+                            String date, int maxResults, int page) {
+        Entry entry = sCache.get(getKey(blogId, endpoint, timeframe, date, page));
+        if (entry == null || entry.mMaxResults < maxResults) {
+            sNumMisses.incrementAndGet();
+            return null;
+        }
+        if (entry.isStale()) {
+            sNumStaleHits.incrementAndGet();
+        } else {
+            sNumHits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /*
+     * caches a copy of the passed model, so later changes to it aren't seen by the cache - returns
+     * null if the model can't be serialized, in which case it isn't cached
+     */
+    public static Entry put(long blogId, StatsEndpointsEnum endpoint, StatsTimeframe timeframe,
+                              String date, int maxResults, int page,
+                              @NonNull BaseStatsModel model, long timestamp) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = null;
+        try {
+            output = new ObjectOutputStream(bytes);
+            output.writeObject(model);
+            output.flush();
+        } catch (IOException e) {
+            AppLog.e(T.STATS, e);
+            return null;
+        } finally {
+            closeQuietly(output);
+        }
+        Entry entry = new Entry(bytes.toByteArray(), timestamp, maxResults);
+        sCache.put(getKey(blogId, endpoint, timeframe, date, page), entry);
+        return entry;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    public static void removeBlog(long blogId) {
+        removeWithPrefix(blogId + "-");
+    }
+
+    public static void removeBlog(long blogId, StatsEndpointsEnum endpoint) {
+        removeWithPrefix(blogId + "-" + endpoint.ordinal() + "-");
+    }
+
+    private static void removeWithPrefix(String prefix) {
+        for (Map.Entry<String, Entry> entry : sCache.snapshot().entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                sCache.remove(entry.getKey());
+            }
+        }
+    }
+
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    public static long getNumHits() {
+        return sNumHits.get();
+    }
+
+    public static long getNumStaleHits() {
+        return sNumStaleHits.get();
+    }
+
+    public static long getNumMisses() {
+        return sNumMisses.get();
+    }
+
+    public static String getDiagnostics() {
+        return String.format(Locale.US, "stats model cache > %d entries, %d hits, %d stale hits, %d misses",
+                sCache.size(), getNumHits(), getNumStaleHits(), getNumMisses());
+    }
+}
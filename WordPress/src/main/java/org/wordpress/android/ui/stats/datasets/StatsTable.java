@@ -41,16 +41,54 @@ public class StatsTable {
     }
 
 
+    public static class StatsRow {
+        public final String jsonData;
+        public final long timestamp;
+
+        private StatsRow(String jsonData, long timestamp) {
+            this.jsonData = jsonData;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /*
+     * returns true if stats with the passed response timestamp should no longer be considered fresh
+     */
+    public static boolean isExpired(long timestamp) {
+        long deltaMS = System.currentTimeMillis() - timestamp;
+        if (deltaMS < 0) {
+            // current date is in the past respect to stats date?? Uhhh!
+            return true;
+        }
+
+        deltaMS = deltaMS / 1000; // seconds
+        return (deltaMS / 60) > CACHE_TTL_MINUTES;
+    }
+
     public static String getStats(final Context ctx, final long blogId, final StatsTimeframe timeframe,
                                   final String date, final StatsEndpointsEnum sectionToUpdate, final int
                                           maxResultsRequested, final int pageRequested) {
+        StatsRow row = getLatestStats(ctx, blogId, timeframe, date, sectionToUpdate, maxResultsRequested,
+                pageRequested);
+        if (row == null || isExpired(row.timestamp)) {
+            return null;
+        }
+        return row.jsonData;
+    }
+
+    /*
+     * same as getStats() but also returns expired stats, which enables showing them while they're refreshed
+     */
+    public static StatsRow getLatestStats(final Context ctx, final long blogId, final StatsTimeframe timeframe,
+                                          final String date, final StatsEndpointsEnum sectionToUpdate, final int
+                                                  maxResultsRequested, final int pageRequested) {
         if (ctx == null) {
             AppLog.e(AppLog.T.STATS, "Cannot insert a null stats since the passed context is null. Context is required " +
                     "to access the DB.");
             return null;
         }
 
-        String sql = "SELECT *  FROM " + TABLE_NAME + " WHERE blogID = ? "
+        String sql = "SELECT jsonData, timestamp FROM " + TABLE_NAME + " WHERE blogID = ? "
                 + " AND type=?"
                 + " AND timeframe=?"
                 + " AND date=?"
@@ -72,21 +110,7 @@ public class StatsTable {
 
         try {
             if (cursor != null && cursor.moveToFirst()) {
-                long timestamp  = cursor.getLong(cursor.getColumnIndex("timestamp"));
-                long currentTime = System.currentTimeMillis();
-                long deltaMS = currentTime - timestamp;
-                if (deltaMS < 0) {
-                    // current date is in the past respect to stats date?? Uhhh!
-                    return null;
-                }
-
-                deltaMS = deltaMS / 1000; // seconds
-                // check if the cache is fresh
-                if ((deltaMS / 60) > CACHE_TTL_MINUTES) {
-                    return null; // cache is expired
-                }
-
-                return cursor.getString(cursor.getColumnIndex("jsonData"));
+                return new StatsRow(cursor.getString(0), cursor.getLong(1));
             } else {
                 return null;
             }
@@ -157,6 +181,7 @@ public class StatsTable {
             return false;
         }
 
+        // expired models are still useful while they're refreshed, so the model cache is left alone
         SQLiteDatabase db = StatsDatabaseHelper.getWritableDb(ctx);
         try {
             db.beginTransaction();
@@ -176,6 +201,8 @@ public class StatsTable {
             return false;
         }
 
+        StatsModelCache.removeBlog(blogId);
+
         SQLiteDatabase db = StatsDatabaseHelper.getWritableDb(ctx);
         try {
             db.beginTransaction();
@@ -196,6 +223,8 @@ public class StatsTable {
             return false;
         }
 
+        StatsModelCache.removeBlog(blogId, sectionToUpdate);
+
         SQLiteDatabase db = StatsDatabaseHelper.getWritableDb(ctx);
         try {
             db.beginTransaction();
@@ -217,6 +246,8 @@ public class StatsTable {
                     "to access the DB.");
             return;
         }
+        StatsModelCache.clear();
+
         SQLiteDatabase db = StatsDatabaseHelper.getWritableDb(ctx);
         db.beginTransaction();
         try {
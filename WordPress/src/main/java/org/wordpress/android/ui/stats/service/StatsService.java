@@ -3,6 +3,8 @@ package org.wordpress.android.ui.stats.service;
 import android.app.Service;
 import android.content.Intent;
 import android.os.IBinder;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
 
 import com.android.volley.Request;
 import com.android.volley.VolleyError;
@@ -18,6 +20,7 @@ import org.wordpress.android.ui.stats.StatsEvents;
 import org.wordpress.android.ui.stats.StatsTimeframe;
 import org.wordpress.android.ui.stats.StatsUtils;
 import org.wordpress.android.ui.stats.StatsWidgetProvider;
+import org.wordpress.android.ui.stats.datasets.StatsModelCache;
 import org.wordpress.android.ui.stats.datasets.StatsTable;
 import org.wordpress.android.ui.stats.exceptions.StatsError;
 import org.wordpress.android.ui.stats.models.AuthorsModel;
@@ -43,12 +46,17 @@ import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 
 import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 
@@ -56,7 +64,8 @@ import de.greenrobot.event.EventBus;
 
 /**
  * Background service to retrieve Stats.
- * Parsing of response(s) and submission of new network calls are done by using a ThreadPoolExecutor with a single thread.
+ * Parsing of response(s) and submission of new network calls are done by using a small ThreadPoolExecutor whose
+ * queue is ordered by endpoint priority, so modules which are visible when stats are opened are handled first.
  */
 
 public class StatsService extends Service {
@@ -68,6 +77,13 @@ public class StatsService extends Service {
     public static final String ARG_PAGE_REQUESTED = "stats_page_requested";
 
     private static final int DEFAULT_NUMBER_OF_RESULTS = 12;
+
+    // lower values are run first
+    private static final int TASK_PRIORITY_HIGH = 0;
+    private static final int TASK_PRIORITY_NORMAL = 1;
+    private static final int TASK_PRIORITY_LOW = 2;
+
+    private static final int MAX_NETWORK_HANDLER_THREADS = 4;
     // The number of results to return per page for Paged REST endpoints. Numbers larger than 20 will default to 20 on the server.
     public static final int MAX_RESULTS_REQUESTED_PER_PAGE = 20;
 
@@ -138,6 +154,27 @@ public class StatsService extends Service {
             }
         }
 
+        /*
+         * modules which are shown at the top of the stats screens are fetched and parsed first,
+         * modules which are usually below the fold or on secondary screens come later
+         */
+        int getPriority() {
+            switch (this) {
+                case VISITS:
+                case INSIGHTS_TODAY:
+                case INSIGHTS_LATEST_POST_SUMMARY:
+                case INSIGHTS_LATEST_POST_VIEWS:
+                    return TASK_PRIORITY_HIGH;
+                case TOP_POSTS:
+                case REFERRERS:
+                case INSIGHTS_POPULAR:
+                case INSIGHTS_ALL_TIME:
+                    return TASK_PRIORITY_NORMAL;
+                default:
+                    return TASK_PRIORITY_LOW;
+            }
+        }
+
         public StatsEvents.SectionUpdatedAbstract getEndpointUpdateEvent(final long siteId,
                                                                          final StatsTimeframe timeframe,
                                                                          final String date,
@@ -212,7 +249,63 @@ public class StatsService extends Service {
 
     private int mServiceStartId;
     private final LinkedList<Request<JSONObject>> mStatsNetworkRequests = new LinkedList<>();
-    private final ThreadPoolExecutor singleThreadNetworkHandler = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+    private final ThreadPoolExecutor mNetworkHandler = createNetworkHandler();
+
+    // keys of tasks which have been queued but haven't yet enqueued their network request, used to
+    // coalesce duplicate requests for the same section - in-flight network requests are coalesced
+    // by checkIfRequestShouldBeEnqueued()
+    private final HashSet<String> mPendingTaskKeys = new HashSet<>();
+
+    // per-endpoint latency totals: number of responses, total fetch ms, total parse ms
+    private final EnumMap<StatsEndpointsEnum, long[]> mLatencies = new EnumMap<>(StatsEndpointsEnum.class);
+
+    private static ThreadPoolExecutor createNetworkHandler() {
+        int numThreads = Math.max(1, Math.min(MAX_NETWORK_HANDLER_THREADS, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final AtomicLong sTaskSequence = new AtomicLong();
+
+    // number of tasks passed to executeTask() which haven't finished running, guarded by
+    // mStatsNetworkRequests - this includes running tasks, which the executor's queue doesn't
+    private int mNumUnfinishedTasks;
+
+    /*
+     * task submitted to mNetworkHandler - tasks with the same priority are run in the order they
+     * were submitted. note that tasks must be passed to execute() rather than submit() since
+     * submit() wraps them in a FutureTask which can't be ordered by the priority queue
+     */
+    private abstract class StatsTask implements Runnable, Comparable<StatsTask> {
+        private final int mPriority;
+        private final long mSequence;
+
+        StatsTask(int priority) {
+            mPriority = priority;
+            mSequence = sTaskSequence.getAndIncrement();
+        }
+
+        abstract void runTask();
+
+        @Override
+        public final void run() {
+            try {
+                runTask();
+            } finally {
+                onTaskFinished();
+            }
+        }
+
+        @Override
+        public int compareTo(@NonNull StatsTask other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
 
     @Inject SiteStore mSiteStore;
 
@@ -226,7 +319,8 @@ public class StatsService extends Service {
     @Override
     public void onDestroy() {
         stopRefresh();
-        AppLog.i(T.STATS, "service destroyed");
+        logLatencies();
+        AppLog.i(T.STATS, "service destroyed, " + StatsModelCache.getDiagnostics());
         super.onDestroy();
     }
 
@@ -284,10 +378,25 @@ public class StatsService extends Service {
         this.mServiceStartId = startId;
         for (int i=0; i < sectionFromIntent.length; i++){
             final StatsEndpointsEnum currentSectionsToUpdate = StatsEndpointsEnum.values()[sectionFromIntent[i]];
-            singleThreadNetworkHandler.submit(new Thread() {
+            final String taskKey = siteId + "-" + currentSectionsToUpdate.ordinal() + "-" + period.ordinal() + "-"
+                    + requestedDate + "-" + maxResultsRequested + "-" + pageRequested;
+            synchronized (mPendingTaskKeys) {
+                if (!mPendingTaskKeys.add(taskKey)) {
+                    AppLog.d(T.STATS, "Stats task is already queued: " + currentSectionsToUpdate.name());
+                    continue;
+                }
+            }
+            executeTask(new StatsTask(currentSectionsToUpdate.getPriority()) {
                 @Override
-                public void run() {
-                    startTasks(siteId, period, requestedDate, currentSectionsToUpdate, maxResultsRequested, pageRequested);
+                void runTask() {
+                    try {
+                        startTasks(siteId, period, requestedDate, currentSectionsToUpdate, maxResultsRequested,
+                                pageRequested);
+                    } finally {
+                        synchronized (mPendingTaskKeys) {
+                            mPendingTaskKeys.remove(taskKey);
+                        }
+                    }
                 }
             });
         }
@@ -313,14 +422,38 @@ public class StatsService extends Service {
         return true;
     }
 
-    // Check if we already have Stats
-    private String getCachedStats(final long siteId, final StatsTimeframe timeframe, final String date,
-                                  final StatsEndpointsEnum sectionToUpdate, final int maxResultsRequested,
-                                  final int pageRequested) {
+    // Check if we already have Stats - first in memory, then in the db. Note that the returned
+    // entry may be stale, in which case it should be shown while it's refreshed
+    private StatsModelCache.Entry getCachedStats(final long siteId, final StatsTimeframe timeframe, final String date,
+                                                 final StatsEndpointsEnum sectionToUpdate, final int maxResultsRequested,
+                                                 final int pageRequested) {
         if (!isCacheEnabled()) {
             return null;
         }
-        return StatsTable.getStats(this, siteId, timeframe, date, sectionToUpdate, maxResultsRequested, pageRequested);
+
+        StatsModelCache.Entry entry = StatsModelCache.get(siteId, sectionToUpdate, timeframe, date,
+                maxResultsRequested, pageRequested);
+        if (entry != null) {
+            return entry;
+        }
+
+        StatsTable.StatsRow row = StatsTable.getLatestStats(this, siteId, timeframe, date, sectionToUpdate,
+                maxResultsRequested, pageRequested);
+        if (row == null) {
+            return null;
+        }
+
+        try {
+            BaseStatsModel model = StatsUtils.parseResponse(sectionToUpdate, siteId, new JSONObject(row.jsonData));
+            if (model == null) {
+                return null;
+            }
+            return StatsModelCache.put(siteId, sectionToUpdate, timeframe, date, maxResultsRequested, pageRequested,
+                    model, row.timestamp);
+        } catch (JSONException e) {
+            AppLog.e(AppLog.T.STATS, e);
+            return null;
+        }
     }
 
     private void startTasks(final long blogId, final StatsTimeframe timeframe, final String date,
@@ -328,24 +461,24 @@ public class StatsService extends Service {
                             final int pageRequested) {
         EventBus.getDefault().post(new StatsEvents.UpdateStatusChanged(true));
 
-        String cachedStats = getCachedStats(blogId, timeframe, date, sectionToUpdate, maxResultsRequested, pageRequested);
-        if (cachedStats != null) {
-            BaseStatsModel mResponseObjectModel;
-                try {
-                    JSONObject response = new JSONObject(cachedStats);
-                    mResponseObjectModel = StatsUtils.parseResponse(sectionToUpdate, blogId, response);
-
-                    EventBus.getDefault().post(
-                            sectionToUpdate.getEndpointUpdateEvent(blogId, timeframe, date,
-                                    maxResultsRequested, pageRequested, mResponseObjectModel)
-                    );
+        StatsModelCache.Entry cachedStats = getCachedStats(blogId, timeframe, date, sectionToUpdate,
+                maxResultsRequested, pageRequested);
+        BaseStatsModel cachedModel = cachedStats != null ? cachedStats.getModel() : null;
+        if (cachedModel != null) {
+            boolean isStale = cachedStats.isStale();
+            // widgets are updated before the model is posted, since subscribers may change it
+            if (!isStale) {
+                updateWidgetsUI(blogId, sectionToUpdate, timeframe, date, pageRequested, cachedModel);
+            }
+            EventBus.getDefault().post(
+                    sectionToUpdate.getEndpointUpdateEvent(blogId, timeframe, date,
+                            maxResultsRequested, pageRequested, cachedModel)
+            );
 
-                    updateWidgetsUI(blogId, sectionToUpdate, timeframe, date, pageRequested, mResponseObjectModel);
-                    checkAllRequestsFinished(null);
-                    return;
-                } catch (JSONException e) {
-                    AppLog.e(AppLog.T.STATS, e);
-                }
+            if (!isStale) {
+                return;
+            }
+            // stale stats have been shown, now fall through to refresh them from the network
         }
 
         final RestClientUtils restClientUtils = WordPress.getRestClientUtilsV1_1();
@@ -425,6 +558,7 @@ public class StatsService extends Service {
             // We need to check if we already have the same request in the queue
             if (checkIfRequestShouldBeEnqueued(restClientUtils, path)) {
                 AppLog.d(AppLog.T.STATS, "Enqueuing the following Stats request " + path);
+                vListener.mRequestStartTime = SystemClock.elapsedRealtime();
                 Request<JSONObject> currentRequest = restClientUtils.get(path, vListener, vListener);
                 vListener.currentRequest = currentRequest;
                 currentRequest.setTag("StatsCall");
@@ -519,6 +653,7 @@ public class StatsService extends Service {
         private final String mDate;
         private Request<JSONObject> currentRequest;
         private final int mMaxResultsRequested, mPageRequested;
+        private long mRequestStartTime;
 
         public RestListener(StatsEndpointsEnum endpointName, long blogId, StatsTimeframe timeframe, String date,
                             final int maxResultsRequested, final int pageRequested) {
@@ -532,18 +667,26 @@ public class StatsService extends Service {
 
         @Override
         public void onResponse(final JSONObject response) {
-            singleThreadNetworkHandler.submit(new Thread() {
+            final long fetchMs = SystemClock.elapsedRealtime() - mRequestStartTime;
+            executeTask(new StatsTask(mEndpointName.getPriority()) {
                 @Override
-                public void run() {
+                void runTask() {
                     // do other stuff here
                     BaseStatsModel mResponseObjectModel = null;
                     if (response != null) {
                         try {
+                            long parseStart = SystemClock.elapsedRealtime();
                             mResponseObjectModel = StatsUtils.parseResponse(mEndpointName, mRequestBlogId, response);
+                            recordLatency(mEndpointName, fetchMs, SystemClock.elapsedRealtime() - parseStart);
                             if (isCacheEnabled()) {
+                                long timestamp = System.currentTimeMillis();
                                 StatsTable.insertStats(StatsService.this, mRequestBlogId, mTimeframe, mDate, mEndpointName,
                                         mMaxResultsRequested, mPageRequested,
-                                        response.toString(), System.currentTimeMillis());
+                                        response.toString(), timestamp);
+                                if (mResponseObjectModel != null) {
+                                    StatsModelCache.put(mRequestBlogId, mEndpointName, mTimeframe, mDate,
+                                            mMaxResultsRequested, mPageRequested, mResponseObjectModel, timestamp);
+                                }
                             }
                         } catch (JSONException e) {
                             AppLog.e(AppLog.T.STATS, e);
@@ -563,9 +706,9 @@ public class StatsService extends Service {
 
         @Override
         public void onErrorResponse(final VolleyError volleyError) {
-            singleThreadNetworkHandler.submit(new Thread() {
+            executeTask(new StatsTask(mEndpointName.getPriority()) {
                 @Override
-                public void run() {
+                void runTask() {
                     AppLog.e(T.STATS, "Error while loading Stats!");
                     StatsUtils.logVolleyErrorDetails(volleyError);
                     BaseStatsModel mResponseObjectModel = null;
@@ -591,13 +734,54 @@ public class StatsService extends Service {
         }
     }
 
-    private void checkAllRequestsFinished(Request<JSONObject> req) {
+    private void executeTask(StatsTask task) {
         synchronized (mStatsNetworkRequests) {
-            if (req != null) {
+            mNumUnfinishedTasks++;
+        }
+        mNetworkHandler.execute(task);
+    }
+
+    /*
+     * called by each task when it's done with the passed request - the update status is posted
+     * once the task finishes, since the task itself is still running here
+     */
+    private void checkAllRequestsFinished(Request<JSONObject> req) {
+        if (req != null) {
+            synchronized (mStatsNetworkRequests) {
                 mStatsNetworkRequests.remove(req);
             }
-            boolean isStillWorking = mStatsNetworkRequests.size() > 0 || singleThreadNetworkHandler.getQueue().size() > 0;
+        }
+    }
+
+    private void onTaskFinished() {
+        synchronized (mStatsNetworkRequests) {
+            mNumUnfinishedTasks--;
+            boolean isStillWorking = mStatsNetworkRequests.size() > 0 || mNumUnfinishedTasks > 0;
             EventBus.getDefault().post(new StatsEvents.UpdateStatusChanged(isStillWorking));
         }
     }
+
+    private void recordLatency(StatsEndpointsEnum endpoint, long fetchMs, long parseMs) {
+        AppLog.d(T.STATS, endpoint.name() + " fetched in " + fetchMs + "ms, parsed in " + parseMs + "ms");
+        synchronized (mLatencies) {
+            long[] totals = mLatencies.get(endpoint);
+            if (totals == null) {
+                totals = new long[3];
+                mLatencies.put(endpoint, totals);
+            }
+            totals[0]++;
+            totals[1] += fetchMs;
+            totals[2] += parseMs;
+        }
+    }
+
+    private void logLatencies() {
+        synchronized (mLatencies) {
+            for (Map.Entry<StatsEndpointsEnum, long[]> entry : mLatencies.entrySet()) {
+                long[] totals = entry.getValue();
+                AppLog.i(T.STATS, String.format(Locale.US, "%s > %d responses, avg fetch %dms, avg parse %dms",
+                        entry.getKey().name(), totals[0], totals[1] / totals[0], totals[2] / totals[0]));
+            }
+        }
+    }
 }
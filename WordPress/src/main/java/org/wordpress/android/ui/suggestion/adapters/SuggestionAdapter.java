@@ -11,17 +11,18 @@ import android.widget.TextView;
 
 import org.wordpress.android.R;
 import org.wordpress.android.models.Suggestion;
+import org.wordpress.android.ui.suggestion.util.SuggestionIndex;
 import org.wordpress.android.util.GravatarUtils;
 import org.wordpress.android.widgets.WPNetworkImageView;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class SuggestionAdapter extends BaseAdapter implements Filterable {
     private final LayoutInflater mInflater;
     private Filter mSuggestionFilter;
     private List<Suggestion> mSuggestionList;
-    private List<Suggestion> mOrigSuggestionList;
+    private SuggestionIndex mSuggestionIndex;
+    private long mSiteId;
     private int mAvatarSz;
 
     public SuggestionAdapter(Context context) {
@@ -29,8 +30,16 @@ public class SuggestionAdapter extends BaseAdapter implements Filterable {
         mInflater = LayoutInflater.from(context);
     }
 
-    public void setSuggestionList(List<Suggestion> suggestionList) {
-        mOrigSuggestionList = suggestionList;
+    public void setSuggestionIndex(SuggestionIndex suggestionIndex) {
+        mSuggestionIndex = suggestionIndex;
+    }
+
+    /*
+     * sets the site whose index is read on the filter thread until one is passed to
+     * setSuggestionIndex(), so an index which isn't cached yet isn't built on the main thread
+     */
+    public void setSiteId(long siteId) {
+        mSiteId = siteId;
     }
 
     @Override
@@ -104,27 +113,18 @@ public class SuggestionAdapter extends BaseAdapter implements Filterable {
         protected FilterResults performFiltering(CharSequence constraint) {
             FilterResults results = new FilterResults();
 
-            if (mOrigSuggestionList == null) {
+            // the index may be replaced on the main thread while this runs on the filter thread
+            SuggestionIndex suggestionIndex = mSuggestionIndex;
+            if (suggestionIndex == null && mSiteId != 0) {
+                suggestionIndex = SuggestionIndex.getIndexForSite(mSiteId);
+            }
+            if (suggestionIndex == null) {
                 results.values = null;
                 results.count = 0;
-            }
-            else if (constraint == null || constraint.length() == 0) {
-                results.values = mOrigSuggestionList;
-                results.count = mOrigSuggestionList.size();
-            }
-            else {
-                List<Suggestion> nSuggestionList = new ArrayList<Suggestion>();
-
-                for (Suggestion suggestion : mOrigSuggestionList) {
-                    String lowerCaseConstraint = constraint.toString().toLowerCase();
-                    if (suggestion.getUserLogin().toLowerCase().startsWith(lowerCaseConstraint)
-                            || suggestion.getDisplayName().toLowerCase().startsWith(lowerCaseConstraint)
-                            || suggestion.getDisplayName().toLowerCase().contains(" " + lowerCaseConstraint))
-                        nSuggestionList.add(suggestion);
-                }
-
-                results.values = nSuggestionList;
-                results.count = nSuggestionList.size();
+            } else {
+                List<Suggestion> suggestions = suggestionIndex.search(constraint != null ? constraint.toString() : null);
+                results.values = suggestions;
+                results.count = suggestions.size();
             }
             return results;
         }
@@ -14,6 +14,7 @@ import org.wordpress.android.WordPress;
 import org.wordpress.android.datasets.SuggestionTable;
 import org.wordpress.android.models.Suggestion;
 import org.wordpress.android.models.Tag;
+import org.wordpress.android.ui.suggestion.util.SuggestionIndex;
 import org.wordpress.android.util.AppLog;
 
 import java.util.ArrayList;
@@ -88,6 +89,8 @@ public class SuggestionService extends Service {
                 List<Suggestion> suggestions = Suggestion.suggestionListFromJSON(jsonSuggestions, siteId);
                 if (suggestions != null) {
                     SuggestionTable.insertSuggestionsForSite(siteId, suggestions);
+                    // build the index here so screens showing the suggestions don't build it on the main thread
+                    SuggestionIndex.rebuildIndexForSite(siteId);
                     EventBus.getDefault().post(new SuggestionEvents.SuggestionNameListUpdated(siteId));
                 }
             }
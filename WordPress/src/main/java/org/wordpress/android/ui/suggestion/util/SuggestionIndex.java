@@ -0,0 +1,219 @@
+package org.wordpress.android.ui.suggestion.util;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+
+import org.wordpress.android.datasets.SuggestionTable;
+import org.wordpress.android.models.Suggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prefix index of the @mention suggestions for a site. Each user's login, display name and every
+ * word in the display name is added to a trie whose nodes hold the users whose terms pass through
+ * them, so matching a prefix is a walk down the trie rather than a scan of every user.
+ *
+ * Matches are ranked, then kept in the order of the suggestion list (user login order when read
+ * from SuggestionTable):
+ *
+ *  1. the login is the prefix
+ *  2. the login starts with the prefix
+ *  3. the display name starts with the prefix
+ *  4. a later word in the display name starts with the prefix
+ *
+ * An index is immutable once it's built, so it can be searched from the adapter's filter thread.
+ * Indexes are cached per site and rebuilt by SuggestionService when it stores new suggestions.
+ */
+public class SuggestionIndex {
+    // terms are only indexed up to this length - longer prefixes are checked against the users
+    // found for their first MAX_INDEXED_LENGTH characters
+    private static final int MAX_INDEXED_LENGTH = 8;
+    private static final int NUM_RANKS = 4;
+    private static final int MAX_CACHED_SITES = 5;
+
+    private static final LruCache<Long, SuggestionIndex> sIndexCache = new LruCache<>(MAX_CACHED_SITES);
+
+    private static class Node {
+        private char[] mKeys = new char[0];
+        private Node[] mChildren = new Node[0];
+        private int[] mIds = new int[2];
+        private int mNumIds;
+
+        Node getChild(char key) {
+            int index = Arrays.binarySearch(mKeys, key);
+            return index >= 0 ? mChildren[index] : null;
+        }
+
+        Node getOrAddChild(char key) {
+            int index = Arrays.binarySearch(mKeys, key);
+            if (index >= 0) {
+                return mChildren[index];
+            }
+            index = -(index + 1);
+            char[] keys = new char[mKeys.length + 1];
+            Node[] children = new Node[mChildren.length + 1];
+            System.arraycopy(mKeys, 0, keys, 0, index);
+            System.arraycopy(mChildren, 0, children, 0, index);
+            System.arraycopy(mKeys, index, keys, index + 1, mKeys.length - index);
+            System.arraycopy(mChildren, index, children, index + 1, mChildren.length - index);
+            Node child = new Node();
+            keys[index] = key;
+            children[index] = child;
+            mKeys = keys;
+            mChildren = children;
+            return child;
+        }
+
+        void addId(int id) {
+            // users are added in ascending order, so a user with several terms sharing this prefix
+            // is only added once
+            if (mNumIds > 0 && mIds[mNumIds - 1] == id) {
+                return;
+            }
+            if (mNumIds == mIds.length) {
+                mIds = Arrays.copyOf(mIds, mNumIds * 2);
+            }
+            mIds[mNumIds++] = id;
+        }
+    }
+
+    private final List<Suggestion> mSuggestions;
+    private final String[] mLogins;
+    private final String[] mDisplayNames;
+    private final Node mRoot = new Node();
+
+    public SuggestionIndex(@NonNull List<Suggestion> suggestions) {
+        mSuggestions = Collections.unmodifiableList(new ArrayList<>(suggestions));
+        mLogins = new String[mSuggestions.size()];
+        mDisplayNames = new String[mSuggestions.size()];
+
+        for (int id = 0; id < mSuggestions.size(); id++) {
+            Suggestion suggestion = mSuggestions.get(id);
+            mLogins[id] = toLowerCase(suggestion.getUserLogin());
+            mDisplayNames[id] = toLowerCase(suggestion.getDisplayName());
+
+            addTerm(mLogins[id], id);
+            String displayName = mDisplayNames[id];
+            addTerm(displayName, id);
+            int index = displayName.indexOf(' ');
+            while (index != -1) {
+                addTerm(displayName.substring(index + 1), id);
+                index = displayName.indexOf(' ', index + 1);
+            }
+        }
+    }
+
+    /*
+     * returns the index for the passed site, building it from SuggestionTable if it isn't cached
+     */
+    public static SuggestionIndex getIndexForSite(long siteId) {
+        SuggestionIndex index = sIndexCache.get(siteId);
+        if (index == null) {
+            index = rebuildIndexForSite(siteId);
+        }
+        return index;
+    }
+
+    /*
+     * returns the index for the passed site if it's cached, otherwise null - unlike getIndexForSite()
+     * this never builds the index, so it's safe to call on the main thread
+     */
+    public static SuggestionIndex getCachedIndexForSite(long siteId) {
+        return sIndexCache.get(siteId);
+    }
+
+    /*
+     * rebuilds the index for the passed site from SuggestionTable - called after the suggestions
+     * for the site are updated
+     */
+    public static SuggestionIndex rebuildIndexForSite(long siteId) {
+        SuggestionIndex index = new SuggestionIndex(SuggestionTable.getSuggestionsForSite(siteId));
+        sIndexCache.put(siteId, index);
+        return index;
+    }
+
+    private void addTerm(@NonNull String term, int id) {
+        Node node = mRoot;
+        int length = Math.min(term.length(), MAX_INDEXED_LENGTH);
+        for (int i = 0; i < length; i++) {
+            node = node.getOrAddChild(term.charAt(i));
+            node.addId(id);
+        }
+    }
+
+    public int size() {
+        return mSuggestions.size();
+    }
+
+    public boolean isEmpty() {
+        return mSuggestions.isEmpty();
+    }
+
+    /*
+     * returns the suggestions whose login, display name or a word in the display name starts with
+     * the passed prefix, best matches first - an empty prefix returns every suggestion
+     */
+    public List<Suggestion> search(String prefix) {
+        String query = toLowerCase(prefix);
+        if (query.length() == 0) {
+            return mSuggestions;
+        }
+
+        Node node = mRoot;
+        int length = Math.min(query.length(), MAX_INDEXED_LENGTH);
+        for (int i = 0; i < length && node != null; i++) {
+            node = node.getChild(query.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+
+        int[] ranks = new int[node.mNumIds];
+        int numMatches = 0;
+        for (int i = 0; i < node.mNumIds; i++) {
+            ranks[i] = getRank(node.mIds[i], query);
+            if (ranks[i] != -1) {
+                numMatches++;
+            }
+        }
+
+        List<Suggestion> results = new ArrayList<>(numMatches);
+        for (int rank = 0; rank < NUM_RANKS; rank++) {
+            for (int i = 0; i < ranks.length; i++) {
+                if (ranks[i] == rank) {
+                    results.add(mSuggestions.get(node.mIds[i]));
+                }
+            }
+        }
+        return results;
+    }
+
+    /*
+     * returns the rank of the passed user for the passed query (zero is best), or -1 if it doesn't
+     * match - see the class comment for the ranks. the trie only narrows queries down to users with
+     * a term starting with the query's first MAX_INDEXED_LENGTH characters, so longer queries are
+     * checked in full here.
+     */
+    private int getRank(int id, @NonNull String query) {
+        String login = mLogins[id];
+        if (login.startsWith(query)) {
+            return login.length() == query.length() ? 0 : 1;
+        }
+        String displayName = mDisplayNames[id];
+        if (displayName.startsWith(query)) {
+            return 2;
+        }
+        if (displayName.contains(" " + query)) {
+            return 3;
+        }
+        return -1;
+    }
+
+    private static String toLowerCase(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.getDefault());
+    }
+}
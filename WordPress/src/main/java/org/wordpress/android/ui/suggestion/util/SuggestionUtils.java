@@ -4,12 +4,9 @@ import android.content.Context;
 
 import org.wordpress.android.datasets.SuggestionTable;
 import org.wordpress.android.fluxc.model.SiteModel;
-import org.wordpress.android.models.Suggestion;
 import org.wordpress.android.ui.suggestion.adapters.SuggestionAdapter;
 import org.wordpress.android.util.SiteUtils;
 
-import java.util.List;
-
 public class SuggestionUtils {
 
     public static SuggestionAdapter setupSuggestions(SiteModel site, Context context,
@@ -27,12 +24,18 @@ public class SuggestionUtils {
 
         SuggestionAdapter suggestionAdapter = new SuggestionAdapter(context);
 
-        List<Suggestion> suggestions = SuggestionTable.getSuggestionsForSite(siteId);
+        // building the index reads every suggestion for the site, so if it isn't cached it's built
+        // on the filter thread the first time the user types a mention
+        SuggestionIndex suggestionIndex = SuggestionIndex.getCachedIndexForSite(siteId);
+        boolean hasSuggestions = suggestionIndex != null
+                ? !suggestionIndex.isEmpty()
+                : SuggestionTable.hasSuggestionsForSite(siteId);
         // if the suggestions are not stored yet, we want to trigger an update for it
-        if (suggestions.isEmpty()) {
+        if (!hasSuggestions) {
             serviceConnectionManager.bindToService();
         }
-        suggestionAdapter.setSuggestionList(suggestions);
+        suggestionAdapter.setSiteId(siteId);
+        suggestionAdapter.setSuggestionIndex(suggestionIndex);
         return suggestionAdapter;
     }
 }
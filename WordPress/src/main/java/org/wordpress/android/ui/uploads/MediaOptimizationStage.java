@@ -0,0 +1,219 @@
+package org.wordpress.android.ui.uploads;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.ImageUtils;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Image pre-processing stage which runs ahead of media uploads. Media are optimized/rotated on a small
+ * pool of background threads so they can be processed while earlier media are uploading, and the
+ * output is stored in a cache keyed by the source file's path, size and modification time along with
+ * the processing options, so retrying or re-uploading the same file doesn't re-encode it.
+ *
+ * Each output keeps the name the processor gave it, in a directory named after its key, since the
+ * name is used as the uploaded file's name and title. The cache is only trimmed by UploadService once
+ * its uploads are complete, and never removes files which media waiting to be uploaded still refer to.
+ *
+ * Videos aren't handled here since VideoOptimizer already runs on its own thread once an upload starts.
+ */
+public class MediaOptimizationStage {
+    private static final String CACHE_DIR_NAME = "optimized_media";
+    private static final long MAX_CACHE_SIZE_BYTES = 100 * 1024 * 1024;
+
+    // files used this recently are never trimmed, since they may have been returned for media which
+    // haven't been queued for upload yet
+    private static final long MIN_TRIM_AGE_MS = 60 * 60 * 1000;
+
+    // decoding large images is memory hungry, so no more than two are processed at once
+    private static final int MAX_THREADS = 2;
+
+    private static final ExecutorService sExecutor = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1)));
+
+    private interface Processor {
+        String process(@NonNull Context context, @NonNull String path);
+    }
+
+    private MediaOptimizationStage() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Runs the passed task on the optimization pool - used to prepare a list of media in the background
+     * while the ones which are already prepared are uploaded.
+     */
+    public static <T> Future<T> submit(@NonNull Callable<T> task) {
+        return sExecutor.submit(task);
+    }
+
+    /**
+     * Same as {@link ImageUtils#optimizeImage(Context, String, int, int)} but returns the cached output
+     * if the same file has already been optimized with the same options.
+     */
+    public static String optimizeImage(@NonNull Context context, @NonNull String path,
+                                       final int maxImageSize, final int quality) {
+        String options = String.format(Locale.US, "optimize-%d-%d", maxImageSize, quality);
+        return getCachedOrProcess(context, path, options, new Processor() {
+            @Override
+            public String process(@NonNull Context context, @NonNull String path) {
+                return ImageUtils.optimizeImage(context, path, maxImageSize, quality);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link ImageUtils#rotateImageIfNecessary(Context, String)} but returns the cached output
+     * if the same file has already been rotated.
+     */
+    public static String rotateImageIfNecessary(@NonNull Context context, @NonNull String path) {
+        return getCachedOrProcess(context, path, "rotate", new Processor() {
+            @Override
+            public String process(@NonNull Context context, @NonNull String path) {
+                return ImageUtils.rotateImageIfNecessary(context, path);
+            }
+        });
+    }
+
+    private static String getCachedOrProcess(@NonNull Context context, @NonNull String path,
+                                             @NonNull String options, @NonNull Processor processor) {
+        long startTime = SystemClock.elapsedRealtime();
+        File entryDir = getCacheEntryDir(context, getKey(path, options));
+
+        File cachedFile = entryDir != null ? getCachedFile(entryDir) : null;
+        if (cachedFile != null) {
+            // touch the file so it's the last to be trimmed
+            cachedFile.setLastModified(System.currentTimeMillis());
+            AppLog.d(T.MEDIA, "MediaOptimizationStage > " + options + " cache hit for " + path);
+            return cachedFile.getAbsolutePath();
+        }
+
+        String result = processor.process(context, path);
+        long processTime = SystemClock.elapsedRealtime();
+
+        // a result matching the source means nothing was done, so there's nothing to cache
+        if (entryDir != null && result != null && !result.equals(path)) {
+            File resultFile = new File(result);
+            File entryFile = new File(entryDir, resultFile.getName());
+            if ((entryDir.isDirectory() || entryDir.mkdirs()) && resultFile.renameTo(entryFile)) {
+                result = entryFile.getAbsolutePath();
+            }
+        }
+
+        AppLog.i(T.MEDIA, "MediaOptimizationStage > " + options + " of " + path + " processed in "
+                + (processTime - startTime) + "ms");
+        return result;
+    }
+
+    /*
+     * returns a hex sha-1 of the file's path, size and modification time and the passed processing
+     * options, or null if the file doesn't exist. the file's content isn't hashed since reading all of
+     * it costs about as much as decoding it, which is what the cache is meant to avoid
+     */
+    private static String getKey(@NonNull String path, @NonNull String options) {
+        File file = new File(path);
+        if (!file.exists()) {
+            return null;
+        }
+        String key = options + "|" + file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest(key.getBytes("UTF-8"))) {
+                sb.append(String.format(Locale.US, "%02x", b));
+            }
+            return sb.toString();
+        } catch (UnsupportedEncodingException | NoSuchAlgorithmException e) {
+            AppLog.w(T.MEDIA, "MediaOptimizationStage > Can't hash " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static File getCacheDir(@NonNull Context context) {
+        return new File(context.getCacheDir(), CACHE_DIR_NAME);
+    }
+
+    /*
+     * returns the directory which holds the cached output for the passed key - the directory only
+     * exists once the output has been cached
+     */
+    private static @Nullable File getCacheEntryDir(@NonNull Context context, @Nullable String key) {
+        if (key == null) {
+            return null;
+        }
+        return new File(getCacheDir(context), key);
+    }
+
+    private static @Nullable File getCachedFile(@NonNull File entryDir) {
+        File[] files = entryDir.listFiles();
+        return files != null && files.length > 0 ? files[0] : null;
+    }
+
+    /**
+     * Removes the least recently used outputs once the cache exceeds its maximum size, skipping the
+     * passed files (ie: the files of media which are waiting to be uploaded) and any output which was
+     * used recently. Must not be called on the main thread.
+     */
+    public static synchronized void trimCache(@NonNull Context context, @NonNull Set<String> pinnedPaths) {
+        File[] entryDirs = getCacheDir(context).listFiles();
+        if (entryDirs == null) {
+            return;
+        }
+
+        final HashMap<File, Long> lastUsed = new HashMap<>();
+        long totalSize = 0;
+        for (File entryDir : entryDirs) {
+            File file = entryDir.isDirectory() ? getCachedFile(entryDir) : entryDir;
+            lastUsed.put(entryDir, file != null ? file.lastModified() : 0);
+            totalSize += file != null ? file.length() : 0;
+        }
+        if (totalSize <= MAX_CACHE_SIZE_BYTES) {
+            return;
+        }
+
+        Arrays.sort(entryDirs, new Comparator<File>() {
+            @Override
+            public int compare(File entryDir1, File entryDir2) {
+                long diff = lastUsed.get(entryDir1) - lastUsed.get(entryDir2);
+                return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+            }
+        });
+        long minLastUsed = System.currentTimeMillis() - MIN_TRIM_AGE_MS;
+        for (File entryDir : entryDirs) {
+            if (totalSize <= MAX_CACHE_SIZE_BYTES || lastUsed.get(entryDir) > minLastUsed) {
+                break;
+            }
+            File file = entryDir.isDirectory() ? getCachedFile(entryDir) : entryDir;
+            if (file == null) {
+                entryDir.delete();
+                continue;
+            }
+            if (pinnedPaths.contains(file.getAbsolutePath())) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                totalSize -= length;
+                entryDir.delete();
+            }
+        }
+    }
+}
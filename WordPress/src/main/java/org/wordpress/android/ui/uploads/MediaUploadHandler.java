@@ -18,10 +18,9 @@ import org.wordpress.android.fluxc.store.SiteStore;
 import org.wordpress.android.util.AnalyticsUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
-import org.wordpress.android.util.StringUtils;
+import org.wordpress.android.util.NetworkUtils;
 import org.wordpress.android.util.WPMediaUtils;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -32,9 +31,20 @@ import javax.inject.Inject;
 
 import de.greenrobot.event.EventBus;
 
+/**
+ * Uploads media with up to {@link #getMaxConcurrentUploads()} uploads (including video optimization) running at
+ * once. Pending media are started in the order they were queued, so media for a post queued earlier all start
+ * before media for a post queued later, which lets PostUploadHandler upload the earlier post as soon as possible.
+ */
 public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptimizer.VideoOptimizationListener {
-    private static final List<MediaModel> sPendingUploads = new ArrayList<>();
-    private static final List<MediaModel> sInProgressUploads = new ArrayList<>();
+    // used when the connection type is unknown or metered
+    private static final int MAX_CONCURRENT_UPLOADS_MOBILE = 2;
+    private static final int MAX_CONCURRENT_UPLOADS_WIFI = 4;
+
+    private static final MediaUploadQueue sQueue = new MediaUploadQueue();
+
+    // zero means the limit is picked based on the connection type
+    private static volatile int sMaxConcurrentUploadsOverride = 0;
 
     private static final ConcurrentHashMap<Integer, Float> sOptimizationProgressByMediaId = new ConcurrentHashMap<>();
 
@@ -56,12 +66,12 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
 
     @Override
     public boolean hasInProgressUploads() {
-        return !sInProgressUploads.isEmpty() || !sPendingUploads.isEmpty();
+        return !sQueue.isEmpty();
     }
 
     @Override
     public void cancelInProgressUploads() {
-        for (MediaModel oneUpload : sInProgressUploads) {
+        for (MediaModel oneUpload : sQueue.getInProgress()) {
             cancelUpload(oneUpload, false);
         }
     }
@@ -72,35 +82,29 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         uploadNextInQueue();
     }
 
-    static boolean hasInProgressMediaUploadsForPost(PostModel postModel) {
-        if (postModel == null) {
-            return false;
-        }
+    /**
+     * Overrides the number of media which may be uploaded at once, pass zero to restore the default which
+     * depends on the connection type.
+     */
+    static void setMaxConcurrentUploads(int maxConcurrentUploads) {
+        sMaxConcurrentUploadsOverride = Math.max(0, maxConcurrentUploads);
+    }
 
-        synchronized (sInProgressUploads) {
-            for (MediaModel queuedMedia : sInProgressUploads) {
-                if (queuedMedia.getLocalPostId() == postModel.getId()) {
-                    return true;
-                }
-            }
+    static int getMaxConcurrentUploads() {
+        int override = sMaxConcurrentUploadsOverride;
+        if (override > 0) {
+            return override;
         }
+        return NetworkUtils.isWiFiConnected(WordPress.getContext())
+                ? MAX_CONCURRENT_UPLOADS_WIFI : MAX_CONCURRENT_UPLOADS_MOBILE;
+    }
 
-        return false;
+    static boolean hasInProgressMediaUploadsForPost(PostModel postModel) {
+        return postModel != null && sQueue.hasInProgressForPost(postModel.getId());
     }
 
     static boolean hasPendingMediaUploadsForPost(PostModel postModel) {
-        if (postModel == null) {
-            return false;
-        }
-
-        synchronized (sPendingUploads) {
-            for (MediaModel queuedMedia : sPendingUploads) {
-                if (queuedMedia.getLocalPostId() == postModel.getId()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return postModel != null && sQueue.hasPendingForPost(postModel.getId());
     }
 
     static boolean hasPendingOrInProgressMediaUploadsForPost(PostModel postModel) {
@@ -116,43 +120,11 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         if (postModel == null) {
             return Collections.emptyList();
         }
-
-        List<MediaModel> mediaList = new ArrayList<>();
-        synchronized (sInProgressUploads) {
-            for (MediaModel queuedMedia : sInProgressUploads) {
-                if (queuedMedia.getLocalPostId() == postModel.getId()) {
-                    mediaList.add(queuedMedia);
-                }
-            }
-        }
-
-        synchronized (sPendingUploads) {
-            for (MediaModel queuedMedia : sPendingUploads) {
-                if (queuedMedia.getLocalPostId() == postModel.getId()) {
-                    mediaList.add(queuedMedia);
-                }
-            }
-        }
-        return mediaList;
+        return sQueue.getMediaForPost(postModel.getId());
     }
 
     static boolean isPendingOrInProgressMediaUpload(@NonNull MediaModel media) {
-        synchronized (sInProgressUploads) {
-            for (MediaModel uploadingMedia : sInProgressUploads) {
-                if (uploadingMedia.getId() == media.getId()) {
-                    return true;
-                }
-            }
-        }
-
-        synchronized (sPendingUploads) {
-            for (MediaModel queuedMedia : sPendingUploads) {
-                if (queuedMedia.getId() == media.getId()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return sQueue.contains(media.getId());
     }
 
     /**
@@ -201,60 +173,36 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         uploadNextInQueue();
     }
 
+    /*
+     * starts as many pending uploads as the concurrency limit allows
+     */
     private synchronized void uploadNextInQueue() {
-        MediaModel next = getNextMediaToUpload();
-
-        if (next == null) {
-            AppLog.w(T.MEDIA, "MediaUploadHandler > No more media items to upload. Skipping this request.");
+        MediaModel next;
+        while ((next = sQueue.startNext(getMaxConcurrentUploads())) != null) {
+            // media which can't be uploaded gives up its slot, so the loop moves on to the next pending media
+            prepareForUpload(next);
+        }
+        if (sQueue.getPending().isEmpty()) {
+            AppLog.d(T.MEDIA, "MediaUploadHandler > No more media items to upload.");
             checkIfUploadsComplete();
-            return;
         }
-
-        prepareForUpload(next);
     }
 
     private synchronized void completeUploadWithId(int id) {
-        MediaModel media = getMediaFromInProgressQueueById(id);
+        MediaModel media = sQueue.complete(id);
         if (media != null) {
-            sInProgressUploads.remove(media);
             trackUploadMediaEvents(AnalyticsTracker.Stat.MEDIA_UPLOAD_STARTED, media, null);
         }
     }
 
     private MediaModel getMediaFromInProgressQueueById(int id) {
-        for (MediaModel media : sInProgressUploads) {
-            if (media.getId() == id)
-                return media;
-        }
-        return null;
-    }
-
-    private MediaModel getNextMediaToUpload() {
-        if (!sPendingUploads.isEmpty()) {
-            return sPendingUploads.remove(0);
-        }
-        return null;
+        return sQueue.getInProgress(id);
     }
 
     private void addUniqueMediaToQueue(MediaModel media) {
-        if (media != null) {
-            if (mediaAlreadyQueuedOrUploading(media)) {
-                return;
-            }
-
-            // no match found in queue
-            sPendingUploads.add(media);
-        }
-    }
-
-    private void addUniqueMediaToInProgressUploads(@NonNull MediaModel mediaToAdd) {
-        synchronized (sInProgressUploads) {
-            for (MediaModel media : sInProgressUploads) {
-                if (media.getId() == mediaToAdd.getId()) {
-                    return;
-                }
-            }
-            sInProgressUploads.add(mediaToAdd);
+        if (media != null && !sQueue.add(media)) {
+            AppLog.i(T.MEDIA, "MediaUploadHandler > Media with path " + media.getFilePath() + " and site id "
+                    + media.getLocalSiteId() + " is already queued or uploading");
         }
     }
 
@@ -272,30 +220,36 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
 
     private void prepareForUpload(@NonNull MediaModel media) {
         if (media.isVideo() && WPMediaUtils.isVideoOptimizationEnabled()) {
-            addUniqueMediaToInProgressUploads(media);
+            sQueue.addInProgress(media);
             new VideoOptimizer(media, this).start();
         } else {
             dispatchUploadAction(media);
         }
     }
 
-    private void dispatchUploadAction(@NonNull final MediaModel media) {
+    /*
+     * returns false if the media couldn't be uploaded, in which case it has already given up its slot and
+     * the caller should start the next pending media
+     */
+    private boolean dispatchUploadAction(@NonNull final MediaModel media) {
         SiteModel site = mSiteStore.getSiteByLocalId(media.getLocalSiteId());
 
         // somehow lost our reference to the site, complete this action
         if (site == null) {
             AppLog.w(T.MEDIA, "MediaUploadHandler > Unexpected state, site is null. Skipping this request.");
-            checkIfUploadsComplete();
-            return;
+            // free the slot this media was given so the remaining media can still be uploaded
+            sQueue.complete(media.getId());
+            return false;
         }
 
         AppLog.i(T.MEDIA, "MediaUploadHandler > Dispatching upload action for media with local id: "
                 + media.getId() + " and path: " + media.getFilePath());
-        addUniqueMediaToInProgressUploads(media);
+        sQueue.addInProgress(media);
 
         mDispatcher.dispatch(MediaActionBuilder.newUpdateMediaAction(media));
         MediaPayload payload = new MediaPayload(site, media);
         mDispatcher.dispatch(MediaActionBuilder.newUploadMediaAction(payload));
+        return true;
     }
 
     private void dispatchCancelAction(@NonNull final MediaModel media, @NonNull final SiteModel site, boolean delete) {
@@ -306,7 +260,7 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
     }
 
     private boolean checkIfUploadsComplete() {
-        if (sPendingUploads.isEmpty() && sInProgressUploads.isEmpty()) {
+        if (sQueue.isEmpty()) {
             AppLog.i(T.MEDIA, "MediaUploadHandler > Completed");
             return true;
         }
@@ -320,18 +274,17 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         if (event.post == null) {
             return;
         }
-        synchronized (sInProgressUploads) {
-            for (MediaModel inProgressUpload : sInProgressUploads) {
-                if (inProgressUpload.getLocalPostId() == event.post.getId()) {
-                    cancelUpload(inProgressUpload, true);
-                }
+        for (MediaModel inProgressUpload : sQueue.getInProgress()) {
+            if (inProgressUpload.getLocalPostId() == event.post.getId()) {
+                cancelUpload(inProgressUpload, true);
             }
         }
-        synchronized (sPendingUploads) {
-            for (MediaModel pendingUpload : sPendingUploads) {
-                if (pendingUpload.getLocalPostId() == event.post.getId()) {
-                    cancelUpload(pendingUpload, true);
-                }
+        // pending media haven't been dispatched yet, so they're dropped from the queue here rather
+        // than waiting for a cancellation event which would leave them queued
+        for (MediaModel pendingUpload : sQueue.getPending()) {
+            if (pendingUpload.getLocalPostId() == event.post.getId()) {
+                sQueue.removePending(pendingUpload.getId());
+                cancelUpload(pendingUpload, true);
             }
         }
     }
@@ -376,32 +329,6 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
         AnalyticsTracker.track(stat, mediaProperties);
     }
 
-    private boolean mediaAlreadyQueuedOrUploading(MediaModel mediaModel) {
-        for (MediaModel queuedMedia : sInProgressUploads) {
-            AppLog.i(T.MEDIA, "MediaUploadHandler > Attempting to add media with path " + mediaModel.getFilePath()
-                    + " and site id " + mediaModel.getLocalSiteId() + ". Comparing with " + queuedMedia.getFilePath()
-                    + ", " + queuedMedia.getLocalSiteId());
-            if (compareBySiteAndFilePath(queuedMedia, mediaModel)) {
-                return true;
-            }
-        }
-
-        for (MediaModel queuedMedia : sPendingUploads) {
-            AppLog.i(T.MEDIA, "MediaUploadHandler > Attempting to add media with path " + mediaModel.getFilePath()
-                    + " and site id " + mediaModel.getLocalSiteId() + ". Comparing with " + queuedMedia.getFilePath()
-                    + ", " + queuedMedia.getLocalSiteId());
-            if (compareBySiteAndFilePath(queuedMedia, mediaModel)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean compareBySiteAndFilePath(MediaModel media1, MediaModel media2) {
-        return (media1.getLocalSiteId() == media2.getLocalSiteId() &&
-                StringUtils.equals(media1.getFilePath(), media2.getFilePath()));
-    }
-
     @Override
     public void onVideoOptimizationProgress(@NonNull MediaModel media, float progress) {
         sOptimizationProgressByMediaId.put(media.getId(), progress);
@@ -414,8 +341,10 @@ public class MediaUploadHandler implements UploadHandler<MediaModel>, VideoOptim
     public void onVideoOptimizationCompleted(@NonNull MediaModel media) {
         sOptimizationProgressByMediaId.remove(media.getId());
         // make sure this media should still be uploaded (may have been cancelled during optimization)
-        if (sInProgressUploads.contains(media)) {
-            dispatchUploadAction(media);
+        if (sQueue.isInProgress(media.getId())) {
+            if (!dispatchUploadAction(media)) {
+                uploadNextInQueue();
+            }
         } else {
             AppLog.d(T.MEDIA, "MediaUploadHandler > skipping upload of optimized media");
         }
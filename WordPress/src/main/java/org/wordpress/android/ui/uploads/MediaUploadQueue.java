@@ -0,0 +1,154 @@
+package org.wordpress.android.ui.uploads;
+
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.fluxc.model.MediaModel;
+import org.wordpress.android.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pending and in-progress media for MediaUploadHandler. Pending media are started in the order they were
+ * queued, and only while fewer than the passed limit are in progress. Media are only queued once for each
+ * site and file path.
+ */
+class MediaUploadQueue {
+    // pending and in-progress media keyed by local media id
+    private final ConcurrentHashMap<Integer, MediaModel> mPending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, MediaModel> mInProgress = new ConcurrentHashMap<>();
+
+    // ids of pending media in the order they were queued - ids which are no longer in mPending
+    // (because the media was cancelled) are skipped when the queue is polled
+    private final ConcurrentLinkedQueue<Integer> mPendingOrder = new ConcurrentLinkedQueue<>();
+
+    /*
+     * adds the passed media to the end of the queue, returns false if media with the same site and
+     * file path is already pending or in progress
+     */
+    synchronized boolean add(@NonNull MediaModel media) {
+        if (containsSameFile(mInProgress.values(), media) || containsSameFile(mPending.values(), media)) {
+            return false;
+        }
+        if (mPending.putIfAbsent(media.getId(), media) != null) {
+            return false;
+        }
+        mPendingOrder.add(media.getId());
+        return true;
+    }
+
+    /*
+     * returns the media which was queued first and marks it as in progress, or returns null if nothing is
+     * pending or the passed number of media are already in progress - the media is marked as in progress
+     * before it's removed from the pending media so it's never reported as not queued
+     */
+    synchronized MediaModel startNext(int maxInProgress) {
+        if (mInProgress.size() >= maxInProgress) {
+            return null;
+        }
+        Integer id;
+        while ((id = mPendingOrder.poll()) != null) {
+            MediaModel media = mPending.get(id);
+            if (media != null) {
+                mInProgress.putIfAbsent(id, media);
+                mPending.remove(id);
+                return media;
+            }
+        }
+        return null;
+    }
+
+    void addInProgress(@NonNull MediaModel media) {
+        mInProgress.putIfAbsent(media.getId(), media);
+    }
+
+    /*
+     * removes the media from the in-progress media, which frees its slot for the next pending media
+     */
+    MediaModel complete(int id) {
+        return mInProgress.remove(id);
+    }
+
+    /*
+     * removes media which hasn't been started yet - it's skipped when the queue is polled
+     */
+    MediaModel removePending(int id) {
+        return mPending.remove(id);
+    }
+
+    MediaModel getInProgress(int id) {
+        return mInProgress.get(id);
+    }
+
+    boolean isInProgress(int id) {
+        return mInProgress.containsKey(id);
+    }
+
+    boolean contains(int id) {
+        return mInProgress.containsKey(id) || mPending.containsKey(id);
+    }
+
+    boolean isEmpty() {
+        return mPending.isEmpty() && mInProgress.isEmpty();
+    }
+
+    int getNumInProgress() {
+        return mInProgress.size();
+    }
+
+    Collection<MediaModel> getInProgress() {
+        return mInProgress.values();
+    }
+
+    Collection<MediaModel> getPending() {
+        return mPending.values();
+    }
+
+    boolean hasInProgressForPost(int localPostId) {
+        return containsPost(mInProgress.values(), localPostId);
+    }
+
+    boolean hasPendingForPost(int localPostId) {
+        return containsPost(mPending.values(), localPostId);
+    }
+
+    /*
+     * returns the in-progress media for the passed post followed by its pending media
+     */
+    List<MediaModel> getMediaForPost(int localPostId) {
+        List<MediaModel> mediaList = new ArrayList<>();
+        for (MediaModel media : mInProgress.values()) {
+            if (media.getLocalPostId() == localPostId) {
+                mediaList.add(media);
+            }
+        }
+        for (MediaModel media : mPending.values()) {
+            if (media.getLocalPostId() == localPostId) {
+                mediaList.add(media);
+            }
+        }
+        return mediaList;
+    }
+
+    private static boolean containsPost(@NonNull Collection<MediaModel> uploads, int localPostId) {
+        for (MediaModel media : uploads) {
+            if (media.getLocalPostId() == localPostId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsSameFile(@NonNull Collection<MediaModel> uploads, @NonNull MediaModel media) {
+        for (MediaModel queuedMedia : uploads) {
+            if (queuedMedia.getLocalSiteId() == media.getLocalSiteId()
+                    && StringUtils.equals(queuedMedia.getFilePath(), media.getFilePath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -43,8 +43,10 @@ import org.wordpress.android.util.WPMediaUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.inject.Inject;
 
@@ -595,9 +597,39 @@ public class UploadService extends Service {
         }
 
         AppLog.i(T.MAIN, "UploadService > Completed");
+        trimOptimizedMediaCache();
         stopSelf();
     }
 
+    /*
+     * trims the cache of optimized media now that nothing is uploading - the files of media which
+     * are still waiting to be uploaded (or retried) are kept
+     */
+    private void trimOptimizedMediaCache() {
+        final Context context = getApplicationContext();
+        final MediaStore mediaStore = mMediaStore;
+        final SiteStore siteStore = mSiteStore;
+        MediaOptimizationStage.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                Set<String> pinnedPaths = new HashSet<>();
+                MediaUploadState[] pinnedStates = {
+                        MediaUploadState.QUEUED, MediaUploadState.UPLOADING, MediaUploadState.FAILED};
+                for (SiteModel site : siteStore.getSites()) {
+                    for (MediaUploadState state : pinnedStates) {
+                        for (MediaModel media : mediaStore.getSiteMediaWithState(site, state)) {
+                            if (media.getFilePath() != null) {
+                                pinnedPaths.add(media.getFilePath());
+                            }
+                        }
+                    }
+                }
+                MediaOptimizationStage.trimCache(context, pinnedPaths);
+                return null;
+            }
+        });
+    }
+
     private void verifyMediaOnlyUploadsAndNotify() {
         // check if all are successful uploads, then notify the user about it
         if (!mMediaBatchUploaded.isEmpty()) {
@@ -1,42 +1,179 @@
 package org.wordpress.android.util;
 
 import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.util.LruCache;
 
 import com.android.volley.toolbox.ImageLoader.ImageCache;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Memory cache of bitmaps, optionally backed by a DiskBitmapCache which stores the network images
+ * passed to putBitmap() by Volley's ImageLoader. Keys are indexed by url so removeSimilar() is a
+ * prefix lookup rather than a scan of every key.
+ *
+ * Evicted bitmaps aren't handed to the BitmapPool since they may still be displayed - only the decode
+ * paths which know a bitmap is no longer shown return it to the pool.
+ */
+public class BitmapLruCache implements ImageCache {
+    // Volley's ImageLoader cache keys are "#W<maxWidth>#H<maxHeight>#S<scaleType><url>"
+    private static final Pattern VOLLEY_KEY_PREFIX = Pattern.compile("^#W\\d+#H\\d+(#S\\d+)?");
+
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final DiskBitmapCache mDiskCache;
+
+    // url > cache keys for that url, sorted so keys can be found by url prefix
+    private final TreeMap<String, HashSet<String>> mKeysByUrl = new TreeMap<>();
 
-public class BitmapLruCache extends LruCache<String, Bitmap> implements ImageCache {
     public BitmapLruCache(int maxSize) {
-        super(maxSize);
+        this(maxSize, null);
+    }
+
+    public BitmapLruCache(int maxSize, @Nullable DiskBitmapCache diskCache) {
+        mDiskCache = diskCache;
+        mMemoryCache = new LruCache<String, Bitmap>(maxSize) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                // The cache size will be measured in kilobytes rather than
+                // number of items.
+                int bytes = (value.getRowBytes() * value.getHeight());
+                return (bytes / 1024); //value.getByteCount() introduced in HONEYCOMB_MR1 or higher.
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (newValue == null) {
+                    removeFromIndex(key);
+                }
+            }
+        };
+    }
+
+    static String getUrlFromKey(@NonNull String key) {
+        Matcher matcher = VOLLEY_KEY_PREFIX.matcher(key);
+        return matcher.find() ? key.substring(matcher.end()) : key;
+    }
+
+    private void addToIndex(@NonNull String key) {
+        String url = getUrlFromKey(key);
+        synchronized (mKeysByUrl) {
+            HashSet<String> keys = mKeysByUrl.get(url);
+            if (keys == null) {
+                keys = new HashSet<>();
+                mKeysByUrl.put(url, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    private void removeFromIndex(@NonNull String key) {
+        String url = getUrlFromKey(key);
+        synchronized (mKeysByUrl) {
+            HashSet<String> keys = mKeysByUrl.get(url);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                mKeysByUrl.remove(url);
+            }
+        }
     }
 
+    public Bitmap get(String key) {
+        return mMemoryCache.get(key);
+    }
+
+    public Bitmap put(String key, Bitmap bitmap) {
+        Bitmap previous = mMemoryCache.put(key, bitmap);
+        addToIndex(key);
+        return previous;
+    }
+
+    public Bitmap remove(String key) {
+        return mMemoryCache.remove(key);
+    }
+
+    /*
+     * evicts the memory cache - the disk cache is left alone so evicted network images can be
+     * restored from it
+     */
+    public void evictAll() {
+        mMemoryCache.evictAll();
+        BitmapPool.clear();
+    }
+
+    /*
+     * removes all bitmaps whose url starts with the passed string from the memory cache, and all
+     * bitmaps with exactly that url from the disk cache
+     */
     public void removeSimilar(String keyLike) {
-        Map<String, Bitmap> map = snapshot();
+        String[] keys;
+        synchronized (mKeysByUrl) {
+            HashSet<String> matches = new HashSet<>();
+            for (Map.Entry<String, HashSet<String>> entry
+                    : mKeysByUrl.subMap(keyLike, keyLike + Character.MAX_VALUE).entrySet()) {
+                matches.addAll(entry.getValue());
+            }
+            keys = matches.toArray(new String[matches.size()]);
+        }
+
+        // removed outside the lock since entryRemoved() updates the index
+        for (String key : keys) {
+            mMemoryCache.remove(key);
+        }
 
-        for (String key : map.keySet()) {
-           if (key.contains(keyLike)) {
-               remove(key);
-           }
+        if (mDiskCache != null) {
+            mDiskCache.removeUrl(keyLike);
         }
     }
 
-    @Override
-    protected int sizeOf(String key, Bitmap value) {
-        // The cache size will be measured in kilobytes rather than
-        // number of items.
-        int bytes = (value.getRowBytes() * value.getHeight());
-        return (bytes / 1024); //value.getByteCount() introduced in HONEYCOMB_MR1 or higher.
+    private static boolean isNetworkUrl(@NonNull String url) {
+        return url.startsWith("http://") || url.startsWith("https://");
     }
 
+    /*
+     * called by Volley's ImageLoader on the main thread. on a memory miss small images (avatars,
+     * thumbnails) are decoded from the disk cache right away so ImageLoader doesn't request them
+     * from the network. larger images are read in the background so they're in memory for the next
+     * lookup, and ImageLoader requests them from the network in the meantime
+     */
     @Override
-    public Bitmap getBitmap(String key) {
-        return this.get(key);
+    public Bitmap getBitmap(final String key) {
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap == null && mDiskCache != null) {
+            String url = getUrlFromKey(key);
+            if (isNetworkUrl(url)) {
+                bitmap = mDiskCache.getIfSmall(url, key);
+                if (bitmap != null) {
+                    put(key, bitmap);
+                    return bitmap;
+                }
+                mDiskCache.getAsync(url, key, new DiskBitmapCache.Callback() {
+                    @Override
+                    public void onBitmapLoaded(@NonNull Bitmap diskBitmap) {
+                        if (mMemoryCache.get(key) == null) {
+                            put(key, diskBitmap);
+                        }
+                    }
+                });
+            }
+        }
+        return bitmap;
     }
 
+    /*
+     * only network images are written to the disk cache - local images (such as the ones shown in
+     * the editor) can be decoded again from their files
+     */
     @Override
     public void putBitmap(String key, Bitmap bitmap) {
-        this.put(key, bitmap);
+        put(key, bitmap);
+        String url = getUrlFromKey(key);
+        if (mDiskCache != null && isNetworkUrl(url)) {
+            mDiskCache.putAsync(url, key, bitmap);
+        }
     }
-}
\ No newline at end of file
+}
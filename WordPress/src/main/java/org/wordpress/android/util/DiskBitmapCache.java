@@ -0,0 +1,302 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Disk tier behind BitmapLruCache which stores encoded copies of network images so they can be shown
+ * again after the memory cache has been evicted (such as after a trim-memory event) without going back
+ * to the network. Files are evicted least-recently-used first once the cache exceeds its size budget.
+ *
+ * File names are md5(url)-md5(cacheKey), so entries for a url can be found with a prefix lookup.
+ * Writes happen on a single background thread. Small files (avatars, thumbnails) can be read on the
+ * thread which asks for them since they decode quickly, larger ones are read on the background thread.
+ */
+public class DiskBitmapCache {
+    // images larger than this (in either dimension) aren't stored since they'd be slow to decode
+    private static final int MAX_DIMENSION = 1024;
+    private static final int JPEG_QUALITY = 85;
+    // files up to this size are cheap enough to decode on the thread which asks for them
+    static final long MAX_SYNC_READ_BYTES = 32 * 1024;
+
+    private final File mCacheDir;
+    private final long mMaxBytes;
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    // file name > file size, in access order so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Long> mFileSizes = new LinkedHashMap<>(64, 0.75f, true);
+    // same file names sorted so entries for a url can be found by prefix
+    private final TreeMap<String, Long> mSortedFileNames = new TreeMap<>();
+    // file names which are being read by getAsync()
+    private final HashSet<String> mPendingReads = new HashSet<>();
+    private long mTotalBytes;
+    private boolean mIsIndexLoaded;
+
+    public interface Callback {
+        void onBitmapLoaded(@NonNull Bitmap bitmap);
+    }
+
+    public DiskBitmapCache(@NonNull File cacheDir, long maxBytes) {
+        mCacheDir = cacheDir;
+        mMaxBytes = maxBytes;
+        // the index is loaded in the background, until then the cache behaves as if it's empty
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                loadIndex();
+            }
+        });
+    }
+
+    private static String getUrlPrefix(@NonNull String url) {
+        return StringUtils.getMd5Hash(url) + "-";
+    }
+
+    private static String getFileName(@NonNull String url, @NonNull String cacheKey) {
+        return getUrlPrefix(url) + StringUtils.getMd5Hash(cacheKey);
+    }
+
+    private void loadIndex() {
+        if (!mCacheDir.exists() && !mCacheDir.mkdirs()) {
+            AppLog.w(T.UTILS, "DiskBitmapCache > Can't create cache dir");
+            return;
+        }
+
+        File[] files = mCacheDir.listFiles();
+        if (files != null) {
+            // oldest first so the eldest entry in the access-ordered map is the least recently used
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File file1, File file2) {
+                    long diff = file1.lastModified() - file2.lastModified();
+                    return diff < 0 ? -1 : (diff == 0 ? 0 : 1);
+                }
+            });
+        }
+
+        synchronized (this) {
+            if (files != null) {
+                for (File file : files) {
+                    addToIndex(file.getName(), file.length());
+                }
+            }
+            mIsIndexLoaded = true;
+            trimToSize();
+        }
+        AppLog.d(T.UTILS, "DiskBitmapCache > Loaded " + mFileSizes.size() + " entries, " + mTotalBytes + " bytes");
+    }
+
+    private void addToIndex(@NonNull String fileName, long size) {
+        Long previous = mFileSizes.put(fileName, size);
+        if (previous != null) {
+            mTotalBytes -= previous;
+        }
+        mSortedFileNames.put(fileName, size);
+        mTotalBytes += size;
+    }
+
+    private void removeFromIndex(@NonNull String fileName) {
+        Long size = mFileSizes.remove(fileName);
+        mSortedFileNames.remove(fileName);
+        if (size != null) {
+            mTotalBytes -= size;
+        }
+    }
+
+    /*
+     * returns the stored bitmap for the passed url/key if its file is small enough to decode right away,
+     * otherwise returns null - use getAsync() for larger files
+     */
+    public Bitmap getIfSmall(@NonNull String url, @NonNull String cacheKey) {
+        String fileName = getFileName(url, cacheKey);
+        synchronized (this) {
+            Long size = mIsIndexLoaded ? mFileSizes.get(fileName) : null;
+            if (size == null || size > MAX_SYNC_READ_BYTES) {
+                return null;
+            }
+        }
+        return read(fileName);
+    }
+
+    /*
+     * reads the stored bitmap for the passed url/key in the background and passes it to the callback
+     * on the background thread - returns false without reading anything if there's no stored bitmap
+     * or it's already being read
+     */
+    public boolean getAsync(@NonNull String url, @NonNull String cacheKey, @NonNull final Callback callback) {
+        final String fileName = getFileName(url, cacheKey);
+        synchronized (this) {
+            if (!mIsIndexLoaded || mFileSizes.get(fileName) == null || !mPendingReads.add(fileName)) {
+                return false;
+            }
+        }
+
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap bitmap;
+                try {
+                    bitmap = read(fileName);
+                } finally {
+                    synchronized (DiskBitmapCache.this) {
+                        mPendingReads.remove(fileName);
+                    }
+                }
+                if (bitmap != null) {
+                    callback.onBitmapLoaded(bitmap);
+                }
+            }
+        });
+        return true;
+    }
+
+    private Bitmap read(@NonNull String fileName) {
+        File file = new File(mCacheDir, fileName);
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+        if (bitmap == null) {
+            synchronized (this) {
+                removeFromIndex(fileName);
+            }
+            if (!file.delete()) {
+                AppLog.w(T.UTILS, "DiskBitmapCache > Can't delete unreadable file " + fileName);
+            }
+        } else {
+            // touch the file so the access order survives a restart
+            file.setLastModified(System.currentTimeMillis());
+        }
+        return bitmap;
+    }
+
+    /*
+     * encodes and stores the passed bitmap in the background
+     */
+    public void putAsync(@NonNull final String url, @NonNull final String cacheKey, @NonNull final Bitmap bitmap) {
+        if (bitmap.getWidth() > MAX_DIMENSION || bitmap.getHeight() > MAX_DIMENSION) {
+            return;
+        }
+        final String fileName = getFileName(url, cacheKey);
+        synchronized (this) {
+            if (mFileSizes.containsKey(fileName)) {
+                return;
+            }
+        }
+
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (bitmap.isRecycled()) {
+                    return;
+                }
+                File file = new File(mCacheDir, fileName);
+                if (writeBitmap(file, bitmap)) {
+                    synchronized (DiskBitmapCache.this) {
+                        addToIndex(fileName, file.length());
+                        trimToSize();
+                    }
+                }
+            }
+        });
+    }
+
+    private boolean writeBitmap(@NonNull File file, @NonNull Bitmap bitmap) {
+        Bitmap.CompressFormat format = bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(file));
+            return bitmap.compress(format, JPEG_QUALITY, out);
+        } catch (IOException e) {
+            AppLog.w(T.UTILS, "DiskBitmapCache > Can't write " + file.getName() + ": " + e.getMessage());
+            return false;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // nop
+                }
+            }
+        }
+    }
+
+    /*
+     * removes all entries for the passed url
+     */
+    public void removeUrl(@NonNull String url) {
+        String prefix = getUrlPrefix(url);
+        final String[] fileNames;
+        synchronized (this) {
+            Map<String, Long> matches = mSortedFileNames.subMap(prefix, prefix + Character.MAX_VALUE);
+            fileNames = matches.keySet().toArray(new String[matches.size()]);
+            for (String fileName : fileNames) {
+                removeFromIndex(fileName);
+            }
+        }
+        if (fileNames.length > 0) {
+            deleteFilesAsync(fileNames);
+        }
+    }
+
+    private void trimToSize() {
+        if (mTotalBytes <= mMaxBytes) {
+            return;
+        }
+        int numRemoved = 0;
+        String[] fileNames = new String[mFileSizes.size()];
+        Iterator<Map.Entry<String, Long>> iterator = mFileSizes.entrySet().iterator();
+        while (mTotalBytes > mMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            fileNames[numRemoved++] = entry.getKey();
+            mTotalBytes -= entry.getValue();
+            mSortedFileNames.remove(entry.getKey());
+            iterator.remove();
+        }
+        deleteFilesAsync(Arrays.copyOf(fileNames, numRemoved));
+    }
+
+    /*
+     * blocks until everything submitted to the background thread so far has run
+     */
+    @VisibleForTesting
+    void waitForPendingWork() throws InterruptedException, ExecutionException {
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                // nop
+            }
+        }).get();
+    }
+
+    private void deleteFilesAsync(@NonNull final String[] fileNames) {
+        mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                for (String fileName : fileNames) {
+                    File file = new File(mCacheDir, fileName);
+                    if (file.exists() && !file.delete()) {
+                        AppLog.w(T.UTILS, "DiskBitmapCache > Can't delete " + fileName);
+                    }
+                }
+            }
+        });
+    }
+}
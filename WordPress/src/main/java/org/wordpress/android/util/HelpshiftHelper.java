@@ -34,6 +34,7 @@ public class HelpshiftHelper {
     private static String HELPSHIFT_SCREEN_KEY = "helpshift_screen";
     private static String HELPSHIFT_ORIGIN_KEY = "origin";
     private static HelpshiftHelper mInstance = null;
+    private static boolean sIsInitialized;
     private static HashMap<String, Object> mMetadata = new HashMap<String, Object>();
 
     public static final String ENTERED_URL_KEY = "ENTERED_URL_KEY";
@@ -104,7 +105,15 @@ public class HelpshiftHelper {
         return mInstance;
     }
 
-    public static void init(Application application) {
+    /*
+     * installs Helpshift - called once the main thread is idle after startup, and before anything which
+     * needs Helpshift to be installed in case that happens first
+     */
+    public static synchronized void init(Application application) {
+        if (sIsInitialized) {
+            return;
+        }
+        sIsInitialized = true;
         InstallConfig installConfig = new InstallConfig.Builder()
                 .setEnableInAppNotification(true)
                 .setEnableDefaultFallbackLanguage(true)
@@ -193,6 +202,7 @@ public class HelpshiftHelper {
         }
         extraTags = ArrayUtils.add(extraTags, origin);
         addTags(extraTags);
+        init(activity.getApplication());
         HashMap config = getHelpshiftConfig(activity, siteStore, wpComUsername);
         Support.showConversation(activity, config);
     }
@@ -218,10 +228,24 @@ public class HelpshiftHelper {
         }
         extraTags = ArrayUtils.add(extraTags, origin);
         addTags(extraTags);
+        init(activity.getApplication());
         HashMap config = getHelpshiftConfig(activity, siteStore, wpComUsername);
         Support.showFAQs(activity, config);
     }
 
+    /**
+     * Show a single FAQ, or a FAQ section if no FAQ id is passed
+     * Helpshift is installed first, since this can be reached before it's installed once the app is idle.
+     */
+    public void showFAQPage(Activity activity, String faqId, String sectionId) {
+        init(activity.getApplication());
+        if (faqId != null) {
+            Support.showSingleFAQ(activity, faqId);
+        } else if (sectionId != null) {
+            Support.showFAQSection(activity, sectionId);
+        }
+    }
+
     /**
      * Register a GCM device token to Helpshift servers
      *
@@ -229,6 +253,7 @@ public class HelpshiftHelper {
      */
     public void registerDeviceToken(Context context, String regId) {
         if (!TextUtils.isEmpty(regId)) {
+            init((Application) context.getApplicationContext());
             Core.registerDeviceToken(context, regId);
         }
     }
@@ -277,6 +302,7 @@ public class HelpshiftHelper {
      * Handle push notification
      */
     public void handlePush(Context context, Intent intent) {
+        init((Application) context.getApplicationContext());
         Core.handlePush(context, intent);
     }
 
@@ -0,0 +1,228 @@
+package org.wordpress.android.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the tasks which initialize the app when it starts, in the order their declared dependencies
+ * allow. Each task runs in one of three stages:
+ *
+ *  BLOCKING   - on the main thread before start() returns, for anything the first screen needs
+ *  BACKGROUND - one at a time on a background thread once the blocking tasks are done
+ *  IDLE       - on the main thread when it's idle, one task per idle pass, so they don't delay the
+ *               first frame
+ *
+ * A task can only depend on tasks which were added before it, so the tasks can't form a cycle.
+ * Blocking tasks can only depend on other blocking tasks, and background tasks can't depend on
+ * idle tasks. The duration of every task is recorded to the passed trace, which is saved once all
+ * the tasks have run.
+ */
+public class StartupOrchestrator {
+    public enum Stage {
+        BLOCKING,
+        BACKGROUND,
+        IDLE
+    }
+
+    private static class Task {
+        private final String mName;
+        private final Stage mStage;
+        private final Runnable mRunnable;
+        private final String[] mDependencies;
+
+        Task(String name, Stage stage, Runnable runnable, String[] dependencies) {
+            mName = name;
+            mStage = stage;
+            mRunnable = runnable;
+            mDependencies = dependencies;
+        }
+    }
+
+    private final StartupTrace mTrace;
+    private final LinkedHashMap<String, Task> mTasks = new LinkedHashMap<>();
+    private final List<Task> mIdleTasks = new ArrayList<>();
+    private final Set<String> mCompletedTasks = new HashSet<>();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private ExecutorService mExecutor;
+    private boolean mIsStarted;
+
+    public StartupOrchestrator(@NonNull StartupTrace trace) {
+        mTrace = trace;
+    }
+
+    /*
+     * adds a task which runs once the named tasks have completed - throws IllegalArgumentException if
+     * a dependency hasn't been added yet or runs in a stage this task can't wait for
+     */
+    public StartupOrchestrator add(@NonNull String name, @NonNull Stage stage, @NonNull Runnable runnable,
+                                   String... dependencies) {
+        if (mIsStarted) {
+            throw new IllegalStateException("Startup tasks can't be added after start()");
+        }
+        if (mTasks.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup task " + name);
+        }
+        for (String dependency : dependencies) {
+            Task dependencyTask = mTasks.get(dependency);
+            if (dependencyTask == null) {
+                throw new IllegalArgumentException("Startup task " + name + " depends on " + dependency
+                        + ", which must be added first");
+            }
+            if (!canDependOn(stage, dependencyTask.mStage)) {
+                throw new IllegalArgumentException("Startup task " + name + " (" + stage + ") can't depend on "
+                        + dependency + " (" + dependencyTask.mStage + ")");
+            }
+        }
+        mTasks.put(name, new Task(name, stage, runnable, dependencies));
+        return this;
+    }
+
+    private static boolean canDependOn(Stage stage, Stage dependencyStage) {
+        switch (stage) {
+            case BLOCKING:
+                return dependencyStage == Stage.BLOCKING;
+            case BACKGROUND:
+                return dependencyStage != Stage.IDLE;
+            default:
+                return true;
+        }
+    }
+
+    /*
+     * runs the blocking tasks before returning and schedules the rest - must be called on the main thread
+     */
+    public void start() {
+        if (mIsStarted) {
+            throw new IllegalStateException("Startup has already started");
+        }
+        mIsStarted = true;
+
+        List<Task> backgroundTasks = new ArrayList<>();
+        for (Task task : mTasks.values()) {
+            switch (task.mStage) {
+                case BLOCKING:
+                    runTask(task);
+                    ProfilingUtils.split(task.mName);
+                    break;
+                case BACKGROUND:
+                    backgroundTasks.add(task);
+                    break;
+                case IDLE:
+                    mIdleTasks.add(task);
+                    break;
+            }
+        }
+        mTrace.endBlockingStage();
+
+        // tasks added in order already satisfy their dependencies on earlier tasks in the same stage,
+        // so background tasks only need to run one at a time in order
+        mExecutor = Executors.newSingleThreadExecutor();
+        for (final Task task : backgroundTasks) {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runTask(task);
+                    // wake the main thread in case an idle task was waiting for this one
+                    mMainHandler.post(mNoOpRunnable);
+                }
+            });
+        }
+
+        if (!mIdleTasks.isEmpty()) {
+            Looper.myQueue().addIdleHandler(mIdleHandler);
+        }
+        onTaskCompleted();
+    }
+
+    private final Runnable mNoOpRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // nothing to do
+        }
+    };
+
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            Task task = takeReadyIdleTask();
+            if (task != null) {
+                runTask(task);
+            }
+            // stay registered until every idle task has run
+            return !mIdleTasks.isEmpty();
+        }
+    };
+
+    /*
+     * removes and returns the first idle task whose dependencies have completed, or null if none are
+     * ready - idle tasks are only waiting for background tasks, since blocking ones are done
+     */
+    private Task takeReadyIdleTask() {
+        Iterator<Task> iterator = mIdleTasks.iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            if (areDependenciesCompleted(task)) {
+                iterator.remove();
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private synchronized boolean areDependenciesCompleted(@NonNull Task task) {
+        for (String dependency : task.mDependencies) {
+            if (!mCompletedTasks.contains(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void runTask(@NonNull Task task) {
+        long startTime = mTrace.now();
+        try {
+            task.mRunnable.run();
+        } finally {
+            mTrace.addTask(task.mName, task.mStage, startTime, mTrace.now() - startTime);
+            synchronized (this) {
+                mCompletedTasks.add(task.mName);
+            }
+            onTaskCompleted();
+        }
+    }
+
+    /*
+     * saves the trace on the background thread once every task has run
+     */
+    private void onTaskCompleted() {
+        synchronized (this) {
+            if (!mIsStarted || mExecutor == null || mCompletedTasks.size() < mTasks.size()) {
+                return;
+            }
+            if (mExecutor.isShutdown()) {
+                return;
+            }
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mTrace.save();
+                }
+            });
+            mExecutor.shutdown();
+        }
+        AppLog.i(T.UTILS, "Startup tasks completed");
+    }
+}
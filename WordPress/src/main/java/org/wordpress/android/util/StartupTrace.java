@@ -0,0 +1,222 @@
+package org.wordpress.android.util;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.StartupOrchestrator.Stage;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records how long each startup task took, along with milestones such as the first activity being
+ * resumed, and appends them to a log which keeps the most recent launches. Each launch is a line of
+ * JSON which includes the app version, so startup can be compared across releases:
+ *
+ *  {"time":..., "version":"8.1", "version_code":123, "sdk":25, "blocking_ms":180,
+ *   "tasks":[{"name":"dagger", "stage":"blocking", "start_ms":3, "duration_ms":42}, ...],
+ *   "milestones":{"first_activity_resumed":410}}
+ *
+ * Times are milliseconds since the trace was created, which is the start of Application.onCreate.
+ */
+public class StartupTrace {
+    private static final int MAX_LAUNCHES = 100;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static class TaskTrace {
+        private final String mName;
+        private final Stage mStage;
+        private final long mStartMs;
+        private final long mDurationMs;
+
+        TaskTrace(String name, Stage stage, long startMs, long durationMs) {
+            mName = name;
+            mStage = stage;
+            mStartMs = startMs;
+            mDurationMs = durationMs;
+        }
+    }
+
+    private final File mFile;
+    private final String mVersionName;
+    private final int mVersionCode;
+    private final long mStartTime = SystemClock.elapsedRealtime();
+    private final List<TaskTrace> mTasks = new ArrayList<>();
+    private final Map<String, Long> mMilestones = new LinkedHashMap<>();
+    private long mBlockingMs = -1;
+    private boolean mIsSaved;
+
+    public StartupTrace(@NonNull File file, String versionName, int versionCode) {
+        mFile = file;
+        mVersionName = versionName;
+        mVersionCode = versionCode;
+    }
+
+    /*
+     * milliseconds since the trace was created
+     */
+    public long now() {
+        return SystemClock.elapsedRealtime() - mStartTime;
+    }
+
+    synchronized void addTask(@NonNull String name, @NonNull Stage stage, long startMs, long durationMs) {
+        mTasks.add(new TaskTrace(name, stage, startMs, durationMs));
+    }
+
+    synchronized void endBlockingStage() {
+        mBlockingMs = now();
+    }
+
+    /*
+     * records the first time the named milestone is reached - milestones reached after the trace
+     * is saved aren't recorded
+     */
+    public synchronized void addMilestone(@NonNull String name) {
+        if (!mIsSaved && !mMilestones.containsKey(name)) {
+            mMilestones.put(name, now());
+        }
+    }
+
+    /*
+     * appends this launch to the trace log and removes the oldest launches - must not be called on the
+     * main thread
+     */
+    void save() {
+        String json;
+        synchronized (this) {
+            if (mIsSaved) {
+                return;
+            }
+            mIsSaved = true;
+            json = toJson().toString();
+            dumpToLog();
+        }
+
+        List<String> lines = readLines(mFile);
+        lines.add(json);
+        if (lines.size() > MAX_LAUNCHES) {
+            lines = lines.subList(lines.size() - MAX_LAUNCHES, lines.size());
+        }
+        writeLines(mFile, lines);
+    }
+
+    private JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("time", System.currentTimeMillis());
+            json.put("version", mVersionName);
+            json.put("version_code", mVersionCode);
+            json.put("sdk", Build.VERSION.SDK_INT);
+            json.put("blocking_ms", mBlockingMs);
+
+            JSONArray jsonTasks = new JSONArray();
+            for (TaskTrace task : mTasks) {
+                JSONObject jsonTask = new JSONObject();
+                jsonTask.put("name", task.mName);
+                jsonTask.put("stage", task.mStage.name().toLowerCase(Locale.US));
+                jsonTask.put("start_ms", task.mStartMs);
+                jsonTask.put("duration_ms", task.mDurationMs);
+                jsonTasks.put(jsonTask);
+            }
+            json.put("tasks", jsonTasks);
+
+            JSONObject jsonMilestones = new JSONObject();
+            for (Map.Entry<String, Long> milestone : mMilestones.entrySet()) {
+                jsonMilestones.put(milestone.getKey(), milestone.getValue());
+            }
+            json.put("milestones", jsonMilestones);
+        } catch (JSONException e) {
+            AppLog.e(T.UTILS, e);
+        }
+        return json;
+    }
+
+    private void dumpToLog() {
+        AppLog.d(T.PROFILING, "Startup: " + mBlockingMs + " ms blocking");
+        for (TaskTrace task : mTasks) {
+            AppLog.d(T.PROFILING, "Startup:      " + task.mDurationMs + " ms, " + task.mName + " ("
+                    + task.mStage.name().toLowerCase(Locale.US) + ")");
+        }
+        for (Map.Entry<String, Long> milestone : mMilestones.entrySet()) {
+            AppLog.d(T.PROFILING, "Startup: " + milestone.getKey() + " at " + milestone.getValue() + " ms");
+        }
+    }
+
+    /*
+     * returns the launches in the passed trace log, oldest first, as lines of JSON
+     */
+    public static List<String> readLines(@NonNull File file) {
+        List<String> lines = new ArrayList<>();
+        if (!file.exists()) {
+            return lines;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() > 0) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            AppLog.w(T.UTILS, "Unable to read startup trace: " + e.getMessage());
+        } finally {
+            closeQuietly(reader);
+        }
+        return lines;
+    }
+
+    /*
+     * writes to a temporary file which then replaces the log, so a launch that's killed while saving
+     * doesn't truncate it
+     */
+    private static void writeLines(@NonNull File file, @NonNull List<String> lines) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(tempFile), UTF8);
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.close();
+            writer = null;
+            if (!tempFile.renameTo(file)) {
+                AppLog.w(T.UTILS, "Unable to replace startup trace");
+            }
+        } catch (IOException e) {
+            AppLog.w(T.UTILS, "Unable to write startup trace: " + e.getMessage());
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
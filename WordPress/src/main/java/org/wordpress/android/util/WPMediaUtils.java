@@ -10,6 +10,7 @@ import android.media.MediaScannerConnection;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -25,12 +26,15 @@ import org.wordpress.android.fluxc.model.MediaModel;
 import org.wordpress.android.fluxc.model.SiteModel;
 import org.wordpress.android.ui.RequestCodes;
 import org.wordpress.android.ui.prefs.AppPrefs;
+import org.wordpress.android.ui.uploads.MediaOptimizationStage;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.widgets.WPNetworkImageView;
 import org.wordpress.passcodelock.AppLockManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class WPMediaUtils {
 
@@ -59,12 +63,15 @@ public class WPMediaUtils {
             return null;
         }
 
-        String optimizedPath = ImageUtils.optimizeImage(activity, path, resizeDimension, quality);
+        long startTime = SystemClock.elapsedRealtime();
+        String optimizedPath = MediaOptimizationStage.optimizeImage(activity, path, resizeDimension, quality);
         if (optimizedPath == null) {
             AppLog.e(AppLog.T.EDITOR, "Optimized picture was null!");
             AnalyticsTracker.track(AnalyticsTracker.Stat.MEDIA_PHOTO_OPTIMIZE_ERROR);
         } else {
-            AnalyticsTracker.track(AnalyticsTracker.Stat.MEDIA_PHOTO_OPTIMIZED);
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("elapsed_time_ms", SystemClock.elapsedRealtime() - startTime);
+            AnalyticsTracker.track(AnalyticsTracker.Stat.MEDIA_PHOTO_OPTIMIZED, properties);
             return Uri.parse(optimizedPath);
         }
         return null;
@@ -75,7 +82,7 @@ public class WPMediaUtils {
             return null;
         }
 
-        String rotatedPath = ImageUtils.rotateImageIfNecessary(activity, path);
+        String rotatedPath = MediaOptimizationStage.rotateImageIfNecessary(activity, path);
         if (rotatedPath != null) {
             return Uri.parse(rotatedPath);
         }
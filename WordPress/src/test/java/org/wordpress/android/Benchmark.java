@@ -0,0 +1,77 @@
+package org.wordpress.android;
+
+import org.junit.Assume;
+import org.robolectric.shadows.ShadowLog;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Harness for the manual benchmarks in the unit tests. A benchmark is skipped unless the tests are
+ * run with the benchmarks property, and its results are logged through AppLog with the PROFILING tag:
+ *
+ *  ./gradlew :WordPress:testVanillaDebugUnitTest -Pbenchmarks
+ *
+ * Each measurement reports the average time per run and, where the JVM can count them, the bytes
+ * allocated per run on the calling thread.
+ */
+public class Benchmark {
+    private static final String ENABLED_PROPERTY = "benchmarks";
+
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private final String mName;
+
+    private Benchmark(String name) {
+        mName = name;
+    }
+
+    /*
+     * returns a benchmark with the passed name - skips the calling test unless benchmarks are enabled
+     */
+    public static Benchmark begin(String name) {
+        Assume.assumeTrue("benchmarks only run with -P" + ENABLED_PROPERTY, Boolean.getBoolean(ENABLED_PROPERTY));
+        if (ShadowLog.stream == null) {
+            ShadowLog.stream = System.out;
+        }
+        return new Benchmark(name);
+    }
+
+    /*
+     * runs the passed task the passed number of times and logs the average cost of a run
+     */
+    public void measure(String label, int numRuns, Task task) throws Exception {
+        long startBytes = getAllocatedBytes();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < numRuns; i++) {
+            task.run();
+        }
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = getAllocatedBytes() - startBytes;
+
+        String result = String.format(Locale.US, "%s - %s: %.3f ms/run", mName, label, nanos / 1000000d / numRuns);
+        if (startBytes >= 0) {
+            result += String.format(Locale.US, ", %d KB allocated/run", bytes / 1024 / numRuns);
+        }
+        AppLog.i(T.PROFILING, result);
+    }
+
+    /*
+     * bytes allocated so far by the calling thread, or -1 if the JVM doesn't count them
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
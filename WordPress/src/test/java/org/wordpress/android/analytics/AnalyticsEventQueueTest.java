@@ -0,0 +1,339 @@
+package org.wordpress.android.analytics;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.analytics.AnalyticsEventQueue.QueuedEvent;
+import org.wordpress.android.analytics.AnalyticsTracker.Stat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class AnalyticsEventQueueTest {
+    private static final String USER = "user";
+    private static final String USER_TYPE = "ANON";
+
+    @Rule public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mJournalFile;
+    private ManualExecutor mExecutor;
+    private RecordingHandler mHandler;
+
+    @Before
+    public void setUp() {
+        mJournalFile = new File(mFolder.getRoot(), "journal");
+        mExecutor = new ManualExecutor();
+        mHandler = new RecordingHandler();
+    }
+
+    @Test
+    public void testEventIsPassedOnRightAway() {
+        AnalyticsEventQueue queue = createQueue(mHandler);
+        long before = System.currentTimeMillis();
+        queue.add("event", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+
+        assertEquals(Collections.singletonList("event"), mHandler.getSentNames());
+        assertTrue(mHandler.mSent.get(0).mTime >= before);
+        assertNull(mExecutor.mScheduled);
+        assertFalse(mJournalFile.exists());
+    }
+
+    @Test
+    public void testFailedEventsAreJournaledAndRetriedWithBackoff() {
+        AnalyticsEventQueue queue = createQueue(mHandler);
+        mHandler.mNumFailures = 2;
+        queue.add("first", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+        assertEquals(AnalyticsEventQueue.MIN_BACKOFF_MS, mExecutor.mScheduledDelayMs);
+        assertTrue(mJournalFile.exists());
+
+        // events tracked while backing off wait behind the failed one so the order is kept
+        queue.add("second", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+        assertTrue(mHandler.getSentNames().isEmpty());
+
+        mExecutor.runScheduled();
+        assertEquals(AnalyticsEventQueue.MIN_BACKOFF_MS * 2, mExecutor.mScheduledDelayMs);
+        assertTrue(mHandler.getSentNames().isEmpty());
+
+        mExecutor.runScheduled();
+        assertEquals(Arrays.asList("first", "second"), mHandler.getSentNames());
+        assertNull(mExecutor.mScheduled);
+        assertFalse(mJournalFile.exists());
+
+        // a success resets the backoff
+        mHandler.mNumFailures = 1;
+        queue.add("third", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+        assertEquals(AnalyticsEventQueue.MIN_BACKOFF_MS, mExecutor.mScheduledDelayMs);
+    }
+
+    @Test
+    public void testBackoffIsCapped() {
+        AnalyticsEventQueue queue = createQueue(mHandler);
+        mHandler.mNumFailures = Integer.MAX_VALUE;
+        queue.add("event", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+        for (int i = 0; i < 20; i++) {
+            mExecutor.runScheduled();
+        }
+        assertEquals(AnalyticsEventQueue.MAX_BACKOFF_MS, mExecutor.mScheduledDelayMs);
+    }
+
+    @Test
+    public void testJournalIsReplayedWithOriginalTimes() {
+        AnalyticsEventQueue queue = createQueue(mHandler);
+        mHandler.mNumFailures = Integer.MAX_VALUE;
+        queue.add("first", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+        queue.add("second", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+        List<QueuedEvent> attempted = new ArrayList<>(mHandler.mAttempted);
+
+        // the process is killed and the queue is created again
+        RecordingHandler handler = new RecordingHandler();
+        createQueue(handler);
+        assertEquals(Arrays.asList("first", "second"), handler.getSentNames());
+        assertEquals(attempted.get(0).mTime, handler.mSent.get(0).mTime);
+        assertEquals(USER, handler.mSent.get(0).mUser);
+        assertEquals("value", handler.mSent.get(1).mProperties.optString("key"));
+        assertFalse(mJournalFile.exists());
+    }
+
+    @Test
+    public void testFlushIgnoresBackoff() {
+        AnalyticsEventQueue queue = createQueue(mHandler);
+        mHandler.mNumFailures = 1;
+        queue.add("event", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+        assertEquals(0, mHandler.mNumFlushes);
+
+        queue.flush();
+        assertEquals(Collections.singletonList("event"), mHandler.getSentNames());
+        assertEquals(1, mHandler.mNumFlushes);
+        assertNull(mExecutor.mScheduled);
+    }
+
+    @Test
+    public void testActionRunsAfterPendingEvents() {
+        AnalyticsEventQueue queue = createQueue(mHandler);
+        mHandler.mNumFailures = 1;
+        queue.add("event", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+
+        final List<String> sentBeforeAction = new ArrayList<>();
+        queue.runAfterPendingEvents(new Runnable() {
+            @Override
+            public void run() {
+                sentBeforeAction.addAll(mHandler.getSentNames());
+            }
+        });
+        assertEquals(Collections.singletonList("event"), sentBeforeAction);
+    }
+
+    @Test
+    public void testClearDropsEventsWhichCantBePassedOn() {
+        AnalyticsEventQueue queue = createQueue(mHandler);
+        mHandler.mNumFailures = Integer.MAX_VALUE;
+        queue.add("event", Stat.APPLICATION_OPENED, null, USER, USER_TYPE);
+        assertTrue(mJournalFile.exists());
+
+        final boolean[] ranAction = new boolean[1];
+        queue.clear(new Runnable() {
+            @Override
+            public void run() {
+                ranAction[0] = true;
+            }
+        });
+        assertTrue(ranAction[0]);
+        assertFalse(mJournalFile.exists());
+        assertNull(mExecutor.mScheduled);
+
+        mHandler.mNumFailures = 0;
+        queue.flush();
+        assertTrue(mHandler.getSentNames().isEmpty());
+    }
+
+    private AnalyticsEventQueue createQueue(RecordingHandler handler) {
+        return new AnalyticsEventQueue(mJournalFile, handler, mExecutor);
+    }
+
+    private static class RecordingHandler implements AnalyticsEventQueue.EventHandler {
+        private final List<QueuedEvent> mAttempted = new ArrayList<>();
+        private final List<QueuedEvent> mSent = new ArrayList<>();
+        private int mNumFailures;
+        private int mNumFlushes;
+
+        @Override
+        public JSONObject prepareProperties(Stat stat, Map<String, ?> properties) {
+            JSONObject json = new JSONObject();
+            try {
+                json.put("key", "value");
+            } catch (JSONException e) {
+                throw new RuntimeException(e);
+            }
+            return json;
+        }
+
+        @Override
+        public void sendEvent(QueuedEvent event) {
+            mAttempted.add(event);
+            if (mNumFailures > 0) {
+                mNumFailures--;
+                throw new IllegalStateException("unable to send");
+            }
+            mSent.add(event);
+        }
+
+        @Override
+        public void onFlushed() {
+            mNumFlushes++;
+        }
+
+        private List<String> getSentNames() {
+            List<String> names = new ArrayList<>();
+            for (QueuedEvent event : mSent) {
+                names.add(event.mName);
+            }
+            return names;
+        }
+    }
+
+    /*
+     * runs tasks on the calling thread as they're submitted, and holds the one scheduled task the
+     * queue uses for retries until runScheduled() is called
+     */
+    private static class ManualExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+        private ManualFuture mScheduled;
+        private long mScheduledDelayMs;
+
+        void runScheduled() {
+            ManualFuture scheduled = mScheduled;
+            mScheduled = null;
+            if (scheduled != null && !scheduled.isCancelled()) {
+                scheduled.mDone = true;
+                scheduled.mTask.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            mScheduled = new ManualFuture(command, this);
+            mScheduledDelayMs = unit.toMillis(delay);
+            return mScheduled;
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+                                                      TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                         TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    private static class ManualFuture implements ScheduledFuture<Object> {
+        private final Runnable mTask;
+        private final ManualExecutor mExecutor;
+        private boolean mCancelled;
+        private boolean mDone;
+
+        ManualFuture(Runnable task, ManualExecutor executor) {
+            mTask = task;
+            mExecutor = executor;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (mDone) {
+                return false;
+            }
+            mCancelled = true;
+            if (mExecutor.mScheduled == this) {
+                mExecutor.mScheduled = null;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return mDone || mCancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return 0;
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return 0;
+        }
+    }
+}
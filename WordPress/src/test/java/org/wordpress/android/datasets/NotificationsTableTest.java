@@ -0,0 +1,208 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.Benchmark;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.fluxc.model.CommentStatus;
+import org.wordpress.android.models.Note;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class NotificationsTableTest {
+    private static final int[] NUM_BENCHMARK_NOTES = {200, 1000, 5000};
+    private static final int NUM_BENCHMARK_LOADS = 20;
+
+    @Before
+    public void setUp() {
+        NotificationsTable.reset();
+    }
+
+    @Test
+    public void testListColumnsMatchNoteJson() throws JSONException {
+        Note note = new Note(createCommentNoteJson(1, 0, true));
+        NotificationsTable.saveNote(note);
+
+        List<Note> notes = NotificationsTable.getLatestNotes();
+        assertEquals(1, notes.size());
+        assertSameListFields(note, notes.get(0));
+    }
+
+    @Test
+    public void testLatestNotesAreNewestFirst() throws JSONException {
+        List<Note> notes = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            notes.add(new Note(createCommentNoteJson(i, i, false)));
+        }
+        NotificationsTable.saveNotes(notes, true);
+
+        List<Note> latestNotes = NotificationsTable.getLatestNotes(3);
+        assertEquals(3, latestNotes.size());
+        assertEquals("5", latestNotes.get(0).getId());
+        assertEquals("4", latestNotes.get(1).getId());
+        assertEquals("3", latestNotes.get(2).getId());
+    }
+
+    @Test
+    public void testListNoteLoadsJsonWhenNeeded() throws JSONException {
+        NotificationsTable.saveNote(new Note(createCommentNoteJson(1, 0, true)));
+
+        Note note = NotificationsTable.getLatestNotes().get(0);
+        note.setRead();
+
+        // the json is loaded on demand, and reflects the note being read before it was loaded
+        assertEquals("Nice post!", note.getJSON().getJSONArray("subject").getJSONObject(1).getString("text"));
+        assertEquals(1, note.getJSON().getInt("read"));
+        assertEquals(11, note.getPostId());
+    }
+
+    @Test
+    public void testMigrationFillsListColumns() throws JSONException {
+        JSONObject noteJson = createCommentNoteJson(1, 0, true);
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        try {
+            db.execSQL("CREATE TABLE tbl_notifications ("
+                    + "id INTEGER PRIMARY KEY DEFAULT 0, note_id TEXT, type TEXT, raw_note_data TEXT,"
+                    + " timestamp INTEGER, UNIQUE (note_id) ON CONFLICT REPLACE)");
+            db.execSQL("INSERT INTO tbl_notifications (note_id, type, raw_note_data, timestamp) VALUES (?,?,?,?)",
+                    new Object[]{"1", "comment", noteJson.toString(), 0});
+
+            NotificationsTable.migrateToListColumns(db);
+
+            Cursor cursor = db.rawQuery("SELECT unread, comment_subject, comment_id, is_comment_type, comment_status"
+                    + " FROM tbl_notifications WHERE note_id='1'", null);
+            try {
+                assertTrue(cursor.moveToFirst());
+                assertEquals(1, cursor.getInt(0));
+                assertEquals("Nice post!", cursor.getString(1));
+                assertEquals(21, cursor.getLong(2));
+                assertEquals(1, cursor.getInt(3));
+                assertEquals(CommentStatus.UNAPPROVED.toString(), cursor.getString(4));
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void benchmarkGetLatestNotes() throws Exception {
+        for (int numNotes : NUM_BENCHMARK_NOTES) {
+            NotificationsTable.reset();
+            List<Note> notes = new ArrayList<>();
+            for (int i = 1; i <= numNotes; i++) {
+                notes.add(new Note(createCommentNoteJson(i, i, i % 2 == 0)));
+            }
+            NotificationsTable.saveNotes(notes, true);
+
+            // the list loads at most NOTES_TO_RETRIEVE notes, so every note is loaded here to see how
+            // loading scales with larger lists
+            final int limit = numNotes;
+            Benchmark benchmark = Benchmark.begin("Loading " + numNotes + " notes");
+            benchmark.measure("list columns", NUM_BENCHMARK_LOADS, new Benchmark.Task() {
+                @Override
+                public void run() {
+                    NotificationsTable.getLatestNotes(limit);
+                }
+            });
+            // how the list used to load, parsing every note's json
+            benchmark.measure("with json", NUM_BENCHMARK_LOADS, new Benchmark.Task() {
+                @Override
+                public void run() {
+                    for (Note note : NotificationsTable.getLatestNotes(limit)) {
+                        new Note(note.getId(), NotificationsTable.getNoteJSONById(note.getId()));
+                    }
+                }
+            });
+        }
+    }
+
+    private static void assertSameListFields(Note expected, Note actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.isUnread(), actual.isUnread());
+        assertEquals(expected.getSubject().toString(), actual.getSubject().toString());
+        assertEquals(expected.getCommentSubjectNoticon(), actual.getCommentSubjectNoticon());
+        assertEquals(expected.getCommentSubject(), actual.getCommentSubject());
+        assertEquals(expected.getIconURL(), actual.getIconURL());
+        assertEquals(expected.getNoticonCharacter(), actual.getNoticonCharacter());
+        assertEquals(expected.getCommentId(), actual.getCommentId());
+        assertEquals(expected.getParentCommentId(), actual.getParentCommentId());
+        assertEquals(expected.isCommentType(), actual.isCommentType());
+        assertEquals(expected.getCommentStatus(), actual.getCommentStatus());
+        assertFalse(actual.getCommentSubject().isEmpty());
+    }
+
+    /*
+     * returns the json for an unapproved comment note as the notifications endpoint would
+     */
+    private static JSONObject createCommentNoteJson(int noteId, int minutes, boolean isUnread) throws JSONException {
+        long commentId = noteId + 20;
+
+        JSONObject ids = new JSONObject();
+        ids.put("site", 10);
+        ids.put("post", 11);
+        ids.put("comment", commentId);
+        ids.put("parent_comment", 0);
+        JSONObject meta = new JSONObject();
+        meta.put("ids", ids);
+
+        JSONObject noticonRange = new JSONObject();
+        noticonRange.put("type", "noticon");
+        noticonRange.put("value", "\uf300");
+        JSONArray ranges = new JSONArray();
+        ranges.put(noticonRange);
+
+        JSONObject subject = new JSONObject();
+        subject.put("text", "Someone commented on My Post");
+        subject.put("ranges", ranges);
+        JSONObject commentSubject = new JSONObject();
+        commentSubject.put("text", "Nice post!");
+        JSONArray subjects = new JSONArray();
+        subjects.put(subject);
+        subjects.put(commentSubject);
+
+        JSONObject actions = new JSONObject();
+        actions.put("replyto-comment", true);
+        actions.put("approve-comment", false);
+        JSONObject comment = new JSONObject();
+        comment.put("type", "comment");
+        comment.put("meta", meta);
+        comment.put("actions", actions);
+        JSONArray body = new JSONArray();
+        body.put(comment);
+
+        JSONObject note = new JSONObject();
+        note.put("id", Integer.toString(noteId));
+        note.put("type", "comment");
+        note.put("read", isUnread ? 0 : 1);
+        note.put("timestamp", String.format(Locale.US, "2017-01-%02dT%02d:%02d:00+00:00",
+                1 + minutes / 1440, minutes / 60 % 24, minutes % 60));
+        note.put("icon", "https://example.com/avatar.png");
+        note.put("noticon", "\uf467");
+        note.put("subject", subjects);
+        note.put("meta", meta);
+        note.put("body", body);
+        return note;
+    }
+}
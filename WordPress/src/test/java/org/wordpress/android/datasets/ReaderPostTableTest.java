@@ -0,0 +1,283 @@
+package org.wordpress.android.datasets;
+
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.datasets.ReaderPostTable.PageKeys;
+import org.wordpress.android.datasets.ReaderPostTable.SeekKey;
+import org.wordpress.android.models.ReaderPost;
+import org.wordpress.android.models.ReaderPostList;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.models.ReaderTagType;
+import org.wordpress.android.ui.reader.ReaderConstants;
+import org.wordpress.android.ui.reader.actions.ReaderActions;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderPostTableTest {
+    private static final long BLOG_ID = 1;
+
+    private final ReaderTag mTag = new ReaderTag("cooking", "cooking", "Cooking",
+            "https://public-api.wordpress.com/rest/v1.2/read/tags/cooking/posts", ReaderTagType.FOLLOWED);
+    private final ReaderTag mSearchTag = new ReaderTag("cooking", "cooking", "cooking", null, ReaderTagType.SEARCH);
+
+    @Before
+    public void setUp() {
+        // the database singleton would otherwise outlive the application it was opened with
+        ReflectionHelpers.setStaticField(ReaderDatabase.class, "mReaderDb", null);
+        ReaderDatabase.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ReaderDatabase.getDatabase().close();
+        ReflectionHelpers.setStaticField(ReaderDatabase.class, "mReaderDb", null);
+    }
+
+    @Test
+    public void testPagesCoverEveryPostOnce() throws JSONException {
+        ReaderPostList posts = new ReaderPostList();
+        for (long postId = 1; postId <= 45; postId++) {
+            posts.add(createPost(postId, 0, false));
+        }
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+
+        PageKeys pageKeys = ReaderPostTable.getPageKeysWithTag(mTag, 20);
+        assertEquals(45, pageKeys.getNumPosts());
+        assertEquals(3, pageKeys.getSeekKeys().size());
+        assertEquals(45, countPostsInPages(mTag, pageKeys, 20));
+    }
+
+    @Test
+    public void testSearchScoresAreComparedExactly() throws JSONException {
+        // these scores only differ beyond the 15 significant digits SQLite uses when it converts a
+        // REAL to text, so seeking on the text form of a score would skip or repeat posts
+        ReaderPostList posts = new ReaderPostList();
+        double score = 1.0;
+        for (long postId = 1; postId <= 6; postId++) {
+            posts.add(createPost(postId, score, false));
+            score = Math.nextUp(score);
+        }
+        ReaderPostTable.addOrUpdatePosts(mSearchTag, posts);
+
+        PageKeys pageKeys = ReaderPostTable.getPageKeysWithTag(mSearchTag, 2);
+        assertEquals(6, pageKeys.getNumPosts());
+        assertEquals(6, countPostsInPages(mSearchTag, pageKeys, 2));
+    }
+
+    @Test
+    public void testPageKeysHaveStableIdsAndTypes() throws JSONException {
+        ReaderPostList posts = new ReaderPostList();
+        posts.add(createPost(1, 0, false));
+        posts.add(createPost(2, 0, true));
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+
+        PageKeys pageKeys = ReaderPostTable.getPageKeysWithTag(mTag, 20);
+        ReaderPostList storedPosts = ReaderPostTable.getPostsWithTag(mTag, null, 20, true);
+        assertEquals(2, storedPosts.size());
+        for (int i = 0; i < storedPosts.size(); i++) {
+            assertEquals(storedPosts.get(i).getStableId(), pageKeys.getStableId(i));
+            assertEquals(storedPosts.get(i).isXpost(), pageKeys.isXpost(i));
+        }
+        // newest first, so the cross-post comes first
+        assertTrue(pageKeys.isXpost(0));
+        assertFalse(pageKeys.isXpost(1));
+    }
+
+    @Test
+    public void testPageKeysAreLimitedToMaxPostsToDisplay() throws JSONException {
+        int numPosts = ReaderConstants.READER_MAX_POSTS_TO_DISPLAY + 10;
+        ReaderPostList posts = new ReaderPostList();
+        for (long postId = 1; postId <= numPosts; postId++) {
+            posts.add(createPost(postId, 0, false));
+        }
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+
+        PageKeys pageKeys = ReaderPostTable.getPageKeysWithTag(mTag, 20);
+        assertEquals(ReaderConstants.READER_MAX_POSTS_TO_DISPLAY, pageKeys.getNumPosts());
+    }
+
+    @Test
+    public void testLocalSearchMatchesWordPrefixes() throws JSONException {
+        ReaderPostList posts = new ReaderPostList();
+        posts.add(createPost(1, "Baking bread at home", "Sourdough starters explained"));
+        posts.add(createPost(2, "Weeknight dinners", "Quick recipes for busy cooks"));
+        posts.add(createPost(3, "Travel notes", "A week in Lisbon"));
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+
+        assertEquals(1, ReaderPostTable.addLocalSearchResults(mSearchTag, "BAK", 0));
+        ReaderPostList results = ReaderPostTable.getPostsWithTag(mSearchTag, 0, true);
+        assertEquals(1, results.size());
+        assertEquals(1, results.get(0).postId);
+
+        // every word must match, and words such as "or" aren't treated as operators
+        ReaderPostTable.deletePostsWithTag(mSearchTag);
+        assertEquals(0, ReaderPostTable.addLocalSearchResults(mSearchTag, "bread lisbon", 0));
+        assertEquals(0, ReaderPostTable.addLocalSearchResults(mSearchTag, "bread or lisbon", 0));
+        assertEquals(0, ReaderPostTable.addLocalSearchResults(mSearchTag, "?!", 0));
+    }
+
+    @Test
+    public void testLocalSearchRanksTitleMatchesFirst() throws JSONException {
+        ReaderPostList posts = new ReaderPostList();
+        posts.add(createPost(1, "Travel notes", "Where to find the best pasta"));
+        posts.add(createPost(2, "Pasta from scratch", "Flour, eggs and patience"));
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+
+        assertEquals(2, ReaderPostTable.addLocalSearchResults(mSearchTag, "pasta", 0));
+        ReaderPostList results = ReaderPostTable.getPostsWithTag(mSearchTag, 0, true);
+        assertEquals(2, results.size());
+        assertEquals(2, results.get(0).postId);
+        assertEquals(1, results.get(1).postId);
+    }
+
+    @Test
+    public void testPostIsRemovedFromSearchIndexWithItsLastRow() throws JSONException {
+        ReaderTag otherTag = new ReaderTag("baking", "baking", "Baking",
+                "https://public-api.wordpress.com/rest/v1.2/read/tags/baking/posts", ReaderTagType.FOLLOWED);
+        ReaderPostList posts = new ReaderPostList();
+        posts.add(createPost(1, "Baking bread at home", "Sourdough starters explained"));
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+        ReaderPostTable.addOrUpdatePosts(otherTag, posts);
+
+        // the post is still in another stream, so it's still indexed
+        ReaderPostTable.deletePostsWithTag(mTag);
+        assertEquals(1, ReaderPostTable.addLocalSearchResults(mSearchTag, "sourdough", 0));
+
+        ReaderPostTable.deletePostsWithTag(mSearchTag);
+        ReaderPostTable.deletePostsWithTag(otherTag);
+        assertEquals(0, ReaderPostTable.addLocalSearchResults(mSearchTag, "sourdough", 0));
+    }
+
+    @Test
+    public void testFingerprintIgnoresRailcarAndTracksStoredColumns() throws JSONException {
+        JSONObject json = createPostJson(1, 0);
+        long fingerprint = ReaderPostTable.getFingerprint(ReaderPost.fromJson(json));
+        assertNotEquals(0, fingerprint);
+        assertEquals(fingerprint, ReaderPostTable.getFingerprint(ReaderPost.fromJson(json)));
+
+        // the railcar changes on every fetch, so it mustn't make a post look changed
+        JSONObject railcar = new JSONObject();
+        railcar.put("railcar", "abc123");
+        json.put("railcar", railcar);
+        assertEquals(fingerprint, ReaderPostTable.getFingerprint(ReaderPost.fromJson(json)));
+
+        json.put("like_count", 3);
+        assertNotEquals(fingerprint, ReaderPostTable.getFingerprint(ReaderPost.fromJson(json)));
+    }
+
+    @Test
+    public void testComparePostsSortsNewChangedAndUnchanged() throws JSONException {
+        ReaderPostList posts = new ReaderPostList();
+        posts.add(createPost(1, 0, false));
+        posts.add(createPost(2, 0, false));
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+
+        JSONObject changedJson = createPostJson(2, 0);
+        changedJson.put("title", "Edited");
+        ReaderPostList serverPosts = new ReaderPostList();
+        serverPosts.add(createPost(1, 0, false));
+        serverPosts.add(ReaderPost.fromJson(changedJson));
+        serverPosts.add(createPost(3, 0, false));
+
+        ReaderPostTable.PostComparison comparison = ReaderPostTable.comparePosts(mTag, serverPosts);
+        assertEquals(1, comparison.getUnchangedPosts().size());
+        assertEquals(1, comparison.getUnchangedPosts().get(0).getPostId());
+        assertEquals(1, comparison.getChangedPosts().size());
+        assertEquals(2, comparison.getChangedPosts().get(0).getPostId());
+        assertEquals(1, comparison.getNewPosts().size());
+        assertEquals(3, comparison.getNewPosts().get(0).getPostId());
+        assertTrue(comparison.isUnchangedInStream(serverPosts.get(0)));
+        assertFalse(comparison.isUnchangedInStream(serverPosts.get(1)));
+    }
+
+    @Test
+    public void testPostOnlyInAnotherStreamIsChanged() throws JSONException {
+        ReaderPostList posts = new ReaderPostList();
+        posts.add(createPost(1, 0, false));
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+
+        // the stored copy is identical, but it still has to be written to the search stream
+        ReaderPostTable.PostComparison comparison = ReaderPostTable.comparePosts(mSearchTag, posts);
+        assertEquals(ReaderActions.UpdateResult.CHANGED, comparison.getUpdateResult());
+        assertFalse(comparison.isUnchangedInStream(posts.get(0)));
+    }
+
+    @Test
+    public void testLocalLikeResetsFingerprint() throws JSONException {
+        ReaderPostList posts = new ReaderPostList();
+        posts.add(createPost(1, 0, false));
+        ReaderPostTable.addOrUpdatePosts(mTag, posts);
+        assertEquals(ReaderActions.UpdateResult.UNCHANGED, ReaderPostTable.comparePosts(mTag, posts).getUpdateResult());
+
+        ReaderPostTable.setLikesForPost(posts.get(0), 1, true);
+        ReaderPostTable.PostComparison comparison = ReaderPostTable.comparePosts(mTag, posts);
+        assertEquals(ReaderActions.UpdateResult.CHANGED, comparison.getUpdateResult());
+        assertFalse(comparison.isUnchangedInStream(posts.get(0)));
+    }
+
+    /*
+     * reads every page of the stream and returns the number of distinct posts, failing if a post
+     * appears more than once
+     */
+    private static int countPostsInPages(ReaderTag tag, PageKeys pageKeys, int pageSize) {
+        Set<String> pseudoIds = new HashSet<>();
+        for (SeekKey key : pageKeys.getSeekKeys()) {
+            for (ReaderPost post : ReaderPostTable.getPostsWithTag(tag, key, pageSize, true)) {
+                assertTrue("duplicate post " + post.postId, pseudoIds.add(post.getPseudoId()));
+            }
+        }
+        return pseudoIds.size();
+    }
+
+    private static ReaderPost createPost(long postId, String title, String excerpt) throws JSONException {
+        JSONObject json = createPostJson(postId, 0);
+        json.put("title", title);
+        json.put("excerpt", excerpt);
+        return ReaderPost.fromJson(json);
+    }
+
+    private static ReaderPost createPost(long postId, double score, boolean isXpost) throws JSONException {
+        JSONObject json = createPostJson(postId, score);
+        if (isXpost) {
+            JSONObject meta = new JSONObject();
+            meta.put("key", "xpost_origin");
+            meta.put("value", "2:" + postId);
+            json.put("metadata", new JSONArray().put(meta));
+        }
+        return ReaderPost.fromJson(json);
+    }
+
+    private static JSONObject createPostJson(long postId, double score) throws JSONException {
+        String date = String.format(Locale.US, "2017-01-01T%02d:%02d:00+00:00", postId / 60, postId % 60);
+        JSONObject json = new JSONObject();
+        json.put("ID", postId);
+        json.put("site_ID", BLOG_ID);
+        json.put("pseudo_ID", "pseudo" + postId);
+        json.put("title", "Post " + postId);
+        json.put("content", "<p>Content of post " + postId + "</p>");
+        json.put("date", date);
+        json.put("tagged_on", date);
+        json.put("score", score);
+        return json;
+    }
+}
@@ -0,0 +1,107 @@
+package org.wordpress.android.datasets;
+
+import android.database.Cursor;
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+import org.wordpress.android.BuildConfig;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderSearchTableTest {
+    @Before
+    public void setUp() {
+        // the database singleton would otherwise outlive the application it was opened with
+        ReflectionHelpers.setStaticField(ReaderDatabase.class, "mReaderDb", null);
+        ReaderDatabase.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ReaderDatabase.getDatabase().close();
+        ReflectionHelpers.setStaticField(ReaderDatabase.class, "mReaderDb", null);
+    }
+
+    @Test
+    public void testPrefixIsCaseInsensitive() {
+        addQueries("Cooking", "cookies", "Coffee");
+
+        assertQueries("COOK", "Cooking", "cookies");
+        assertQueries("co", "Cooking", "cookies", "Coffee");
+        assertQueries("cookinG", "Cooking");
+    }
+
+    @Test
+    public void testPrefixDoesNotMatchNeighbouringPunctuation() {
+        // "@" sorts just below "A" and "[", "`" sort between upper and lower case letters, so the
+        // range's upper bound has to be computed from the lower case prefix
+        addQueries("@home", "[tag]", "`code`", "apple", "Zebra", "z");
+
+        assertQueries("@", "@home");
+        assertQueries("z", "Zebra", "z");
+        assertQueries("[", "[tag]");
+    }
+
+    @Test
+    public void testWildcardsAreMatchedLiterally() {
+        addQueries("100%", "100 percent", "a_b", "axb", "c\\d");
+
+        assertQueries("100%", "100%");
+        assertQueries("a_", "a_b");
+        assertQueries("c\\", "c\\d");
+    }
+
+    @Test
+    public void testNonAsciiPrefix() {
+        addQueries("caf\u00e9", "caf\u00e9 au lait", "cafe", "caf\u00ea", "\ud83d\ude00 smile");
+
+        assertQueries("caf\u00e9", "caf\u00e9", "caf\u00e9 au lait");
+        assertQueries("\ud83d\ude00", "\ud83d\ude00 smile");
+    }
+
+    @Test
+    public void testPrefixUpperBound() {
+        assertEquals("cool", ReaderSearchTable.getPrefixUpperBound("CooK"));
+        assertEquals("[", ReaderSearchTable.getPrefixUpperBound("@"));
+        assertEquals("{", ReaderSearchTable.getPrefixUpperBound("Z"));
+        assertEquals("\ue000", ReaderSearchTable.getPrefixUpperBound("\ud7ff"));
+        assertEquals("\ud83d\ude01", ReaderSearchTable.getPrefixUpperBound("\ud83d\ude00"));
+        assertEquals("b", ReaderSearchTable.getPrefixUpperBound("a\udbff\udfff"));
+        assertNull(ReaderSearchTable.getPrefixUpperBound("\udbff\udfff"));
+    }
+
+    private static void addQueries(String... queries) {
+        for (String query : queries) {
+            ReaderSearchTable.addOrUpdateQueryString(query);
+        }
+    }
+
+    private static void assertQueries(String filter, String... expectedQueries) {
+        Set<String> queries = new HashSet<>();
+        Cursor cursor = ReaderSearchTable.getQueryStringCursor(filter, 0);
+        try {
+            while (cursor.moveToNext()) {
+                queries.add(cursor.getString(cursor.getColumnIndex(ReaderSearchTable.COL_QUERY)));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertEquals(filter, expectedQueries.length, queries.size());
+        for (String query : expectedQueries) {
+            assertTrue(filter, queries.contains(query));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.wordpress.android.ui.main;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.Benchmark;
+import org.wordpress.android.fluxc.model.SiteModel;
+import org.wordpress.android.ui.main.SitePickerAdapter.SiteList;
+import org.wordpress.android.ui.main.SitePickerAdapter.SiteRecord;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class SiteSearchIndexTest {
+    private static final int NUM_PARITY_SITES = 1000;
+    private static final int[] NUM_BENCHMARK_SITES = {1000, 10000};
+    private static final String[] QUERIES = {"a", "bak", "blog", "press12", "zzz"};
+
+    @Test
+    public void testResultsAreRanked() {
+        List<SiteRecord> sites = new ArrayList<>();
+        sites.add(createSite(1, "My Bakery Blog", "mybakery.example.com"));
+        sites.add(createSite(2, "Bakery", "bread.example.com"));
+        sites.add(createSite(3, "Bakery News", "news.example.com"));
+        sites.add(createSite(4, "Recipes", "bakery.example.com"));
+        sites.add(createSite(5, "Recipes", "thebakery.example.com"));
+        sites.add(createSite(6, "Travel", "travel.example.com"));
+
+        SiteSearchIndex index = new SiteSearchIndex();
+        index.update(sites);
+
+        assertResults(index.search("bakery"), 2, 3, 1, 4, 5);
+        assertResults(index.search("BAKERY"), 2, 3, 1, 4, 5);
+        assertResults(index.search(""), 1, 2, 3, 4, 5, 6);
+        assertResults(index.search("nothing"));
+    }
+
+    @Test
+    public void testAccentsAreIgnored() {
+        List<SiteRecord> sites = new ArrayList<>();
+        sites.add(createSite(1, "Caf\u00e9 Society", "cafe.example.com"));
+        sites.add(createSite(2, "Cafeteria", "lunch.example.com"));
+
+        SiteSearchIndex index = new SiteSearchIndex();
+        index.update(sites);
+
+        assertResults(index.search("cafe "), 1);
+        assertResults(index.search("caf\u00e9"), 1, 2);
+    }
+
+    @Test
+    public void testUpdateReindexesChangedSites() {
+        List<SiteRecord> sites = new ArrayList<>();
+        sites.add(createSite(1, "Gardening", "garden.example.com"));
+        sites.add(createSite(2, "Cooking", "cook.example.com"));
+        sites.add(createSite(3, "Hiking", "hike.example.com"));
+
+        SiteSearchIndex index = new SiteSearchIndex();
+        index.update(sites);
+        assertResults(index.search("ing"), 1, 2, 3);
+
+        // site 1 is renamed, site 2 is removed and site 4 is added
+        List<SiteRecord> updatedSites = new ArrayList<>();
+        updatedSites.add(createSite(4, "Sailing", "sail.example.com"));
+        updatedSites.add(createSite(3, "Hiking", "hike.example.com"));
+        updatedSites.add(createSite(1, "Plants", "garden.example.com"));
+        index.update(updatedSites);
+
+        assertEquals(3, index.size());
+        assertResults(index.search("ing"), 4, 3);
+        assertResults(index.search("cook"));
+        assertResults(index.search("plant"), 1);
+        assertResults(index.search("garden"), 1);
+    }
+
+    @Test
+    public void testMatchesLegacyFilterOnManySites() {
+        List<SiteRecord> sites = createSyntheticSites(NUM_PARITY_SITES);
+        SiteSearchIndex index = new SiteSearchIndex();
+        index.update(sites);
+
+        for (String query : QUERIES) {
+            assertEquals(getLocalIds(filterLegacy(sites, query)), getLocalIds(index.search(query)));
+        }
+    }
+
+    @Test
+    public void benchmarkSearch() throws Exception {
+        for (int numSites : NUM_BENCHMARK_SITES) {
+            final List<SiteRecord> sites = createSyntheticSites(numSites);
+            final SiteSearchIndex index = new SiteSearchIndex();
+
+            Benchmark benchmark = Benchmark.begin("Searching " + numSites + " sites");
+            benchmark.measure("build index", 1, new Benchmark.Task() {
+                @Override
+                public void run() {
+                    index.update(sites);
+                }
+            });
+            benchmark.measure("legacy", QUERIES.length, new Benchmark.Task() {
+                private int mQuery;
+
+                @Override
+                public void run() {
+                    filterLegacy(sites, QUERIES[mQuery++]);
+                }
+            });
+            benchmark.measure("indexed", QUERIES.length, new Benchmark.Task() {
+                private int mQuery;
+
+                @Override
+                public void run() {
+                    index.search(QUERIES[mQuery++]);
+                }
+            });
+        }
+    }
+
+    private static void assertResults(SiteList results, int... localIds) {
+        assertEquals(localIds.length, results.size());
+        for (int i = 0; i < localIds.length; i++) {
+            assertEquals(localIds[i], results.get(i).localId);
+        }
+    }
+
+    private static SiteRecord createSite(int localId, String name, String url) {
+        SiteModel site = new SiteModel();
+        site.setId(localId);
+        site.setSiteId(localId);
+        site.setName(name);
+        site.setUrl("https://" + url);
+        return new SiteRecord(site);
+    }
+
+    private static List<SiteRecord> createSyntheticSites(int numSites) {
+        String[] words = {"bakery", "blog", "press", "travel", "photos", "notes", "garden", "recipes"};
+        Random random = new Random(42);
+        List<SiteRecord> sites = new ArrayList<>();
+        for (int i = 1; i <= numSites; i++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            String host = words[random.nextInt(words.length)] + i + ".example.com";
+            sites.add(createSite(i, name, host));
+        }
+        return sites;
+    }
+
+    private static Set<Integer> getLocalIds(SiteList sites) {
+        Set<Integer> localIds = new HashSet<>();
+        for (SiteRecord site : sites) {
+            localIds.add(site.localId);
+        }
+        return localIds;
+    }
+
+    /*
+     * the filter the site picker used to run over every site for each search
+     */
+    private static SiteList filterLegacy(List<SiteRecord> sites, String query) {
+        SiteList filteredSiteList = new SiteList();
+        for (SiteRecord record : sites) {
+            String siteNameLowerCase = record.blogName.toLowerCase(Locale.getDefault());
+            String hostNameLowerCase = record.homeURL.toLowerCase(Locale.getDefault());
+            if (siteNameLowerCase.contains(query.toLowerCase(Locale.getDefault()))
+                    || hostNameLowerCase.contains(query.toLowerCase(Locale.getDefault()))) {
+                filteredSiteList.add(record);
+            }
+        }
+        return filteredSiteList;
+    }
+}
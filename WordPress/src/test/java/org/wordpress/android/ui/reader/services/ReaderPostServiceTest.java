@@ -0,0 +1,201 @@
+package org.wordpress.android.ui.reader.services;
+
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+import org.wordpress.android.Benchmark;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.datasets.ReaderDatabase;
+import org.wordpress.android.datasets.ReaderPostTable;
+import org.wordpress.android.models.ReaderTag;
+import org.wordpress.android.models.ReaderTagType;
+import org.wordpress.android.ui.reader.actions.ReaderActions.UpdateResult;
+import org.wordpress.android.ui.reader.models.ReaderBlogIdPostId;
+import org.wordpress.android.ui.reader.services.ReaderPostService.UpdateAction;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class ReaderPostServiceTest {
+    private static final long BLOG_ID = 1;
+    private static final int NUM_BENCHMARK_PAGES = 50;
+    private static final int BENCHMARK_PAGE_SIZE = 40;
+
+    private final ReaderTag mTag = new ReaderTag("cooking", "cooking", "Cooking",
+            "https://public-api.wordpress.com/rest/v1.2/read/tags/cooking/posts", ReaderTagType.FOLLOWED);
+
+    @Before
+    public void setUp() {
+        // the database singleton would otherwise outlive the application it was opened with
+        ReflectionHelpers.setStaticField(ReaderDatabase.class, "mReaderDb", null);
+        ReaderDatabase.reset();
+    }
+
+    @After
+    public void tearDown() {
+        ReaderDatabase.getDatabase().close();
+        ReflectionHelpers.setStaticField(ReaderDatabase.class, "mReaderDb", null);
+    }
+
+    @Test
+    public void testUnchangedPostsAreNotCommitted() throws JSONException {
+        assertEquals(UpdateResult.HAS_NEW, addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER));
+        assertEquals(10, ReaderPostTable.getNumPostsWithTag(mTag));
+
+        assertEquals(UpdateResult.UNCHANGED, addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER));
+        assertEquals(10, ReaderPostTable.getNumPostsWithTag(mTag));
+    }
+
+    @Test
+    public void testChangedPostsAreUpdated() throws JSONException {
+        addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER);
+
+        assertEquals(UpdateResult.CHANGED, addOrUpdatePosts(createPosts(1, 10, 5), UpdateAction.REQUEST_NEWER));
+        assertEquals(5, ReaderPostTable.getNumLikesForPost(BLOG_ID, 1));
+        assertEquals(10, ReaderPostTable.getNumPostsWithTag(mTag));
+    }
+
+    @Test
+    public void testPostsInAnotherStreamAreAddedToThisOne() throws JSONException {
+        ReaderTag otherTag = new ReaderTag("baking", "baking", "Baking",
+                "https://public-api.wordpress.com/rest/v1.2/read/tags/baking/posts", ReaderTagType.FOLLOWED);
+        ReaderPostService.addOrUpdatePosts(otherTag, createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER);
+
+        // the stored copies are identical, but this stream doesn't have them yet
+        assertEquals(UpdateResult.CHANGED, addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER));
+        assertEquals(10, ReaderPostTable.getNumPostsWithTag(mTag));
+        assertEquals(10, ReaderPostTable.getNumPostsWithTag(otherTag));
+    }
+
+    @Test
+    public void testLocallyLikedPostIsRewrittenOnNextSync() throws JSONException {
+        addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER);
+
+        // liking a post locally resets its fingerprint, so the server's copy replaces it even though
+        // the server returns exactly what was stored before
+        ReaderPostTable.setLikesForPost(ReaderPostTable.getBlogPost(BLOG_ID, 1, true), 1, true);
+        assertEquals(1, ReaderPostTable.getNumLikesForPost(BLOG_ID, 1));
+
+        assertEquals(UpdateResult.CHANGED, addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER));
+        assertEquals(0, ReaderPostTable.getNumLikesForPost(BLOG_ID, 1));
+        assertFalse(ReaderPostTable.getBlogPost(BLOG_ID, 1, true).isLikedByCurrentUser);
+
+        // and once it's been rewritten it's unchanged again
+        assertEquals(UpdateResult.UNCHANGED, addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER));
+    }
+
+    @Test
+    public void testFillingGapWithNothingNewIsRolledBack() throws JSONException {
+        addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER);
+        ReaderPostTable.setGapMarkerForTag(BLOG_ID, 5, mTag);
+
+        // the posts are compared before the gap is removed, so a request to fill the gap which
+        // returns posts we already have is unchanged, and the gap is left for the caller to remove
+        assertEquals(UpdateResult.UNCHANGED,
+                addOrUpdatePosts(createPosts(6, 10, 0), UpdateAction.REQUEST_OLDER_THAN_GAP));
+        assertEquals(10, ReaderPostTable.getNumPostsWithTag(mTag));
+        assertNotNull(ReaderPostTable.getGapMarkerIdsForTag(mTag));
+    }
+
+    @Test
+    public void testFillingGapWritesEveryPost() throws JSONException {
+        addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER);
+        ReaderPostTable.setGapMarkerForTag(BLOG_ID, 5, mTag);
+
+        assertEquals(UpdateResult.HAS_NEW,
+                addOrUpdatePosts(createPosts(6, 15, 0), UpdateAction.REQUEST_OLDER_THAN_GAP));
+        assertEquals(15, ReaderPostTable.getNumPostsWithTag(mTag));
+        assertNull(ReaderPostTable.getGapMarkerIdsForTag(mTag));
+        for (long postId = 6; postId <= 10; postId++) {
+            assertNotNull(ReaderPostTable.getBlogPost(BLOG_ID, postId, true));
+        }
+    }
+
+    @Test
+    public void testGapMarkerIsAddedWhenThereIsNoOverlap() throws JSONException {
+        addOrUpdatePosts(createPosts(1, 10, 0), UpdateAction.REQUEST_NEWER);
+
+        assertEquals(UpdateResult.HAS_NEW, addOrUpdatePosts(createPosts(20, 25, 0), UpdateAction.REQUEST_NEWER));
+
+        // the last server post is skipped and the one before it gets the gap marker
+        assertEquals(15, ReaderPostTable.getNumPostsWithTag(mTag));
+        ReaderBlogIdPostId gapMarkerIds = ReaderPostTable.getGapMarkerIdsForTag(mTag);
+        assertNotNull(gapMarkerIds);
+        assertEquals(21, gapMarkerIds.getPostId());
+    }
+
+    @Test
+    public void benchmarkAddOrUpdatePosts() throws Exception {
+        Benchmark benchmark = Benchmark.begin("Writing pages of " + BENCHMARK_PAGE_SIZE + " posts");
+        List<JSONArray> pages = createPages();
+        final Iterator<JSONArray> newPages = pages.iterator();
+        benchmark.measure("new", NUM_BENCHMARK_PAGES, new Benchmark.Task() {
+            @Override
+            public void run() {
+                addOrUpdatePosts(newPages.next(), UpdateAction.REQUEST_OLDER);
+            }
+        });
+        final Iterator<JSONArray> unchangedPages = pages.iterator();
+        benchmark.measure("unchanged", NUM_BENCHMARK_PAGES, new Benchmark.Task() {
+            @Override
+            public void run() {
+                addOrUpdatePosts(unchangedPages.next(), UpdateAction.REQUEST_OLDER);
+            }
+        });
+    }
+
+    private UpdateResult addOrUpdatePosts(JSONArray jsonPosts, UpdateAction updateAction) {
+        return ReaderPostService.addOrUpdatePosts(mTag, jsonPosts, updateAction);
+    }
+
+    /*
+     * returns the benchmark's pages of posts, which are created up front so only writing them is measured
+     */
+    private static List<JSONArray> createPages() throws JSONException {
+        List<JSONArray> pages = new ArrayList<>();
+        for (int page = 0; page < NUM_BENCHMARK_PAGES; page++) {
+            long firstId = page * BENCHMARK_PAGE_SIZE + 1;
+            pages.add(createPosts(firstId, firstId + BENCHMARK_PAGE_SIZE - 1, 0));
+        }
+        return pages;
+    }
+
+    /*
+     * returns the posts with the passed ids as the server would, newest (highest id) first
+     */
+    private static JSONArray createPosts(long firstId, long lastId, int numLikes) throws JSONException {
+        JSONArray jsonPosts = new JSONArray();
+        for (long postId = lastId; postId >= firstId; postId--) {
+            String date = String.format(Locale.US, "2017-01-01T00:%02d:%02d+00:00", postId / 60, postId % 60);
+            JSONObject jsonPost = new JSONObject();
+            jsonPost.put("ID", postId);
+            jsonPost.put("site_ID", BLOG_ID);
+            jsonPost.put("pseudo_ID", "pseudo" + postId);
+            jsonPost.put("title", "Post " + postId);
+            jsonPost.put("content", "<p>Content of post " + postId + "</p>");
+            jsonPost.put("date", date);
+            jsonPost.put("tagged_on", date);
+            jsonPost.put("like_count", numLikes);
+            jsonPosts.put(jsonPost);
+        }
+        return jsonPosts;
+    }
+}
@@ -0,0 +1,166 @@
+package org.wordpress.android.ui.reader.utils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.Benchmark;
+import org.wordpress.android.models.ReaderComment;
+import org.wordpress.android.models.ReaderCommentList;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReaderCommentLevelerTest {
+    private static final int NUM_BENCHMARK_COMMENTS = 10000;
+
+    @Test
+    public void testLevelList() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(createComment(1, 0, 1));
+        comments.add(createComment(2, 1, 2));
+        comments.add(createComment(3, 0, 3));
+        comments.add(createComment(4, 2, 4));
+        comments.add(createComment(5, 1, 5));
+
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+
+        assertLevelList(levelList, new long[]{1, 2, 4, 5, 3}, new int[]{0, 1, 2, 1, 0});
+    }
+
+    @Test
+    public void testOrphansAreIndented() {
+        ReaderCommentList comments = new ReaderCommentList();
+        comments.add(createComment(1, 0, 1));
+        comments.add(createComment(2, 99, 2));
+        comments.add(createComment(3, 2, 3));
+
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+
+        assertLevelList(levelList, new long[]{1, 2, 3}, new int[]{0, 1, 2});
+    }
+
+    @Test
+    public void testAddComments() {
+        ReaderCommentList firstPage = new ReaderCommentList();
+        firstPage.add(createComment(1, 0, 1));
+        firstPage.add(createComment(3, 1, 3));
+        firstPage.add(createComment(4, 99, 4));
+
+        ReaderCommentLeveler leveler = new ReaderCommentLeveler(firstPage);
+        leveler.createLevelList();
+
+        // second page includes an older reply and the parent of the orphan
+        ReaderCommentList allComments = new ReaderCommentList();
+        allComments.addAll(firstPage);
+        allComments.add(createComment(2, 1, 2));
+        allComments.add(createComment(99, 0, 5));
+
+        assertEquals(true, leveler.canAddComments(allComments));
+        ReaderCommentList levelList = leveler.addComments(allComments);
+
+        assertLevelList(levelList, new long[]{1, 2, 3, 99, 4}, new int[]{0, 1, 1, 0, 1});
+        assertEquals(false, leveler.canAddComments(firstPage));
+    }
+
+    @Test
+    public void testMatchesLegacyLevelerOnLargeThread() {
+        ReaderCommentList comments = createSyntheticThread(NUM_BENCHMARK_COMMENTS);
+
+        ReaderCommentList legacyList = createLegacyLevelList(comments);
+        ReaderCommentList levelList = new ReaderCommentLeveler(comments).createLevelList();
+
+        assertEquals(legacyList.size(), levelList.size());
+        for (int i = 0; i < legacyList.size(); i++) {
+            assertEquals(legacyList.get(i).commentId, levelList.get(i).commentId);
+        }
+    }
+
+    @Test
+    public void benchmarkLevelList() throws Exception {
+        final ReaderCommentList comments = createSyntheticThread(NUM_BENCHMARK_COMMENTS);
+        Benchmark benchmark = Benchmark.begin("Leveling " + NUM_BENCHMARK_COMMENTS + " comments");
+        benchmark.measure("legacy", 1, new Benchmark.Task() {
+            @Override
+            public void run() {
+                createLegacyLevelList(comments);
+            }
+        });
+        benchmark.measure("indexed", 1, new Benchmark.Task() {
+            @Override
+            public void run() {
+                new ReaderCommentLeveler(comments).createLevelList();
+            }
+        });
+    }
+
+    private static void assertLevelList(ReaderCommentList levelList, long[] commentIds, int[] levels) {
+        assertEquals(commentIds.length, levelList.size());
+        for (int i = 0; i < commentIds.length; i++) {
+            assertEquals(commentIds[i], levelList.get(i).commentId);
+            assertEquals(levels[i], levelList.get(i).level);
+        }
+    }
+
+    private static ReaderComment createComment(long commentId, long parentId, long timestamp) {
+        ReaderComment comment = new ReaderComment();
+        comment.commentId = commentId;
+        comment.parentId = parentId;
+        comment.timestamp = timestamp;
+        return comment;
+    }
+
+    /*
+     * creates a thread in timestamp order where roughly a third of the comments are top-level
+     * and the rest reply to a random earlier comment
+     */
+    private static ReaderCommentList createSyntheticThread(int numComments) {
+        Random random = new Random(42);
+        ReaderCommentList comments = new ReaderCommentList();
+        for (int i = 1; i <= numComments; i++) {
+            long parentId = (i == 1 || random.nextInt(3) == 0) ? 0 : 1 + random.nextInt(i - 1);
+            comments.add(createComment(i, parentId, i));
+        }
+        return comments;
+    }
+
+    /*
+     * the original leveler, which rescans every comment for each parent at each level
+     */
+    private static ReaderCommentList createLegacyLevelList(ReaderCommentList comments) {
+        ReaderCommentList result = new ReaderCommentList();
+        for (ReaderComment comment : comments) {
+            comment.level = 0;
+            if (comment.parentId == 0) {
+                result.add(comment);
+            }
+        }
+
+        int level = 0;
+        boolean hasChanges = true;
+        while (hasChanges) {
+            hasChanges = false;
+            for (int index = 0; index < result.size(); index++) {
+                ReaderComment parent = result.get(index);
+                if (parent.level != level) {
+                    continue;
+                }
+                ReaderCommentList children = new ReaderCommentList();
+                for (ReaderComment comment : comments) {
+                    if (comment.parentId == parent.commentId) {
+                        comment.level = level + 1;
+                        children.add(comment);
+                    }
+                }
+                if (!children.isEmpty()) {
+                    result.addAll(index + 1, children);
+                    index += children.size();
+                    hasChanges = true;
+                }
+            }
+            level++;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,150 @@
+package org.wordpress.android.ui.reader.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.ui.reader.utils.ReaderTaskScheduler.Priority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReaderTaskSchedulerTest {
+    private static final String KEY = "key";
+
+    private ControlledExecutor mWorkers;
+    private ControlledExecutor mWriter;
+    private final List<String> mRun = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mWorkers = new ControlledExecutor();
+        mWriter = new ControlledExecutor();
+        ReaderTaskScheduler.setExecutors(mWorkers, mWriter);
+    }
+
+    @After
+    public void tearDown() {
+        ReaderTaskScheduler.resetExecutors();
+        mWorkers.shutdown();
+        mWriter.shutdown();
+    }
+
+    @Test
+    public void testTasksRunInPriorityThenScheduledOrder() {
+        ReaderTaskScheduler.execute(Priority.MAINTENANCE, task("maintenance"));
+        ReaderTaskScheduler.execute(Priority.PREFETCH, task("prefetch 1"));
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, task("visible 1"));
+        ReaderTaskScheduler.execute(Priority.PREFETCH, task("prefetch 2"));
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, task("visible 2"));
+
+        mWorkers.runAll();
+        assertEquals(Arrays.asList("visible 1", "visible 2", "prefetch 1", "prefetch 2", "maintenance"), mRun);
+    }
+
+    @Test
+    public void testTaskWithPendingKeyIsDropped() {
+        ReaderTaskScheduler.execute(Priority.PREFETCH, KEY, task("first"));
+        ReaderTaskScheduler.execute(Priority.PREFETCH, KEY, task("second"));
+        assertEquals(1, ReaderTaskScheduler.getQueueDepth());
+
+        mWorkers.runAll();
+        assertEquals(Collections.singletonList("first"), mRun);
+
+        // once the task has started the key can be scheduled again
+        ReaderTaskScheduler.execute(Priority.PREFETCH, KEY, task("third"));
+        mWorkers.runAll();
+        assertEquals(Arrays.asList("first", "third"), mRun);
+    }
+
+    @Test
+    public void testKeyIsReleasedWhenTaskStarts() {
+        ReaderTaskScheduler.execute(Priority.PREFETCH, KEY, new Runnable() {
+            @Override
+            public void run() {
+                mRun.add("outer");
+                // scheduled while the task with the same key is running, so it isn't dropped
+                ReaderTaskScheduler.execute(Priority.PREFETCH, KEY, task("inner"));
+            }
+        });
+
+        mWorkers.runAll();
+        assertEquals(Arrays.asList("outer", "inner"), mRun);
+    }
+
+    @Test
+    public void testPendingTaskIsPromotedByHigherPriorityDuplicate() {
+        ReaderTaskScheduler.execute(Priority.MAINTENANCE, KEY, task("keyed"));
+        ReaderTaskScheduler.execute(Priority.PREFETCH, task("prefetch"));
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, KEY, task("duplicate"));
+        assertEquals(2, ReaderTaskScheduler.getQueueDepth());
+
+        // the keyed task now runs ahead of the prefetch task, and the duplicate is never run
+        mWorkers.runAll();
+        assertEquals(Arrays.asList("keyed", "prefetch"), mRun);
+    }
+
+    @Test
+    public void testPendingTaskIsNotDemotedByLowerPriorityDuplicate() {
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, KEY, task("keyed"));
+        ReaderTaskScheduler.execute(Priority.PREFETCH, task("prefetch"));
+        ReaderTaskScheduler.execute(Priority.MAINTENANCE, KEY, task("duplicate"));
+
+        mWorkers.runAll();
+        assertEquals(Arrays.asList("keyed", "prefetch"), mRun);
+    }
+
+    @Test
+    public void testWritesRunOnTheWriterAndReadsOnTheWorkers() {
+        ReaderTaskScheduler.executeWrite(Priority.USER_VISIBLE, task("write 1"));
+        ReaderTaskScheduler.execute(Priority.USER_VISIBLE, task("read"));
+        ReaderTaskScheduler.executeWrite(Priority.MAINTENANCE, "purge", task("write 2"));
+        assertEquals(1, mWorkers.getQueue().size());
+        assertEquals(2, mWriter.getQueue().size());
+        assertEquals(3, ReaderTaskScheduler.getQueueDepth());
+
+        mWriter.runAll();
+        assertEquals(Arrays.asList("write 1", "write 2"), mRun);
+        mWorkers.runAll();
+        assertEquals(Arrays.asList("write 1", "write 2", "read"), mRun);
+    }
+
+    private Runnable task(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                mRun.add(name);
+            }
+        };
+    }
+
+    /*
+     * executor which only queues tasks, they're run on the test's thread in queue order by runAll()
+     */
+    private static class ControlledExecutor extends ThreadPoolExecutor {
+        ControlledExecutor() {
+            super(1, 1, 0, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>());
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            getQueue().add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = getQueue().poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.wordpress.android.ui.stats.datasets;
+
+import android.os.Build;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.wordpress.android.BuildConfig;
+import org.wordpress.android.ui.stats.StatsTimeframe;
+import org.wordpress.android.ui.stats.models.InsightsAllTimeModel;
+import org.wordpress.android.ui.stats.service.StatsService.StatsEndpointsEnum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, manifest = "src/main/AndroidManifest.xml", sdk = Build.VERSION_CODES.JELLY_BEAN)
+public class StatsModelCacheTest {
+    private static final long BLOG_ID = 1;
+    private static final String DATE = "2017-01-01";
+    private static final int MAX_RESULTS = 10;
+    private static final long STALE_AGE_MS = (StatsTable.CACHE_TTL_MINUTES + 1) * 60 * 1000L;
+
+    @Before
+    public void setUp() {
+        StatsModelCache.clear();
+    }
+
+    @Test
+    public void testCachedModelIsReturned() throws JSONException {
+        put(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, createModel(DATE), System.currentTimeMillis());
+
+        StatsModelCache.Entry entry = get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS);
+        assertNotNull(entry);
+        assertFalse(entry.isStale());
+        assertEquals(DATE, ((InsightsAllTimeModel) entry.getModel()).getDate());
+        assertEquals(42, ((InsightsAllTimeModel) entry.getModel()).getViews());
+    }
+
+    @Test
+    public void testMissingAndSmallerEntriesAreMisses() throws JSONException {
+        put(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, createModel(DATE), System.currentTimeMillis());
+
+        assertNull(get(BLOG_ID, StatsEndpointsEnum.VISITS, 0, MAX_RESULTS));
+        assertNull(get(BLOG_ID + 1, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS));
+        assertNull(get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 1, MAX_RESULTS));
+        // the cached entry has fewer results than requested
+        assertNull(get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS + 1));
+    }
+
+    @Test
+    public void testExpiredEntryIsReturnedAsStale() throws JSONException {
+        put(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, createModel(DATE),
+                System.currentTimeMillis() - STALE_AGE_MS);
+
+        long numStaleHits = StatsModelCache.getNumStaleHits();
+        StatsModelCache.Entry entry = get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS);
+        assertNotNull(entry);
+        assertTrue(entry.isStale());
+        assertEquals(numStaleHits + 1, StatsModelCache.getNumStaleHits());
+    }
+
+    @Test
+    public void testRemoveBlogInvalidatesItsEntries() throws JSONException {
+        long timestamp = System.currentTimeMillis();
+        put(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, createModel(DATE), timestamp);
+        put(BLOG_ID, StatsEndpointsEnum.VISITS, 0, createModel(DATE), timestamp);
+        put(BLOG_ID + 1, StatsEndpointsEnum.VISITS, 0, createModel(DATE), timestamp);
+
+        StatsModelCache.removeBlog(BLOG_ID, StatsEndpointsEnum.VISITS);
+        assertNull(get(BLOG_ID, StatsEndpointsEnum.VISITS, 0, MAX_RESULTS));
+        assertNotNull(get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS));
+
+        StatsModelCache.removeBlog(BLOG_ID);
+        assertNull(get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS));
+        assertNotNull(get(BLOG_ID + 1, StatsEndpointsEnum.VISITS, 0, MAX_RESULTS));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() throws JSONException {
+        long timestamp = System.currentTimeMillis();
+        InsightsAllTimeModel model = createModel(DATE);
+        for (int page = 0; page < 100; page++) {
+            put(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, page, model, timestamp);
+        }
+        // reading the first page makes the second the least recently used
+        assertNotNull(get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS));
+
+        put(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 100, model, timestamp);
+        assertNotNull(get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS));
+        assertNull(get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 1, MAX_RESULTS));
+        assertNotNull(get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 100, MAX_RESULTS));
+    }
+
+    @Test
+    public void testChangingModelsDoesNotChangeTheCache() throws JSONException {
+        InsightsAllTimeModel model = createModel(DATE);
+        put(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, model, System.currentTimeMillis());
+        model.setDate("changed after caching");
+
+        StatsModelCache.Entry entry = get(BLOG_ID, StatsEndpointsEnum.INSIGHTS_ALL_TIME, 0, MAX_RESULTS);
+        InsightsAllTimeModel first = (InsightsAllTimeModel) entry.getModel();
+        InsightsAllTimeModel second = (InsightsAllTimeModel) entry.getModel();
+        assertNotSame(first, second);
+
+        // a subscriber changing the model it was posted doesn't affect the next one
+        first.setDate("changed by a subscriber");
+        assertEquals(DATE, second.getDate());
+        assertEquals(DATE, ((InsightsAllTimeModel) entry.getModel()).getDate());
+    }
+
+    private static void put(long blogId, StatsEndpointsEnum endpoint, int page, InsightsAllTimeModel model,
+                            long timestamp) {
+        assertNotNull(StatsModelCache.put(blogId, endpoint, StatsTimeframe.INSIGHTS, DATE, MAX_RESULTS, page,
+                model, timestamp));
+    }
+
+    private static StatsModelCache.Entry get(long blogId, StatsEndpointsEnum endpoint, int page, int maxResults) {
+        return StatsModelCache.get(blogId, endpoint, StatsTimeframe.INSIGHTS, DATE, maxResults, page);
+    }
+
+    private static InsightsAllTimeModel createModel(String date) throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("posts", 3);
+        stats.put("visitors", 7);
+        stats.put("views", 42);
+        stats.put("views_best_day", date);
+        stats.put("views_best_day_total", 12);
+        JSONObject response = new JSONObject();
+        response.put("date", date);
+        response.put("stats", stats);
+        return new InsightsAllTimeModel(BLOG_ID, response);
+    }
+}
@@ -0,0 +1,140 @@
+package org.wordpress.android.ui.suggestion.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.Benchmark;
+import org.wordpress.android.models.Suggestion;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class SuggestionIndexTest {
+    private static final int NUM_PARITY_USERS = 1000;
+    private static final int NUM_BENCHMARK_USERS = 10000;
+    private static final String[] QUERIES = {"a", "ann", "jo", "john", "van d", "berg", "smith", "annalise", "x"};
+
+    @Test
+    public void testResultsAreRanked() {
+        List<Suggestion> suggestions = new ArrayList<>();
+        suggestions.add(createSuggestion("annabel", "Zed Ann"));
+        suggestions.add(createSuggestion("ann", "Someone"));
+        suggestions.add(createSuggestion("bob", "Ann Smith"));
+        suggestions.add(createSuggestion("carl", "Mary Annette"));
+        suggestions.add(createSuggestion("dave", "Joanne"));
+
+        SuggestionIndex index = new SuggestionIndex(suggestions);
+
+        assertResults(index.search("ann"), "ann", "annabel", "bob", "carl");
+        assertResults(index.search("ANN"), "ann", "annabel", "bob", "carl");
+        assertResults(index.search("mary ann"), "carl");
+        assertResults(index.search(""), "annabel", "ann", "bob", "carl", "dave");
+        assertResults(index.search("nobody"));
+    }
+
+    @Test
+    public void testLongPrefixesAreChecked() {
+        List<Suggestion> suggestions = new ArrayList<>();
+        suggestions.add(createSuggestion("christopher", "Christopher Robin"));
+        suggestions.add(createSuggestion("christine", "Christina"));
+
+        SuggestionIndex index = new SuggestionIndex(suggestions);
+
+        assertResults(index.search("christo"), "christopher");
+        assertResults(index.search("christopher r"), "christopher");
+        assertResults(index.search("christinas"));
+    }
+
+    @Test
+    public void testMatchesLegacyFilterOnManyUsers() {
+        List<Suggestion> suggestions = createSyntheticUsers(NUM_PARITY_USERS);
+        SuggestionIndex index = new SuggestionIndex(suggestions);
+
+        for (String query : QUERIES) {
+            List<Suggestion> legacyResults = filterLegacy(suggestions, query);
+            List<Suggestion> results = index.search(query);
+            assertEquals(legacyResults.size(), results.size());
+            assertEquals(new HashSet<>(legacyResults), new HashSet<>(results));
+        }
+    }
+
+    @Test
+    public void benchmarkSearch() throws Exception {
+        final List<Suggestion> suggestions = createSyntheticUsers(NUM_BENCHMARK_USERS);
+
+        Benchmark benchmark = Benchmark.begin("Searching " + NUM_BENCHMARK_USERS + " users");
+        benchmark.measure("build index", 1, new Benchmark.Task() {
+            @Override
+            public void run() {
+                new SuggestionIndex(suggestions);
+            }
+        });
+
+        final SuggestionIndex index = new SuggestionIndex(suggestions);
+        benchmark.measure("legacy", QUERIES.length, new Benchmark.Task() {
+            private int mQuery;
+
+            @Override
+            public void run() {
+                filterLegacy(suggestions, QUERIES[mQuery++]);
+            }
+        });
+        benchmark.measure("indexed", QUERIES.length, new Benchmark.Task() {
+            private int mQuery;
+
+            @Override
+            public void run() {
+                index.search(QUERIES[mQuery++]);
+            }
+        });
+    }
+
+    private static void assertResults(List<Suggestion> results, String... userLogins) {
+        assertEquals(userLogins.length, results.size());
+        for (int i = 0; i < userLogins.length; i++) {
+            assertEquals(userLogins[i], results.get(i).getUserLogin());
+        }
+    }
+
+    private static Suggestion createSuggestion(String userLogin, String displayName) {
+        return new Suggestion(1, userLogin, displayName, null, "mention");
+    }
+
+    /*
+     * creates users in login order, some of which don't have a display name
+     */
+    private static List<Suggestion> createSyntheticUsers(int numUsers) {
+        String[] firstNames = {"Anna", "John", "Mary", "Bob", "Alice", "Zoe", "Li", "Annalise", "Jo"};
+        String[] lastNames = {"Smith", "Jones", "Lee", "Brown", "Annand", "Johnson", "van der Berg"};
+        Random random = new Random(42);
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (int i = 0; i < numUsers; i++) {
+            String firstName = firstNames[random.nextInt(firstNames.length)];
+            String lastName = lastNames[random.nextInt(lastNames.length)];
+            String displayName = random.nextInt(5) == 0 ? "" : firstName + " " + lastName;
+            suggestions.add(createSuggestion(String.format("user%05d", i), displayName));
+        }
+        return suggestions;
+    }
+
+    /*
+     * the filter SuggestionAdapter used to run over every user for each typed character
+     */
+    private static List<Suggestion> filterLegacy(List<Suggestion> suggestions, String constraint) {
+        List<Suggestion> nSuggestionList = new ArrayList<>();
+        String lowerCaseConstraint = constraint.toLowerCase();
+        for (Suggestion suggestion : suggestions) {
+            if (suggestion.getUserLogin().toLowerCase().startsWith(lowerCaseConstraint)
+                    || suggestion.getDisplayName().toLowerCase().startsWith(lowerCaseConstraint)
+                    || suggestion.getDisplayName().toLowerCase().contains(" " + lowerCaseConstraint)) {
+                nSuggestionList.add(suggestion);
+            }
+        }
+        return nSuggestionList;
+    }
+}
@@ -0,0 +1,169 @@
+package org.wordpress.android.ui.uploads;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.model.MediaModel;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class MediaUploadQueueTest {
+    private static final int SITE_ID = 1;
+    private static final int MAX_IN_PROGRESS = 2;
+
+    private MediaUploadQueue mQueue;
+
+    @Before
+    public void setUp() {
+        mQueue = new MediaUploadQueue();
+    }
+
+    @Test
+    public void testMediaStartInTheOrderTheyWereQueued() {
+        for (int id = 5; id > 0; id--) {
+            assertTrue(mQueue.add(createMedia(id, SITE_ID, 1)));
+        }
+
+        assertEquals(5, mQueue.startNext(Integer.MAX_VALUE).getId());
+        assertEquals(4, mQueue.startNext(Integer.MAX_VALUE).getId());
+        assertEquals(3, mQueue.startNext(Integer.MAX_VALUE).getId());
+        assertEquals(2, mQueue.startNext(Integer.MAX_VALUE).getId());
+        assertEquals(1, mQueue.startNext(Integer.MAX_VALUE).getId());
+        assertNull(mQueue.startNext(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testStartedMediaMoveFromPendingToInProgress() {
+        mQueue.add(createMedia(1, SITE_ID, 1));
+        assertFalse(mQueue.isInProgress(1));
+        assertTrue(mQueue.contains(1));
+
+        mQueue.startNext(MAX_IN_PROGRESS);
+        assertTrue(mQueue.isInProgress(1));
+        assertTrue(mQueue.contains(1));
+        assertTrue(mQueue.getPending().isEmpty());
+
+        assertNotNull(mQueue.complete(1));
+        assertFalse(mQueue.contains(1));
+        assertTrue(mQueue.isEmpty());
+    }
+
+    @Test
+    public void testNoMoreThanTheLimitAreInProgress() {
+        for (int id = 1; id <= 5; id++) {
+            mQueue.add(createMedia(id, SITE_ID, 1));
+        }
+
+        assertNotNull(mQueue.startNext(MAX_IN_PROGRESS));
+        assertNotNull(mQueue.startNext(MAX_IN_PROGRESS));
+        assertNull(mQueue.startNext(MAX_IN_PROGRESS));
+        assertEquals(MAX_IN_PROGRESS, mQueue.getNumInProgress());
+        assertEquals(3, mQueue.getPending().size());
+
+        // a lower limit (eg: after switching from wifi to mobile) doesn't start anything
+        assertNull(mQueue.startNext(1));
+    }
+
+    @Test
+    public void testDroppedMediaFreesItsSlotForTheNextPendingMedia() {
+        for (int id = 1; id <= 3; id++) {
+            mQueue.add(createMedia(id, SITE_ID, 1));
+        }
+        mQueue.startNext(MAX_IN_PROGRESS);
+        mQueue.startNext(MAX_IN_PROGRESS);
+        assertNull(mQueue.startNext(MAX_IN_PROGRESS));
+
+        // this is what MediaUploadHandler does with media whose site is gone
+        assertNotNull(mQueue.complete(1));
+        MediaModel next = mQueue.startNext(MAX_IN_PROGRESS);
+        assertNotNull(next);
+        assertEquals(3, next.getId());
+        assertEquals(MAX_IN_PROGRESS, mQueue.getNumInProgress());
+    }
+
+    @Test
+    public void testSameFileIsOnlyQueuedOncePerSite() {
+        assertTrue(mQueue.add(createMedia(1, SITE_ID, 1)));
+        assertFalse(mQueue.add(createMedia(2, SITE_ID, 1)));
+        // the same id is never queued twice
+        assertFalse(mQueue.add(createMedia(1, SITE_ID, 1)));
+
+        // the same file for another site is a separate upload
+        MediaModel otherSite = createMedia(3, SITE_ID + 1, 1);
+        otherSite.setFilePath(getFilePath(1));
+        assertTrue(mQueue.add(otherSite));
+
+        // and the file is still a duplicate once it's in progress
+        mQueue.startNext(MAX_IN_PROGRESS);
+        MediaModel duplicate = createMedia(4, SITE_ID, 1);
+        duplicate.setFilePath(getFilePath(1));
+        assertFalse(mQueue.add(duplicate));
+    }
+
+    @Test
+    public void testRemovedPendingMediaIsSkipped() {
+        for (int id = 1; id <= 3; id++) {
+            mQueue.add(createMedia(id, SITE_ID, 1));
+        }
+        assertNotNull(mQueue.removePending(1));
+        assertNull(mQueue.removePending(1));
+        assertFalse(mQueue.contains(1));
+
+        assertEquals(2, mQueue.startNext(MAX_IN_PROGRESS).getId());
+        assertEquals(3, mQueue.startNext(MAX_IN_PROGRESS).getId());
+        assertTrue(mQueue.getPending().isEmpty());
+    }
+
+    @Test
+    public void testMediaForPost() {
+        mQueue.add(createMedia(1, SITE_ID, 10));
+        mQueue.add(createMedia(2, SITE_ID, 20));
+        mQueue.add(createMedia(3, SITE_ID, 10));
+        mQueue.startNext(1);
+
+        assertTrue(mQueue.hasInProgressForPost(10));
+        assertTrue(mQueue.hasPendingForPost(10));
+        assertFalse(mQueue.hasInProgressForPost(20));
+        assertTrue(mQueue.hasPendingForPost(20));
+        assertFalse(mQueue.hasPendingForPost(30));
+
+        // in-progress media are listed before pending media
+        List<MediaModel> mediaForPost = mQueue.getMediaForPost(10);
+        assertEquals(2, mediaForPost.size());
+        assertEquals(1, mediaForPost.get(0).getId());
+        assertEquals(3, mediaForPost.get(1).getId());
+    }
+
+    @Test
+    public void testMediaAddedInProgressIsReturned() {
+        MediaModel media = createMedia(1, SITE_ID, 1);
+        mQueue.addInProgress(media);
+        assertSame(media, mQueue.getInProgress(1));
+        assertEquals(1, mQueue.getNumInProgress());
+        // adding it again doesn't take another slot
+        mQueue.addInProgress(media);
+        assertEquals(1, mQueue.getNumInProgress());
+    }
+
+    private static MediaModel createMedia(int id, int localSiteId, int localPostId) {
+        MediaModel media = new MediaModel();
+        media.setId(id);
+        media.setLocalSiteId(localSiteId);
+        media.setLocalPostId(localPostId);
+        media.setFilePath(getFilePath(id));
+        return media;
+    }
+
+    private static String getFilePath(int id) {
+        return "/sdcard/DCIM/image" + id + ".jpg";
+    }
+}
@@ -0,0 +1,151 @@
+package org.wordpress.android.util;
+
+import android.graphics.Bitmap;
+
+import com.android.volley.Network;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.ImageLoader;
+import com.android.volley.toolbox.ImageLoader.ImageContainer;
+import com.android.volley.toolbox.ImageLoader.ImageListener;
+import com.android.volley.toolbox.NoCache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class BitmapLruCacheTest {
+    private static final String URL = "https://example.com/avatar.jpg";
+    private static final int MEMORY_CACHE_KB = 1024;
+    private static final long DISK_CACHE_BYTES = 1024 * 1024;
+
+    @Rule public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private DiskBitmapCache mDiskCache;
+    private RecordingBitmapCache mCache;
+    private RecordingRequestQueue mRequestQueue;
+    private ImageLoader mImageLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        mDiskCache = new DiskBitmapCache(mFolder.newFolder("bitmaps"), DISK_CACHE_BYTES);
+        mDiskCache.waitForPendingWork();
+        mCache = new RecordingBitmapCache(MEMORY_CACHE_KB, mDiskCache);
+        mRequestQueue = new RecordingRequestQueue();
+        mImageLoader = new ImageLoader(mRequestQueue, mCache);
+    }
+
+    @Test
+    public void testTrimmedImageIsServedFromDiskWithoutNetworkRequest() throws Exception {
+        // the first load goes to the network, which is simulated by passing the result to the cache
+        // the way ImageLoader does when the request completes
+        assertNull(load(URL));
+        assertEquals(1, mRequestQueue.mRequests.size());
+        mCache.putBitmap(mCache.mLastKey, createBitmap());
+        mDiskCache.waitForPendingWork();
+
+        // a trim-memory event empties the memory cache
+        mCache.evictAll();
+        assertNull(mCache.get(mCache.mLastKey));
+
+        assertNotNull(load(URL));
+        assertEquals(1, mRequestQueue.mRequests.size());
+        // and the image is back in memory
+        assertNotNull(mCache.get(mCache.mLastKey));
+    }
+
+    @Test
+    public void testLocalImagesAreNotStoredOnDisk() throws Exception {
+        String key = "#W0#H0/sdcard/DCIM/image.jpg";
+        mCache.putBitmap(key, createBitmap());
+        mDiskCache.waitForPendingWork();
+
+        mCache.evictAll();
+        assertNull(mCache.getBitmap(key));
+    }
+
+    @Test
+    public void testRemoveSimilarRemovesDiskEntries() throws Exception {
+        String key = "#W0#H0" + URL;
+        mCache.putBitmap(key, createBitmap());
+        mDiskCache.waitForPendingWork();
+
+        mCache.removeSimilar(URL);
+        mDiskCache.waitForPendingWork();
+        assertNull(mCache.getBitmap(key));
+    }
+
+    private Bitmap load(String url) {
+        final List<Bitmap> bitmaps = new ArrayList<>();
+        mImageLoader.get(url, new ImageListener() {
+            @Override
+            public void onResponse(ImageContainer response, boolean isImmediate) {
+                if (isImmediate && response.getBitmap() != null) {
+                    bitmaps.add(response.getBitmap());
+                }
+            }
+
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                // nop
+            }
+        });
+        return bitmaps.isEmpty() ? null : bitmaps.get(0);
+    }
+
+    private static Bitmap createBitmap() {
+        return Bitmap.createBitmap(48, 48, Bitmap.Config.RGB_565);
+    }
+
+    /*
+     * records the key ImageLoader looked up last, so the test can store an image under the same key
+     */
+    private static class RecordingBitmapCache extends BitmapLruCache {
+        private String mLastKey;
+
+        RecordingBitmapCache(int maxSize, DiskBitmapCache diskCache) {
+            super(maxSize, diskCache);
+        }
+
+        @Override
+        public Bitmap getBitmap(String key) {
+            mLastKey = key;
+            return super.getBitmap(key);
+        }
+    }
+
+    /*
+     * request queue which is never started, it only records the requests ImageLoader makes
+     */
+    private static class RecordingRequestQueue extends RequestQueue {
+        private final List<Request<?>> mRequests = new ArrayList<>();
+
+        RecordingRequestQueue() {
+            super(new NoCache(), new Network() {
+                @Override
+                public NetworkResponse performRequest(Request<?> request) throws VolleyError {
+                    throw new VolleyError("unexpected network request");
+                }
+            });
+        }
+
+        @Override
+        public <T> Request<T> add(Request<T> request) {
+            mRequests.add(request);
+            return request;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package org.wordpress.android.analytics;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wordpress.android.analytics.AnalyticsTracker.Stat;
+import org.wordpress.android.util.AppLog;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue which sits between a tracker and the client which sends its events, so the tracker's callers
+ * don't prepare events themselves. Tracking an event only copies its properties and hands it to the
+ * queue's thread, which prepares the event and passes it on right away - the client does its own
+ * batching, so events aren't held back here.
+ *
+ * When passing an event on fails, it and every event tracked after it are kept in order and retried
+ * with exponential backoff. Events which are waiting to be retried are written to a journal file, one
+ * JSON object per line, which is replayed when the queue is created so they aren't lost if the process
+ * is killed. Each event keeps the time it was tracked, so events which are passed on late can still be
+ * sent with their original time. Work which must happen after the events tracked before it, such as
+ * changing the user's properties, is run on the queue's thread through runAfterPendingEvents().
+ */
+class AnalyticsEventQueue {
+    static final long MIN_BACKOFF_MS = 5 * 1000;
+    static final long MAX_BACKOFF_MS = 10 * 60 * 1000;
+
+    // oldest events are dropped past this so the journal can't grow without bound - dropped events
+    // stay in the journal until it's next rewritten, and are skipped when it's replayed
+    static final int MAX_PENDING_EVENTS = 2000;
+
+    private static final String KEY_NAME = "n";
+    private static final String KEY_PROPERTIES = "p";
+    private static final String KEY_USER = "u";
+    private static final String KEY_USER_TYPE = "t";
+    private static final String KEY_TIME = "ts";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    interface EventHandler {
+        /*
+         * called on the queue's thread to build the properties sent with the passed stat
+         */
+        @NonNull JSONObject prepareProperties(@NonNull Stat stat, @Nullable Map<String, ?> properties);
+
+        /*
+         * called on the queue's thread to pass on a single event - the event and the ones tracked
+         * after it are retried if this throws
+         */
+        void sendEvent(@NonNull QueuedEvent event);
+
+        /*
+         * called on the queue's thread after all pending events have been passed on by flush()
+         */
+        void onFlushed();
+    }
+
+    static class QueuedEvent {
+        final String mName;
+        final JSONObject mProperties;
+        final String mUser;
+        final String mUserType;
+        // when the event was tracked
+        final long mTime;
+
+        QueuedEvent(String name, JSONObject properties, String user, String userType, long time) {
+            mName = name;
+            mProperties = properties;
+            mUser = user;
+            mUserType = userType;
+            mTime = time;
+        }
+
+        private String toJournalLine() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put(KEY_NAME, mName);
+            json.put(KEY_PROPERTIES, mProperties);
+            json.put(KEY_USER, mUser);
+            json.put(KEY_USER_TYPE, mUserType);
+            json.put(KEY_TIME, mTime);
+            // JSONObject escapes line breaks, so each event is always a single line
+            return json.toString() + "\n";
+        }
+
+        private static QueuedEvent fromJournalLine(String line) throws JSONException {
+            JSONObject json = new JSONObject(line);
+            // lines journaled before event times were recorded are treated as tracked now
+            return new QueuedEvent(json.getString(KEY_NAME), json.getJSONObject(KEY_PROPERTIES),
+                    json.getString(KEY_USER), json.getString(KEY_USER_TYPE),
+                    json.optLong(KEY_TIME, System.currentTimeMillis()));
+        }
+    }
+
+    private final ScheduledExecutorService mExecutor;
+    private final EventHandler mHandler;
+    private final File mJournalFile;
+
+    // everything below is only accessed on the queue's thread
+    private final LinkedList<QueuedEvent> mPendingEvents = new LinkedList<>();
+    private FileOutputStream mJournalStream;
+    private ScheduledFuture<?> mScheduledRetry;
+    private long mBackoffMs;
+    // # events at the start of the journal which were dropped from the pending events
+    private int mNumDroppedInJournal;
+
+    AnalyticsEventQueue(@NonNull Context context, @NonNull String journalFileName, @NonNull EventHandler handler) {
+        this(new File(context.getFilesDir(), journalFileName), handler, Executors.newSingleThreadScheduledExecutor());
+    }
+
+    AnalyticsEventQueue(@NonNull File journalFile, @NonNull EventHandler handler,
+                        @NonNull ScheduledExecutorService executor) {
+        mHandler = handler;
+        mJournalFile = journalFile;
+        mExecutor = executor;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                replayJournal();
+            }
+        });
+    }
+
+    /**
+     * Queues an event - safe to call from any thread. The properties are copied, so the passed map
+     * may be changed afterwards.
+     */
+    void add(@NonNull final String name, @NonNull final Stat stat, @Nullable Map<String, ?> properties,
+             @NonNull final String user, @NonNull final String userType) {
+        final Map<String, ?> propertiesCopy = properties != null ? new HashMap<String, Object>(properties) : null;
+        final long time = System.currentTimeMillis();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                JSONObject preparedProperties = mHandler.prepareProperties(stat, propertiesCopy);
+                QueuedEvent event = new QueuedEvent(name, preparedProperties, user, userType, time);
+                // events which are waiting to be retried go first
+                if (mPendingEvents.isEmpty() && trySendEvent(event)) {
+                    return;
+                }
+                addPendingEvent(event);
+            }
+        });
+    }
+
+    /**
+     * Passes on all pending events now, ignoring any backoff
+     */
+    void flush() {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (sendPendingEvents()) {
+                    mHandler.onFlushed();
+                }
+            }
+        });
+    }
+
+    /**
+     * Passes on all pending events and then runs the passed action on the queue's thread, so it's
+     * ordered after every event queued before it. The action still runs if the events can't be
+     * passed on, in which case they're retried afterwards as usual.
+     */
+    void runAfterPendingEvents(@NonNull final Runnable action) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                sendPendingEvents();
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Same as runAfterPendingEvents() but then drops any events which couldn't be passed on and
+     * deletes the journal, since it identifies the user - used when the user's data is cleared
+     */
+    void clear(@NonNull final Runnable action) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                sendPendingEvents();
+                cancelScheduledRetry();
+                mBackoffMs = 0;
+                mPendingEvents.clear();
+                rewriteJournal();
+                action.run();
+            }
+        });
+    }
+
+    /*
+     * passes on the passed event, returns false and starts backing off if it can't be passed on
+     */
+    private boolean trySendEvent(@NonNull QueuedEvent event) {
+        try {
+            mHandler.sendEvent(event);
+            mBackoffMs = 0;
+            return true;
+        } catch (RuntimeException e) {
+            mBackoffMs = Math.min(MAX_BACKOFF_MS, Math.max(MIN_BACKOFF_MS, mBackoffMs * 2));
+            AppLog.e(AppLog.T.STATS, "analytics queue > unable to send " + event.mName
+                    + ", retrying in " + (mBackoffMs / 1000) + " seconds", e);
+            scheduleRetry(mBackoffMs);
+            return false;
+        }
+    }
+
+    /*
+     * keeps an event which couldn't be passed on yet, in memory and in the journal
+     */
+    private void addPendingEvent(@NonNull QueuedEvent event) {
+        mPendingEvents.add(event);
+        appendToJournal(event);
+        if (mPendingEvents.size() > MAX_PENDING_EVENTS) {
+            mPendingEvents.removeFirst();
+            mNumDroppedInJournal++;
+            AppLog.w(AppLog.T.STATS, "analytics queue > too many pending events, dropped oldest");
+            // the journal is only compacted once it's twice as long as it needs to be, so
+            // each event doesn't rewrite the whole thing
+            if (mNumDroppedInJournal >= MAX_PENDING_EVENTS) {
+                rewriteJournal();
+            }
+        }
+    }
+
+    /*
+     * passes on the pending events in order, removing each one as it's accepted - returns false if one
+     * couldn't be passed on, in which case a retry has been scheduled
+     */
+    private boolean sendPendingEvents() {
+        cancelScheduledRetry();
+        int numSent = 0;
+        try {
+            while (!mPendingEvents.isEmpty()) {
+                if (!trySendEvent(mPendingEvents.getFirst())) {
+                    return false;
+                }
+                mPendingEvents.removeFirst();
+                numSent++;
+            }
+            return true;
+        } finally {
+            if (numSent > 0) {
+                rewriteJournal();
+            }
+        }
+    }
+
+    private void scheduleRetry(long delayMs) {
+        cancelScheduledRetry();
+        mScheduledRetry = mExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                mScheduledRetry = null;
+                sendPendingEvents();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelScheduledRetry() {
+        if (mScheduledRetry != null) {
+            mScheduledRetry.cancel(false);
+            mScheduledRetry = null;
+        }
+    }
+
+    private void replayJournal() {
+        if (!mJournalFile.exists()) {
+            return;
+        }
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(mJournalFile), UTF8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    mPendingEvents.add(QueuedEvent.fromJournalLine(line));
+                } catch (JSONException e) {
+                    // most likely a partial line written as the process was killed
+                    AppLog.w(AppLog.T.STATS, "analytics queue > skipped unreadable journal entry");
+                }
+            }
+        } catch (IOException e) {
+            AppLog.e(AppLog.T.STATS, "analytics queue > unable to read journal", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+
+        // skip the oldest events if the journal still holds ones dropped for being over the limit
+        while (mPendingEvents.size() > MAX_PENDING_EVENTS) {
+            mPendingEvents.removeFirst();
+        }
+
+        rewriteJournal();
+        if (!mPendingEvents.isEmpty()) {
+            AppLog.d(AppLog.T.STATS, "analytics queue > replaying " + mPendingEvents.size() + " journaled events");
+            sendPendingEvents();
+        }
+    }
+
+    private void appendToJournal(QueuedEvent event) {
+        try {
+            if (mJournalStream == null) {
+                mJournalStream = new FileOutputStream(mJournalFile, true);
+            }
+            // written straight through to the file rather than buffered, so it's there even if the
+            // process is killed right afterwards
+            mJournalStream.write(event.toJournalLine().getBytes(UTF8));
+        } catch (IOException | JSONException e) {
+            AppLog.e(AppLog.T.STATS, "analytics queue > unable to journal event " + event.mName, e);
+        }
+    }
+
+    /*
+     * replaces the journal with the pending events, which is usually none at all
+     */
+    private void rewriteJournal() {
+        closeJournalStream();
+        mNumDroppedInJournal = 0;
+        if (mPendingEvents.isEmpty()) {
+            if (mJournalFile.exists() && !mJournalFile.delete()) {
+                AppLog.w(AppLog.T.STATS, "analytics queue > unable to delete journal");
+            }
+            return;
+        }
+
+        File tempFile = new File(mJournalFile.getPath() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            StringBuilder sb = new StringBuilder();
+            for (QueuedEvent event : mPendingEvents) {
+                try {
+                    sb.append(event.toJournalLine());
+                } catch (JSONException e) {
+                    AppLog.e(AppLog.T.STATS, "analytics queue > unable to journal event " + event.mName, e);
+                }
+            }
+            out.write(sb.toString().getBytes(UTF8));
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(mJournalFile)) {
+                AppLog.w(AppLog.T.STATS, "analytics queue > unable to replace journal");
+            }
+        } catch (IOException e) {
+            AppLog.e(AppLog.T.STATS, "analytics queue > unable to rewrite journal", e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private void closeJournalStream() {
+        if (mJournalStream != null) {
+            try {
+                mJournalStream.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            mJournalStream = null;
+        }
+    }
+}
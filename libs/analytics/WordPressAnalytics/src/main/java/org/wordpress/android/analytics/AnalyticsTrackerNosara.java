@@ -7,6 +7,7 @@ import com.automattic.android.tracks.TracksClient;
 
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.wordpress.android.analytics.AnalyticsEventQueue.QueuedEvent;
 import org.wordpress.android.util.AppLog;
 
 import java.util.HashMap;
@@ -19,12 +20,39 @@ public class AnalyticsTrackerNosara extends Tracker {
     private static final String TRACKS_ANON_ID = "nosara_tracks_anon_id";
 
     private static final String EVENTS_PREFIX = "wpandroid_";
+    private static final String EVENT_JOURNAL_FILE_NAME = "nosara_event_journal";
+
+    // the client stamps events with the time they're passed to it, so events which reach it this long
+    // after they were tracked (because they were retried or replayed from the journal) also carry the
+    // time they were tracked
+    private static final long LATE_EVENT_MS = 60 * 1000;
+    private static final String TRACKED_TIME_PROPERTY = "tracked_time_ms";
 
     private TracksClient mNosaraClient;
+    private AnalyticsEventQueue mEventQueue;
 
     public AnalyticsTrackerNosara(Context context) throws IllegalArgumentException {
         super(context);
         mNosaraClient = TracksClient.getClient(context);
+        if (mNosaraClient != null) {
+            mEventQueue = new AnalyticsEventQueue(context, EVENT_JOURNAL_FILE_NAME,
+                    new AnalyticsEventQueue.EventHandler() {
+                        @Override
+                        public JSONObject prepareProperties(AnalyticsTracker.Stat stat, Map<String, ?> properties) {
+                            return mergeProperties(stat, properties);
+                        }
+
+                        @Override
+                        public void sendEvent(QueuedEvent event) {
+                            AnalyticsTrackerNosara.this.sendEvent(event);
+                        }
+
+                        @Override
+                        public void onFlushed() {
+                            mNosaraClient.flush();
+                        }
+                    });
+        }
     }
 
     String getAnonIdPrefKey() {
@@ -52,6 +80,40 @@ public class AnalyticsTrackerNosara extends Tracker {
             return;
         }
 
+        final String user;
+        final TracksClient.NosaraUserType userType;
+        if (getWordPressComUserName() != null) {
+            user = getWordPressComUserName();
+            userType = TracksClient.NosaraUserType.WPCOM;
+        } else {
+            // This is just a security checks since the anonID is already available here.
+            // refresh metadata is called on login/logout/startup and it loads/generates the anonId when necessary.
+            if (getAnonID() == null) {
+                user = generateNewAnonID();
+            } else {
+                user = getAnonID();
+            }
+            userType = TracksClient.NosaraUserType.ANON;
+        }
+
+        // It seems that we're tracking some events with user = null. Make sure we're catching the error here.
+        if (user == null) {
+            try {
+                throw new AnalyticsException("Trying to track analytics with an null user!");
+                // TODO add CrashlyticsUtils.logException or track this error in Nosara by using a special test user.
+            } catch (AnalyticsException e) {
+                AppLog.e(AppLog.T.STATS, e);
+            }
+            return;
+        }
+
+        mEventQueue.add(EVENTS_PREFIX + eventName, stat, properties, user, userType.name());
+    }
+
+    /*
+     * properties which are always sent with the passed stat
+     */
+    private static Map<String, Object> getPredefinedEventProperties(AnalyticsTracker.Stat stat) {
         Map<String, Object> predefinedEventProperties = new HashMap<String, Object>();
         switch (stat) {
             case EDITOR_ADDED_PHOTO_NEW:
@@ -208,32 +270,15 @@ public class AnalyticsTrackerNosara extends Tracker {
                 break;
         }
 
-        final String user;
-        final TracksClient.NosaraUserType userType;
-        if (getWordPressComUserName() != null) {
-            user = getWordPressComUserName();
-            userType = TracksClient.NosaraUserType.WPCOM;
-        } else {
-            // This is just a security checks since the anonID is already available here.
-            // refresh metadata is called on login/logout/startup and it loads/generates the anonId when necessary.
-            if (getAnonID() == null) {
-                user = generateNewAnonID();
-            } else {
-                user = getAnonID();
-            }
-            userType = TracksClient.NosaraUserType.ANON;
-        }
+        return predefinedEventProperties;
+    }
 
-        // It seems that we're tracking some events with user = null. Make sure we're catching the error here.
-        if (user == null) {
-            try {
-                throw new AnalyticsException("Trying to track analytics with an null user!");
-                // TODO add CrashlyticsUtils.logException or track this error in Nosara by using a special test user.
-            } catch (AnalyticsException e) {
-                AppLog.e(AppLog.T.STATS, e);
-            }
-            return;
-        }
+    /*
+     * merges the properties passed when the stat was tracked with its predefined ones - called on the
+     * event queue's thread rather than when the stat is tracked
+     */
+    private static JSONObject mergeProperties(AnalyticsTracker.Stat stat, Map<String, ?> properties) {
+        Map<String, Object> predefinedEventProperties = getPredefinedEventProperties(stat);
 
         // create the merged JSON Object of properties
         // Properties defined by the user have precedence over the default ones pre-defined at "event level"
@@ -256,7 +301,7 @@ public class AnalyticsTrackerNosara extends Tracker {
                     }
                 }
             } catch (NullPointerException e) {
-                AppLog.e(AppLog.T.STATS, "A property passed to the event " + eventName + " has null key!", e);
+                AppLog.e(AppLog.T.STATS, "A property passed to the event " + stat.name() + " has null key!", e);
             }
         }
 
@@ -264,10 +309,22 @@ public class AnalyticsTrackerNosara extends Tracker {
             propertiesToJSON = new JSONObject(predefinedEventProperties);
         }
 
-        if (propertiesToJSON.length() > 0) {
-            mNosaraClient.track(EVENTS_PREFIX + eventName, propertiesToJSON, user, userType);
+        return propertiesToJSON;
+    }
+
+    private void sendEvent(QueuedEvent event) {
+        TracksClient.NosaraUserType userType = TracksClient.NosaraUserType.valueOf(event.mUserType);
+        if (System.currentTimeMillis() - event.mTime >= LATE_EVENT_MS) {
+            try {
+                event.mProperties.put(TRACKED_TIME_PROPERTY, event.mTime);
+            } catch (JSONException e) {
+                AppLog.e(AppLog.T.STATS, e);
+            }
+        }
+        if (event.mProperties.length() > 0) {
+            mNosaraClient.track(event.mName, event.mProperties, event.mUser, userType);
         } else {
-            mNosaraClient.track(EVENTS_PREFIX + eventName, user, userType);
+            mNosaraClient.track(event.mName, event.mUser, userType);
         }
     }
 
@@ -281,7 +338,8 @@ public class AnalyticsTrackerNosara extends Tracker {
         if (mNosaraClient == null) {
             return;
         }
-        mNosaraClient.flush();
+        // the client is flushed once the queue has passed on its pending events
+        mEventQueue.flush();
     }
 
     @Override
@@ -290,11 +348,18 @@ public class AnalyticsTrackerNosara extends Tracker {
             return;
         }
 
+        // the client is updated on the event queue's thread once the events tracked before this have
+        // been passed on, so they're sent with the user and properties they were tracked with
         try {
-            JSONObject properties = new JSONObject();
+            final JSONObject properties = new JSONObject();
             properties.put(JETPACK_USER, metadata.isJetpackUser());
             properties.put(NUMBER_OF_BLOGS, metadata.getNumBlogs());
-            mNosaraClient.registerUserProperties(properties);
+            mEventQueue.runAfterPendingEvents(new Runnable() {
+                @Override
+                public void run() {
+                    mNosaraClient.registerUserProperties(properties);
+                }
+            });
         } catch (JSONException e) {
             AppLog.e(AppLog.T.UTILS, e);
         }
@@ -306,7 +371,14 @@ public class AnalyticsTrackerNosara extends Tracker {
             setWordPressComUserName(metadata.getUsername());
             // Re-unify the user
             if (getAnonID() != null) {
-                mNosaraClient.trackAliasUser(getWordPressComUserName(), getAnonID(), TracksClient.NosaraUserType.WPCOM);
+                final String userName = getWordPressComUserName();
+                final String anonId = getAnonID();
+                mEventQueue.runAfterPendingEvents(new Runnable() {
+                    @Override
+                    public void run() {
+                        mNosaraClient.trackAliasUser(userName, anonId, TracksClient.NosaraUserType.WPCOM);
+                    }
+                });
                 clearAnonID();
             }
         } else {
@@ -327,7 +399,13 @@ public class AnalyticsTrackerNosara extends Tracker {
         if (mNosaraClient == null) {
             return;
         }
-        mNosaraClient.clearUserProperties();
+        // pending events are passed on first, then the journal is deleted since it holds usernames
+        mEventQueue.clear(new Runnable() {
+            @Override
+            public void run() {
+                mNosaraClient.clearUserProperties();
+            }
+        });
     }
 
     @Override
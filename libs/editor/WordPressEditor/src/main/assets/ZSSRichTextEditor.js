@@ -335,16 +335,129 @@ ZSSEditor.callback = function(callbackScheme, callbackPath) {
 	if (isUsingiOS) {
         ZSSEditor.callbackThroughIFrame(url);
     } else if (isUsingAndroid) {
-        if (nativeState.androidApiLevel < 17) {
-            ZSSEditor.callbackThroughIFrame(url);
-        } else {
-            nativeCallbackHandler.executeCallback(callbackScheme, callbackPath);
-        }
+        ZSSEditor.queueCallback(callbackScheme, callbackPath);
 	} else {
 		console.log(url);
 	}
 };
 
+// MARK: - Callback Batching
+
+// Callbacks which only report the current state - an older one still waiting to be sent is dropped when
+// a newer one of the same kind is queued for the same field
+ZSSEditor.coalescedCallbacks = {
+    'callback-input': true,
+    'callback-selection-changed': true,
+    'callback-selection-style': true
+};
+
+// Callbacks waiting to be sent, as [callbackScheme, callbackPath, coalesceKey] in the order they were queued
+ZSSEditor.pendingCallbacks = [];
+ZSSEditor.pendingCallbacksTime = 0;
+ZSSEditor.pendingCallbacksCoalesced = 0;
+ZSSEditor.pendingCallbacksTimeout = null;
+
+// Roughly one frame
+ZSSEditor.callbackBatchDelayMs = 16;
+
+/**
+ *  @brief      Queues a callback to the native editor.
+ *  @details    Callbacks which only report the current state are held for up to a frame so bursts of
+ *              them - such as the selection changing on every key press - reach the native side as a
+ *              single batch containing only the latest of each kind for each field. Any other callback
+ *              is sent right away, along with everything queued before it so the order is preserved.
+ *
+ *  @param      callbackScheme      The callback identifier.
+ *  @param      callbackPath        The callback parameters.
+ */
+ZSSEditor.queueCallback = function(callbackScheme, callbackPath) {
+    var pending = ZSSEditor.pendingCallbacks;
+
+    if (pending.length == 0) {
+        ZSSEditor.pendingCallbacksTime = Date.now();
+    }
+
+    var coalesceKey = null;
+    if (ZSSEditor.coalescedCallbacks[callbackScheme]) {
+        coalesceKey = ZSSEditor.getCallbackCoalesceKey(callbackScheme, callbackPath);
+        for (var i = 0; i < pending.length; i++) {
+            if (pending[i][2] == coalesceKey) {
+                pending.splice(i, 1);
+                ZSSEditor.pendingCallbacksCoalesced++;
+                break;
+            }
+        }
+    }
+
+    pending.push([callbackScheme, callbackPath, coalesceKey]);
+
+    if (!ZSSEditor.coalescedCallbacks[callbackScheme]) {
+        ZSSEditor.flushCallbacks();
+    } else if (ZSSEditor.pendingCallbacksTimeout == null) {
+        // A timeout rather than requestAnimationFrame, which doesn't fire while the WebView is hidden
+        ZSSEditor.pendingCallbacksTimeout = setTimeout(ZSSEditor.flushCallbacks, ZSSEditor.callbackBatchDelayMs);
+    }
+};
+
+/**
+ *  @brief      Returns the key which identifies callbacks that replace each other when coalesced.
+ *  @details    Callbacks about a field start with its id (see getJoinedFocusedFieldIdAndCaretArguments),
+ *              so a state change in one field - such as the title losing focus - isn't replaced by
+ *              one in another field. Other callbacks are keyed by their scheme alone.
+ *
+ *  @param      callbackScheme      The callback identifier.
+ *  @param      callbackPath        The callback parameters.
+ */
+ZSSEditor.getCallbackCoalesceKey = function(callbackScheme, callbackPath) {
+    var idArgument = "id=";
+    if (callbackPath && callbackPath.indexOf(idArgument) == 0) {
+        var separatorIndex = callbackPath.indexOf(defaultCallbackSeparator);
+        var fieldId = separatorIndex > -1 ? callbackPath.substring(idArgument.length, separatorIndex)
+                : callbackPath.substring(idArgument.length);
+        return callbackScheme + defaultCallbackSeparator + fieldId;
+    }
+    return callbackScheme;
+};
+
+/**
+ *  @brief      Sends all queued callbacks to the native editor.
+ *  @details    Callbacks are sent to JsCallbackReceiver.executeCallbacks() as one flat JSON array:
+ *              [queuedTime, numCoalesced, callbackScheme1, callbackPath1, callbackScheme2, ...]
+ *              The iframe fallback used below API 17 can't carry a batch, so there each callback is
+ *              still sent on its own.
+ */
+ZSSEditor.flushCallbacks = function() {
+    if (ZSSEditor.pendingCallbacksTimeout != null) {
+        clearTimeout(ZSSEditor.pendingCallbacksTimeout);
+        ZSSEditor.pendingCallbacksTimeout = null;
+    }
+
+    var pending = ZSSEditor.pendingCallbacks;
+    if (pending.length == 0) {
+        return;
+    }
+
+    ZSSEditor.pendingCallbacks = [];
+
+    if (nativeState.androidApiLevel < 17) {
+        for (var i = 0; i < pending.length; i++) {
+            var url = pending[i][0] + ":";
+            if (pending[i][1]) {
+                url = url + pending[i][1];
+            }
+            ZSSEditor.callbackThroughIFrame(url);
+        }
+    } else {
+        var batch = [ZSSEditor.pendingCallbacksTime, ZSSEditor.pendingCallbacksCoalesced];
+        for (var i = 0; i < pending.length; i++) {
+            batch.push(pending[i][0], pending[i][1] ? String(pending[i][1]) : null);
+        }
+        nativeCallbackHandler.executeCallbacks(JSON.stringify(batch));
+    }
+
+    ZSSEditor.pendingCallbacksCoalesced = 0;
+};
+
 /**
  *  @brief      Executes a callback by loading it into an IFrame.
  *  @details    The reason why we're using this instead of window.location is that window.location
@@ -3577,11 +3690,7 @@ ZSSField.prototype.callback = function(callbackScheme, callbackPath) {
     if (isUsingiOS) {
         ZSSEditor.callbackThroughIFrame(url);
     } else if (isUsingAndroid) {
-        if (nativeState.androidApiLevel < 17) {
-            ZSSEditor.callbackThroughIFrame(url);
-        } else {
-            nativeCallbackHandler.executeCallback(callbackScheme, callbackPath);
-        }
+        ZSSEditor.queueCallback(callbackScheme, callbackPath);
     } else {
         console.log(url);
     }
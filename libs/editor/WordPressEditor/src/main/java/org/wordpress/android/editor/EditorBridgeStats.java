@@ -0,0 +1,95 @@
+package org.wordpress.android.editor;
+
+import java.util.Locale;
+
+/**
+ * Counts the traffic across the bridge between the native editor and the JavaScript editor during an
+ * editing session. Messages are counted separately from the batches they're delivered in, along with
+ * the messages dropped because a newer message of the same kind replaced them before delivery.
+ *
+ * Updated from both the UI thread and the WebView's JavaScript bridge thread.
+ */
+public class EditorBridgeStats {
+    private int mJsMessages;
+    private int mJsBatches;
+    private int mJsCoalesced;
+    private long mJsTotalDelayMs;
+    private long mJsMaxDelayMs;
+
+    private int mNativeScripts;
+    private int mNativeEvaluations;
+    private int mNativeCoalesced;
+
+    private int mRoundTrips;
+    private int mRoundTripTimeouts;
+    private long mRoundTripTotalMs;
+    private long mRoundTripMaxMs;
+
+    /*
+     * a batch of messages from JavaScript was received - delayMs is how long the oldest message in the
+     * batch waited between being sent and arriving
+     */
+    synchronized void recordJsBatch(int numMessages, int numCoalesced, long delayMs) {
+        mJsBatches++;
+        mJsMessages += numMessages;
+        mJsCoalesced += numCoalesced;
+        delayMs = Math.max(0, delayMs);
+        mJsTotalDelayMs += delayMs;
+        mJsMaxDelayMs = Math.max(mJsMaxDelayMs, delayMs);
+    }
+
+    /*
+     * scripts queued for the JavaScript editor were evaluated in a single call
+     */
+    synchronized void recordNativeEvaluation(int numScripts) {
+        mNativeEvaluations++;
+        mNativeScripts += numScripts;
+    }
+
+    /*
+     * a queued script was replaced by a newer one before it was evaluated
+     */
+    synchronized void recordNativeCoalesced() {
+        mNativeCoalesced++;
+    }
+
+    /*
+     * a request to the JavaScript editor was answered (or timed out) after elapsedMs
+     */
+    synchronized void recordRoundTrip(long elapsedMs, boolean timedOut) {
+        if (timedOut) {
+            mRoundTripTimeouts++;
+            return;
+        }
+        mRoundTrips++;
+        mRoundTripTotalMs += elapsedMs;
+        mRoundTripMaxMs = Math.max(mRoundTripMaxMs, elapsedMs);
+    }
+
+    public synchronized void reset() {
+        mJsMessages = 0;
+        mJsBatches = 0;
+        mJsCoalesced = 0;
+        mJsTotalDelayMs = 0;
+        mJsMaxDelayMs = 0;
+        mNativeScripts = 0;
+        mNativeEvaluations = 0;
+        mNativeCoalesced = 0;
+        mRoundTrips = 0;
+        mRoundTripTimeouts = 0;
+        mRoundTripTotalMs = 0;
+        mRoundTripMaxMs = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "editor bridge > from js: %d messages in %d batches (%d coalesced), "
+                        + "%d ms avg delay, %d ms max delay; to js: %d scripts in %d evaluations (%d coalesced); "
+                        + "round trips: %d, %d ms avg, %d ms max, %d timed out",
+                mJsMessages, mJsBatches, mJsCoalesced,
+                mJsBatches > 0 ? mJsTotalDelayMs / mJsBatches : 0, mJsMaxDelayMs,
+                mNativeScripts, mNativeEvaluations, mNativeCoalesced,
+                mRoundTrips, mRoundTrips > 0 ? mRoundTripTotalMs / mRoundTrips : 0, mRoundTripMaxMs,
+                mRoundTripTimeouts);
+    }
+}
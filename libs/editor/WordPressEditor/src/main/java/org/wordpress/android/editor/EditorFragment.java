@@ -379,6 +379,14 @@ public class EditorFragment extends EditorFragmentAbstract implements View.OnCli
         mIsKeyboardOpen = false;
     }
 
+    @Override
+    public void onDestroy() {
+        if (mWebView != null) {
+            AppLog.d(T.EDITOR, mWebView.getBridgeStats().toString());
+        }
+        super.onDestroy();
+    }
+
     @Override
     public void onResume() {
         super.onResume();
@@ -561,9 +569,10 @@ public class EditorFragment extends EditorFragmentAbstract implements View.OnCli
         // for callbacks from JS instead. These are received by WebViewClient.shouldOverrideUrlLoading() and then
         // passed on to the JsCallbackReceiver
         if (Build.VERSION.SDK_INT < 17) {
-            mWebView.setJsCallbackReceiver(new JsCallbackReceiver(this));
+            mWebView.setJsCallbackReceiver(new JsCallbackReceiver(this, mWebView.getBridgeStats()));
         } else {
-            mWebView.addJavascriptInterface(new JsCallbackReceiver(this), JS_CALLBACK_HANDLER);
+            mWebView.addJavascriptInterface(new JsCallbackReceiver(this, mWebView.getBridgeStats()),
+                    JS_CALLBACK_HANDLER);
         }
 
         mWebView.loadDataWithBaseURL("file:///android_asset/", htmlEditor, "text/html", "utf-8", "");
@@ -727,7 +736,7 @@ public class EditorFragment extends EditorFragmentAbstract implements View.OnCli
                     });
 
                     try {
-                        if (mGetSelectedTextCountDownLatch.await(1, TimeUnit.SECONDS)) {
+                        if (awaitJsResponse(mGetSelectedTextCountDownLatch)) {
                             dialogBundle.putString(LinkDialogFragment.LINK_DIALOG_ARG_TEXT, mJavaScriptResult);
                         }
                     } catch (InterruptedException e) {
@@ -950,7 +959,7 @@ public class EditorFragment extends EditorFragmentAbstract implements View.OnCli
         });
 
         try {
-            mGetTitleCountDownLatch.await(1, TimeUnit.SECONDS);
+            awaitJsResponse(mGetTitleCountDownLatch);
         } catch (InterruptedException e) {
             AppLog.e(T.EDITOR, e);
             Thread.currentThread().interrupt();
@@ -989,7 +998,7 @@ public class EditorFragment extends EditorFragmentAbstract implements View.OnCli
         });
 
         try {
-            mGetContentCountDownLatch.await(1, TimeUnit.SECONDS);
+            awaitJsResponse(mGetContentCountDownLatch);
         } catch (InterruptedException e) {
             AppLog.e(T.EDITOR, e);
             Thread.currentThread().interrupt();
@@ -998,6 +1007,16 @@ public class EditorFragment extends EditorFragmentAbstract implements View.OnCli
         return StringUtils.notNullStr(mContentHtml);
     }
 
+    /*
+     * waits for the JavaScript editor to respond to a request, returns false if it timed out
+     */
+    private boolean awaitJsResponse(CountDownLatch latch) throws InterruptedException {
+        long startTime = SystemClock.elapsedRealtime();
+        boolean responded = latch.await(1, TimeUnit.SECONDS);
+        mWebView.getBridgeStats().recordRoundTrip(SystemClock.elapsedRealtime() - startTime, !responded);
+        return responded;
+    }
+
     @Override
     public void appendMediaFile(final MediaFile mediaFile, final String mediaUrl, ImageLoader imageLoader) {
         if (!mDomHasLoaded) {
@@ -1160,8 +1179,14 @@ public class EditorFragment extends EditorFragmentAbstract implements View.OnCli
             @Override
             public void run() {
                 String progressString = String.format(Locale.US, "%.1f", progress);
-                mWebView.execJavaScriptFromString("ZSSEditor.setProgressOnMedia(" + mediaId + ", " +
-                        progressString + ");");
+                String javaScript = "ZSSEditor.setProgressOnMedia(" + mediaId + ", " + progressString + ");";
+                if (progress == 0) {
+                    // sent right away since the first update marks the media as uploading
+                    mWebView.execJavaScriptFromString(javaScript);
+                } else {
+                    // only the latest progress for each media item is sent each frame
+                    mWebView.queueJavaScript("progress-" + mediaId, javaScript);
+                }
             }
         });
     }
@@ -14,7 +14,8 @@ public class EditorWebView extends EditorWebViewAbstract {
     }
 
     @SuppressLint("NewApi")
-    public void execJavaScriptFromString(String javaScript) {
+    @Override
+    protected void runJavaScript(String javaScript) {
         this.evaluateJavascript(javaScript, null);
     }
 
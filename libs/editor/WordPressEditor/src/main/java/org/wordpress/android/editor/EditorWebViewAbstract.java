@@ -31,13 +31,22 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * A text editor WebView with support for JavaScript execution.
+ *
+ * Scripts passed to {@link #execJavaScriptFromString(String)} are evaluated right away. Frequent updates
+ * whose intermediate states don't matter, such as upload progress, can instead be passed to
+ * {@link #queueJavaScript(String, String)}, which evaluates everything queued during a frame in a single
+ * call and drops queued scripts which are replaced by newer ones with the same key.
  */
 public abstract class EditorWebViewAbstract extends WebView {
-    public abstract void execJavaScriptFromString(String javaScript);
+    /**
+     * Evaluates the passed script right away - must be called from the UI thread
+     */
+    protected abstract void runJavaScript(String javaScript);
 
     public static final int REQUEST_TIMEOUT_MS = 30000;
 
@@ -49,6 +58,17 @@ public abstract class EditorWebViewAbstract extends WebView {
 
     private Map<String, String> mHeaderMap = new HashMap<>();
 
+    private final EditorBridgeStats mBridgeStats = new EditorBridgeStats();
+
+    // scripts waiting for the next frame, in the order they were queued
+    private final LinkedHashMap<String, String> mQueuedJavaScript = new LinkedHashMap<>();
+    private final Runnable mFlushQueuedJavaScriptRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushQueuedJavaScript();
+        }
+    };
+
     public EditorWebViewAbstract(Context context, AttributeSet attrs) {
         super(context, attrs);
         configureWebView();
@@ -198,6 +218,54 @@ public abstract class EditorWebViewAbstract extends WebView {
         return false;
     }
 
+    /**
+     * Evaluates the passed script, after any queued scripts so they're still evaluated in order - must be
+     * called from the UI thread
+     */
+    public void execJavaScriptFromString(String javaScript) {
+        flushQueuedJavaScript();
+        mBridgeStats.recordNativeEvaluation(1);
+        runJavaScript(javaScript);
+    }
+
+    /**
+     * Queues the passed script to be evaluated on the next frame, replacing any queued script with the
+     * same key - must be called from the UI thread
+     */
+    public void queueJavaScript(String key, String javaScript) {
+        // removed first so the replacement moves to the end of the queue
+        if (mQueuedJavaScript.remove(key) != null) {
+            mBridgeStats.recordNativeCoalesced();
+        }
+        mQueuedJavaScript.put(key, javaScript);
+        if (mQueuedJavaScript.size() == 1) {
+            postOnAnimation(mFlushQueuedJavaScriptRunnable);
+        }
+    }
+
+    /**
+     * Evaluates all queued scripts in a single call - must be called from the UI thread
+     */
+    public void flushQueuedJavaScript() {
+        if (mQueuedJavaScript.isEmpty()) {
+            return;
+        }
+        removeCallbacks(mFlushQueuedJavaScriptRunnable);
+
+        StringBuilder sb = new StringBuilder();
+        for (String javaScript : mQueuedJavaScript.values()) {
+            // each script is wrapped so one which fails doesn't stop the others
+            sb.append("try {\n").append(javaScript).append("\n} catch (e) { console.error(e); }\n");
+        }
+        mBridgeStats.recordNativeEvaluation(mQueuedJavaScript.size());
+        mQueuedJavaScript.clear();
+        runJavaScript(sb.toString());
+    }
+
+    public EditorBridgeStats getBridgeStats() {
+        return mBridgeStats;
+    }
+
     public void setDebugModeEnabled(boolean enabled) {
         mDebugModeEnabled = enabled;
     }
@@ -106,7 +106,8 @@ public class EditorWebViewCompatibility extends EditorWebViewAbstract {
         }
     }
 
-    public void execJavaScriptFromString(String javaScript) {
+    @Override
+    protected void runJavaScript(String javaScript) {
         try {
             loadJavaScript(javaScript);
         } catch (ReflectionException e) {
@@ -0,0 +1,503 @@
+package org.wordpress.android.editor;
+
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.text.Spannable;
+import android.text.style.CharacterStyle;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.RelativeSizeSpan;
+import android.text.style.StyleSpan;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Incremental HTML tokenizer which styles the content of the source view.
+ *
+ * The lexer state at the start of each line (plain text, inside a tag or inside a comment) is kept in a
+ * line table, so after an edit only the lines from the edit point onwards are re-lexed, stopping at the
+ * first line after the edit whose start state matches the one recorded before the edit. Tokens never
+ * span lines (a tag or comment which does is styled one line at a time), so the spans on the re-lexed
+ * lines can be compared with the existing ones and only those which differ are removed/added.
+ *
+ * Tokens match the rules in {@link HtmlStyleUtils}: tags, quoted attribute values inside tags, comments
+ * and named/numbered entities.
+ */
+class HtmlStyleLexer {
+    // lexer states at the start of a line
+    private static final int STATE_TEXT = 0;
+    private static final int STATE_TAG = 1;
+    private static final int STATE_COMMENT = 2;
+
+    // kinds of span applied to tokens - comments and entities are made up of several
+    private static final int SPAN_TAG_COLOR = 1;
+    private static final int SPAN_ATTRIBUTE_COLOR = 2;
+    private static final int SPAN_ITALIC = 3;
+    private static final int SPAN_BOLD = 4;
+    private static final int SPAN_SMALL = 5;
+
+    private static final float SMALL_SIZE = 0.75f;
+
+    private static final Set<String> ENTITIES = new HashSet<>();
+    private static final int MAX_ENTITY_LENGTH;
+
+    static {
+        String entities = HtmlStyleUtils.REGEX_HTML_ENTITIES;
+        int maxLength = 0;
+        for (String entity : entities.substring(1, entities.length() - 1).split("\\|")) {
+            ENTITIES.add(entity);
+            maxLength = Math.max(maxLength, entity.length());
+        }
+        MAX_ENTITY_LENGTH = maxLength;
+    }
+
+    // start offset of each line and the lexer state at that offset
+    private int[] mLineStarts = new int[64];
+    private int[] mLineStates = new int[64];
+    private int mLineCount = 1;
+
+    // length of the content the line table describes
+    private int mLength;
+
+    // range of content changed since it was last styled, -1 if none
+    private int mDirtyStart = -1;
+    private int mDirtyEnd = -1;
+
+    /**
+     * Updates the line table for a change to the content - called from
+     * {@link android.text.TextWatcher#onTextChanged(CharSequence, int, int, int)}. The changed lines are
+     * re-lexed by the next call to {@link #restyle(Spannable)}.
+     */
+    void onTextChanged(int start, int before, int count) {
+        int delta = count - before;
+        int removedEnd = start + before;
+
+        // drop the lines whose line break was removed and shift the ones after the change
+        int firstLine = findLine(start);
+        int numLines = firstLine + 1;
+        for (int line = firstLine + 1; line < mLineCount; line++) {
+            if (mLineStarts[line] <= removedEnd) {
+                continue;
+            }
+            mLineStarts[numLines] = mLineStarts[line] + delta;
+            mLineStates[numLines] = mLineStates[line];
+            numLines++;
+        }
+        mLineCount = numLines;
+        mLength += delta;
+
+        if (mDirtyStart < 0) {
+            mDirtyStart = start;
+            mDirtyEnd = start + count;
+        } else {
+            mDirtyStart = Math.min(mDirtyStart, start);
+            mDirtyEnd = mDirtyEnd > start ? Math.max(start + count, mDirtyEnd + delta) : start + count;
+        }
+    }
+
+    /**
+     * Re-lexes the content changed since the last call and updates its spans.
+     */
+    void restyle(@NonNull Spannable content) {
+        if (content.length() != mLength) {
+            // the line table doesn't describe this content, so start over
+            reset(content.length());
+        }
+        if (mDirtyStart < 0) {
+            return;
+        }
+
+        int line = findLine(mDirtyStart);
+        int regionStart = mLineStarts[line];
+        int state = mLineStates[line];
+
+        // lexing can't stop at a line which starts where the change ends, since text may have been
+        // deleted from its start. spans stretched past the change by the edit (such as when a line
+        // break is typed inside a tag) are replaced as a whole, so lexing also continues to their end
+        int minEnd = Math.max(mDirtyEnd + 1, getMaxSpanEnd(content, regionStart, mDirtyEnd));
+
+        Set<Long> spans = new HashSet<>();
+        LineList newLines = new LineList();
+        int length = content.length();
+        int regionEnd = length;
+        int resyncLine = mLineCount;
+        int oldLine = line + 1;
+        int pos = regionStart;
+
+        while (pos < length) {
+            int lineEnd = indexOf(content, '\n', pos, length);
+            state = lexLine(content, pos, lineEnd, state, spans);
+            if (lineEnd == length) {
+                break;
+            }
+
+            int nextStart = lineEnd + 1;
+            while (oldLine < mLineCount && mLineStarts[oldLine] < nextStart) {
+                oldLine++;
+            }
+            if (nextStart >= minEnd
+                    && oldLine < mLineCount
+                    && mLineStarts[oldLine] == nextStart
+                    && mLineStates[oldLine] == state) {
+                // everything from here on lexes exactly as it did before the change
+                regionEnd = nextStart;
+                resyncLine = oldLine;
+                break;
+            }
+
+            newLines.add(nextStart, state);
+            pos = nextStart;
+        }
+
+        replaceLines(line + 1, resyncLine, newLines);
+        mDirtyStart = -1;
+        mDirtyEnd = -1;
+
+        applySpans(content, regionStart, regionEnd, spans);
+    }
+
+    /**
+     * Adds spans to {@code content} from {@code start} to {@code end}, without using or updating a line
+     * table - the range is lexed as if it started in plain text.
+     */
+    static void styleRange(@NonNull Spannable content, int start, int end) {
+        Set<Long> spans = new HashSet<>();
+        int state = STATE_TEXT;
+        int pos = start;
+        while (pos < end) {
+            int lineEnd = indexOf(content, '\n', pos, end);
+            state = lexLine(content, pos, lineEnd, state, spans);
+            pos = lineEnd + 1;
+        }
+        for (long key : spans) {
+            content.setSpan(createSpan(getSpanKind(key)), getSpanStart(key), getSpanEnd(key),
+                    HtmlStyleUtils.SPANNABLE_FLAGS);
+        }
+    }
+
+    private void reset(int length) {
+        mLineCount = 1;
+        mLineStarts[0] = 0;
+        mLineStates[0] = STATE_TEXT;
+        mLength = length;
+        mDirtyStart = 0;
+        mDirtyEnd = length;
+    }
+
+    /*
+     * returns the index of the line containing the passed offset
+     */
+    private int findLine(int offset) {
+        int index = Arrays.binarySearch(mLineStarts, 0, mLineCount, offset);
+        return index >= 0 ? index : Math.max(0, -index - 2);
+    }
+
+    /*
+     * replaces lines [from, to) in the line table with the passed ones
+     */
+    private void replaceLines(int from, int to, LineList lines) {
+        int newCount = mLineCount - (to - from) + lines.mCount;
+        if (newCount > mLineStarts.length) {
+            int capacity = Math.max(newCount, mLineStarts.length * 2);
+            mLineStarts = Arrays.copyOf(mLineStarts, capacity);
+            mLineStates = Arrays.copyOf(mLineStates, capacity);
+        }
+        int numAfter = mLineCount - to;
+        System.arraycopy(mLineStarts, to, mLineStarts, from + lines.mCount, numAfter);
+        System.arraycopy(mLineStates, to, mLineStates, from + lines.mCount, numAfter);
+        System.arraycopy(lines.mStarts, 0, mLineStarts, from, lines.mCount);
+        System.arraycopy(lines.mStates, 0, mLineStates, from, lines.mCount);
+        mLineCount = newCount;
+    }
+
+    /*
+     * lexes a single line, adding the spans for its tokens to the passed set, and returns the lexer
+     * state at the end of the line
+     */
+    private static int lexLine(CharSequence content, int start, int end, int state, Set<Long> spans) {
+        // tags and comments continued from the previous line start at the start of this one
+        int tokenStart = start;
+        int pos = start;
+
+        while (pos < end) {
+            if (state == STATE_COMMENT) {
+                int close = indexOfCommentEnd(content, pos, end);
+                if (close < 0) {
+                    addComment(spans, tokenStart, end);
+                    return STATE_COMMENT;
+                }
+                addComment(spans, tokenStart, close);
+                pos = close;
+                state = STATE_TEXT;
+            } else if (state == STATE_TAG) {
+                // the tag runs until the next '>' - a '<' before that means it was never closed
+                int i = pos;
+                char c = 0;
+                while (i < end && (c = content.charAt(i)) != '<' && c != '>') {
+                    i++;
+                }
+                if (i == end) {
+                    addTag(content, spans, tokenStart, end);
+                    return STATE_TAG;
+                }
+                if (c == '>') {
+                    addTag(content, spans, tokenStart, i + 1);
+                    pos = i + 1;
+                } else {
+                    pos = i;
+                }
+                state = STATE_TEXT;
+            } else {
+                char c = content.charAt(pos);
+                if (c == '<') {
+                    if (regionMatches(content, pos, end, "<!--")) {
+                        state = STATE_COMMENT;
+                        tokenStart = pos;
+                        pos += 4;
+                    } else if (isTagStart(content, pos, end)) {
+                        state = STATE_TAG;
+                        tokenStart = pos;
+                        pos++;
+                    } else {
+                        pos++;
+                    }
+                } else if (c == '&') {
+                    int entityEnd = getEntityEnd(content, pos, end);
+                    if (entityEnd > 0) {
+                        addSpan(spans, SPAN_TAG_COLOR, pos, entityEnd);
+                        addSpan(spans, SPAN_BOLD, pos, entityEnd);
+                        addSpan(spans, SPAN_SMALL, pos, entityEnd);
+                        pos = entityEnd;
+                    } else {
+                        pos++;
+                    }
+                } else {
+                    pos++;
+                }
+            }
+        }
+        return state;
+    }
+
+    private static boolean isTagStart(CharSequence content, int pos, int end) {
+        int next = pos + 1;
+        if (next < end && content.charAt(next) == '/') {
+            next++;
+        }
+        if (next >= end) {
+            return false;
+        }
+        char c = content.charAt(next);
+        return c >= 'a' && c <= 'z';
+    }
+
+    /*
+     * adds a tag, and the quoted attribute values within it
+     */
+    private static void addTag(CharSequence content, Set<Long> spans, int start, int end) {
+        addSpan(spans, SPAN_TAG_COLOR, start, end);
+
+        for (int i = start; i < end - 1; i++) {
+            if (content.charAt(i) != '=') {
+                continue;
+            }
+            char quote = content.charAt(i + 1);
+            if (quote != '"' && quote != '\'') {
+                continue;
+            }
+            int close = indexOf(content, quote, i + 2, end);
+            if (close == end) {
+                break;
+            }
+            addSpan(spans, SPAN_ATTRIBUTE_COLOR, i + 1, close + 1);
+            i = close;
+        }
+    }
+
+    private static void addComment(Set<Long> spans, int start, int end) {
+        addSpan(spans, SPAN_ATTRIBUTE_COLOR, start, end);
+        addSpan(spans, SPAN_ITALIC, start, end);
+        addSpan(spans, SPAN_SMALL, start, end);
+    }
+
+    /*
+     * returns the offset after the "-->" which ends a comment, or -1 if the comment doesn't end
+     * before the passed end offset
+     */
+    private static int indexOfCommentEnd(CharSequence content, int start, int end) {
+        for (int i = start; i <= end - 3; i++) {
+            if (content.charAt(i) == '-' && content.charAt(i + 1) == '-' && content.charAt(i + 2) == '>') {
+                return i + 3;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * returns the offset after the entity which starts at the passed '&', or -1 if it isn't a known entity
+     */
+    private static int getEntityEnd(CharSequence content, int start, int end) {
+        int limit = Math.min(end, start + MAX_ENTITY_LENGTH);
+        for (int i = start + 1; i < limit; i++) {
+            char c = content.charAt(i);
+            if (c == ';') {
+                return ENTITIES.contains(content.subSequence(start, i + 1).toString()) ? i + 1 : -1;
+            } else if (!Character.isLetterOrDigit(c) && c != '#') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence content, int pos, int end, String text) {
+        if (pos + text.length() > end) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (content.charAt(pos + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * returns the index of the passed character between start and end, or end if it's not found
+     */
+    private static int indexOf(CharSequence content, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (content.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /*
+     * spans are identified by their kind and range packed into a long, so the spans the lexer wants
+     * can be compared with the existing ones without creating span objects
+     */
+    private static void addSpan(Set<Long> spans, int kind, int start, int end) {
+        if (start < end) {
+            spans.add(((long) kind << 60) | ((long) start << 30) | end);
+        }
+    }
+
+    private static int getSpanKind(long key) {
+        return (int) (key >>> 60);
+    }
+
+    private static int getSpanStart(long key) {
+        return (int) ((key >>> 30) & 0x3FFFFFFF);
+    }
+
+    private static int getSpanEnd(long key) {
+        return (int) (key & 0x3FFFFFFF);
+    }
+
+    private static Object createSpan(int kind) {
+        switch (kind) {
+            case SPAN_TAG_COLOR:
+                return new ForegroundColorSpan(HtmlStyleUtils.TAG_COLOR);
+            case SPAN_ATTRIBUTE_COLOR:
+                return new ForegroundColorSpan(HtmlStyleUtils.ATTRIBUTE_COLOR);
+            case SPAN_ITALIC:
+                return new StyleSpan(Typeface.ITALIC);
+            case SPAN_BOLD:
+                return new StyleSpan(Typeface.BOLD);
+            default:
+                return new RelativeSizeSpan(SMALL_SIZE);
+        }
+    }
+
+    /*
+     * returns the kind of an existing span, or 0 if it's not one this lexer would create
+     */
+    private static int getKindOfSpan(CharacterStyle span) {
+        if (span instanceof ForegroundColorSpan) {
+            int color = ((ForegroundColorSpan) span).getForegroundColor();
+            if (color == HtmlStyleUtils.TAG_COLOR) {
+                return SPAN_TAG_COLOR;
+            } else if (color == HtmlStyleUtils.ATTRIBUTE_COLOR) {
+                return SPAN_ATTRIBUTE_COLOR;
+            }
+        } else if (span instanceof StyleSpan) {
+            int style = ((StyleSpan) span).getStyle();
+            if (style == Typeface.ITALIC) {
+                return SPAN_ITALIC;
+            } else if (style == Typeface.BOLD) {
+                return SPAN_BOLD;
+            }
+        } else if (span instanceof RelativeSizeSpan) {
+            if (((RelativeSizeSpan) span).getSizeChange() == SMALL_SIZE) {
+                return SPAN_SMALL;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isStyleSpan(CharacterStyle span) {
+        return span instanceof ForegroundColorSpan || span instanceof StyleSpan || span instanceof RelativeSizeSpan;
+    }
+
+    private static int getMaxSpanEnd(Spannable content, int start, int end) {
+        int maxEnd = end;
+        for (CharacterStyle span : content.getSpans(start, end, CharacterStyle.class)) {
+            if (isStyleSpan(span)) {
+                maxEnd = Math.max(maxEnd, content.getSpanEnd(span));
+            }
+        }
+        return maxEnd;
+    }
+
+    /*
+     * updates the spans between start and end to match the passed ones - existing spans which match are
+     * left alone, others are removed, and missing ones are added
+     */
+    private static void applySpans(Spannable content, int start, int end, Set<Long> spans) {
+        if (!HtmlStyleUtils.isStylingSupported()) {
+            return;
+        }
+
+        for (CharacterStyle span : content.getSpans(start, end, CharacterStyle.class)) {
+            if (!isStyleSpan(span)) {
+                continue;
+            }
+            int spanStart = content.getSpanStart(span);
+            if (spanStart < start) {
+                // belongs to a line before the re-lexed ones
+                continue;
+            }
+            int kind = getKindOfSpan(span);
+            long key = ((long) kind << 60) | ((long) spanStart << 30) | content.getSpanEnd(span);
+            if (kind == 0 || !spans.remove(key)) {
+                content.removeSpan(span);
+            }
+        }
+
+        for (long key : spans) {
+            content.setSpan(createSpan(getSpanKind(key)), getSpanStart(key), getSpanEnd(key),
+                    HtmlStyleUtils.SPANNABLE_FLAGS);
+        }
+    }
+
+    /*
+     * growable list of line starts/states, used to collect the lines found while re-lexing
+     */
+    private static class LineList {
+        private int[] mStarts = new int[16];
+        private int[] mStates = new int[16];
+        private int mCount;
+
+        void add(int start, int state) {
+            if (mCount == mStarts.length) {
+                mStarts = Arrays.copyOf(mStarts, mCount * 2);
+                mStates = Arrays.copyOf(mStates, mCount * 2);
+            }
+            mStarts[mCount] = start;
+            mStates[mCount] = state;
+            mCount++;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.wordpress.android.editor;
 
 import android.text.Editable;
 import android.text.Spannable;
+import android.text.TextUtils;
 import android.text.TextWatcher;
 
 import org.wordpress.android.util.AppLog;
@@ -16,6 +17,8 @@ public class HtmlStyleTextWatcher implements TextWatcher {
     private CharSequence mModifiedText;
     private Operation mLastOperation;
 
+    private final HtmlStyleLexer mLexer = new HtmlStyleLexer();
+
     @Override
     public void beforeTextChanged(CharSequence s, int start, int count, int after) {
         if (s == null) {
@@ -45,6 +48,8 @@ public class HtmlStyleTextWatcher implements TextWatcher {
             return;
         }
 
+        mLexer.onTextChanged(start, before, count);
+
         int lastCharacterLocation = start + count - 1;
         if (s.length() > lastCharacterLocation) {
             if (count > 0) {
@@ -118,10 +123,10 @@ public class HtmlStyleTextWatcher implements TextWatcher {
             // last added opening symbol
             // e.g. pasting "<b><" before "/b>" - we want the span to be applied to all of "<b></b>"
             int lastOpeningTagLoc = mOffset + mModifiedText.toString().lastIndexOf(openingSymbol);
-            closingTagLoc = content.toString().indexOf(closingSymbol, lastOpeningTagLoc);
+            closingTagLoc = indexOf(content, closingSymbol, lastOpeningTagLoc);
         } else {
             // Apply span until the first closing tag that appears after the deleted text
-            closingTagLoc = content.toString().indexOf(closingSymbol, mOffset);
+            closingTagLoc = indexOf(content, closingSymbol, mOffset);
         }
 
         if (closingTagLoc > 0) {
@@ -146,9 +151,9 @@ public class HtmlStyleTextWatcher implements TextWatcher {
         String openingSymbol = getMatchingSymbol(closingSymbol);
 
         int firstClosingTagInModLoc = mOffset + mModifiedText.toString().indexOf(closingSymbol);
-        int firstClosingTagAfterModLoc = content.toString().indexOf(closingSymbol, mOffset + mModifiedText.length());
+        int firstClosingTagAfterModLoc = indexOf(content, closingSymbol, mOffset + mModifiedText.length());
 
-        int openingTagLoc = content.toString().lastIndexOf(openingSymbol, firstClosingTagInModLoc - 1);
+        int openingTagLoc = lastIndexOf(content, openingSymbol, firstClosingTagInModLoc - 1);
         if (openingTagLoc >= 0) {
             if (firstClosingTagAfterModLoc >= 0) {
                 return new SpanRange(openingTagLoc, firstClosingTagAfterModLoc + 1);
@@ -169,9 +174,9 @@ public class HtmlStyleTextWatcher implements TextWatcher {
     protected SpanRange getRespanRangeForNormalText(Editable content, String openingSymbol) {
         String closingSymbol = getMatchingSymbol(openingSymbol);
 
-        int openingTagLoc = content.toString().lastIndexOf(openingSymbol, mOffset);
+        int openingTagLoc = lastIndexOf(content, openingSymbol, mOffset);
         if (openingTagLoc >= 0) {
-            int closingTagLoc = content.toString().indexOf(closingSymbol, openingTagLoc);
+            int closingTagLoc = indexOf(content, closingSymbol, openingTagLoc);
             if (closingTagLoc >= mOffset) {
                 return new SpanRange(openingTagLoc, closingTagLoc + 1);
             }
@@ -180,10 +185,12 @@ public class HtmlStyleTextWatcher implements TextWatcher {
     }
 
     /**
-     * Clears and re-applies spans to {@code content} within range {@code spanRange} according to rules in
-     * {@link HtmlStyleUtils}.
+     * Re-styles {@code content} according to rules in {@link HtmlStyleUtils}. The lexer tracks which lines have
+     * changed since the content was last styled, so only those lines (and the ones after them whose lexer state
+     * changed) are re-lexed, and only the spans which differ are replaced - {@code spanRange} is only checked
+     * for validity.
      * @param content the content to re-style
-     * @param spanRange the range within {@code content} to be re-styled
+     * @param spanRange the range within {@code content} which needs re-styling
      */
     protected void updateSpans(Spannable content, SpanRange spanRange) {
         int spanStart = spanRange.getOpeningTagLoc();
@@ -192,16 +199,21 @@ public class HtmlStyleTextWatcher implements TextWatcher {
         if (spanStart > content.length() || spanEnd > content.length()) {
             AppLog.d(T.EDITOR, "The specified span range was beyond the Spannable's length");
             return;
-        } else if (spanStart >= spanEnd) {
-            // If the span start is after the end position (probably due to a multi-line deletion), selective
-            // re-styling won't work
-            // Instead, do a clean re-styling of the whole document
-            spanStart = 0;
-            spanEnd = content.length();
         }
 
-        HtmlStyleUtils.clearSpans(content, spanStart, spanEnd);
-        HtmlStyleUtils.styleHtmlForDisplay(content, spanStart, spanEnd);
+        mLexer.restyle(content);
+    }
+
+    /*
+     * same as String.indexOf() and lastIndexOf() but without copying the content to a String, which is slow
+     * for long posts
+     */
+    private static int indexOf(CharSequence content, String symbol, int fromIndex) {
+        return TextUtils.indexOf(content, symbol.charAt(0), Math.max(0, fromIndex));
+    }
+
+    private static int lastIndexOf(CharSequence content, String symbol, int fromIndex) {
+        return TextUtils.lastIndexOf(content, symbol.charAt(0), fromIndex);
     }
 
     /**
@@ -1,7 +1,6 @@
 package org.wordpress.android.editor;
 
 import android.graphics.Color;
-import android.graphics.Typeface;
 import android.os.Build;
 import android.support.annotation.NonNull;
 import android.text.Spannable;
@@ -12,9 +11,6 @@ import android.text.style.StyleSpan;
 
 import org.wordpress.android.util.AppLog;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class HtmlStyleUtils {
     public static final int TAG_COLOR = Color.rgb(0, 80, 130);
     public static final int ATTRIBUTE_COLOR = Color.rgb(158, 158, 158);
@@ -78,62 +74,30 @@ public class HtmlStyleUtils {
      * @param end the index in {@code content} to style until
      */
     public static void styleHtmlForDisplay(@NonNull Spannable content, int start, int end) {
-        if (Build.VERSION.RELEASE.equals("4.1") || Build.VERSION.RELEASE.equals("4.1.1")) {
-            // Avoids crashing bug in Android 4.1 and 4.1.1 triggered when spanned text is line-wrapped
-            // AOSP issue: https://code.google.com/p/android/issues/detail?id=35466
+        if (!isStylingSupported()) {
             return;
         }
 
-        applySpansByRegex(content, start, end, REGEX_HTML_TAGS);
-        applySpansByRegex(content, start, end, REGEX_HTML_ATTRIBUTES);
-        applySpansByRegex(content, start, end, REGEX_HTML_COMMENTS);
-        applySpansByRegex(content, start, end, REGEX_HTML_ENTITIES);
-    }
-
-    /**
-     * Applies styles to {@code content} from {@code start} to {@code end}, based on rule {@code regex}.
-     * @param content the Spannable to apply style rules to
-     * @param start the index in {@code content} to start styling from
-     * @param end the index in {@code content} to style until
-     * @param regex the pattern to match for styling
-     */
-    private static void applySpansByRegex(Spannable content, int start, int end, String regex) {
-        if (content == null || start < 0 || end < 0 || start > content.length() || end > content.length() ||
-                start >= end) {
-            AppLog.d(AppLog.T.EDITOR, "applySpansByRegex() received invalid input");
+        if (start < 0 || end < 0 || start > content.length() || end > content.length() || start >= end) {
+            AppLog.d(AppLog.T.EDITOR, "styleHtmlForDisplay() received invalid input");
             return;
         }
 
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(content.subSequence(start, end));
+        HtmlStyleLexer.styleRange(content, start, end);
+    }
 
-        while (matcher.find()) {
-            int matchStart = matcher.start() + start;
-            int matchEnd = matcher.end() + start;
-            switch(regex) {
-                case REGEX_HTML_TAGS:
-                    content.setSpan(new ForegroundColorSpan(TAG_COLOR), matchStart, matchEnd, SPANNABLE_FLAGS);
-                    break;
-                case REGEX_HTML_ATTRIBUTES:
-                    content.setSpan(new ForegroundColorSpan(ATTRIBUTE_COLOR), matchStart, matchEnd, SPANNABLE_FLAGS);
-                    break;
-                case REGEX_HTML_COMMENTS:
-                    content.setSpan(new ForegroundColorSpan(ATTRIBUTE_COLOR), matchStart, matchEnd, SPANNABLE_FLAGS);
-                    content.setSpan(new StyleSpan(Typeface.ITALIC), matchStart, matchEnd, SPANNABLE_FLAGS);
-                    content.setSpan(new RelativeSizeSpan(0.75f), matchStart, matchEnd, SPANNABLE_FLAGS);
-                    break;
-                case REGEX_HTML_ENTITIES:
-                    content.setSpan(new ForegroundColorSpan(TAG_COLOR), matchStart, matchEnd, SPANNABLE_FLAGS);
-                    content.setSpan(new StyleSpan(Typeface.BOLD), matchStart, matchEnd, SPANNABLE_FLAGS);
-                    content.setSpan(new RelativeSizeSpan(0.75f), matchStart, matchEnd, SPANNABLE_FLAGS);
-                    break;
-            }
-        }
+    /**
+     * Returns false on Android versions where spans can't be safely applied to the source view.
+     */
+    static boolean isStylingSupported() {
+        // Avoids crashing bug in Android 4.1 and 4.1.1 triggered when spanned text is line-wrapped
+        // AOSP issue: https://code.google.com/p/android/issues/detail?id=35466
+        return !Build.VERSION.RELEASE.equals("4.1") && !Build.VERSION.RELEASE.equals("4.1.1");
     }
 
     /**
      * Clears all relevant spans in {@code content} from {@code start} to {@code end}. Relevant spans are the subclasses
-     * of {@link CharacterStyle} applied by {@link HtmlStyleUtils#applySpansByRegex(Spannable, int, int, String)}.
+     * of {@link CharacterStyle} applied by {@link HtmlStyleLexer}.
      * @param content the Spannable to clear styles from
      * @param spanStart the index in {@code content} to start clearing styles from
      * @param spanEnd the index in {@code content} to clear styles until
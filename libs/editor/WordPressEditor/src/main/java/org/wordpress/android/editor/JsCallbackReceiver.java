@@ -2,6 +2,7 @@ package org.wordpress.android.editor;
 
 import android.webkit.JavascriptInterface;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.wordpress.android.util.AppLog;
@@ -43,11 +44,43 @@ public class JsCallbackReceiver {
     private static final String CALLBACK_ACTION_FINISHED = "callback-action-finished";
 
     private final OnJsEditorStateChangedListener mListener;
+    private final EditorBridgeStats mBridgeStats;
 
     private Set<String> mPreviousStyleSet = new HashSet<>();
 
     public JsCallbackReceiver(EditorFragmentAbstract editorFragmentAbstract) {
+        this(editorFragmentAbstract, new EditorBridgeStats());
+    }
+
+    public JsCallbackReceiver(EditorFragmentAbstract editorFragmentAbstract, EditorBridgeStats bridgeStats) {
         mListener = (OnJsEditorStateChangedListener) editorFragmentAbstract;
+        mBridgeStats = bridgeStats;
+    }
+
+    /**
+     * Receives a batch of callbacks sent by ZSSEditor.flushCallbacks(), encoded as a flat JSON array:
+     * [queuedTimeMs, numCoalesced, callbackId1, params1, callbackId2, params2, ...]
+     * The callbacks are executed in the order they were sent.
+     */
+    @JavascriptInterface
+    public void executeCallbacks(String batch) {
+        JSONArray jsonBatch;
+        try {
+            jsonBatch = new JSONArray(batch);
+        } catch (JSONException e) {
+            AppLog.e(AppLog.T.EDITOR, "Unable to parse callback batch", e);
+            return;
+        }
+
+        int numCallbacks = (jsonBatch.length() - 2) / 2;
+        long delayMs = System.currentTimeMillis() - jsonBatch.optLong(0, System.currentTimeMillis());
+        mBridgeStats.recordJsBatch(numCallbacks, jsonBatch.optInt(1), delayMs);
+
+        for (int i = 2; i + 1 < jsonBatch.length(); i += 2) {
+            String callbackId = jsonBatch.optString(i);
+            String params = jsonBatch.isNull(i + 1) ? "" : jsonBatch.optString(i + 1);
+            executeCallback(callbackId, params);
+        }
     }
 
     @JavascriptInterface
@@ -0,0 +1,170 @@
+package org.wordpress.android.editor;
+
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.CharacterStyle;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.RelativeSizeSpan;
+import android.text.style.StyleSpan;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLog;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that styling the source view incrementally as it's typed ends up with the same spans as styling
+ * it from scratch. Also has benchmarks of the per-keystroke cost of styling long posts, which only run
+ * with -Pbenchmarks and log their results through AppLog.
+ */
+@Config(sdk = 18)
+@RunWith(RobolectricTestRunner.class)
+public class HtmlStyleIncrementalStylingTest {
+    private static final String SAMPLE_HTML = "<p>Some <b>bold</b> and <i>italic</i> text &amp; an entity.</p>\n"
+            + "<a href=\"https://wordpress.com\" title='WordPress'>a link</a> <!--more-->\n"
+            + "<ul>\n\t<li>list item</li>\n\t<li>another list item &hellip;</li>\n</ul>\n"
+            + "<img class=\"alignnone\"\n\tsrc=\"https://example.com/image.jpg\" />\n";
+
+    // typed one character at a time, then deleted one character at a time
+    private static final String TYPED_TEXT = "<b>typed</b> &lt;<!-- a comment --> ";
+
+    @Test
+    public void testIncrementalStylingMatchesFullStyling() {
+        SpannableStringBuilder content = createStyledDocument(50 * 1024);
+        HtmlStyleTextWatcher watcher = watch(content);
+        int offset = getTypingOffset(content);
+
+        typeText(content, offset);
+        deleteText(content, offset);
+
+        assertSameSpansAsFullStyling(content, watcher);
+    }
+
+    @Test
+    public void benchmarkKeystrokeCost50KB() {
+        runBenchmark(50 * 1024);
+    }
+
+    @Test
+    public void benchmarkKeystrokeCost500KB() {
+        runBenchmark(500 * 1024);
+    }
+
+    /*
+     * logs the per-keystroke cost of styling a document of the passed size, compared with styling the
+     * whole document
+     */
+    private void runBenchmark(int documentSize) {
+        Assume.assumeTrue(Boolean.getBoolean("benchmarks"));
+        if (ShadowLog.stream == null) {
+            ShadowLog.stream = System.out;
+        }
+
+        SpannableStringBuilder content = createStyledDocument(documentSize);
+        HtmlStyleTextWatcher watcher = watch(content);
+        int offset = getTypingOffset(content);
+
+        long startTime = System.nanoTime();
+        typeText(content, offset);
+        double typingMs = (System.nanoTime() - startTime) / 1000000d / TYPED_TEXT.length();
+
+        startTime = System.nanoTime();
+        deleteText(content, offset);
+        double deletingMs = (System.nanoTime() - startTime) / 1000000d / TYPED_TEXT.length();
+
+        // baseline - restyling the whole document, which is what editing a tag could cost per keystroke
+        // before styling was incremental
+        Spannable restyled = new SpannableStringBuilder(content.toString());
+        startTime = System.nanoTime();
+        HtmlStyleUtils.styleHtmlForDisplay(restyled);
+        double fullMs = (System.nanoTime() - startTime) / 1000000d;
+
+        AppLog.i(T.EDITOR, String.format(Locale.US, "%d KB document: %.3f ms per typed character, "
+                + "%.3f ms per deleted character, %.3f ms to style the whole document",
+                documentSize / 1024, typingMs, deletingMs, fullMs));
+
+        assertSameSpansAsFullStyling(content, watcher);
+    }
+
+    private static SpannableStringBuilder createStyledDocument(int documentSize) {
+        SpannableStringBuilder content = new SpannableStringBuilder(buildDocument(documentSize));
+        HtmlStyleUtils.styleHtmlForDisplay(content);
+        return content;
+    }
+
+    private static HtmlStyleTextWatcher watch(SpannableStringBuilder content) {
+        HtmlStyleTextWatcher watcher = new HtmlStyleTextWatcher();
+        content.setSpan(watcher, 0, content.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        return watcher;
+    }
+
+    /*
+     * returns an offset at the start of a line in the middle of the document - the first change also
+     * builds the lexer's line table, so it's made here rather than when typing
+     */
+    private static int getTypingOffset(SpannableStringBuilder content) {
+        int offset = content.toString().indexOf('\n', content.length() / 2) + 1;
+        content.insert(offset, " ");
+        return offset + 1;
+    }
+
+    private static void typeText(SpannableStringBuilder content, int offset) {
+        for (int i = 0; i < TYPED_TEXT.length(); i++) {
+            content.insert(offset + i, TYPED_TEXT.substring(i, i + 1));
+        }
+    }
+
+    private static void deleteText(SpannableStringBuilder content, int offset) {
+        for (int i = TYPED_TEXT.length() - 1; i >= 0; i--) {
+            content.delete(offset + i, offset + i + 1);
+        }
+    }
+
+    private static void assertSameSpansAsFullStyling(SpannableStringBuilder content, HtmlStyleTextWatcher watcher) {
+        // changes which don't complete a tag or entity are styled with the next one, so flush them
+        watcher.updateSpans(content, new HtmlStyleTextWatcher.SpanRange(0, content.length()));
+
+        Spannable restyled = new SpannableStringBuilder(content.toString());
+        HtmlStyleUtils.styleHtmlForDisplay(restyled);
+        assertEquals(getSpanDescriptions(restyled), getSpanDescriptions(content));
+    }
+
+    private static String buildDocument(int size) {
+        StringBuilder sb = new StringBuilder(size + SAMPLE_HTML.length());
+        while (sb.length() < size) {
+            sb.append(SAMPLE_HTML);
+        }
+        return sb.toString();
+    }
+
+    private static List<String> getSpanDescriptions(Spanned content) {
+        List<String> descriptions = new ArrayList<>();
+        for (CharacterStyle span : content.getSpans(0, content.length(), CharacterStyle.class)) {
+            String description;
+            if (span instanceof ForegroundColorSpan) {
+                description = "color " + ((ForegroundColorSpan) span).getForegroundColor();
+            } else if (span instanceof StyleSpan) {
+                description = "style " + ((StyleSpan) span).getStyle();
+            } else if (span instanceof RelativeSizeSpan) {
+                description = "size " + ((RelativeSizeSpan) span).getSizeChange();
+            } else {
+                continue;
+            }
+            descriptions.add(description + " " + content.getSpanStart(span) + "-" + content.getSpanEnd(span));
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+}
@@ -5,6 +5,7 @@ import android.util.Log;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowLog;
@@ -14,6 +15,7 @@ import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.robolectric.shadows.ShadowLog.LogItem;
 
@@ -22,12 +24,13 @@ import static org.robolectric.shadows.ShadowLog.LogItem;
 public class JsCallbackReceiverTest {
     private final static String EDITOR_LOG_TAG = "WordPress-" + AppLog.T.EDITOR.toString();
 
+    private EditorFragment mEditorFragment;
     private JsCallbackReceiver mJsCallbackReceiver;
 
     @Before
     public void setUp() {
-        EditorFragment editorFragment = mock(EditorFragment.class);
-        mJsCallbackReceiver = new JsCallbackReceiver(editorFragment);
+        mEditorFragment = mock(EditorFragment.class);
+        mJsCallbackReceiver = new JsCallbackReceiver(mEditorFragment);
     }
 
     @Test
@@ -81,6 +84,27 @@ public class JsCallbackReceiverTest {
         assertLogged(Log.DEBUG, EDITOR_LOG_TAG, "callback-log: test-message", null);
     }
 
+    @Test
+    public void testCallbackBatchExecutedInOrder() {
+        mJsCallbackReceiver.executeCallbacks("[0, 1, \"callback-dom-loaded\", null, "
+                + "\"callback-media-removed\", \"id=12\", \"callback-action-finished\", null]");
+
+        InOrder inOrder = inOrder(mEditorFragment);
+        inOrder.verify(mEditorFragment).onDomLoaded();
+        inOrder.verify(mEditorFragment).onMediaRemoved("12");
+        inOrder.verify(mEditorFragment).onActionFinished();
+    }
+
+    @Test
+    public void testMalformedCallbackBatchShouldBeLogged() {
+        mJsCallbackReceiver.executeCallbacks("callback-dom-loaded");
+
+        LogItem lastLog = ShadowLog.getLogs().get(0);
+        assertEquals(Log.ERROR, lastLog.type);
+        assertEquals(EDITOR_LOG_TAG, lastLog.tag);
+        assertEquals("Unable to parse callback batch", lastLog.msg);
+    }
+
     private void assertLogged(int type, String tag, String msg, Throwable throwable) {
         LogItem lastLog = ShadowLog.getLogs().get(0);
         assertEquals(type, lastLog.type);
@@ -0,0 +1,205 @@
+package org.wordpress.android.util;
+
+import android.test.InstrumentationTestCase;
+
+import org.wordpress.android.util.AppLog.LogLevel;
+import org.wordpress.android.util.AppLog.T;
+import org.wordpress.android.util.AppLogBuffer.LogEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class AppLogBufferTest extends InstrumentationTestCase {
+    private static final int CAPACITY = 5;
+
+    private File mLogFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mLogFile = new File(getInstrumentation().getTargetContext().getCacheDir(), "app_log_buffer_test.log");
+        mLogFile.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mLogFile.delete();
+        super.tearDown();
+    }
+
+    public void testEntriesAreReturnedInOrder() {
+        AppLogBuffer buffer = new AppLogBuffer(CAPACITY, null);
+        buffer.add(T.READER, LogLevel.d, "one");
+        buffer.add(T.MEDIA, LogLevel.w, "two");
+
+        List<LogEntry> entries = buffer.getEntries();
+        assertEquals(2, entries.size());
+        assertEntry(entries.get(0), T.READER, LogLevel.d, "one");
+        assertEntry(entries.get(1), T.MEDIA, LogLevel.w, "two");
+    }
+
+    public void testWrapAroundKeepsTheNewestEntries() {
+        AppLogBuffer buffer = new AppLogBuffer(CAPACITY, null);
+        for (int i = 0; i < CAPACITY * 2 + 2; i++) {
+            buffer.add(T.UTILS, LogLevel.i, "entry " + i);
+        }
+
+        List<LogEntry> entries = buffer.getEntries();
+        assertEquals(CAPACITY, entries.size());
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals("entry " + (CAPACITY + 2 + i), entries.get(i).mLogText);
+        }
+    }
+
+    public void testEntriesAfterSequence() {
+        AppLogBuffer buffer = new AppLogBuffer(CAPACITY, null);
+        buffer.add(T.UTILS, LogLevel.i, "one");
+        long sequence = buffer.getEntries().get(0).mSequence;
+        buffer.add(T.UTILS, LogLevel.i, "two");
+
+        List<LogEntry> entries = buffer.getEntriesAfter(sequence);
+        assertEquals(1, entries.size());
+        assertEquals("two", entries.get(0).mLogText);
+    }
+
+    public void testConcurrentWritersDontLoseEntries() throws InterruptedException {
+        final int numThreads = 4;
+        final int numPerThread = 1000;
+        final AppLogBuffer buffer = new AppLogBuffer(numThreads * numPerThread, null);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int threadNum = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < numPerThread; i++) {
+                        buffer.add(T.UTILS, LogLevel.d, threadNum + ":" + i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<LogEntry> entries = buffer.getEntries();
+        assertEquals(numThreads * numPerThread, entries.size());
+
+        // each thread's entries are in the order it added them
+        int[] nextByThread = new int[numThreads];
+        for (LogEntry entry : entries) {
+            String[] parts = entry.mLogText.split(":");
+            int threadNum = Integer.parseInt(parts[0]);
+            assertEquals(nextByThread[threadNum]++, Integer.parseInt(parts[1]));
+        }
+        for (int next : nextByThread) {
+            assertEquals(numPerThread, next);
+        }
+    }
+
+    public void testEntriesAreRestoredFromFile() {
+        AppLogBuffer buffer = new AppLogBuffer(CAPACITY, mLogFile);
+        assertEquals(0, buffer.getNumRestored());
+        for (int i = 0; i < CAPACITY + 2; i++) {
+            buffer.add(T.NOTIFS, LogLevel.e, "entry " + i);
+        }
+        List<LogEntry> written = buffer.getEntries();
+
+        AppLogBuffer restored = new AppLogBuffer(CAPACITY, mLogFile);
+        assertEquals(CAPACITY, restored.getNumRestored());
+        List<LogEntry> entries = restored.getEntries();
+        assertEquals(CAPACITY, entries.size());
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEntry(entries.get(i), T.NOTIFS, LogLevel.e, written.get(i).mLogText);
+            assertEquals(written.get(i).mTime, entries.get(i).mTime);
+        }
+
+        // new entries follow the restored ones
+        restored.add(T.NOTIFS, LogLevel.i, "after restore");
+        entries = restored.getEntries();
+        assertEquals("after restore", entries.get(CAPACITY - 1).mLogText);
+        assertEquals("entry 3", entries.get(0).mLogText);
+    }
+
+    public void testLongMessagesAreTruncatedInFile() {
+        char[] chars = new char[AppLogBuffer.RECORD_SIZE * 2];
+        Arrays.fill(chars, 'a');
+        String ascii = new String(chars);
+        // three bytes per character, so truncation has to land on a character boundary
+        Arrays.fill(chars, '\u20ac');
+        String multiByte = new String(chars);
+
+        AppLogBuffer buffer = new AppLogBuffer(CAPACITY, mLogFile);
+        buffer.add(T.UTILS, LogLevel.i, ascii);
+        buffer.add(T.UTILS, LogLevel.i, multiByte);
+        // the buffer itself keeps the whole message
+        assertEquals(ascii, buffer.getEntries().get(0).mLogText);
+
+        List<LogEntry> entries = new AppLogBuffer(CAPACITY, mLogFile).getEntries();
+        assertEquals(2, entries.size());
+        assertTruncated(ascii, entries.get(0).mLogText);
+        assertTruncated(multiByte, entries.get(1).mLogText);
+    }
+
+    public void testFileWithBadHeaderIsReset() throws IOException {
+        new AppLogBuffer(CAPACITY, mLogFile).add(T.UTILS, LogLevel.i, "entry");
+        writeInt(mLogFile, 0, 0x12345678);
+
+        AppLogBuffer buffer = new AppLogBuffer(CAPACITY, mLogFile);
+        assertEquals(0, buffer.getNumRestored());
+        assertTrue(buffer.getEntries().isEmpty());
+    }
+
+    public void testFileWithOtherVersionIsReset() throws IOException {
+        new AppLogBuffer(CAPACITY, mLogFile).add(T.UTILS, LogLevel.i, "entry");
+        writeInt(mLogFile, 4, 1);
+
+        AppLogBuffer buffer = new AppLogBuffer(CAPACITY, mLogFile);
+        assertEquals(0, buffer.getNumRestored());
+        assertTrue(buffer.getEntries().isEmpty());
+    }
+
+    public void testFileWithOtherCapacityIsReset() {
+        new AppLogBuffer(CAPACITY, mLogFile).add(T.UTILS, LogLevel.i, "entry");
+
+        AppLogBuffer buffer = new AppLogBuffer(CAPACITY + 1, mLogFile);
+        assertEquals(0, buffer.getNumRestored());
+        assertTrue(buffer.getEntries().isEmpty());
+    }
+
+    private static void assertEntry(LogEntry entry, T tag, LogLevel level, String text) {
+        assertEquals(tag, entry.mLogTag);
+        assertEquals(level, entry.mLogLevel);
+        assertEquals(text, entry.mLogText);
+    }
+
+    private static void assertTruncated(String original, String truncated) {
+        assertTrue(truncated.length() > 0);
+        assertTrue(truncated.length() < original.length());
+        assertTrue(original.startsWith(truncated));
+        assertTrue(truncated.getBytes(Charset.forName("UTF-8")).length < AppLogBuffer.RECORD_SIZE);
+    }
+
+    private static void writeInt(File file, long position, int value) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.seek(position);
+            randomAccessFile.writeInt(value);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.wordpress.android.util;
+
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Compares DateTimeUtils' ISO 8601 parsing and formatting with the SimpleDateFormat approach it used
+ * before, on timestamps in the forms returned by the WP.com API. Results are written to logcat with
+ * the "DateTimeUtilsBenchmark" tag.
+ */
+public class DateTimeUtilsBenchmarkTest extends InstrumentationTestCase {
+    private static final String TAG = "DateTimeUtilsBenchmark";
+
+    private static final int WARMUP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 20000;
+
+    // post, comment and note dates in the UTC forms returned by the WP.COM API, which are the forms
+    // the SimpleDateFormat approach handled
+    private static final String[] TIMESTAMPS = {
+            "2017-03-14T17:00:00+00:00",
+            "2016-11-02T16:41:13+00:00",
+            "2017-06-21T13:05:47+00:00",
+            "2015-01-29T22:42:09+00:00",
+            "2017-08-01T12:00:00Z",
+            "2014-12-31T23:59:59Z",
+    };
+
+    // guards against the benchmarked work being optimized away
+    private long mChecksum;
+
+    public void testParseIso8601() {
+        final DateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        long simpleDateFormatNanos = measure(new Runnable() {
+            @Override
+            public void run() {
+                for (String timestamp : TIMESTAMPS) {
+                    try {
+                        // same normalization dateUTCFromIso8601() used to do
+                        String normalized = timestamp.replace("Z", "+0000").replace("+00:00", "+0000");
+                        mChecksum += format.parse(normalized).getTime();
+                    } catch (ParseException e) {
+                        fail(e.getMessage());
+                    }
+                }
+            }
+        });
+        long codecNanos = measure(new Runnable() {
+            @Override
+            public void run() {
+                for (String timestamp : TIMESTAMPS) {
+                    mChecksum += DateTimeUtils.timestampFromIso8601Millis(timestamp);
+                }
+            }
+        });
+
+        report("parse", simpleDateFormatNanos, codecNanos);
+    }
+
+    public void testFormatIso8601UTC() {
+        final DateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        final long[] timestamps = new long[TIMESTAMPS.length];
+        for (int i = 0; i < TIMESTAMPS.length; i++) {
+            timestamps[i] = DateTimeUtils.timestampFromIso8601Millis(TIMESTAMPS[i]);
+        }
+
+        long simpleDateFormatNanos = measure(new Runnable() {
+            @Override
+            public void run() {
+                for (long timestamp : timestamps) {
+                    mChecksum += format.format(new Date(timestamp)).replace("+0000", "+00:00").length();
+                }
+            }
+        });
+        long codecNanos = measure(new Runnable() {
+            @Override
+            public void run() {
+                for (long timestamp : timestamps) {
+                    mChecksum += DateTimeUtils.iso8601UTCFromTimestampMillis(timestamp).length();
+                }
+            }
+        });
+
+        report("format", simpleDateFormatNanos, codecNanos);
+    }
+
+    public void testFormatIso8601UTCReusingBuilder() {
+        final StringBuilder sb = new StringBuilder();
+        final long timestamp = DateTimeUtils.timestampFromIso8601Millis(TIMESTAMPS[0]);
+
+        long newStringNanos = measure(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < TIMESTAMPS.length; i++) {
+                    mChecksum += DateTimeUtils.iso8601UTCFromTimestampMillis(timestamp + i).length();
+                }
+            }
+        });
+        long reusedBuilderNanos = measure(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < TIMESTAMPS.length; i++) {
+                    sb.setLength(0);
+                    mChecksum += DateTimeUtils.appendIso8601UTC(sb, timestamp + i).length();
+                }
+            }
+        });
+
+        report("format with a reused builder", newStringNanos, reusedBuilderNanos);
+    }
+
+    /*
+     * returns the average time in nanoseconds of a single run of the passed batch
+     */
+    private static long measure(Runnable batch) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            batch.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            batch.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private void report(String name, long baselineNanos, long candidateNanos) {
+        Log.i(TAG, String.format(Locale.US, "%s: %d ns baseline, %d ns per timestamp (%.1fx), checksum %d",
+                name, baselineNanos / TIMESTAMPS.length, candidateNanos / TIMESTAMPS.length,
+                (double) baselineNanos / Math.max(1, candidateNanos), mChecksum));
+    }
+}
@@ -0,0 +1,86 @@
+package org.wordpress.android.util;
+
+import android.test.InstrumentationTestCase;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class DateTimeUtilsTest extends InstrumentationTestCase {
+    private static final long MARCH_14_2017_17_00_UTC = 1489510800000L;
+
+    public void testTimestampFromIso8601WithUtcOffsets() {
+        assertEquals(MARCH_14_2017_17_00_UTC, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T17:00:00+00:00"));
+        assertEquals(MARCH_14_2017_17_00_UTC, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T17:00:00+0000"));
+        assertEquals(MARCH_14_2017_17_00_UTC, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T17:00:00Z"));
+        assertEquals(MARCH_14_2017_17_00_UTC, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T10:00:00-07:00"));
+        assertEquals(MARCH_14_2017_17_00_UTC, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T22:30:00+0530"));
+        assertEquals(MARCH_14_2017_17_00_UTC, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T19:00:00+02"));
+    }
+
+    public void testTimestampFromIso8601WithFractionalSeconds() {
+        assertEquals(MARCH_14_2017_17_00_UTC + 500, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T17:00:00.5Z"));
+        assertEquals(MARCH_14_2017_17_00_UTC + 123,
+                DateTimeUtils.timestampFromIso8601Millis("2017-03-14T17:00:00.123456+00:00"));
+    }
+
+    public void testTimestampFromIso8601RollsOverLikeSimpleDateFormat() {
+        // February 30th is March 2nd
+        assertEquals(DateTimeUtils.timestampFromIso8601Millis("2017-03-02T00:00:00+00:00"),
+                DateTimeUtils.timestampFromIso8601Millis("2017-02-30T00:00:00+00:00"));
+        assertEquals(DateTimeUtils.timestampFromIso8601Millis("2018-01-01T00:00:00+00:00"),
+                DateTimeUtils.timestampFromIso8601Millis("2017-13-01T00:00:00+00:00"));
+    }
+
+    public void testTimestampFromIso8601WithInvalidDates() {
+        assertEquals(0, DateTimeUtils.timestampFromIso8601Millis(null));
+        assertEquals(0, DateTimeUtils.timestampFromIso8601Millis(""));
+        assertEquals(0, DateTimeUtils.timestampFromIso8601Millis("not a date"));
+        assertEquals(0, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T17:00:00"));
+        assertEquals(0, DateTimeUtils.timestampFromIso8601Millis("2017-03-14 17:00:00+00:00"));
+        assertEquals(0, DateTimeUtils.timestampFromIso8601Millis("2017-03-14T17:00:00.+00:00"));
+        assertNull(DateTimeUtils.dateFromIso8601("2017-03-14T17:0a:00+00:00"));
+    }
+
+    public void testIso8601UTCFromTimestamp() {
+        assertEquals("2017-03-14T17:00:00+00:00", DateTimeUtils.iso8601UTCFromTimestampMillis(MARCH_14_2017_17_00_UTC));
+        assertEquals("1970-01-01T00:00:00+00:00", DateTimeUtils.iso8601UTCFromTimestamp(0));
+        assertEquals("1969-12-31T23:59:59+00:00", DateTimeUtils.iso8601UTCFromTimestamp(-1));
+        assertEquals("2000-02-29T12:00:00+00:00", DateTimeUtils.iso8601UTCFromDate(new Date(951825600000L)));
+    }
+
+    public void testIso8601FromTimestampUsesDefaultTimeZone() {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+            assertEquals("2017-03-14T10:00:00-0700", DateTimeUtils.iso8601FromTimestampMillis(MARCH_14_2017_17_00_UTC));
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+            assertEquals("2017-03-14T22:30:00+0530", DateTimeUtils.iso8601FromTimestampMillis(MARCH_14_2017_17_00_UTC));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    public void testMatchesSimpleDateFormat() {
+        DateFormat localFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US);
+        DateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US);
+        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // whole seconds between 1970 and 2040
+            long timestampMillis = (random.nextLong() & Long.MAX_VALUE) % 2208988800L * 1000;
+            Date date = new Date(timestampMillis);
+
+            String local = localFormat.format(date);
+            String utc = utcFormat.format(date).replace("+0000", "+00:00");
+            assertEquals(local, DateTimeUtils.iso8601FromDate(date));
+            assertEquals(utc, DateTimeUtils.iso8601UTCFromDate(date));
+            assertEquals(timestampMillis, DateTimeUtils.timestampFromIso8601Millis(local));
+            assertEquals(timestampMillis, DateTimeUtils.timestampFromIso8601Millis(utc));
+        }
+    }
+}
@@ -5,17 +5,21 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.Log;
 
+import org.wordpress.android.util.AppLogBuffer.LogEntry;
+
+import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.NoSuchElementException;
+import java.util.TimeZone;
 
 import static java.lang.String.format;
 
@@ -29,7 +33,8 @@ public class AppLog {
 
     public static final String TAG = "WordPress";
     public static final int HEADER_LINE_COUNT = 2;
-    private static boolean mEnableRecording = false;
+    public static final int DEFAULT_CAPACITY = 99;
+    private static volatile boolean mEnableRecording = false;
     private static List<AppLogListener> mListeners = new ArrayList<>(0);
 
     private AppLog() {
@@ -40,10 +45,62 @@ public class AppLog {
      * Capture log so it can be displayed by AppLogViewerActivity
      * @param enable A boolean flag to capture log. Default is false, pass true to enable recording
      */
-    public static void enableRecording(boolean enable) {
+    public static synchronized void enableRecording(boolean enable) {
+        if (enable && mLogBuffer == null) {
+            mLogBuffer = new AppLogBuffer(DEFAULT_CAPACITY, null);
+        }
         mEnableRecording = enable;
     }
 
+    /**
+     * Capture log so it can be displayed by AppLogViewerActivity, keeping the passed number of entries.
+     * When a file is passed the log is also written to it as it's recorded, so it survives the process
+     * being killed, and entries already in the file are restored. The file is opened in the background,
+     * and entries recorded in the meantime are kept and written to it once it's open.
+     * @param enable A boolean flag to capture log. Default is false, pass true to enable recording
+     * @param capacity The maximum number of entries to keep
+     * @param logFile File to persist the log to, or null to only keep it in memory
+     */
+    public static synchronized void enableRecording(boolean enable, int capacity, @Nullable final File logFile) {
+        if (enable) {
+            final AppLogBuffer memoryBuffer = new AppLogBuffer(capacity, null);
+            mLogBuffer = memoryBuffer;
+            mEnableRecording = true;
+            if (logFile != null) {
+                openLogFileAsync(memoryBuffer, capacity, logFile);
+            }
+        } else {
+            mEnableRecording = false;
+        }
+    }
+
+    /*
+     * maps and restores the log file off the calling thread, then copies the entries recorded since
+     * recording started into it and records to it from then on
+     */
+    private static void openLogFileAsync(@NonNull final AppLogBuffer memoryBuffer, final int capacity,
+                                         @NonNull final File logFile) {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                AppLogBuffer fileBuffer = new AppLogBuffer(capacity, logFile);
+                long lastSequence = fileBuffer.addAll(memoryBuffer.getEntries(), 0);
+                synchronized (AppLog.class) {
+                    // recording was restarted while the file was being opened
+                    if (mLogBuffer != memoryBuffer) {
+                        return;
+                    }
+                    mLogBuffer = fileBuffer;
+                }
+                // entries added to the memory buffer before the swap was seen
+                fileBuffer.addAll(memoryBuffer.getEntriesAfter(lastSequence), lastSequence);
+                if (fileBuffer.getNumRestored() > 0) {
+                    i(T.UTILS, "AppLog > restored " + fileBuffer.getNumRestored() + " entries from previous session");
+                }
+            }
+        }, "AppLogFile").start();
+    }
+
     public static void addListener(@NonNull AppLogListener listener) {
         mListeners.add(listener);
     }
@@ -163,8 +220,6 @@ public class AppLog {
 
     // --------------------------------------------------------------------------------------------------------
 
-    private static final int MAX_ENTRIES = 99;
-
     public enum LogLevel {
         v, d, i, w, e;
         private String toHtmlColor() {
@@ -184,75 +239,48 @@ public class AppLog {
         }
     }
 
-    private static class LogEntry {
-        final LogLevel mLogLevel;
-        final String mLogText;
-        final java.util.Date mDate;
-        final T mLogTag;
-
-        public LogEntry(LogLevel logLevel, String logText, T logTag) {
-            mLogLevel = logLevel;
-            mDate = DateTimeUtils.nowUTC();
-            if (logText == null) {
-                mLogText = "null";
-            } else {
-                mLogText = logText;
-            }
-            mLogTag = logTag;
-        }
+    // log entries are formatted when the log is displayed or exported rather than when they're recorded
+    private static volatile AppLogBuffer mLogBuffer;
 
-        private String formatLogDate() {
-            return new SimpleDateFormat("MMM-dd kk:mm", Locale.US).format(mDate);
-        }
-
-        private String toHtml() {
-            StringBuilder sb = new StringBuilder();
-            sb.append("<font color=\"");
-            sb.append(mLogLevel.toHtmlColor());
-            sb.append("\">");
-            sb.append("[");
-            sb.append(formatLogDate()).append(" ");
-            sb.append(mLogTag.name()).append(" ");
-            sb.append(mLogLevel.name());
-            sb.append("] ");
-            sb.append(TextUtils.htmlEncode(mLogText).replace("\n", "<br />"));
-            sb.append("</font>");
-            return sb.toString();
-        }
+    private static SimpleDateFormat getLogDateFormat() {
+        // entry dates have always been shown in UTC
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MMM-dd kk:mm", Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dateFormat;
     }
 
-    private static class LogEntryList extends ArrayList<LogEntry> {
-        private synchronized boolean addEntry(LogEntry entry) {
-            if (size() >= MAX_ENTRIES)
-                removeFirstEntry();
-            return add(entry);
-        }
-        private void removeFirstEntry() {
-            Iterator<LogEntry> it = iterator();
-            if (!it.hasNext())
-                return;
-            try {
-                remove(it.next());
-            } catch (NoSuchElementException e) {
-                // ignore
-            }
-        }
+    private static String entryToHtml(LogEntry entry, SimpleDateFormat dateFormat) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<font color=\"");
+        sb.append(entry.mLogLevel.toHtmlColor());
+        sb.append("\">");
+        sb.append("[");
+        sb.append(dateFormat.format(new Date(entry.mTime))).append(" ");
+        sb.append(entry.mLogTag.name()).append(" ");
+        sb.append(entry.mLogLevel.name());
+        sb.append("] ");
+        sb.append(TextUtils.htmlEncode(entry.mLogText).replace("\n", "<br />"));
+        sb.append("</font>");
+        return sb.toString();
     }
 
-    private static LogEntryList mLogEntries = new LogEntryList();
-
     private static void addEntry(T tag, LogLevel level, String text) {
         // Call our listeners if any
         for (AppLogListener listener : mListeners) {
             listener.onLog(tag, level, text);
         }
         // Record entry if enabled
-        if (mEnableRecording) {
-            LogEntry entry = new LogEntry(level, text, tag);
-            mLogEntries.addEntry(entry);
+        AppLogBuffer logBuffer = mLogBuffer;
+        if (mEnableRecording && logBuffer != null) {
+            logBuffer.add(tag, level, text != null ? text : "null");
         }
     }
 
+    private static List<LogEntry> getEntries() {
+        AppLogBuffer logBuffer = mLogBuffer;
+        return logBuffer != null ? logBuffer.getEntries() : new ArrayList<LogEntry>();
+    }
+
     private static String getStringStackTrace(Throwable throwable) {
         StringWriter errors = new StringWriter();
         throwable.printStackTrace(new PrintWriter(errors));
@@ -293,9 +321,9 @@ public class AppLog {
         items.add("<strong>" + getAppInfoHeaderText(context) + "</strong>");
         items.add("<strong>" + getDeviceInfoHeaderText(context) + "</strong>");
 
-        Iterator<LogEntry> it = mLogEntries.iterator();
-        while (it.hasNext()) {
-            items.add(it.next().toHtml());
+        SimpleDateFormat dateFormat = getLogDateFormat();
+        for (LogEntry entry : getEntries()) {
+            items.add(entryToHtml(entry, dateFormat));
         }
         return items;
     }
@@ -312,13 +340,12 @@ public class AppLog {
         sb.append(getAppInfoHeaderText(context)).append("\n")
                 .append(getDeviceInfoHeaderText(context)).append("\n\n");
 
-        Iterator<LogEntry> it = mLogEntries.iterator();
+        SimpleDateFormat dateFormat = getLogDateFormat();
         int lineNum = 1;
-        while (it.hasNext()) {
-            LogEntry entry = it.next();
+        for (LogEntry entry : getEntries()) {
             sb.append(format(Locale.US, "%02d - ", lineNum))
                 .append("[")
-                .append(entry.formatLogDate()).append(" ")
+                .append(dateFormat.format(new Date(entry.mTime))).append(" ")
                 .append(entry.mLogTag.name())
                 .append("] ")
                 .append(entry.mLogText)
@@ -0,0 +1,316 @@
+package org.wordpress.android.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import org.wordpress.android.util.AppLog.LogLevel;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity ring buffer of log entries used by AppLog. Slots are claimed without locking - each entry
+ * gets the next sequence number, which picks its slot, and the slot's sequence is published once the entry
+ * has been written so readers can skip slots which are being overwritten.
+ *
+ * When a file is passed the buffer is mirrored to it through a memory-mapped fixed-size record per slot,
+ * so the log survives the process being killed and is restored the next time the buffer is created.
+ * Mapping and restoring the file does disk I/O, so file-backed buffers shouldn't be created on the main
+ * thread.
+ */
+class AppLogBuffer {
+    private static final long EMPTY = 0;
+    private static final long BUSY = -1;
+
+    private static final int FILE_MAGIC = 0x57504c47; // "WPLG"
+    private static final int FILE_VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+
+    // record = sequence (8), time (8), level name length (1), tag name length (1), text length (2),
+    // followed by the level and tag names (ascii) and the utf-8 text - names are stored rather than
+    // ordinals so adding or reordering tags doesn't change how older records are read
+    static final int RECORD_SIZE = 1024;
+    private static final int RECORD_NAMES_OFFSET = 20;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    static class LogEntry {
+        final long mSequence;
+        final long mTime;
+        final LogLevel mLogLevel;
+        final T mLogTag;
+        final String mLogText;
+
+        private LogEntry(long sequence, long time, LogLevel logLevel, T logTag, String logText) {
+            mSequence = sequence;
+            mTime = time;
+            mLogLevel = logLevel;
+            mLogTag = logTag;
+            mLogText = logText;
+        }
+    }
+
+    private final int mCapacity;
+    private final AtomicLong mNextSequence = new AtomicLong(1);
+
+    // sequence of the entry in each slot, EMPTY if it's never been used or BUSY while it's being written
+    private final AtomicLongArray mSequences;
+    // entries are immutable and read through the array, so a reader which sees the same published
+    // sequence before and after reading an entry has read that sequence's entry
+    private final AtomicReferenceArray<LogEntry> mEntries;
+
+    private final MappedByteBuffer mFileBuffer;
+    private int mNumRestored;
+
+    AppLogBuffer(int capacity, @Nullable File file) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than zero");
+        }
+        mCapacity = capacity;
+        mSequences = new AtomicLongArray(capacity);
+        mEntries = new AtomicReferenceArray<>(capacity);
+        mFileBuffer = file != null ? mapFile(file, capacity) : null;
+        if (mFileBuffer != null) {
+            restoreFromFile();
+        }
+    }
+
+    /*
+     * number of entries which were read back from the log file when the buffer was created
+     */
+    int getNumRestored() {
+        return mNumRestored;
+    }
+
+    private int getSlot(long sequence) {
+        return (int) (sequence % mCapacity);
+    }
+
+    void add(@NonNull T tag, @NonNull LogLevel level, @NonNull String text) {
+        add(tag, level, text, System.currentTimeMillis());
+    }
+
+    /*
+     * adds the passed entries from another buffer, keeping their times - returns the sequence of the
+     * last one in the passed buffer
+     */
+    long addAll(@NonNull List<LogEntry> entries, long lastSequence) {
+        for (LogEntry entry : entries) {
+            add(entry.mLogTag, entry.mLogLevel, entry.mLogText, entry.mTime);
+            lastSequence = entry.mSequence;
+        }
+        return lastSequence;
+    }
+
+    private void add(@NonNull T tag, @NonNull LogLevel level, @NonNull String text, long time) {
+        long sequence = mNextSequence.getAndIncrement();
+        int slot = getSlot(sequence);
+
+        // claim the slot - it's only contended when writers lap the whole buffer while an earlier entry
+        // in the same slot is still being written, in which case the older entry gives way
+        while (true) {
+            long current = mSequences.get(slot);
+            if (current > sequence) {
+                return;
+            }
+            if (current != BUSY && mSequences.compareAndSet(slot, current, BUSY)) {
+                break;
+            }
+            Thread.yield();
+        }
+
+        mEntries.set(slot, new LogEntry(sequence, time, level, tag, text));
+        if (mFileBuffer != null) {
+            writeRecord(slot, sequence, time, level, tag, text);
+        }
+
+        mSequences.set(slot, sequence);
+    }
+
+    /*
+     * returns the entries in the order they were added - entries which are being written or are
+     * overwritten while they're being read are skipped
+     */
+    @NonNull
+    List<LogEntry> getEntries() {
+        return getEntriesAfter(EMPTY);
+    }
+
+    /*
+     * same as getEntries() but only returns entries added after the one with the passed sequence
+     */
+    @NonNull
+    List<LogEntry> getEntriesAfter(long afterSequence) {
+        long nextSequence = mNextSequence.get();
+        long firstSequence = Math.max(afterSequence + 1, nextSequence - mCapacity);
+        List<LogEntry> entries = new ArrayList<>((int) Math.max(0, nextSequence - firstSequence));
+
+        for (long sequence = firstSequence; sequence < nextSequence; sequence++) {
+            int slot = getSlot(sequence);
+            if (mSequences.get(slot) != sequence) {
+                continue;
+            }
+            // both reads are volatile, so the entry can't be read after the sequence is checked again
+            LogEntry entry = mEntries.get(slot);
+            if (entry != null && mSequences.get(slot) == sequence) {
+                entries.add(entry);
+            }
+        }
+
+        return entries;
+    }
+
+    /*
+     * maps the log file, resetting it if it was written with a different layout or capacity
+     */
+    private static MappedByteBuffer mapFile(@NonNull File file, int capacity) {
+        long fileSize = HEADER_SIZE + ((long) capacity * RECORD_SIZE);
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            boolean isValid = randomAccessFile.length() == fileSize
+                    && randomAccessFile.readInt() == FILE_MAGIC
+                    && randomAccessFile.readInt() == FILE_VERSION
+                    && randomAccessFile.readInt() == capacity
+                    && randomAccessFile.readInt() == RECORD_SIZE;
+            randomAccessFile.setLength(fileSize);
+
+            // the mapping remains valid after the file is closed
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            if (!isValid) {
+                for (int slot = 0; slot < capacity; slot++) {
+                    buffer.putLong(HEADER_SIZE + (slot * RECORD_SIZE), EMPTY);
+                }
+                buffer.putInt(0, FILE_MAGIC);
+                buffer.putInt(4, FILE_VERSION);
+                buffer.putInt(8, capacity);
+                buffer.putInt(12, RECORD_SIZE);
+            }
+            return buffer;
+        } catch (IOException e) {
+            // AppLog can't be used here since it's what's being initialized
+            Log.w(AppLog.TAG, "Unable to map log file, log won't be persisted", e);
+            return null;
+        } finally {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private void writeRecord(int slot, long sequence, long time, LogLevel level, T tag, String text) {
+        int offset = HEADER_SIZE + (slot * RECORD_SIZE);
+        byte[] levelName = level.name().getBytes(ASCII);
+        byte[] tagName = tag.name().getBytes(ASCII);
+        int textOffset = RECORD_NAMES_OFFSET + levelName.length + tagName.length;
+        byte[] bytes = encodeText(text, RECORD_SIZE - textOffset);
+
+        // the sequence is cleared first and written last so a record which was only partially written
+        // when the process died isn't restored
+        mFileBuffer.putLong(offset, EMPTY);
+        mFileBuffer.putLong(offset + 8, time);
+        mFileBuffer.put(offset + 16, (byte) levelName.length);
+        mFileBuffer.put(offset + 17, (byte) tagName.length);
+        mFileBuffer.putShort(offset + 18, (short) bytes.length);
+        putBytes(offset + RECORD_NAMES_OFFSET, levelName);
+        putBytes(offset + RECORD_NAMES_OFFSET + levelName.length, tagName);
+        putBytes(offset + textOffset, bytes);
+        mFileBuffer.putLong(offset, sequence);
+    }
+
+    private void putBytes(int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            mFileBuffer.put(offset + i, bytes[i]);
+        }
+    }
+
+    private byte[] getBytes(int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = mFileBuffer.get(offset + i);
+        }
+        return bytes;
+    }
+
+    /*
+     * returns the utf-8 bytes of the passed text, truncated at a character boundary to fit in the
+     * passed number of bytes
+     */
+    private static byte[] encodeText(String text, int maxBytes) {
+        // every character needs at least one byte, so avoid encoding more than can be stored
+        if (text.length() > maxBytes) {
+            text = text.substring(0, maxBytes);
+        }
+        byte[] bytes = text.getBytes(UTF8);
+        if (bytes.length <= maxBytes) {
+            return bytes;
+        }
+        int length = maxBytes;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] truncated = new byte[length];
+        System.arraycopy(bytes, 0, truncated, 0, length);
+        return truncated;
+    }
+
+    private void restoreFromFile() {
+        long maxSequence = EMPTY;
+
+        for (int slot = 0; slot < mCapacity; slot++) {
+            int offset = HEADER_SIZE + (slot * RECORD_SIZE);
+            long sequence = mFileBuffer.getLong(offset);
+            int levelLength = mFileBuffer.get(offset + 16);
+            int tagLength = mFileBuffer.get(offset + 17);
+            int length = mFileBuffer.getShort(offset + 18);
+            int textOffset = RECORD_NAMES_OFFSET + levelLength + tagLength;
+            if (sequence <= EMPTY
+                    || getSlot(sequence) != slot
+                    || levelLength <= 0 || tagLength <= 0
+                    || length < 0 || textOffset + length > RECORD_SIZE) {
+                continue;
+            }
+
+            // records whose level or tag no longer exists are dropped
+            LogLevel level;
+            T tag;
+            try {
+                level = LogLevel.valueOf(new String(getBytes(offset + RECORD_NAMES_OFFSET, levelLength), ASCII));
+                tag = T.valueOf(new String(getBytes(offset + RECORD_NAMES_OFFSET + levelLength, tagLength), ASCII));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+
+            String text = new String(getBytes(offset + textOffset, length), UTF8);
+            mEntries.set(slot, new LogEntry(sequence, mFileBuffer.getLong(offset + 8), level, tag, text));
+            mSequences.set(slot, sequence);
+            maxSequence = Math.max(maxSequence, sequence);
+        }
+
+        // slots which weren't overwritten by the last session hold entries which are too old to show
+        for (int slot = 0; slot < mCapacity; slot++) {
+            long sequence = mSequences.get(slot);
+            if (sequence != EMPTY && sequence > maxSequence - mCapacity) {
+                mNumRestored++;
+            }
+        }
+
+        mNextSequence.set(maxSequence + 1);
+    }
+}
@@ -0,0 +1,252 @@
+package org.wordpress.android.util;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.os.Build;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pool of mutable bitmaps which are no longer used, bucketed by allocation size, which decode paths draw
+ * from via BitmapFactory.Options.inBitmap so thumbnails don't need a fresh allocation every time. Only
+ * used on KitKat and above, since earlier versions can only reuse bitmaps of exactly the same size.
+ *
+ * Bitmaps should only be returned to the pool once nothing displays them.
+ */
+public class BitmapPool {
+    private static final int MAX_POOL_BYTES = 8 * 1024 * 1024;
+    // bitmaps larger than this aren't pooled so a single large image can't flush the pool
+    private static final int MAX_BITMAP_BYTES = MAX_POOL_BYTES / 4;
+
+    // bucket (allocation size rounded up to a power of two) > bitmaps in that bucket, most recent last
+    private static final TreeMap<Integer, ArrayDeque<Bitmap>> sBuckets = new TreeMap<>();
+    private static int sPoolBytes;
+
+    // instrumentation, reset with resetStats() at the start of each scroll session
+    private static long sNumHits;
+    private static long sNumMisses;
+    private static long sBytesAllocated;
+    private static long sBytesReused;
+
+    private BitmapPool() {
+        throw new AssertionError();
+    }
+
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+    }
+
+    private static int getBucket(int numBytes) {
+        return Integer.highestOneBit(numBytes - 1) << 1;
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        } else if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        }
+        return 4;
+    }
+
+    /**
+     * Adds the passed bitmap to the pool - bitmaps which can't be reused are ignored
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    public static void put(Bitmap bitmap) {
+        if (!isSupported() || bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int numBytes = bitmap.getAllocationByteCount();
+        if (numBytes <= 0 || numBytes > MAX_BITMAP_BYTES) {
+            return;
+        }
+
+        synchronized (BitmapPool.class) {
+            int bucket = getBucket(numBytes);
+            ArrayDeque<Bitmap> bitmaps = sBuckets.get(bucket);
+            if (bitmaps == null) {
+                bitmaps = new ArrayDeque<>();
+                sBuckets.put(bucket, bitmaps);
+            } else if (bitmaps.contains(bitmap)) {
+                return;
+            }
+            bitmaps.addLast(bitmap);
+            sPoolBytes += numBytes;
+            trimToSize();
+        }
+    }
+
+    /*
+     * drops bitmaps from the largest buckets first until the pool is within its budget
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static void trimToSize() {
+        while (sPoolBytes > MAX_POOL_BYTES && !sBuckets.isEmpty()) {
+            Map.Entry<Integer, ArrayDeque<Bitmap>> entry = sBuckets.lastEntry();
+            Bitmap bitmap = entry.getValue().pollFirst();
+            if (entry.getValue().isEmpty()) {
+                sBuckets.remove(entry.getKey());
+            }
+            if (bitmap != null) {
+                sPoolBytes -= bitmap.getAllocationByteCount();
+            }
+        }
+    }
+
+    /*
+     * removes and returns a pooled bitmap whose allocation can hold the passed number of bytes - only
+     * the bucket for that size and the next one up are searched so small bitmaps don't pin large ones
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static Bitmap take(int numBytes) {
+        synchronized (BitmapPool.class) {
+            int bucket = getBucket(numBytes);
+            for (Integer key = sBuckets.ceilingKey(bucket);
+                 key != null && key <= bucket * 2;
+                 key = sBuckets.higherKey(key)) {
+                ArrayDeque<Bitmap> bitmaps = sBuckets.get(key);
+                Iterator<Bitmap> iterator = bitmaps.iterator();
+                while (iterator.hasNext()) {
+                    Bitmap bitmap = iterator.next();
+                    if (bitmap.isRecycled()) {
+                        iterator.remove();
+                        continue;
+                    }
+                    int allocationBytes = bitmap.getAllocationByteCount();
+                    if (allocationBytes >= numBytes) {
+                        iterator.remove();
+                        if (bitmaps.isEmpty()) {
+                            sBuckets.remove(key);
+                        }
+                        sPoolBytes -= allocationBytes;
+                        sNumHits++;
+                        sBytesReused += numBytes;
+                        return bitmap;
+                    }
+                }
+            }
+            sNumMisses++;
+            sBytesAllocated += numBytes;
+            return null;
+        }
+    }
+
+    /**
+     * Returns a mutable bitmap with the passed dimensions, reusing a pooled bitmap if possible. The
+     * returned bitmap is cleared.
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    public static Bitmap get(int width, int height, Bitmap.Config config) {
+        if (isSupported()) {
+            Bitmap bitmap = take(width * height * getBytesPerPixel(config));
+            if (bitmap != null) {
+                try {
+                    bitmap.reconfigure(width, height, config);
+                    bitmap.eraseColor(Color.TRANSPARENT);
+                    return bitmap;
+                } catch (IllegalArgumentException e) {
+                    AppLog.w(AppLog.T.UTILS, "BitmapPool > Can't reconfigure pooled bitmap: " + e.getMessage());
+                    // it's still unused, so it can serve another request
+                    put(bitmap);
+                }
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /*
+     * sets inBitmap to a pooled bitmap large enough for the decode described by the passed options,
+     * which must already contain the bounds (outWidth/outHeight) and inSampleSize
+     */
+    private static void prepareOptions(BitmapFactory.Options options) {
+        options.inMutable = true;
+        if (!isSupported() || options.outWidth <= 0 || options.outHeight <= 0) {
+            return;
+        }
+        int sampleSize = Math.max(1, options.inSampleSize);
+        int width = (options.outWidth + sampleSize - 1) / sampleSize;
+        int height = (options.outHeight + sampleSize - 1) / sampleSize;
+        Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+        options.inBitmap = take(width * height * getBytesPerPixel(config));
+    }
+
+    /**
+     * Decodes the passed file into a pooled bitmap when possible. The options must already contain the
+     * bounds from an inJustDecodeBounds pass.
+     */
+    public static Bitmap decodeFile(String path, BitmapFactory.Options options) {
+        prepareOptions(options);
+        try {
+            return BitmapFactory.decodeFile(path, options);
+        } catch (IllegalArgumentException e) {
+            // the pooled bitmap couldn't be used for this image, so decode without it
+            releaseInBitmap(options);
+            return BitmapFactory.decodeFile(path, options);
+        }
+    }
+
+    /**
+     * Same as decodeFile() but for encoded image bytes - the bounds are read from the bytes if the
+     * passed options don't already contain them.
+     */
+    public static Bitmap decodeByteArray(byte[] data, int offset, int length, BitmapFactory.Options options) {
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeByteArray(data, offset, length, options);
+            options.inJustDecodeBounds = false;
+        }
+        prepareOptions(options);
+        try {
+            return BitmapFactory.decodeByteArray(data, offset, length, options);
+        } catch (IllegalArgumentException e) {
+            releaseInBitmap(options);
+            return BitmapFactory.decodeByteArray(data, offset, length, options);
+        }
+    }
+
+    /*
+     * returns the pooled bitmap a failed decode was given to the pool, since nothing else has it
+     */
+    private static void releaseInBitmap(BitmapFactory.Options options) {
+        Bitmap inBitmap = options.inBitmap;
+        options.inBitmap = null;
+        put(inBitmap);
+    }
+
+    /**
+     * Empties the pool, such as when the app is asked to free memory
+     */
+    public static synchronized void clear() {
+        sBuckets.clear();
+        sPoolBytes = 0;
+    }
+
+    public static synchronized void resetStats() {
+        sNumHits = 0;
+        sNumMisses = 0;
+        sBytesAllocated = 0;
+        sBytesReused = 0;
+    }
+
+    public static synchronized float getHitRate() {
+        long numRequests = sNumHits + sNumMisses;
+        return numRequests > 0 ? (float) sNumHits / numRequests : 0;
+    }
+
+    public static synchronized long getBytesAllocated() {
+        return sBytesAllocated;
+    }
+
+    public static synchronized String getDiagnostics() {
+        return String.format(Locale.US, "bitmap pool > %d hits, %d misses (%.0f%% hit rate), %d KB allocated, "
+                        + "%d KB reused, %d KB pooled", sNumHits, sNumMisses, getHitRate() * 100,
+                sBytesAllocated / 1024, sBytesReused / 1024, sPoolBytes / 1024);
+    }
+}
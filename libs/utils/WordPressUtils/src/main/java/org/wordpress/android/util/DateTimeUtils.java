@@ -1,14 +1,9 @@
 package org.wordpress.android.util;
 
 import android.content.Context;
-import android.text.TextUtils;
 import android.text.format.DateUtils;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Locale;
 import java.util.TimeZone;
 
 public class DateTimeUtils {
@@ -16,13 +11,18 @@ public class DateTimeUtils {
         throw new AssertionError();
     }
 
-    // See http://drdobbs.com/java/184405382
-    private static final ThreadLocal<DateFormat> ISO8601_FORMAT = new ThreadLocal<DateFormat>() {
-        @Override
-        protected DateFormat initialValue() {
-            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US);
-        }
-    };
+    // ISO 8601 codec - dates are parsed and formatted by hand since this runs for every post, comment
+    // and note during sync, and SimpleDateFormat is slow, allocates heavily and isn't thread-safe
+
+    private static final long INVALID_TIMESTAMP = Long.MIN_VALUE;
+
+    // length of "yyyy-MM-ddTHH:mm:ss+00:00"
+    private static final int ISO8601_LENGTH = 25;
+
+    private static final long MILLIS_PER_SECOND = 1000;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
 
     public static String javaDateToTimeSpan(final Date date, Context context, long currentTime) {
         if (date == null) {
@@ -59,28 +59,24 @@ public class DateTimeUtils {
 
     /**
      * Given an ISO 8601-formatted date as a String, returns a {@link Date}.
+     *
+     * @return null if the parameter is null, empty or not a date.
      */
     public static Date dateFromIso8601(final String strDate) {
-        try {
-            DateFormat formatter = ISO8601_FORMAT.get();
-            return formatter.parse(strDate);
-        } catch (ParseException e) {
+        long timestampMillis = parseIso8601(strDate);
+        if (timestampMillis == INVALID_TIMESTAMP) {
             return null;
         }
+        return new Date(timestampMillis);
     }
 
     /**
      * Given an ISO 8601-formatted date as a String, returns a {@link Date} in UTC.
      */
     public static Date dateUTCFromIso8601(String iso8601date) {
-        try {
-            iso8601date = iso8601date.replace("Z", "+0000").replace("+00:00", "+0000");
-            DateFormat formatter = ISO8601_FORMAT.get();
-            formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return formatter.parse(iso8601date);
-        } catch (ParseException e) {
-            return null;
-        }
+        // a Date is an instant, so this is the same as dateFromIso8601() - the UTC offset in the
+        // string is applied either way
+        return dateFromIso8601(iso8601date);
     }
 
     /**
@@ -90,8 +86,7 @@ public class DateTimeUtils {
         if (date == null) {
             return "";
         }
-        DateFormat formatter = ISO8601_FORMAT.get();
-        return formatter.format(date);
+        return iso8601FromTimestampMillis(date.getTime());
     }
 
     /**
@@ -101,14 +96,7 @@ public class DateTimeUtils {
         if (date == null) {
             return "";
         }
-        TimeZone tz = TimeZone.getTimeZone("UTC");
-        DateFormat formatter = ISO8601_FORMAT.get();
-        formatter.setTimeZone(tz);
-
-        String iso8601date = formatter.format(date);
-
-        // Use "+00:00" notation rather than "+0000" to be consistent with the WP.COM API
-        return iso8601date.replace("+0000", "+00:00");
+        return iso8601UTCFromTimestampMillis(date.getTime());
     }
 
     /**
@@ -154,6 +142,10 @@ public class DateTimeUtils {
         return (int) (msDiff / 60000);
     }
 
+    public static int minutesBetween(long timestampMillis1, long timestampMillis2) {
+        return (int) (Math.abs(timestampMillis1 - timestampMillis2) / 60000);
+    }
+
     public static int secondsBetween(Date dt1, Date dt2) {
         long msDiff = millisecondsBetween(dt1, dt2);
         if (msDiff == 0) {
@@ -188,24 +180,43 @@ public class DateTimeUtils {
     /**
      * Given an ISO 8601-formatted date as a String, returns the corresponding UNIX timestamp.
      */
-    public static long timestampFromIso8601(final String strDate) {
+    public static long timestampFromIso8601(final CharSequence strDate) {
         return timestampFromIso8601Millis(strDate) / 1000;
     }
 
     /**
-     * Given an ISO 8601-formatted date as a String, returns the corresponding timestamp in milliseconds.
+     * Given an ISO 8601-formatted date, returns the corresponding timestamp in milliseconds.
      *
      * @return 0 if the parameter is null, empty or not a date.
      */
-    public static long timestampFromIso8601Millis(final String strDate) {
-        if (TextUtils.isEmpty(strDate)) {
-            return 0;
-        }
-        Date date = dateFromIso8601(strDate);
-        if (date == null) {
-            return 0;
-        }
-        return date.getTime();
+    public static long timestampFromIso8601Millis(final CharSequence strDate) {
+        long timestampMillis = parseIso8601(strDate);
+        return timestampMillis == INVALID_TIMESTAMP ? 0 : timestampMillis;
+    }
+
+    /**
+     * Given a timestamp in milliseconds, returns an ISO 8601-formatted date in the device's time zone
+     * as a String.
+     */
+    public static String iso8601FromTimestampMillis(long timestampMillis) {
+        int offsetMillis = TimeZone.getDefault().getOffset(timestampMillis);
+        return appendIso8601(new StringBuilder(ISO8601_LENGTH), timestampMillis, offsetMillis, false).toString();
+    }
+
+    /**
+     * Given a timestamp in milliseconds, returns an ISO 8601-formatted date in UTC as a String.
+     */
+    public static String iso8601UTCFromTimestampMillis(long timestampMillis) {
+        return appendIso8601UTC(new StringBuilder(ISO8601_LENGTH), timestampMillis).toString();
+    }
+
+    /**
+     * Appends the ISO 8601-formatted date in UTC for the passed timestamp in milliseconds to the passed
+     * StringBuilder, for callers which format many dates and want to reuse the same builder.
+     */
+    public static StringBuilder appendIso8601UTC(StringBuilder sb, long timestampMillis) {
+        // "+00:00" rather than "+0000" to be consistent with the WP.COM API
+        return appendIso8601(sb, timestampMillis, 0, true);
     }
 
     /**
@@ -219,14 +230,14 @@ public class DateTimeUtils {
      * Given a UNIX timestamp, returns an ISO 8601-formatted date as a String.
      */
     public static String iso8601FromTimestamp(long timestamp) {
-        return iso8601FromDate(dateFromTimestamp(timestamp));
+        return iso8601FromTimestampMillis(timestamp * 1000);
     }
 
     /**
      * Given a UNIX timestamp, returns an ISO 8601-formatted date in UTC as a String.
      */
     public static String iso8601UTCFromTimestamp(long timestamp) {
-        return iso8601UTCFromDate(dateFromTimestamp(timestamp));
+        return iso8601UTCFromTimestampMillis(timestamp * 1000);
     }
 
     /**
@@ -236,4 +247,183 @@ public class DateTimeUtils {
         Date dateGMT = dateFromTimestamp(timestamp);
         return javaDateToTimeSpan(dateGMT, context);
     }
+
+    /*
+     * parses "yyyy-MM-ddTHH:mm:ss" followed by optional fractional seconds and a UTC offset of "Z",
+     * "+HH:mm", "+HHmm" or "+HH", and returns the timestamp in milliseconds or INVALID_TIMESTAMP.
+     * As with a lenient SimpleDateFormat, out of range fields roll over into the next field and
+     * anything after the UTC offset is ignored.
+     */
+    private static long parseIso8601(CharSequence str) {
+        if (str == null || str.length() < 20) {
+            return INVALID_TIMESTAMP;
+        }
+
+        int year = parseDigits(str, 0, 4);
+        int month = parseDigits(str, 5, 2);
+        int day = parseDigits(str, 8, 2);
+        int hour = parseDigits(str, 11, 2);
+        int minute = parseDigits(str, 14, 2);
+        int second = parseDigits(str, 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0
+                || str.charAt(4) != '-' || str.charAt(7) != '-' || str.charAt(10) != 'T'
+                || str.charAt(13) != ':' || str.charAt(16) != ':') {
+            return INVALID_TIMESTAMP;
+        }
+
+        int length = str.length();
+        int pos = 19;
+        int millis = 0;
+        if (str.charAt(pos) == '.') {
+            // only the first three digits are significant
+            int numDigits = 0;
+            pos++;
+            while (pos < length && isDigit(str.charAt(pos))) {
+                if (numDigits < 3) {
+                    millis = (millis * 10) + (str.charAt(pos) - '0');
+                    numDigits++;
+                }
+                pos++;
+            }
+            if (numDigits == 0) {
+                return INVALID_TIMESTAMP;
+            }
+            for (; numDigits < 3; numDigits++) {
+                millis *= 10;
+            }
+        }
+
+        if (pos >= length) {
+            return INVALID_TIMESTAMP;
+        }
+        long offsetMillis;
+        char sign = str.charAt(pos);
+        if (sign == 'Z') {
+            offsetMillis = 0;
+        } else if (sign == '+' || sign == '-') {
+            int offsetHours = parseDigits(str, pos + 1, 2);
+            int offsetMinutes = 0;
+            if (pos + 3 < length && str.charAt(pos + 3) == ':') {
+                offsetMinutes = parseDigits(str, pos + 4, 2);
+            } else if (pos + 3 < length && isDigit(str.charAt(pos + 3))) {
+                offsetMinutes = parseDigits(str, pos + 3, 2);
+            }
+            if (offsetHours < 0 || offsetMinutes < 0) {
+                return INVALID_TIMESTAMP;
+            }
+            offsetMillis = (offsetHours * MILLIS_PER_HOUR) + (offsetMinutes * MILLIS_PER_MINUTE);
+            if (sign == '-') {
+                offsetMillis = -offsetMillis;
+            }
+        } else {
+            return INVALID_TIMESTAMP;
+        }
+
+        // months past December roll over into the following years
+        int yearsInMonths = (int) floorDiv(month - 1, 12);
+        year += yearsInMonths;
+        month -= yearsInMonths * 12;
+
+        return (daysFromCivil(year, month, 1) + day - 1) * MILLIS_PER_DAY
+                + (hour * MILLIS_PER_HOUR)
+                + (minute * MILLIS_PER_MINUTE)
+                + (second * MILLIS_PER_SECOND)
+                + millis
+                - offsetMillis;
+    }
+
+    /*
+     * returns the non-negative number made up of the count digits at start, or -1 if they aren't all digits
+     */
+    private static int parseDigits(CharSequence str, int start, int count) {
+        if (start + count > str.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = str.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = (value * 10) + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /*
+     * appends "yyyy-MM-ddTHH:mm:ss" followed by the passed UTC offset as "+HH:mm" or "+HHmm"
+     */
+    private static StringBuilder appendIso8601(StringBuilder sb, long timestampMillis, int offsetMillis,
+                                               boolean separateOffset) {
+        long localMillis = timestampMillis + offsetMillis;
+        long days = floorDiv(localMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) (localMillis - (days * MILLIS_PER_DAY));
+
+        // civil date from days since the epoch, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        int dayOfEra = (int) (z - (era * 146097));
+        int yearOfEra = (dayOfEra - (dayOfEra / 1460) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+        int dayOfYear = dayOfEra - ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+        int monthIndex = ((5 * dayOfYear) + 2) / 153;
+        int day = dayOfYear - (((153 * monthIndex) + 2) / 5) + 1;
+        int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + (era * 400) + (month <= 2 ? 1 : 0);
+
+        if (year >= 0 && year <= 9999) {
+            appendDigits(sb, (int) year, 4);
+        } else {
+            sb.append(year);
+        }
+        sb.append('-');
+        appendDigits(sb, month, 2);
+        sb.append('-');
+        appendDigits(sb, day, 2);
+        sb.append('T');
+        appendDigits(sb, (int) (millisOfDay / MILLIS_PER_HOUR), 2);
+        sb.append(':');
+        appendDigits(sb, (int) ((millisOfDay / MILLIS_PER_MINUTE) % 60), 2);
+        sb.append(':');
+        appendDigits(sb, (int) ((millisOfDay / MILLIS_PER_SECOND) % 60), 2);
+
+        int offsetMinutes = (int) (offsetMillis / MILLIS_PER_MINUTE);
+        sb.append(offsetMinutes < 0 ? '-' : '+');
+        offsetMinutes = Math.abs(offsetMinutes);
+        appendDigits(sb, offsetMinutes / 60, 2);
+        if (separateOffset) {
+            sb.append(':');
+        }
+        appendDigits(sb, offsetMinutes % 60, 2);
+        return sb;
+    }
+
+    private static void appendDigits(StringBuilder sb, int value, int count) {
+        for (int divisor = count == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            sb.append((char) ('0' + ((value / divisor) % 10)));
+        }
+    }
+
+    /*
+     * days since the epoch for the passed civil date, see http://howardhinnant.github.io/date_algorithms.html
+     */
+    private static long daysFromCivil(long year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = floorDiv(year, 400);
+        int yearOfEra = (int) (year - (era * 400));
+        int dayOfYear = (((153 * (month > 2 ? month - 3 : month + 9)) + 2) / 5) + day - 1;
+        int dayOfEra = (yearOfEra * 365) + (yearOfEra / 4) - (yearOfEra / 100) + dayOfYear;
+        return (era * 146097) + dayOfEra - 719468;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        if ((x % y != 0) && ((x < 0) != (y < 0))) {
+            result--;
+        }
+        return result;
+    }
 }
@@ -239,7 +239,7 @@ public class ImageUtils {
                 int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
                 int angle = 0;
                 if (orientation == ExifInterface.ORIENTATION_NORMAL) { // no need to rotate
-                    return BitmapFactory.decodeFile(path, bfo);
+                    return BitmapPool.decodeFile(path, bfo);
                 } else if (orientation == ExifInterface.ORIENTATION_ROTATE_90) {
                     angle = 90;
                 } else if (orientation == ExifInterface.ORIENTATION_ROTATE_180) {
@@ -252,14 +252,19 @@ public class ImageUtils {
                 mat.postRotate(angle);
 
                 try {
-                    Bitmap bmp = BitmapFactory.decodeStream(new FileInputStream(f), null, bfo);
+                    Bitmap bmp = BitmapPool.decodeFile(f.getPath(), bfo);
                     if (bmp == null) {
                         AppLog.e(AppLog.T.UTILS, "can't decode bitmap: " + f.getPath());
                         return null;
                     }
                     bitmapWidth = bmp.getWidth();
                     bitmapHeight = bmp.getHeight();
-                    return Bitmap.createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), mat, true);
+                    Bitmap rotated = Bitmap.createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), mat, true);
+                    if (rotated != bmp) {
+                        // the unrotated bitmap is no longer needed
+                        BitmapPool.put(bmp);
+                    }
+                    return rotated;
                 } catch (OutOfMemoryError oom) {
                     AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + oom);
                 }
@@ -365,9 +370,14 @@ public class ImageUtils {
 
             if (bytes != null && bytes.length > 0) {
                 try {
-                    Bitmap resizedBitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+                    Bitmap resizedBitmap = BitmapPool.decodeByteArray(bytes, 0, bytes.length,
+                            new BitmapFactory.Options());
                     if (resizedBitmap != null) {
-                        return getScaledBitmapAtLongestSide(resizedBitmap, targetWidth);
+                        Bitmap scaledBitmap = getScaledBitmapAtLongestSide(resizedBitmap, targetWidth);
+                        if (scaledBitmap != resizedBitmap) {
+                            BitmapPool.put(resizedBitmap);
+                        }
+                        return scaledBitmap;
                     }
                 } catch (OutOfMemoryError e) {
                     AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error in setting image: " + e);
@@ -401,7 +411,17 @@ public class ImageUtils {
             targetHeight = (int)(bitmap.getHeight() * percentage);
         }
 
-        return Bitmap.createScaledBitmap(bitmap, targetWidth, targetHeight, true);
+        if (!BitmapPool.isSupported()) {
+            return Bitmap.createScaledBitmap(bitmap, targetWidth, targetHeight, true);
+        }
+
+        // draw into a pooled bitmap rather than allocating a new one
+        Bitmap.Config config = bitmap.getConfig() != null ? bitmap.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap scaledBitmap = BitmapPool.get(targetWidth, targetHeight, config);
+        Canvas canvas = new Canvas(scaledBitmap);
+        canvas.drawBitmap(bitmap, null, new Rect(0, 0, targetWidth, targetHeight),
+                new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG));
+        return scaledBitmap;
     }
 
     private static boolean resizeImageAndWriteToStream(Context context,
@@ -429,11 +449,13 @@ public class ImageUtils {
 
         BitmapFactory.Options optActual = new BitmapFactory.Options();
         optActual.inSampleSize = scale;
+        optActual.outWidth = optBounds.outWidth;
+        optActual.outHeight = optBounds.outHeight;
 
         // Get the roughly resized bitmap
         final Bitmap bmpResized;
         try {
-            bmpResized = BitmapFactory.decodeFile(realFilePath, optActual);
+            bmpResized = BitmapPool.decodeFile(realFilePath, optActual);
         } catch (OutOfMemoryError e) {
             AppLog.e(AppLog.T.UTILS, "OutOfMemoryError Error while decoding the original image: " + realFilePath, e);
             throw e;
@@ -482,7 +504,12 @@ public class ImageUtils {
             throw new IOException("bmpRotated is null even if the documentation doesn't say Bitmap.createBitmap can return null.");
         }
 
-        return bmpRotated.compress(fmt, quality, outStream);
+        boolean result = bmpRotated.compress(fmt, quality, outStream);
+        if (bmpRotated != bmpResized) {
+            // the intermediate bitmap is only used here, so it can be reused by the next decode
+            BitmapPool.put(bmpResized);
+        }
+        return result;
     }
 
     /**
@@ -851,12 +878,19 @@ public class ImageUtils {
             String filepath = cursor.getString(0);
             cursor.close();
             int rotation = getExifOrientation(filepath);
-            Bitmap bitmap = MediaStore.Images.Thumbnails.getThumbnail(contentResolver, id, kind, null);
+            // decoded as mutable so the thumbnail can be returned to the BitmapPool once it's no longer used
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inMutable = true;
+            Bitmap bitmap = MediaStore.Images.Thumbnails.getThumbnail(contentResolver, id, kind, options);
 
             if (rotation != 0 && bitmap != null) {
                 Matrix matrix = new Matrix();
                 matrix.setRotate(rotation);
-                bitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+                Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+                if (rotated != bitmap) {
+                    BitmapPool.put(bitmap);
+                }
+                bitmap = rotated;
             }
 
             return bitmap;